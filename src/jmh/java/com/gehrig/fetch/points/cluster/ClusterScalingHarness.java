@@ -0,0 +1,184 @@
+package com.gehrig.fetch.points.cluster;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates clusters of 1, 2, 4... nodes on this machine, each node a separate JVM of the packaged application,
+ * and measures the write throughput each cluster sustains, demonstrating how throughput scales with nodes.
+ *
+ * Every cluster is started afresh, then held under load by a fixed number of connections per node, each posting
+ * points for random Users back to back (as PointsLoadHarness). Requests are either sent straight to the node
+ * owning their User, as by a client aware of the HashRing ("owner" routing), or to any node, which forwards
+ * those of Users it doesn't own ("any" routing, i.e. a cluster behind a plain load balancer).
+ *
+ * Nodes only scale if they don't compete for the same cores, thus each node may be pinned to cores of its own
+ * (via taskset), leaving the remaining cores to the load generator. Requires the application to be packaged, and
+ * HashRing on the class path, e.g.:
+ *
+ * 	mvn -DskipTests package
+ * 	java -cp target/classes src/jmh/java/com/gehrig/fetch/points/cluster/ClusterScalingHarness.java 4 owner 2 200 20
+ *
+ * Arguments are the maximum nodes (default 4), the routing (default owner), the cores pinned per node (default 0,
+ * i.e. unpinned), the connections per node (default 200), and the duration of each measurement in seconds (default 20).
+ */
+public class ClusterScalingHarness {
+
+	private static final Path JAR = Path.of("target", "fetch-rewards-points.jar");
+	private static final int BASE_PORT = 18080;
+	private static final int USERS = 100_000;
+	private static final int VIRTUAL_NODES = 128;
+	private static final String SECRET = "scaling-harness";
+	private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(120);
+	private static final String BODY = "{\"payer\":\"DANNON\",\"points\":10,\"date\":\"2020-11-02T14:00:00.000Z\"}";
+
+	private final HttpClient client = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.connectTimeout(Duration.ofSeconds(10))
+		.build();
+
+	public static void main(final String[] args) throws Exception {
+		final int maxNodes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+		final boolean ownerRouting = args.length <= 1 || "owner".equals(args[1]);
+		final int coresPerNode = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		final int connectionsPerNode = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+		final int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+		final ClusterScalingHarness harness = new ClusterScalingHarness();
+		System.out.printf("routing=%s coresPerNode=%d connectionsPerNode=%d seconds=%d%n",
+			ownerRouting ? "owner" : "any", coresPerNode, connectionsPerNode, seconds);
+
+		double baseline = 0d;
+		for (int nodes = 1; nodes <= maxNodes; nodes = nodes == maxNodes ? nodes + 1 : Math.min(nodes * 2, maxNodes)) {
+			final double throughput = harness.measure(nodes, ownerRouting, coresPerNode, connectionsPerNode, seconds);
+			baseline = nodes == 1 ? throughput : baseline;
+			System.out.printf("nodes=%d throughput=%.0f/s speedup=%.2fx efficiency=%.0f%%%n",
+				nodes, throughput, throughput / baseline, 100d * throughput / (baseline * nodes));
+		}
+	}
+
+	private double measure(final int nodes, final boolean ownerRouting, final int coresPerNode, final int connectionsPerNode,
+		final int seconds) throws Exception {
+		final List<String> urls = new ArrayList<>(nodes);
+		for (int i = 0; i < nodes; i++) {
+			urls.add("http://127.0.0.1:" + (BASE_PORT + i));
+		}
+
+		final List<Process> processes = new ArrayList<>(nodes);
+		try {
+			for (int i = 0; i < nodes; i++) {
+				processes.add(start(urls.get(i), urls, i, coresPerNode));
+			}
+			for (final String url : urls) {
+				this.awaitHealthy(url);
+			}
+
+			final HashRing ring = new HashRing(urls, VIRTUAL_NODES);
+			// A warmup of its own, so that each cluster is measured once compiled
+			this.load(urls, ring, ownerRouting, connectionsPerNode * nodes, Math.max(1, seconds / 2));
+			return this.load(urls, ring, ownerRouting, connectionsPerNode * nodes, seconds);
+		} finally {
+			for (final Process process : processes) {
+				process.destroy();
+			}
+			for (final Process process : processes) {
+				process.waitFor(30, TimeUnit.SECONDS);
+			}
+		}
+	}
+
+	private static Process start(final String self, final List<String> urls, final int node, final int coresPerNode) throws IOException {
+		final List<String> command = new ArrayList<>();
+		if (coresPerNode > 0) {
+			command.addAll(List.of("taskset", "-c", (node * coresPerNode) + "-" + (node * coresPerNode + coresPerNode - 1)));
+		}
+		command.addAll(List.of(
+			Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+			"-jar", JAR.toString(),
+			"--server.port=" + URI.create(self).getPort(),
+			"--points.cluster.enabled=true",
+			"--points.cluster.self=" + self,
+			"--points.cluster.nodes=" + String.join(",", urls),
+			"--points.cluster.virtual-nodes=" + VIRTUAL_NODES,
+			"--points.cluster.secret=" + SECRET,
+			"--points.logging.audit-sample-rate=0"
+		));
+		return new ProcessBuilder(command)
+			.redirectErrorStream(true)
+			.redirectOutput(new File("target", "cluster-node-" + node + ".log"))
+			.start();
+	}
+
+	private void awaitHealthy(final String url) throws InterruptedException {
+		final long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+		final HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/actuator/health")).build();
+		while (System.nanoTime() < deadline) {
+			try {
+				if (this.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+					return;
+				}
+			} catch (IOException e) {
+				// Not yet listening
+			}
+			Thread.sleep(250L);
+		}
+		throw new IllegalStateException("Node " + url + " failed to start, see its log under target");
+	}
+
+	// Holds the given connections under load until the deadline, returning the successful requests per second
+	private double load(final List<String> urls, final HashRing ring, final boolean ownerRouting, final int connections,
+		final int seconds) throws InterruptedException {
+		final long start = System.nanoTime();
+		final long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+		final AtomicLong succeeded = new AtomicLong();
+		final AtomicLong failed = new AtomicLong();
+		final CountDownLatch finished = new CountDownLatch(connections);
+		for (int i = 0; i < connections; i++) {
+			this.post(urls, ring, ownerRouting, i, deadline, succeeded, failed, finished);
+		}
+		finished.await();
+
+		if (failed.get() > 0L) {
+			System.out.printf("  nodes=%d failed=%d%n", urls.size(), failed.get());
+		}
+		return succeeded.get() / ((System.nanoTime() - start) / 1e9d);
+	}
+
+	// Each connection posts its next request as soon as its previous response arrives, until the deadline
+	private void post(final List<String> urls, final HashRing ring, final boolean ownerRouting, final int connection, final long deadline,
+		final AtomicLong succeeded, final AtomicLong failed, final CountDownLatch finished) {
+		if (System.nanoTime() >= deadline) {
+			finished.countDown();
+			return;
+		}
+
+		final String user = "load-" + ThreadLocalRandom.current().nextInt(USERS);
+		final String url = ownerRouting ? ring.ownerOf(user) : urls.get(connection % urls.size());
+		final HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/user/" + user + "/points"))
+			.timeout(Duration.ofSeconds(60))
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString(BODY))
+			.build();
+
+		this.client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+			if (failure == null && response.statusCode() == 200) {
+				succeeded.incrementAndGet();
+			} else {
+				failed.incrementAndGet();
+			}
+			this.post(urls, ring, ownerRouting, connection, deadline, succeeded, failed, finished);
+		});
+	}
+}
@@ -0,0 +1,45 @@
+package com.gehrig.fetch.points.configuration;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing each supported date shape with the single-pass parser versus the chain of DateTimeFormatters,
+ * the latter of which throws and catches an exception for every formatter tried before the one that matches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ZonedDateTimeDeserializerBenchmark {
+
+	@Param({
+		"2020-11-02T14:00:00.000Z",
+		"2020-11-02T14:00:00.000America/Chicago",
+		"2020-11-02T14:00:00+01:00",
+		"2020-11-02T14:00:00",
+		"2020-11-02",
+	})
+	public String date;
+
+	private char[] characters;
+
+	@Setup
+	public void setUp() {
+		this.characters = this.date.toCharArray();
+	}
+
+	@Benchmark
+	public ZonedDateTime singlePass() {
+		return ZonedDateTimeParser.parse(this.characters, 0, this.characters.length);
+	}
+
+	@Benchmark
+	public ZonedDateTime formatters() {
+		return ZonedDateTimeDeserializer.parseWithFormatters(this.date);
+	}
+}
@@ -0,0 +1,115 @@
+package com.gehrig.fetch.points.domain;
+
+import com.gehrig.fetch.points.metrics.MicrometerLedgerMetrics;
+import com.gehrig.fetch.points.storage.DirectPageArena;
+import com.gehrig.fetch.points.storage.MappedPageArena;
+import com.gehrig.fetch.points.storage.PagedLedgerStorage;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Single threaded add, spend, and balance operations against a pre-populated User ledger.
+ *
+ * Ledgers are rebuilt every iteration, and the spend benchmarks refill whatever they
+ * deduct, so the number of outstanding events stays near the configured size.
+ * Operations may be recorded by Prometheus backed LedgerMetrics, to gauge the cost of instrumentation.
+ * Events are held by any storage engine, i.e. on the heap, within memory-mapped files, or within native memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class UserPointsBenchmark {
+
+	private static final long EVENT_POINTS = 10L;
+	private static final int EVENTS_PER_SPEND = 3;
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int events;
+
+	@Param({"1", "100", "10000"})
+	public int payers;
+
+	@Param({"none", "prometheus"})
+	public String metrics;
+
+	@Param({"heap", "mapped", "off-heap"})
+	public String storage;
+
+	private PagedLedgerStorage pagedStorage;
+	private UserPoints userPoints;
+	private String[] payerNames;
+	private long epoch;
+
+	@Setup(Level.Iteration)
+	public void setUp() throws IOException {
+		switch (this.storage) {
+			case "mapped":
+				this.pagedStorage = new PagedLedgerStorage(new MappedPageArena(Files.createTempDirectory("benchmark-events"), 64 * 1024 * 1024));
+				break;
+			case "off-heap":
+				this.pagedStorage = new PagedLedgerStorage(new DirectPageArena(64 * 1024 * 1024));
+				break;
+			default:
+				this.pagedStorage = null;
+		}
+		this.userPoints = new UserPoints("benchmark", LedgerContext.DEFAULT
+			.withMetrics("none".equals(this.metrics)
+				? LedgerMetrics.NONE
+				: new MicrometerLedgerMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)))
+			.withStorage(this.pagedStorage == null ? LedgerStorage.HEAP : this.pagedStorage));
+		this.payerNames = IntStream.range(0, this.payers).mapToObj(i -> "PAYER-" + i).toArray(String[]::new);
+		this.epoch = 0L;
+
+		for (int i = 0; i < this.events; i++) {
+			this.userPoints.addPoints(this.nextEvent(EVENT_POINTS));
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() throws IOException {
+		if (this.pagedStorage != null) {
+			this.pagedStorage.close();
+		}
+	}
+
+	@Benchmark
+	public void addPoints() {
+		this.userPoints.addPoints(this.nextEvent(EVENT_POINTS));
+	}
+
+	@Benchmark
+	public List<PointEvent> spendPoints() {
+		for (int i = 0; i < EVENTS_PER_SPEND; i++) {
+			this.userPoints.addPoints(this.nextEvent(EVENT_POINTS));
+		}
+		return this.userPoints.deletePoints(EVENT_POINTS * EVENTS_PER_SPEND);
+	}
+
+	@Benchmark
+	public void spendPayerPoints() {
+		// Negative additions consume the payers oldest event, the positive addition replaces it
+		final PointEvent refill = this.nextEvent(EVENT_POINTS);
+		this.userPoints.addPoints(refill);
+		this.userPoints.addPoints(new PointEvent(refill.getPayer(), -EVENT_POINTS, this.epoch++, 0, PointEventSequence.next()));
+	}
+
+	@Benchmark
+	public List<PointEvent> getPoints() {
+		return this.userPoints.getPoints();
+	}
+
+	private PointEvent nextEvent(final long points) {
+		final String payer = this.payerNames[(int) (this.epoch % this.payers)];
+		return new PointEvent(payer, points, this.epoch++, 0, PointEventSequence.next());
+	}
+}
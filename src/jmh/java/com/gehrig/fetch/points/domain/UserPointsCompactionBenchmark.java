@@ -0,0 +1,57 @@
+package com.gehrig.fetch.points.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single large spend from a User whose receipts arrive in runs from the same payer, with and without compaction.
+ *
+ * Each iteration rebuilds the ledger then times one spend. Compacted Users hold one entry per run rather than
+ * per event, thus spends reporting every event deducted from walk each run's array rather than a tree node per
+ * event (though they report exactly the same events). Spends reporting solely the points deducted from each
+ * payer already cost O(payers), compacted or not.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class UserPointsCompactionBenchmark {
+
+	private static final long EVENT_POINTS = 2L;
+	private static final int PAYERS = 5;
+
+	@Param({"500000"})
+	public int events;
+
+	// Consecutive events from a single payer, e.g. a days receipts
+	@Param({"40"})
+	public int runLength;
+
+	@Param({"false", "true"})
+	public boolean compact;
+
+	private UserPoints userPoints;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		final LedgerStorage storage = this.compact ? LedgerStorage.COMPACTED_HEAP : LedgerStorage.HEAP;
+		this.userPoints = new UserPoints("benchmark", LedgerContext.DEFAULT.withStorage(storage));
+		for (int i = 0; i < this.events; i++) {
+			this.userPoints.addPoints(new PointEvent("PAYER-" + (i / this.runLength % PAYERS), EVENT_POINTS, i, 0, PointEventSequence.next()));
+		}
+	}
+
+	@Benchmark
+	public List<PointEvent> deletePoints() {
+		return this.userPoints.deletePoints(this.events * EVENT_POINTS / 2);
+	}
+
+	@Benchmark
+	public PayerDeductions deletePointsByPayer() {
+		return this.userPoints.deletePointsByPayer(this.events * EVENT_POINTS / 2);
+	}
+}
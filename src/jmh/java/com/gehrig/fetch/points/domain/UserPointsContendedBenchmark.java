@@ -0,0 +1,70 @@
+package com.gehrig.fetch.points.domain;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent adds, spends, and balance reads against a single User, i.e. a hot User.
+ *
+ * JMH reports each group member separately, so reader latency can be compared
+ * against writer latency as contention on the ledger changes.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Group)
+public class UserPointsContendedBenchmark {
+
+	private static final long EVENT_POINTS = 10L;
+	private static final int INITIAL_EVENTS = 10_000;
+
+	@Param({"1", "100"})
+	public int payers;
+
+	private final AtomicLong epoch = new AtomicLong();
+	private UserPoints userPoints;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		this.userPoints = new UserPoints("benchmark");
+		this.epoch.set(0L);
+
+		for (int i = 0; i < INITIAL_EVENTS; i++) {
+			this.userPoints.addPoints(this.nextEvent());
+		}
+	}
+
+	@Benchmark
+	@Group("ledger")
+	@GroupThreads(2)
+	public void add() {
+		this.userPoints.addPoints(this.nextEvent());
+	}
+
+	@Benchmark
+	@Group("ledger")
+	@GroupThreads(2)
+	public List<PointEvent> spend() {
+		// Spenders refill what they deduct so they never exhaust the ledger ahead of adders
+		this.userPoints.addPoints(this.nextEvent());
+		return this.userPoints.deletePoints(EVENT_POINTS);
+	}
+
+	@Benchmark
+	@Group("ledger")
+	@GroupThreads(4)
+	public void balance(final Blackhole blackhole) {
+		blackhole.consume(this.userPoints.getPoints());
+	}
+
+	private PointEvent nextEvent() {
+		final long epoch = this.epoch.getAndIncrement();
+		return new PointEvent("PAYER-" + (epoch % this.payers), EVENT_POINTS, epoch, 0, PointEventSequence.next());
+	}
+}
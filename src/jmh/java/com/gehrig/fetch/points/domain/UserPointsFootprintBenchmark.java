@@ -0,0 +1,67 @@
+package com.gehrig.fetch.points.domain;
+
+import com.gehrig.fetch.points.storage.DirectPageArena;
+import com.gehrig.fetch.points.storage.PagedLedgerStorage;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Heap retained per outstanding event, by storage engine, alongside the time taken to fill a User.
+ *
+ * Each invocation fills a fresh User, whose retained heap is measured (following a full GC) while it's still
+ * reachable. Results are reported by the heapBytesPerEvent counter, rather than the score, which is merely the fill time.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class UserPointsFootprintBenchmark {
+
+	@Param({"1000000"})
+	public int events;
+
+	@Param({"100"})
+	public int payers;
+
+	@Param({"heap", "off-heap"})
+	public String storage;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		public double heapBytesPerEvent;
+	}
+
+	private String[] payerNames;
+
+	@Setup
+	public void setUp() {
+		this.payerNames = IntStream.range(0, this.payers).mapToObj(i -> "PAYER-" + i).toArray(String[]::new);
+	}
+
+	@Benchmark
+	public UserPoints fill(final Footprint footprint) {
+		final long before = usedHeap();
+		final UserPoints userPoints = new UserPoints("benchmark", LedgerContext.DEFAULT.withStorage("heap".equals(this.storage)
+			? LedgerStorage.HEAP
+			: new PagedLedgerStorage(new DirectPageArena(64 * 1024 * 1024))));
+
+		for (int i = 0; i < this.events; i++) {
+			userPoints.addPoints(new PointEvent(this.payerNames[i % this.payers], 10L, i, 0, PointEventSequence.next()));
+		}
+
+		footprint.heapBytesPerEvent = (double) (usedHeap() - before) / this.events;
+		return userPoints;
+	}
+
+	private static long usedHeap() {
+		System.gc();
+		System.gc();
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,54 @@
+package com.gehrig.fetch.points.domain;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single large spend, consuming a sizable prefix of a User with many small receipts.
+ *
+ * Each iteration rebuilds the ledger then times one spend, i.e. the time the Users lock is held,
+ * which is dominated by how the store finds and drops the consumed events rather than vetting.
+ * Spends either report every event deducted from, or solely the points deducted from each payer.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class UserPointsLargeSpendBenchmark {
+
+	private static final long EVENT_POINTS = 2L;
+
+	@Param({"500000"})
+	public int events;
+
+	@Param({"5", "1000"})
+	public int payers;
+
+	// Percentage of the Users points spent
+	@Param({"50", "100"})
+	public int spendPercent;
+
+	private UserPoints userPoints;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		this.userPoints = new UserPoints("benchmark");
+		for (int i = 0; i < this.events; i++) {
+			this.userPoints.addPoints(new PointEvent("PAYER-" + (i % this.payers), EVENT_POINTS, i, 0, PointEventSequence.next()));
+		}
+	}
+
+	@Benchmark
+	public List<PointEvent> deletePoints() {
+		return this.userPoints.deletePoints(this.events * EVENT_POINTS * this.spendPercent / 100);
+	}
+
+	@Benchmark
+	public PayerDeductions deletePointsByPayer() {
+		return this.userPoints.deletePointsByPayer(this.events * EVENT_POINTS * this.spendPercent / 100);
+	}
+}
@@ -0,0 +1,87 @@
+package com.gehrig.fetch.points.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.gehrig.fetch.points.configuration.JacksonConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Jackson round-trips of the request and response DTOs, using the applications JsonMapper.
+ *
+ * ResponsePoint is only ever written by this application, so only its serialization is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoSerializationBenchmark {
+
+	private static final JsonMapper JSON_MAPPER = new JacksonConfig().jsonMapper();
+
+	@State(Scope.Benchmark)
+	public static class Addition {
+
+		@Param({
+			"",
+			"2020-11-02T14:00:00.000Z",
+			"2020-11-02T14:00:00",
+			"2020-11-02",
+		})
+		public String date;
+
+		private ObjectReader reader;
+		private ObjectWriter writer;
+		private String json;
+
+		@Setup
+		public void setUp() {
+			this.reader = JSON_MAPPER.readerFor(RequestPointAddition.class);
+			this.writer = JSON_MAPPER.writerFor(RequestPointAddition.class);
+			this.json = this.date.isEmpty()
+				? "{\"payer\":\"DANNON\",\"points\":300}"
+				: "{\"payer\":\"DANNON\",\"points\":300,\"date\":\"" + this.date + "\"}";
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Response {
+
+		@Param({"1", "100", "10000"})
+		public int payers;
+
+		private ObjectWriter writer;
+		private List<ResponsePoint> points;
+
+		@Setup
+		public void setUp() {
+			this.writer = JSON_MAPPER.writerFor(JSON_MAPPER.getTypeFactory().constructCollectionType(List.class, ResponsePoint.class));
+			this.points = IntStream.range(0, this.payers)
+				.mapToObj(i -> new ResponsePoint("PAYER-" + i, (long) i))
+				.collect(Collectors.toList());
+		}
+	}
+
+	@Benchmark
+	public RequestPointAddition readAddition(final Addition addition) throws JsonProcessingException {
+		return addition.reader.readValue(addition.json);
+	}
+
+	@Benchmark
+	public RequestPointAddition roundTripAddition(final Addition addition) throws JsonProcessingException {
+		final RequestPointAddition read = addition.reader.readValue(addition.json);
+		return addition.reader.readValue(addition.writer.writeValueAsString(read));
+	}
+
+	@Benchmark
+	public String writeResponse(final Response response) throws JsonProcessingException {
+		return response.writer.writeValueAsString(response.points);
+	}
+}
@@ -0,0 +1,77 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.LedgerContext;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import com.gehrig.fetch.points.domain.UserPoints;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durable additions, i.e. journaling to the write-ahead log then awaiting its group commit.
+ *
+ * Each thread writes to its own User, thus latency reflects the log rather than User contention.
+ * Compare sample percentiles across thread counts (-t) to observe fsync's amortized across batches.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class PointEventLogBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Log {
+
+		@Param({"true", "false"})
+		public boolean fsync;
+
+		@Param({"0", "200"})
+		public long maxBatchDelayMicros;
+
+		private Path directory;
+		private PointEventLog log;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			this.directory = Files.createTempDirectory("point-event-log-benchmark");
+			this.log = new PointEventLog(this.directory, 64 * 1024 * 1024, this.fsync, Duration.ofNanos(this.maxBatchDelayMicros * 1_000));
+			this.log.recover(r -> {});
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			this.log.close();
+			try (Stream<Path> paths = Files.walk(this.directory)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class User {
+
+		private UserPoints userPoints;
+		private long epoch;
+
+		@Setup(Level.Iteration)
+		public void setUp(final Log log) {
+			this.userPoints = new UserPoints(UUID.randomUUID().toString(), LedgerContext.DEFAULT.withJournal(log.log));
+		}
+	}
+
+	@Benchmark
+	public void addPointsDurably(final Log log, final User user) {
+		user.userPoints.addPoints(new PointEvent("DANNON", 10L, user.epoch++, 0, PointEventSequence.next()));
+		log.log.sync();
+	}
+}
@@ -0,0 +1,76 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.LedgerContext;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import com.gehrig.fetch.points.domain.UserPoints;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Writing and loading snapshots of many Users, i.e. the cost of a periodic snapshot and of a restart.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class SnapshotStoreBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Users {
+
+		@Param({"100000", "1000000"})
+		public int users;
+
+		@Param({"10"})
+		public int eventsPerUser;
+
+		private final List<UserPoints> userPoints = new ArrayList<>();
+		private Path directory;
+		private SnapshotStore store;
+		private long lsn;
+
+		@Setup(Level.Trial)
+		public void setUp() throws IOException {
+			for (int i = 0; i < this.users; i++) {
+				final var user = new UserPoints("user-" + i);
+				for (int j = 0; j < this.eventsPerUser; j++) {
+					user.addPoints(new PointEvent("PAYER-" + (j % 3), 10L, (long) j, 0, PointEventSequence.next()));
+				}
+				this.userPoints.add(user);
+			}
+
+			this.directory = Files.createTempDirectory("snapshot-store-benchmark");
+			this.store = new SnapshotStore(this.directory, 64 * 1024 * 1024, 1);
+			this.store.write(++this.lsn, this.userPoints.stream().map(UserPoints::capture).iterator(), () -> {});
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() throws IOException {
+			try (Stream<Path> paths = Files.walk(this.directory)) {
+				paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+			}
+		}
+	}
+
+	@Benchmark
+	public long write(final Users users) throws IOException {
+		return users.store.write(++users.lsn, users.userPoints.stream().map(UserPoints::capture).iterator(), () -> {});
+	}
+
+	@Benchmark
+	public long load(final Users users) throws IOException {
+		final List<UserPoints> restored = new ArrayList<>(users.users);
+		users.store.load(state -> restored.add(UserPoints.restore(state, LedgerContext.DEFAULT)));
+		return restored.size();
+	}
+}
@@ -0,0 +1,72 @@
+package com.gehrig.fetch.points.service;
+
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent writes through the UserPointsService, skewed towards a handful of hot Users.
+ *
+ * Compares the locked execution mode, where writers contend for hot Users locks, against the
+ * sharded mode, where hot Users writes are queued to their owning shard. Sampled, so the tail
+ * of each modes latency distribution can be compared rather than merely its mean.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(8)
+@State(Scope.Benchmark)
+public class UserPointsServiceSkewedBenchmark {
+
+	private static final int USERS = 10_000;
+	private static final int HOT_USERS = 4;
+	private static final long EVENT_POINTS = 10L;
+
+	@Param({"locked", "sharded"})
+	public String mode;
+
+	// Percentage of writes made to the hot Users
+	@Param({"50", "90"})
+	public int hotPercent;
+
+	private UserShards shards;
+	private UserPointsService service;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		this.shards = this.mode.equals("sharded") ? new UserShards(0) : null;
+		this.service = new UserPointsService(
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.ofNullable(this.shards)
+		);
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		if (this.shards != null) {
+			this.shards.close();
+		}
+	}
+
+	@Benchmark
+	public void addPoints() {
+		final ThreadLocalRandom random = ThreadLocalRandom.current();
+		final String user = random.nextInt(100) < this.hotPercent
+			? "hot-" + random.nextInt(HOT_USERS)
+			: "user-" + random.nextInt(USERS);
+		this.service.addPoints(user, new PointEvent("DANNON", EVENT_POINTS, System.currentTimeMillis(), 0, PointEventSequence.next()));
+	}
+}
@@ -0,0 +1,111 @@
+package com.gehrig.fetch.points.web;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Holds a fixed number of connections open against a running server, each posting points back to back.
+ *
+ * Unlike the JMH benchmarks this measures the server as deployed, i.e. including Tomcat's connector
+ * and request threads, so it demonstrates how many concurrent requests a configuration sustains.
+ * Writes are slowest when persistence lingers to batch fsync's (points.persistence.max-batch-delay),
+ * in which case a thread-per-request server saturates at (request threads / delay) requests per second,
+ * whereas the virtual-threads profile scales with connections instead.
+ *
+ * Depends solely on the JDK, thus it may be launched straight from source against a server started elsewhere:
+ *
+ * 	java src/jmh/java/com/gehrig/fetch/points/web/PointsLoadHarness.java http://127.0.0.1:8080 2000 30
+ *
+ * Arguments are the server URL, the number of connections (default 1000), and the duration in seconds (default 30).
+ */
+public class PointsLoadHarness {
+
+	private static final int USERS = 10_000;
+	private static final int MAX_LATENCY_MILLIS = 60_000;
+	private static final String BODY = "{\"payer\":\"DANNON\",\"points\":10,\"date\":\"2020-11-02T14:00:00.000Z\"}";
+
+	private final HttpClient client = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_1_1)
+		.connectTimeout(Duration.ofSeconds(10))
+		.build();
+	private final String url;
+	private final long deadline;
+	private final AtomicLong succeeded = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	// Latencies by the millisecond, the final bucket holding every latency beyond
+	private final AtomicLongArray latencies = new AtomicLongArray(MAX_LATENCY_MILLIS + 1);
+
+	private PointsLoadHarness(final String url, final long deadline) {
+		this.url = url;
+		this.deadline = deadline;
+	}
+
+	public static void main(final String[] args) throws InterruptedException {
+		final String url = args.length > 0 ? args[0] : "http://127.0.0.1:8080";
+		final int connections = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+		final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+		final long start = System.nanoTime();
+		final PointsLoadHarness harness = new PointsLoadHarness(url, start + TimeUnit.SECONDS.toNanos(seconds));
+		final CountDownLatch finished = new CountDownLatch(connections);
+		for (int i = 0; i < connections; i++) {
+			harness.post(i, finished);
+		}
+		finished.await();
+
+		harness.report(connections, (System.nanoTime() - start) / 1e9d);
+	}
+
+	// Each connection posts its next request as soon as its previous response arrives, until the deadline
+	private void post(final int connection, final CountDownLatch finished) {
+		if (System.nanoTime() >= this.deadline) {
+			finished.countDown();
+			return;
+		}
+
+		final HttpRequest request = HttpRequest.newBuilder(URI.create(this.url + "/user/load-" + (connection % USERS) + "/points"))
+			.timeout(Duration.ofSeconds(MAX_LATENCY_MILLIS / 1_000))
+			.header("Content-Type", "application/json")
+			.POST(HttpRequest.BodyPublishers.ofString(BODY))
+			.build();
+		final long sent = System.nanoTime();
+
+		this.client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+			if (failure == null && response.statusCode() == 200) {
+				final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sent);
+				this.latencies.incrementAndGet((int) Math.min(millis, MAX_LATENCY_MILLIS));
+				this.succeeded.incrementAndGet();
+			} else {
+				this.failed.incrementAndGet();
+			}
+			this.post(connection, finished);
+		});
+	}
+
+	private void report(final int connections, final double seconds) {
+		final long succeeded = this.succeeded.get();
+		System.out.printf("connections=%d seconds=%.1f succeeded=%d failed=%d throughput=%.0f/s%n",
+			connections, seconds, succeeded, this.failed.get(), succeeded / seconds);
+		System.out.printf("latency p50=%dms p99=%dms p99.9=%dms max=%dms%n",
+			this.percentile(succeeded, 0.5d), this.percentile(succeeded, 0.99d), this.percentile(succeeded, 0.999d), this.percentile(succeeded, 1d));
+	}
+
+	private long percentile(final long count, final double percentile) {
+		final long rank = (long) Math.ceil(count * percentile);
+		long seen = 0L;
+		for (int millis = 0; millis < this.latencies.length(); millis++) {
+			seen += this.latencies.get(millis);
+			if (seen >= rank && seen > 0L) {
+				return millis;
+			}
+		}
+		return 0L;
+	}
+}
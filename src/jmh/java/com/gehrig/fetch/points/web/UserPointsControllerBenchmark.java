@@ -0,0 +1,114 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.configuration.ImportProperties;
+import com.gehrig.fetch.points.configuration.JacksonConfig;
+import com.gehrig.fetch.points.service.UserPointsImporter;
+import com.gehrig.fetch.points.service.UserPointsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import javax.validation.Validation;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+
+/**
+ * Requests dispatched through Spring MVC to the UserPointsController, sans network.
+ *
+ * This approximates the per-request overhead of the REST layer (routing, message
+ * conversion, and validation) on top of the ledger operations benchmarked elsewhere.
+ * Writes are asynchronous, thus their cost includes that of dispatching their result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class UserPointsControllerBenchmark {
+
+	private static final String URI = "/user/benchmark/points";
+	private static final String BATCH_URI = "/user/points/batch";
+	private static final int BATCH_SIZE = 1_000;
+
+	private MockMvc mockMvc;
+	private String batch;
+
+	@Setup(Level.Iteration)
+	public void setUp() throws Exception {
+		final var service = new UserPointsService();
+		final var validator = Validation.buildDefaultValidatorFactory().getValidator();
+		final var jsonMapper = new JacksonConfig().jsonMapper();
+		final var importer = new UserPointsImporter(service, jsonMapper, validator, new ImportProperties());
+		this.mockMvc = MockMvcBuilders.standaloneSetup(new UserPointsController(service, importer, validator))
+			.setMessageConverters(new MappingJackson2HttpMessageConverter(jsonMapper))
+			.build();
+
+		// Additions spread across 100 Users, i.e. 10 additions per User
+		this.batch = IntStream.range(0, BATCH_SIZE)
+			.mapToObj(i -> "{\"user\":\"batch-%d\",\"payer\":\"DANNON\",\"points\":10,\"date\":\"2020-11-02T14:00:00.000Z\"}".formatted(i % 100))
+			.collect(Collectors.joining(",", "{\"additions\":[", "]}"));
+
+		// Seed a modest balance so spends have something to deduct from
+		for (int i = 0; i < 1_000; i++) {
+			this.postPoints();
+		}
+	}
+
+	@Benchmark
+	public int postPoints() throws Exception {
+		return this.perform(
+			MockMvcRequestBuilders.post(URI)
+				.content("{\"payer\":\"DANNON\",\"points\":10,\"date\":\"2020-11-02T14:00:00.000Z\"}")
+				.contentType(MediaType.APPLICATION_JSON))
+			.getResponse()
+			.getStatus();
+	}
+
+	/**
+	 * Comparable to postPoints, as the score is normalized per addition.
+	 */
+	@Benchmark
+	@OperationsPerInvocation(BATCH_SIZE)
+	public int postPointsBatch() throws Exception {
+		return this.perform(
+			MockMvcRequestBuilders.post(BATCH_URI)
+				.content(this.batch)
+				.contentType(MediaType.APPLICATION_JSON))
+			.getResponse()
+			.getStatus();
+	}
+
+	@Benchmark
+	public String getPoints() throws Exception {
+		return this.perform(MockMvcRequestBuilders.get(URI))
+			.getResponse()
+			.getContentAsString();
+	}
+
+	@Benchmark
+	public String postThenDeletePoints() throws Exception {
+		this.postPoints();
+		return this.perform(
+			MockMvcRequestBuilders.delete(URI)
+				.content("{\"points\":10}")
+				.contentType(MediaType.APPLICATION_JSON))
+			.getResponse()
+			.getContentAsString();
+	}
+
+	private MvcResult perform(final RequestBuilder request) throws Exception {
+		final MvcResult result = this.mockMvc.perform(request).andReturn();
+		return result.getRequest().isAsyncStarted()
+			? this.mockMvc.perform(asyncDispatch(result)).andReturn()
+			: result;
+	}
+}
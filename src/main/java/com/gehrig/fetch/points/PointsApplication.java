@@ -1,13 +1,66 @@
 package com.gehrig.fetch.points;
 
+import com.gehrig.fetch.points.persistence.PointEventLog;
+import com.gehrig.fetch.points.service.ImportSummary;
+import com.gehrig.fetch.points.service.UserPointsImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 @SpringBootApplication
 public class PointsApplication {
 
-	public static void main(String[] args) {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PointsApplication.class);
+	private static final String IMPORT_COMMAND = "import";
+
+	public static void main(String[] args) throws IOException {
+		if (args.length > 0 && IMPORT_COMMAND.equals(args[0])) {
+			importFiles(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+
 		SpringApplication.run(PointsApplication.class, args);
 	}
 
+	/**
+	 * Offline loader, i.e. `import [--property=value...] file.ndjson...`, which imports newline-delimited JSON
+	 * additions without starting the web server. Imported Users are persisted, and snapshot on exit, only if
+	 * persistence is enabled; they're subsequently recovered by the web server on startup.
+	 */
+	private static void importFiles(final String[] args) throws IOException {
+		final String[] files = Arrays.stream(args).filter(a -> !a.startsWith("--")).toArray(String[]::new);
+		final String[] properties = Arrays.stream(args).filter(a -> a.startsWith("--")).toArray(String[]::new);
+
+		// Devtools would otherwise relaunch main sans the import command, i.e. start the web server
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PointsApplication.class)
+			.web(WebApplicationType.NONE)
+			.run(properties)) {
+
+			if (context.getBeanProvider(PointEventLog.class).getIfAvailable() == null) {
+				LOGGER.warn("Persistence is disabled, imported points will be discarded on exit");
+			}
+
+			final UserPointsImporter importer = context.getBean(UserPointsImporter.class);
+			for (final String file : files) {
+				try (InputStream ndjson = new BufferedInputStream(Files.newInputStream(Path.of(file)), 1 << 16)) {
+					final ImportSummary summary = importer.importPoints(ndjson);
+					LOGGER.info("Imported {}: {} accepted, {} rejected", file, summary.getAccepted(), summary.getRejected());
+					summary.getErrors().forEach(error -> LOGGER.warn("Rejected {} {}", file, error));
+				}
+			}
+		}
+	}
 }
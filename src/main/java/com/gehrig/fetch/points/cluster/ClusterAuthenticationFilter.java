@@ -0,0 +1,81 @@
+package com.gehrig.fetch.points.cluster;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Tells requests sent by the nodes of a cluster apart from every other request, by the cluster's shared secret.
+ *
+ * The internal endpoints (i.e. /internal/cluster/) are refused with 403 Forbidden unless the request bears the
+ * secret. Any other request not bearing the secret is stripped of the cluster's headers before being handled,
+ * so that a client can't pass itself off as a node, e.g. to have its request applied by a node not owning its User.
+ */
+public class ClusterAuthenticationFilter extends OncePerRequestFilter {
+
+	private static final String INTERNAL_PATH = "/internal/cluster/";
+	private static final List<String> CLUSTER_HEADERS = List.of(
+		ClusterClient.FORWARDED_HEADER, ClusterClient.SECRET_HEADER, ClusterClient.NODE_HEADER
+	);
+
+	private final ClusterClient client;
+
+	public ClusterAuthenticationFilter(final ClusterClient client) {
+		this.client = client;
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain)
+		throws ServletException, IOException {
+		if (this.client.isAuthentic(request.getHeader(ClusterClient.SECRET_HEADER))) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		if (request.getRequestURI().startsWith(request.getContextPath() + INTERNAL_PATH)) {
+			response.sendError(HttpStatus.FORBIDDEN.value(), "Solely nodes of the cluster may call its internal endpoints");
+			return;
+		}
+		chain.doFilter(new ExternalRequest(request), response);
+	}
+
+	/**
+	 * A request from outside the cluster, as seen without any of the cluster's headers.
+	 */
+	private static final class ExternalRequest extends HttpServletRequestWrapper {
+
+		ExternalRequest(final HttpServletRequest request) {
+			super(request);
+		}
+
+		@Override
+		public String getHeader(final String name) {
+			return isClusterHeader(name) ? null : super.getHeader(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaders(final String name) {
+			return isClusterHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			final List<String> names = Collections.list(super.getHeaderNames());
+			names.removeIf(ExternalRequest::isClusterHeader);
+			return Collections.enumeration(names);
+		}
+
+		private static boolean isClusterHeader(final String name) {
+			return CLUSTER_HEADERS.stream().anyMatch(name::equalsIgnoreCase);
+		}
+	}
+}
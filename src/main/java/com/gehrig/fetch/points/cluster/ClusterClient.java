@@ -0,0 +1,210 @@
+package com.gehrig.fetch.points.cluster;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gehrig.fetch.points.domain.LedgerState;
+import com.gehrig.fetch.points.dto.RequestBatchPointAddition;
+import com.gehrig.fetch.points.dto.RequestPointBatch;
+import com.gehrig.fetch.points.persistence.LedgerStateCodec;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The internal RPC between the nodes of a cluster: plain HTTP/1.1 via the JDK's HttpClient, whose
+ * connections to each node are pooled and kept alive, thus a forwarded request costs a single round trip.
+ *
+ * Requests forwarded to their Users owner carry the FORWARDED_HEADER, so the owner applies them as is,
+ * rather than forwarding them again should the nodes momentarily disagree on the owner (e.g. mid rebalance).
+ *
+ * Every request between nodes carries the cluster's shared secret (SECRET_HEADER) and the sending node's URL
+ * (NODE_HEADER). Nodes solely trust the other headers of requests bearing the secret, see ClusterAuthenticationFilter.
+ */
+public class ClusterClient {
+
+	public static final String FORWARDED_HEADER = "X-Points-Forwarded";
+	public static final String SECRET_HEADER = "X-Points-Cluster-Secret";
+	public static final String NODE_HEADER = "X-Points-Cluster-Node";
+
+	private final HttpClient httpClient;
+	private final ObjectMapper objectMapper;
+	private final Duration timeout;
+	private final String self;
+	private final String secret;
+
+	/**
+	 * @param self The base URL other nodes reach this node by
+	 * @param secret The secret shared by every node of the cluster
+	 */
+	public ClusterClient(final ObjectMapper objectMapper, final Duration timeout, final String self, final String secret) {
+		this.httpClient = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(timeout)
+			.build();
+		this.objectMapper = objectMapper;
+		this.timeout = timeout;
+		this.self = self;
+		this.secret = secret;
+	}
+
+	/**
+	 * @param secret A potentially Null secret presented by a request
+	 * @return Whether the secret is the cluster's, i.e. the request was sent by a node of the cluster
+	 */
+	public boolean isAuthentic(@Nullable final String secret) {
+		// Compared in constant time, so the secret can't be guessed a byte at a time
+		return secret != null && MessageDigest.isEqual(this.secret.getBytes(StandardCharsets.UTF_8), secret.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Forward a request to the node owning its User, waiting for the owners response.
+	 * @param node The owning node
+	 * @param method The HTTP method
+	 * @param target The path and query of the request
+	 * @param contentType A potentially Null content type of the body
+	 * @param idempotencyKey A potentially Null Idempotency-Key of the request
+	 * @param body The request body, empty if none
+	 * @return The owners response
+	 * @throws IOException If the owner couldn't be reached, or didn't respond in time
+	 */
+	public HttpResponse<byte[]> forward(final String node, final String method, final String target, @Nullable final String contentType,
+		@Nullable final String idempotencyKey, final byte[] body) throws IOException {
+		final HttpRequest.Builder request = this.request(node, target)
+			.method(method, body.length == 0 ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+		if (contentType != null) {
+			request.header(HttpHeaders.CONTENT_TYPE, contentType);
+		}
+		if (idempotencyKey != null) {
+			request.header("Idempotency-Key", idempotencyKey);
+		}
+
+		try {
+			return this.httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while forwarding to " + node);
+		}
+	}
+
+	/**
+	 * Add a batch of points to Users owned by another node, see UserPointsService.addPoints(names, pointEvents).
+	 * @param node The node owning every User of the batch
+	 * @param additions The additions, each of which is valid
+	 * @return A future of the details of each rejected addition, or null for accepted additions, positionally matching additions,
+	 *         failed should the node be unreachable or answer other than one result per addition
+	 */
+	public CompletableFuture<List<String>> addPoints(final String node, final List<RequestBatchPointAddition> additions) {
+		final byte[] body;
+		try {
+			body = this.objectMapper.writeValueAsBytes(new RequestPointBatch(additions));
+		} catch (IOException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		final HttpRequest request = this.request(node, "/user/points/batch")
+			.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+			.POST(HttpRequest.BodyPublishers.ofByteArray(body))
+			.build();
+		return this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+			.thenApply(response -> this.rejections(node, response, additions.size()));
+	}
+
+	/**
+	 * Hand a User off to the node now owning it, see UserPointsService.adopt.
+	 * @param node The node now owning the User
+	 * @param state The Users state
+	 * @throws UncheckedIOException If the node couldn't be reached, or failed to adopt the User
+	 */
+	public void handOff(final String node, final LedgerState state) {
+		final HttpRequest request = this.request(node, "/internal/cluster/users")
+			.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_OCTET_STREAM_VALUE)
+			.POST(HttpRequest.BodyPublishers.ofByteArray(LedgerStateCodec.encode(state)))
+			.build();
+
+		try {
+			final HttpResponse<Void> response = this.httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+			if (response.statusCode() != 200) {
+				throw new IOException("Node " + node + " failed to adopt user " + state.getUser() + " with status " + response.statusCode());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new InterruptedIOException("Interrupted while handing off to " + node));
+		}
+	}
+
+	/**
+	 * Ask a User's former owner to hand the User off to this node now, see ClusterNode.release.
+	 * @param node The node formerly owning the User
+	 * @param user The User name
+	 * @return Whether the node is still rebalancing, i.e. it may hold other Users it no longer owns
+	 * @throws UncheckedIOException If the node couldn't be reached, or failed to hand off the User (e.g. it still owns the User)
+	 */
+	public boolean release(final String node, final String user) {
+		final HttpRequest request = this.request(node, "/internal/cluster/users/" + UriUtils.encodePathSegment(user, StandardCharsets.UTF_8) + "/release")
+			.POST(HttpRequest.BodyPublishers.noBody())
+			.build();
+
+		try {
+			final HttpResponse<byte[]> response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+			if (response.statusCode() != 200) {
+				throw new IOException("Node " + node + " failed to release user " + user + " with status " + response.statusCode());
+			}
+			return this.objectMapper.readTree(response.body()).path("rebalancing").asBoolean(true);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new InterruptedIOException("Interrupted while claiming from " + node));
+		}
+	}
+
+	private HttpRequest.Builder request(final String node, final String target) {
+		return HttpRequest.newBuilder(URI.create(node + target))
+			.timeout(this.timeout)
+			.header(FORWARDED_HEADER, "true")
+			.header(SECRET_HEADER, this.secret)
+			.header(NODE_HEADER, this.self);
+	}
+
+	// Each result of a batch response as a rejection, additions are rejected in full should the batch have failed,
+	// whereas a response not holding exactly one result per addition fails, as though the node were unreachable
+	private List<String> rejections(final String node, final HttpResponse<byte[]> response, final int additions) {
+		final List<String> rejections = new ArrayList<>(additions);
+		if (response.statusCode() != 200) {
+			final String rejection = "owning node " + node + " failed with status " + response.statusCode();
+			for (int i = 0; i < additions; i++) {
+				rejections.add(rejection);
+			}
+			return rejections;
+		}
+
+		try {
+			for (final JsonNode result : this.objectMapper.readTree(response.body()).path("results")) {
+				rejections.add(result.path("accepted").asBoolean() ? null : result.path("errors").path(0).asText());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (rejections.size() != additions) {
+			throw new UncheckedIOException(new IOException("Node " + node + " answered " + rejections.size() + " results for " + additions + " additions"));
+		}
+		return rejections;
+	}
+}
@@ -0,0 +1,274 @@
+package com.gehrig.fetch.points.cluster;
+
+import com.gehrig.fetch.points.domain.LedgerState;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.dto.RequestBatchPointAddition;
+import com.gehrig.fetch.points.exception.OwnedUserException;
+import com.gehrig.fetch.points.exception.UnknownNodeException;
+import com.gehrig.fetch.points.service.UserPointsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This nodes view of a cluster, across which Users are partitioned by a HashRing.
+ *
+ * Each User is owned by exactly one node, which alone holds and writes the User, thus the single writer per User
+ * (and its lock) remains the unit of consistency, and a Users writes never coordinate across nodes. Requests for
+ * Users owned elsewhere are forwarded to their owner, see ClusterForwardingFilter. A forwarded request is applied
+ * as is by a node owning its User, whereas a node which doesn't own it (i.e. the nodes disagree mid rebalance)
+ * refuses the request rather than forwarding it once more, so requests never bounce between nodes.
+ *
+ * Membership is static, as configured, until this node is told of nodes joining or leaving, see rebalance.
+ * Users are solely adopted from nodes of the cluster, including those which left it by the latest rebalance.
+ * A User newly owned by this node is claimed from its former owner before being served, see claim.
+ */
+public class ClusterNode {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClusterNode.class);
+
+	private final String self;
+	private final int virtualNodes;
+	private final UserPointsService userPointsService;
+	private final ClusterClient client;
+	private volatile HashRing ring;
+	// The ring before the cluster's membership last changed, whose owners may still be handing off Users, if any
+	private volatile HashRing formerRing;
+	// Former owners known to have handed off every User they no longer own, which needn't be asked for Users anymore
+	private final Set<String> drained = ConcurrentHashMap.newKeySet();
+	// Whether this node may still hold Users it no longer owns, i.e. it's handing them off
+	private volatile boolean rebalancing;
+
+	/**
+	 * @param self The base URL other nodes reach this node by, e.g. http://10.0.0.1:8080
+	 * @param nodes The base URL of every node of the cluster, this node is included should it be absent
+	 * @param virtualNodes The number of points each node is placed at, see HashRing
+	 */
+	public ClusterNode(final String self, final List<String> nodes, final int virtualNodes, final UserPointsService userPointsService,
+		final ClusterClient client) {
+		this.self = self;
+		this.virtualNodes = virtualNodes;
+		this.userPointsService = userPointsService;
+		this.client = client;
+
+		final List<String> members = new ArrayList<>(nodes);
+		members.add(self);
+		this.ring = new HashRing(members, virtualNodes);
+
+		// This node may be joining the cluster, thus until told otherwise every other node may hold its Users
+		members.removeIf(self::equals);
+		this.formerRing = members.isEmpty() ? null : new HashRing(members, virtualNodes);
+	}
+
+	public String getSelf() {
+		return this.self;
+	}
+
+	/**
+	 * @return Every node of the cluster, ordered
+	 */
+	public List<String> getNodes() {
+		return this.ring.getNodes();
+	}
+
+	/**
+	 * @param user A User name
+	 * @return The base URL of the node owning the User
+	 */
+	public String ownerOf(final String user) {
+		return this.ring.ownerOf(user);
+	}
+
+	/**
+	 * @param user A User name
+	 * @return Whether the User is owned by this node
+	 */
+	public boolean isLocal(final String user) {
+		return this.self.equals(this.ring.ownerOf(user));
+	}
+
+	public ClusterClient getClient() {
+		return this.client;
+	}
+
+	/**
+	 * Adopt a User handed off by another node, see UserPointsService.adopt.
+	 * @param node The base URL of the node handing off the User
+	 * @param state The Users state
+	 * @throws UnknownNodeException If the node isn't (nor was just before its latest rebalance) a member of the cluster
+	 */
+	public void adopt(final String node, final LedgerState state) {
+		final HashRing formerRing = this.formerRing;
+		if (this.self.equals(node) || !(this.ring.getNodes().contains(node) || formerRing != null && formerRing.getNodes().contains(node))) {
+			throw new UnknownNodeException("Node " + node + " isn't a member of the cluster");
+		}
+		this.userPointsService.adopt(state);
+	}
+
+	/**
+	 * Ensure a User owned by this node isn't held by its former owner, having it handed off now should the former
+	 * owners rebalance not yet have done so. Otherwise the User would be briefly unknown here, answering reads as
+	 * though it had no points, and refusing deductions. Former owners having finished their rebalance aren't asked,
+	 * nor are those which left the cluster and can't be reached, as a node is only stopped once it has left.
+	 *
+	 * @param user A User name owned by this node
+	 * @return Whether the User may be served here, false should its former owner be unreachable, or yet to be told of
+	 *         the membership moving the User here, in which case the request should be retried shortly
+	 */
+	public boolean claim(final String user) {
+		final HashRing formerRing = this.formerRing;
+		final String former = formerRing == null ? this.self : formerRing.ownerOf(user);
+		if (this.self.equals(former) || this.drained.contains(former)) {
+			return true;
+		}
+
+		boolean rebalancing = false;
+		try {
+			rebalancing = this.client.release(former, user);
+		} catch (UncheckedIOException e) {
+			if (this.ring.getNodes().contains(former)) {
+				LOGGER.warn("Failed to claim user {} from node {}", user, former, e);
+				return false;
+			}
+		}
+		if (!rebalancing && this.formerRing == formerRing) {
+			this.drained.add(former);
+		}
+		return true;
+	}
+
+	/**
+	 * Hand off a single User this node no longer owns to its owner, as asked by the owner, see claim.
+	 * @param user A User name
+	 * @return Whether the User was handed off, rather than not held here (e.g. already handed off)
+	 * @throws OwnedUserException If this node still owns the User, having yet to be told of the latest membership
+	 * @throws UncheckedIOException If the User couldn't be handed off, which remains held here
+	 */
+	public boolean release(final String user) {
+		final String owner = this.ownerOf(user);
+		if (this.self.equals(owner)) {
+			throw new OwnedUserException("User " + user + " is owned by node " + this.self);
+		}
+		return this.userPointsService.handOff(user, state -> this.client.handOff(owner, state));
+	}
+
+	/**
+	 * @return Whether this node may still hold Users it no longer owns, its latest rebalance being underway or having failed
+	 */
+	public boolean isRebalancing() {
+		return this.rebalancing;
+	}
+
+	/**
+	 * Add a batch of points across many Users, each addition applied by the node owning its User.
+	 *
+	 * Additions are split by owner: those of this nodes Users are added locally, whereas every other owner is sent
+	 * its additions as a single batch, concurrently. Additions whose owner can't be reached are rejected individually.
+	 *
+	 * @param names The User name of each addition
+	 * @param pointEvents The events to add, positionally matching names
+	 * @param additions The requested additions, positionally matching names
+	 * @param forwarded Whether the batch was forwarded by another node, whose additions are refused rather than forwarded again
+	 * @return A future of the details of each rejected addition, or null for accepted additions, positionally matching pointEvents
+	 */
+	public CompletableFuture<List<String>> addPointsAsync(final List<String> names, final List<PointEvent> pointEvents,
+		final List<RequestBatchPointAddition> additions, final boolean forwarded) {
+		final Map<String, List<Integer>> positionsByOwner = new LinkedHashMap<>();
+		for (int i = 0; i < names.size(); i++) {
+			positionsByOwner.computeIfAbsent(this.ownerOf(names.get(i)), k -> new ArrayList<>()).add(i);
+		}
+
+		// Each owner fills in the rejections of its own additions, which are published by the completion of its future
+		final String[] rejections = new String[names.size()];
+		final List<CompletableFuture<Void>> owners = new ArrayList<>(positionsByOwner.size());
+		positionsByOwner.forEach((owner, positions) -> {
+			final CompletableFuture<List<String>> added;
+			if (this.self.equals(owner)) {
+				added = this.userPointsService.addPointsAsync(select(names, positions), select(pointEvents, positions));
+			} else if (forwarded) {
+				added = CompletableFuture.completedFuture(misdirected(owner, positions.size()));
+			} else {
+				added = this.client.addPoints(owner, select(additions, positions))
+					.exceptionally(e -> unreachable(owner, positions.size(), e));
+			}
+
+			owners.add(added.thenAccept(ownerRejections -> {
+				for (int i = 0; i < positions.size(); i++) {
+					rejections[positions.get(i)] = ownerRejections.get(i);
+				}
+			}));
+		});
+
+		return CompletableFuture.allOf(owners.toArray(CompletableFuture[]::new))
+			.thenApply(ignored -> Arrays.asList(rejections));
+	}
+
+	/**
+	 * Move to a new membership of the cluster, handing off every User this node no longer owns to its new owner.
+	 *
+	 * Requests are routed by the new membership as soon as it's adopted, i.e. before Users are handed off, thus
+	 * a new owner claims each User it's asked for from this node meanwhile, see release. Writes already underway here
+	 * while their User is handed off are retried against a new User by that name, so Users are swept until none remain
+	 * to be handed off, any such User being merged into its handed off self by the new owner. Every node is to be told of the same membership,
+	 * a joining node being told first so that it's ready to adopt Users.
+	 *
+	 * @param nodes The base URL of every node of the cluster, excluding this node should it be leaving
+	 * @return The number of Users handed off
+	 * @throws java.io.UncheckedIOException If a User couldn't be handed off, which remains held here until rebalancing is retried
+	 */
+	public synchronized int rebalance(final List<String> nodes) {
+		final HashRing ring = new HashRing(nodes, this.virtualNodes);
+		// Flagged before Users are routed elsewhere, and solely cleared once none remain to be handed off
+		this.rebalancing = true;
+		if (!ring.getNodes().equals(this.ring.getNodes())) {
+			this.formerRing = this.ring;
+			this.drained.clear();
+		}
+		this.ring = ring;
+
+		int handedOff = 0;
+		int swept;
+		do {
+			swept = this.userPointsService.handOff(user -> !this.isLocal(user), state -> this.client.handOff(this.ownerOf(state.getUser()), state));
+			handedOff += swept;
+		} while (swept > 0);
+		this.rebalancing = false;
+
+		LOGGER.info("Rebalanced onto nodes {}, handing off {} users", this.ring.getNodes(), handedOff);
+		return handedOff;
+	}
+
+	private static <T> List<T> select(final List<T> values, final List<Integer> positions) {
+		final List<T> selected = new ArrayList<>(positions.size());
+		for (final int position : positions) {
+			selected.add(values.get(position));
+		}
+		return selected;
+	}
+
+	private static List<String> misdirected(final String owner, final int additions) {
+		return rejecting("user is owned by node " + owner, additions);
+	}
+
+	private static List<String> unreachable(final String owner, final int additions, final Throwable e) {
+		LOGGER.warn("Failed to forward {} additions to node {}", additions, owner, e);
+		return rejecting("owning node " + owner + " is unreachable", additions);
+	}
+
+	private static List<String> rejecting(final String rejection, final int additions) {
+		final List<String> rejections = new ArrayList<>(additions);
+		for (int i = 0; i < additions; i++) {
+			rejections.add(rejection);
+		}
+		return rejections;
+	}
+}
@@ -0,0 +1,97 @@
+package com.gehrig.fetch.points.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Consistent hashing of User names onto the nodes of a cluster.
+ *
+ * Every node is placed at many points (virtual nodes) around a ring of 64-bit hashes, and a User is owned by
+ * the node at the first point clockwise of the Users hash. Consequently, a node joining takes ~1/n of the Users
+ * from across every other node, and a node leaving spreads its Users across every remaining node, while every
+ * other User keeps its owner. The ring is immutable, thus nodes joining or leaving yield a new ring.
+ *
+ * Points are held as a sorted array with a parallel array of owners, so an owner is found by a single binary
+ * search without allocating. Nodes are ordered before placement, thus every node given the same nodes (in any
+ * order) builds the same ring.
+ */
+public final class HashRing {
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final List<String> nodes;
+	private final long[] points;
+	private final String[] owners;
+
+	/**
+	 * @param nodes The nodes of the cluster, duplicates are ignored
+	 * @param virtualNodes The number of points each node is placed at, more points spread Users more evenly
+	 * @throws IllegalArgumentException If there are no nodes, or virtualNodes isn't positive
+	 */
+	public HashRing(final List<String> nodes, final int virtualNodes) {
+		this.nodes = nodes.stream().distinct().sorted().collect(Collectors.toUnmodifiableList());
+		if (this.nodes.isEmpty()) {
+			throw new IllegalArgumentException("A ring requires at least one node");
+		}
+		if (virtualNodes < 1) {
+			throw new IllegalArgumentException("Nodes must be placed at one or more points");
+		}
+
+		// Points are sorted alongside their owners, via an index ordered by point
+		final int size = this.nodes.size() * virtualNodes;
+		final long[] unsorted = new long[size];
+		final Integer[] order = new Integer[size];
+		for (int node = 0; node < this.nodes.size(); node++) {
+			for (int v = 0; v < virtualNodes; v++) {
+				final int i = node * virtualNodes + v;
+				unsorted[i] = hash(this.nodes.get(node) + '#' + v);
+				order[i] = i;
+			}
+		}
+		Arrays.sort(order, (a, b) -> Long.compare(unsorted[a], unsorted[b]));
+
+		this.points = new long[size];
+		this.owners = new String[size];
+		for (int i = 0; i < size; i++) {
+			this.points[i] = unsorted[order[i]];
+			this.owners[i] = this.nodes.get(order[i] / virtualNodes);
+		}
+	}
+
+	/**
+	 * @param user A User name
+	 * @return The node owning the User
+	 */
+	public String ownerOf(final String user) {
+		final int i = Arrays.binarySearch(this.points, hash(user));
+		final int point = i >= 0 ? i : -i - 1;
+		// Hashes beyond the last point wrap around to the first
+		return this.owners[point == this.points.length ? 0 : point];
+	}
+
+	/**
+	 * @return Every node of the ring, ordered
+	 */
+	public List<String> getNodes() {
+		return this.nodes;
+	}
+
+	// FNV-1a, whose poor avalanching of short, similar keys (e.g. "user-1", "user-2") is remedied by MurmurHash3's finalizer
+	static long hash(final String key) {
+		long hash = FNV_OFFSET_BASIS;
+		for (final byte b : key.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b & 0xff;
+			hash *= FNV_PRIME;
+		}
+
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,19 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.persistence.ColdUserStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+	@Bean
+	@ConditionalOnProperty(prefix = "points.cache", name = "enabled", havingValue = "true")
+	public ColdUserStore coldUserStore(final CacheProperties properties) throws IOException {
+		return new ColdUserStore(properties.getDirectory());
+	}
+}
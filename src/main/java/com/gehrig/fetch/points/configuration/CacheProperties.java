@@ -0,0 +1,20 @@
+package com.gehrig.fetch.points.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "points.cache")
+public class CacheProperties {
+
+	// Whether the number of Users in memory is bounded, evicting the least valuable Users to local disk
+	private boolean enabled = false;
+
+	// Number of Users kept in memory, beyond which Users are evicted
+	private long maxUsers = 1_000_000L;
+
+	// Directory evicted Users are written to, which is emptied on startup
+	private Path directory = Path.of("data", "cold");
+}
@@ -0,0 +1,62 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gehrig.fetch.points.cluster.ClusterAuthenticationFilter;
+import com.gehrig.fetch.points.cluster.ClusterClient;
+import com.gehrig.fetch.points.cluster.ClusterForwardingFilter;
+import com.gehrig.fetch.points.cluster.ClusterNode;
+import com.gehrig.fetch.points.persistence.ColdUserStore;
+import com.gehrig.fetch.points.service.UserPointsService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.Ordered;
+
+import java.util.Optional;
+
+@Configuration
+@Profile("!reactive")
+@EnableConfigurationProperties(ClusterProperties.class)
+public class ClusterConfig {
+	@Bean
+	@ConditionalOnProperty(prefix = "points.cluster", name = "enabled", havingValue = "true")
+	public ClusterNode clusterNode(final ClusterProperties properties, final UserPointsService userPointsService,
+		final ObjectMapper objectMapper, final Optional<ColdUserStore> coldUserStore) {
+		// Evicted Users would be missed when handing off Users to their new owner
+		if (coldUserStore.isPresent()) {
+			throw new IllegalStateException("points.cluster.enabled is incompatible with points.cache.enabled");
+		}
+		// Otherwise anyone could hand Users to this node, or have it apply requests for Users it doesn't own
+		if (properties.getSecret().isBlank()) {
+			throw new IllegalStateException("points.cluster.enabled requires points.cluster.secret");
+		}
+		return new ClusterNode(
+			properties.getSelf(),
+			properties.getNodes(),
+			properties.getVirtualNodes(),
+			userPointsService,
+			new ClusterClient(objectMapper, properties.getTimeout(), properties.getSelf(), properties.getSecret())
+		);
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "points.cluster", name = "enabled", havingValue = "true")
+	public FilterRegistrationBean<ClusterAuthenticationFilter> clusterAuthenticationFilter(final ClusterNode clusterNode) {
+		final FilterRegistrationBean<ClusterAuthenticationFilter> registration = new FilterRegistrationBean<>(new ClusterAuthenticationFilter(clusterNode.getClient()));
+		registration.addUrlPatterns("/user/*", "/internal/cluster/*");
+		// Headers are vetted before anything (e.g. forwarding) acts upon them
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+		return registration;
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "points.cluster", name = "enabled", havingValue = "true")
+	public FilterRegistrationBean<ClusterForwardingFilter> clusterForwardingFilter(final ClusterNode clusterNode) {
+		final FilterRegistrationBean<ClusterForwardingFilter> registration = new FilterRegistrationBean<>(new ClusterForwardingFilter(clusterNode));
+		registration.addUrlPatterns("/user/*");
+		return registration;
+	}
+}
@@ -0,0 +1,31 @@
+package com.gehrig.fetch.points.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "points.cluster")
+public class ClusterProperties {
+
+	// Whether Users are partitioned across the nodes of a cluster, rather than all held by this node
+	private boolean enabled = false;
+
+	// Base URL other nodes reach this node by
+	private String self = "http://127.0.0.1:8080";
+
+	// Base URL of every node of the cluster, this node is included should it be absent
+	private List<String> nodes = new ArrayList<>();
+
+	// Number of points each node is placed at around the hash ring, more points spread Users more evenly
+	private int virtualNodes = 128;
+
+	// How long a forwarded request (or hand off) may take before the owning node is deemed unreachable
+	private Duration timeout = Duration.ofSeconds(10);
+
+	// Secret shared by every node of the cluster, without which its internal endpoints and headers are refused
+	private String secret = "";
+}
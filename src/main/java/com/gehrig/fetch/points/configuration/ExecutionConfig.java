@@ -0,0 +1,17 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.service.UserShards;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ExecutionProperties.class)
+public class ExecutionConfig {
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(prefix = "points.execution", name = "mode", havingValue = "sharded")
+	public UserShards userShards(final ExecutionProperties properties) {
+		return new UserShards(properties.getShards());
+	}
+}
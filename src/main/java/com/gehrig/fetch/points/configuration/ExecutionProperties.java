@@ -0,0 +1,22 @@
+package com.gehrig.fetch.points.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "points.execution")
+public class ExecutionProperties {
+
+	public enum Mode {
+		// Writes are applied by the request's own thread, under the lock of the User written to
+		LOCKED,
+		// Writes are queued to the single-threaded shard owning the User written to, and awaited asynchronously
+		SHARDED
+	}
+
+	// How writes to Users are executed
+	private Mode mode = Mode.LOCKED;
+
+	// Number of shards in the sharded mode, 0 for one per available processor
+	private int shards = 0;
+}
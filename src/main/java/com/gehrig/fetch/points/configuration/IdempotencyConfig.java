@@ -0,0 +1,15 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.domain.IdempotencyLimits;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(IdempotencyProperties.class)
+public class IdempotencyConfig {
+	@Bean
+	public IdempotencyLimits idempotencyLimits(final IdempotencyProperties properties) {
+		return new IdempotencyLimits(properties.getMaxKeysPerUser(), properties.getExpiry(), properties.getMaxRetainedEvents());
+	}
+}
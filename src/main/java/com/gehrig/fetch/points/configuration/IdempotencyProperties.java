@@ -0,0 +1,21 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.domain.IdempotencyLimits;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "points.idempotency")
+public class IdempotencyProperties {
+
+	// Number of Idempotency-Key's remembered per User, beyond which the oldest are forgotten, 0 disables deduplication
+	private int maxKeysPerUser = IdempotencyLimits.DEFAULT_MAX_KEYS;
+
+	// How long an Idempotency-Key is remembered after its write was first requested
+	private Duration expiry = IdempotencyLimits.DEFAULT_EXPIRY;
+
+	// Events a keyed deduction retains as deducted, beyond which runs of alike events are retained once each
+	private int maxRetainedEvents = IdempotencyLimits.DEFAULT_MAX_RETAINED_EVENTS;
+}
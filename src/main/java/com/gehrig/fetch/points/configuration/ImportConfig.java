@@ -0,0 +1,9 @@
+package com.gehrig.fetch.points.configuration;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ImportProperties.class)
+public class ImportConfig {
+}
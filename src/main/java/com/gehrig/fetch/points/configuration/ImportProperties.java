@@ -0,0 +1,18 @@
+package com.gehrig.fetch.points.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "points.import")
+public class ImportProperties {
+
+	// Number of threads applying imported additions, 0 for one per available processor
+	private int workers = 0;
+
+	// Number of additions handed to a worker at a time, each worker applies its Users additions in batches
+	private int chunkSize = 1024;
+
+	// Number of rejected additions whose details are reported, the remainder are merely counted
+	private int maxReportedErrors = 100;
+}
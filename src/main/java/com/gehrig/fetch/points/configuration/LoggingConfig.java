@@ -0,0 +1,15 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.domain.LedgerAudit;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(LoggingProperties.class)
+public class LoggingConfig {
+	@Bean
+	public LedgerAudit ledgerAudit(final LoggingProperties properties) {
+		return new LedgerAudit(properties.getAuditSampleRate());
+	}
+}
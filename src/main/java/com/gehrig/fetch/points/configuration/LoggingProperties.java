@@ -0,0 +1,16 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.domain.LedgerAudit;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "points.logging")
+public class LoggingProperties {
+
+	// Fraction of accepted writes audited, from 0 (none) through 1 (all), rejected writes are always audited
+	private double auditSampleRate = LedgerAudit.DEFAULT_SAMPLE_RATE;
+
+	// Number of lines queued for the console, and for the file, by the asynchronous appenders, read by logback-spring.xml
+	private int asyncQueueSize = 8192;
+}
@@ -0,0 +1,63 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.domain.LedgerMetrics;
+import com.gehrig.fetch.points.domain.LedgerStorage;
+import com.gehrig.fetch.points.domain.PayerDictionary;
+import com.gehrig.fetch.points.metrics.MicrometerLedgerMetrics;
+import com.gehrig.fetch.points.service.UserPointsService;
+import com.gehrig.fetch.points.storage.PageArena;
+import com.gehrig.fetch.points.storage.PagedLedgerStorage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+	@Bean
+	public LedgerMetrics ledgerMetrics(final MeterRegistry registry) {
+		return new MicrometerLedgerMetrics(registry);
+	}
+
+	// The service is resolved lazily, as it's itself instrumented, i.e. it depends upon the registry being bound
+	@Bean
+	public MeterBinder userPointsServiceMetrics(final ObjectProvider<UserPointsService> userPointsService) {
+		return registry -> {
+			Gauge.builder("points.users", userPointsService, s -> s.getObject().getUserCount())
+				.description("Users held in memory")
+				.baseUnit("users")
+				.register(registry);
+			Gauge.builder("points.users.cold", userPointsService, s -> s.getObject().getColdUserCount())
+				.description("Users evicted to the cold store")
+				.baseUnit("users")
+				.register(registry);
+			Gauge.builder("points.payers", PayerDictionary::size)
+				.description("Distinct payers ever seen")
+				.baseUnit("payers")
+				.register(registry);
+		};
+	}
+
+	// Records held outside of the heap are otherwise invisible to the JVM's memory metrics
+	@Bean
+	public MeterBinder ledgerStorageMetrics(final ObjectProvider<LedgerStorage> ledgerStorage) {
+		return registry -> {
+			final LedgerStorage storage = ledgerStorage.getIfAvailable();
+			if (!(storage instanceof PagedLedgerStorage)) {
+				return;
+			}
+
+			final PageArena arena = ((PagedLedgerStorage) storage).getArena();
+			Gauge.builder("points.storage.used", arena, PageArena::getUsedBytes)
+				.description("Bytes of blocks holding events")
+				.baseUnit("bytes")
+				.register(registry);
+			Gauge.builder("points.storage.reserved", arena, PageArena::getReservedBytes)
+				.description("Bytes of segments reserved for pages, whether or not they're in use")
+				.baseUnit("bytes")
+				.register(registry);
+		};
+	}
+}
@@ -0,0 +1,35 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.persistence.PointEventLog;
+import com.gehrig.fetch.points.persistence.SnapshotStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(PersistenceProperties.class)
+public class PersistenceConfig {
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(prefix = "points.persistence", name = "enabled", havingValue = "true")
+	public PointEventLog pointEventLog(final PersistenceProperties properties) throws IOException {
+		return new PointEventLog(
+			properties.getDirectory().resolve("wal"),
+			properties.getSegmentSize().toBytes(),
+			properties.isFsync(),
+			properties.getMaxBatchDelay()
+		);
+	}
+
+	@Bean
+	@ConditionalOnProperty(prefix = "points.persistence", name = "enabled", havingValue = "true")
+	public SnapshotStore snapshotStore(final PersistenceProperties properties) throws IOException {
+		return new SnapshotStore(
+			properties.getDirectory().resolve("snapshots"),
+			(int) properties.getSnapshotWindow().toBytes(),
+			properties.getSnapshotsRetained()
+		);
+	}
+}
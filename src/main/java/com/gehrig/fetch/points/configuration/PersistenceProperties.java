@@ -0,0 +1,37 @@
+package com.gehrig.fetch.points.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "points.persistence")
+public class PersistenceProperties {
+
+	// Whether accepted writes are logged to, and recovered from, local disk
+	private boolean enabled = false;
+
+	// Root directory of all persisted state
+	private Path directory = Path.of("data");
+
+	// Size at which the write-ahead log rolls over to a new segment
+	private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+	// Whether log writes are fsync'd before being acknowledged, disabling this trades durability for latency
+	private boolean fsync = true;
+
+	// How long a batch of log records may linger, gathering more writes, before it's written and fsync'd
+	private Duration maxBatchDelay = Duration.ZERO;
+
+	// How often every User is snapshot, bounding the portion of the log replayed on startup
+	private Duration snapshotInterval = Duration.ofMinutes(5);
+
+	// Number of snapshots kept on disk, older snapshots are deleted
+	private int snapshotsRetained = 2;
+
+	// Size of the memory-mapped window through which snapshots are written and read
+	private DataSize snapshotWindow = DataSize.ofMegabytes(64);
+}
@@ -1,15 +1,22 @@
 package com.gehrig.fetch.points.configuration;
 
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 import springfox.bean.validators.configuration.BeanValidatorPluginsConfiguration;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.plugins.WebMvcRequestHandlerProvider;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import java.lang.reflect.Field;
+import java.util.List;
+
 @Configuration
 @EnableSwagger2
 @Import(BeanValidatorPluginsConfiguration.class)
@@ -24,4 +31,26 @@ public class SpringFoxConfig {
 		docket.useDefaultResponseMessages(false);
 		return docket;
 	}
+
+	/**
+	 * Springfox reads the patterns of every handler mapping, though since Spring Boot 2.6 the actuator's mappings parse
+	 * their patterns with a PathPatternParser instead, and thus lack any, so springfox is solely handed the remainder.
+	 */
+	@Bean
+	public static BeanPostProcessor springfoxHandlerMappingsPostProcessor() {
+		return new BeanPostProcessor() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+				if (bean instanceof WebMvcRequestHandlerProvider) {
+					final Field field = ReflectionUtils.findField(bean.getClass(), "handlerMappings");
+					ReflectionUtils.makeAccessible(field);
+					final List<RequestMappingInfoHandlerMapping> mappings =
+						(List<RequestMappingInfoHandlerMapping>) ReflectionUtils.getField(field, bean);
+					mappings.removeIf(mapping -> mapping.getPatternParser() != null);
+				}
+				return bean;
+			}
+		};
+	}
 }
@@ -0,0 +1,28 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.domain.LedgerStorage;
+import com.gehrig.fetch.points.storage.DirectPageArena;
+import com.gehrig.fetch.points.storage.MappedPageArena;
+import com.gehrig.fetch.points.storage.PagedLedgerStorage;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+@EnableConfigurationProperties(StorageProperties.class)
+public class StorageConfig {
+	@Bean
+	public LedgerStorage ledgerStorage(final StorageProperties properties) throws IOException {
+		switch (properties.getEngine()) {
+			case MAPPED:
+				return new PagedLedgerStorage(new MappedPageArena(properties.getDirectory(), properties.getSegmentSize().toBytes()));
+			case OFF_HEAP:
+				return new PagedLedgerStorage(new DirectPageArena(properties.getSegmentSize().toBytes()));
+			case HEAP:
+			default:
+				return properties.isCompact() ? LedgerStorage.COMPACTED_HEAP : LedgerStorage.HEAP;
+		}
+	}
+}
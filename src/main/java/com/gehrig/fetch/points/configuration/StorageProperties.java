@@ -0,0 +1,33 @@
+package com.gehrig.fetch.points.configuration;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+
+@Data
+@ConfigurationProperties(prefix = "points.storage")
+public class StorageProperties {
+
+	public enum Engine {
+		// Events are held as objects on the heap
+		HEAP,
+		// Events are held as records within memory-mapped files, outside of the heap
+		MAPPED,
+		// Events are held as records within native memory, outside of the heap
+		OFF_HEAP
+	}
+
+	// Engine holding every Users events
+	private Engine engine = Engine.HEAP;
+
+	// Whether the heap engine merges chronologically adjacent events of the same payer, which deductions report as before
+	private boolean compact = false;
+
+	// Directory of the mapped engine's files, which is emptied on startup
+	private Path directory = Path.of("data", "events");
+
+	// Size of each memory-mapped file (or native memory segment) the mapped (or off-heap) engine grows by
+	private DataSize segmentSize = DataSize.ofMegabytes(64);
+}
@@ -0,0 +1,33 @@
+package com.gehrig.fetch.points.configuration;
+
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves every request on a virtual thread of its own, rather than from Tomcat's bounded thread pool.
+ *
+ * Requests blocked on a User's lock or on the write-ahead log then merely park their virtual thread,
+ * thus the number of requests in flight is bounded by connections rather than by threads. Virtual
+ * threads require Java 21, which the application is built for and run on.
+ */
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfig {
+
+	// Also the application's task executor, which would otherwise back off in favor of this executor
+	@Bean(name = {"virtualThreadExecutor", TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME}, destroyMethod = "shutdown")
+	public ExecutorService virtualThreadExecutor() {
+		return Executors.newVirtualThreadPerTaskExecutor();
+	}
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(final ExecutorService virtualThreadExecutor) {
+		return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+	}
+}
@@ -0,0 +1,31 @@
+package com.gehrig.fetch.points.configuration;
+
+import com.gehrig.fetch.points.web.CompletedFutureReturnValueHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandlerComposite;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestResponseBodyMethodProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+@Configuration
+@Profile("!reactive")
+public class WebMvcConfig {
+	// Precedes Spring's handlers, as handlers added via WebMvcConfigurer are only consulted after them
+	public WebMvcConfig(final RequestMappingHandlerAdapter adapter) {
+		final List<HandlerMethodReturnValueHandler> handlers = Objects.requireNonNull(adapter.getReturnValueHandlers());
+		final HandlerMethodReturnValueHandler body = handlers.stream()
+			.filter(RequestResponseBodyMethodProcessor.class::isInstance)
+			.findFirst()
+			.orElseThrow();
+
+		final List<HandlerMethodReturnValueHandler> preceded = new ArrayList<>(handlers.size() + 1);
+		preceded.add(new CompletedFutureReturnValueHandler(new HandlerMethodReturnValueHandlerComposite().addHandlers(handlers), body));
+		preceded.addAll(handlers);
+		adapter.setReturnValueHandlers(preceded);
+	}
+}
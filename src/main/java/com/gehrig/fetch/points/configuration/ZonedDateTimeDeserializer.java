@@ -16,6 +16,9 @@ import java.time.format.DateTimeParseException;
 
 /**
  * Custom {@link ZonedDateTime} deserializer with moderate flexibility.
+ *
+ * Common shapes are parsed in a single pass by {@link ZonedDateTimeParser}, only falling back to
+ * a chain of DateTimeFormatters, each of which throws upon failing, for anything unrecognized.
  */
 public class ZonedDateTimeDeserializer extends JsonDeserializer<ZonedDateTime> {
 
@@ -26,9 +29,15 @@ public class ZonedDateTimeDeserializer extends JsonDeserializer<ZonedDateTime> {
 	@Override
 	public ZonedDateTime deserialize(JsonParser jsonParser, DeserializationContext deserializationContext)
 		throws IOException {
+		final ZonedDateTime date = ZonedDateTimeParser.parse(
+			jsonParser.getTextCharacters(),
+			jsonParser.getTextOffset(),
+			jsonParser.getTextLength()
+		);
+		return date == null ? parseWithFormatters(jsonParser.getText()) : date;
+	}
 
-		final String dateText = jsonParser.getText();
-
+	static ZonedDateTime parseWithFormatters(final String dateText) {
 		try {
 			return ZonedDateTime.parse(dateText, ZDT_FORMAT);
 		} catch (DateTimeParseException e) {
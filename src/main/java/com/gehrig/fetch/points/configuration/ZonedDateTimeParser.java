@@ -0,0 +1,157 @@
+package com.gehrig.fetch.points.configuration;
+
+import java.time.*;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-pass parser of the date shapes accepted by {@link ZonedDateTimeDeserializer}, i.e.
+ * - yyyy-MM-dd'T'HH:mm:ss.SSSz, where z is a zone name such as UTC or America/Chicago
+ * - ISO zoned date-times with either a Z or ±HH:MM offset
+ * - ISO local date-times and ISO local dates, both assuming UTC
+ *
+ * Text is parsed straight from the supplied characters, without any intermediate Strings or exceptions.
+ * Anything unrecognized, including a valid but uncommon shape, yields null so the caller may fall back to
+ * the thorough but comparatively slow DateTimeFormatters. Results are identical to those formatters.
+ */
+final class ZonedDateTimeParser {
+
+	private static final DateTimeFormatter ZONE_NAME_FORMAT = DateTimeFormatter.ofPattern("z");
+
+	// Zone names resolved thus far, bounded by the finite set of names the formatter accepts
+	private static final Map<String, ZoneId> ZONE_NAMES = new ConcurrentHashMap<>();
+
+	private ZonedDateTimeParser() {
+	}
+
+	/**
+	 * @return The parsed date, or null if the text isn't one of the recognized shapes or isn't a valid date
+	 */
+	static ZonedDateTime parse(final char[] text, final int offset, final int length) {
+		final int end = offset + length;
+
+		// yyyy-MM-dd
+		if (length < 10 || text[offset + 4] != '-' || text[offset + 7] != '-') {
+			return null;
+		}
+		final int year = digits(text, offset, 4);
+		final int month = digits(text, offset + 5, 2);
+		final int day = digits(text, offset + 8, 2);
+		if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+			return null;
+		}
+		if (length == 10) {
+			return ZonedDateTime.of(year, month, day, 0, 0, 0, 0, ZoneOffset.UTC);
+		}
+
+		// 'T'HH:mm, then optionally :ss and .S to .SSSSSSSSS
+		if (length < 16 || text[offset + 10] != 'T' || text[offset + 13] != ':') {
+			return null;
+		}
+		final int hour = digits(text, offset + 11, 2);
+		final int minute = digits(text, offset + 14, 2);
+		if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+			return null;
+		}
+
+		int i = offset + 16;
+		int second = 0;
+		int nano = 0;
+		int fractionDigits = -1;
+		if (i < end && text[i] == ':') {
+			second = i + 3 <= end ? digits(text, i + 1, 2) : -1;
+			if (second < 0 || second > 59) {
+				return null;
+			}
+			i += 3;
+
+			if (i < end && text[i] == '.') {
+				fractionDigits = 0;
+				for (i++; i < end && isDigit(text[i]); i++, fractionDigits++) {
+					if (fractionDigits == 9) {
+						return null;
+					}
+					nano = nano * 10 + (text[i] - '0');
+				}
+				if (fractionDigits == 0) {
+					return null;
+				}
+				for (int scale = fractionDigits; scale < 9; scale++) {
+					nano *= 10;
+				}
+			}
+		}
+
+		// Local date-time, Z, ±HH:MM, or a zone name
+		final ZoneId zone;
+		if (i == end) {
+			zone = ZoneOffset.UTC;
+		} else if (text[i] == 'Z' && i + 1 == end) {
+			zone = ZoneOffset.UTC;
+		} else if ((text[i] == '+' || text[i] == '-') && i + 6 == end && text[i + 3] == ':') {
+			zone = offset(text[i] == '-', digits(text, i + 1, 2), digits(text, i + 4, 2));
+		} else if (fractionDigits == 3 && year > 0 && isLetter(text[i])) {
+			// Only the custom pattern accepts zone names, and it requires millis and a year of the current era
+			zone = zoneName(new String(text, i, end - i));
+		} else {
+			zone = null;
+		}
+
+		return zone == null ? null : ZonedDateTime.of(year, month, day, hour, minute, second, nano, zone);
+	}
+
+	private static ZoneOffset offset(final boolean negative, final int hours, final int minutes) {
+		if (hours < 0 || minutes < 0 || minutes > 59 || hours * 60 + minutes > 18 * 60) {
+			return null;
+		}
+		return negative
+			? ZoneOffset.ofHoursMinutes(-hours, -minutes)
+			: ZoneOffset.ofHoursMinutes(hours, minutes);
+	}
+
+	private static ZoneId zoneName(final String name) {
+		for (int i = 0; i < name.length(); i++) {
+			final char c = name.charAt(i);
+			if (!isLetter(c) && c != '/' && c != '_') {
+				return null;
+			}
+		}
+
+		final ZoneId cached = ZONE_NAMES.get(name);
+		if (cached != null) {
+			return cached;
+		}
+
+		// The formatters notion of a zone name is locale-aware, so defer to it for the first encounter of each name
+		try {
+			final ZoneId zone = ZONE_NAME_FORMAT.parse(name, ZoneId::from);
+			ZONE_NAMES.put(name, zone);
+			return zone;
+		} catch (DateTimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return The value of count ASCII digits, or -1 if any character isn't a digit
+	 */
+	private static int digits(final char[] text, final int from, final int count) {
+		int value = 0;
+		for (int i = from; i < from + count; i++) {
+			if (!isDigit(text[i])) {
+				return -1;
+			}
+			value = value * 10 + (text[i] - '0');
+		}
+		return value;
+	}
+
+	private static boolean isDigit(final char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isLetter(final char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+}
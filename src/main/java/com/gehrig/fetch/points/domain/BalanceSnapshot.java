@@ -0,0 +1,25 @@
+package com.gehrig.fetch.points.domain;
+
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable, consistent view of a Users balance as of some write.
+ *
+ * Versions increase by one with every accepted write against a User, thus two
+ * snapshots of the same User with equal versions are guaranteed to be equal.
+ */
+@Value
+public class BalanceSnapshot {
+
+	public static final BalanceSnapshot EMPTY = new BalanceSnapshot(0L, 0L, Collections.emptyList());
+
+	long version;
+
+	long total;
+
+	// Ordered payer totals, see UserPoints.getPoints
+	List<PointEvent> balances;
+}
@@ -0,0 +1,63 @@
+package com.gehrig.fetch.points.domain;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The outstanding point events of a single User, ordered chronologically.
+ *
+ * A store is only ever touched while holding its Users lock, thus implementations needn't be thread-safe.
+ * Stores merely hold events, whereas vetting writes and book-keeping totals remain the responsibility of UserPoints.
+ */
+public interface EventStore {
+
+	/**
+	 * Insert an event, whose points are positive, in chronological order.
+	 * @param pointEvent The event to hold
+	 */
+	void add(PointEvent pointEvent);
+
+	/**
+	 * Deduct points from the oldest events, either from those of a single payer or else from every event.
+	 * Events deducted in full are removed, whereas the final event may be partially deducted in place.
+	 * @param payer A potentially Null payer name, used to solely deduct points from that payer
+	 * @param points A positive points value to deduct, which mustn't exceed the points held
+	 * @param removed Receives each event deducted from, oldest to newest, with its points negated to the amount deducted
+	 */
+	void deduct(@Nullable String payer, long points, List<PointEvent> removed);
+
+	/**
+	 * Deduct points as per deduct, though solely summing the points deducted from each payer rather than
+	 * reporting every event. Stores able to sum a payers events without visiting them should do so, whereas
+	 * by default every event deducted from is reported then summed.
+	 * @param payer A potentially Null payer name, used to solely deduct points from that payer
+	 * @param points A positive points value to deduct, which mustn't exceed the points held
+	 * @param deducted Receives the points deducted from each payer, in the order payers were first deducted from
+	 */
+	default void deductByPayer(@Nullable final String payer, final long points, final PayerDeductions deducted) {
+		final List<PointEvent> removed = new ArrayList<>();
+		this.deduct(payer, points, removed);
+		for (final PointEvent event : removed) {
+			deducted.add(PayerDictionary.find(event.getPayer()), -event.getPoints());
+		}
+	}
+
+	/**
+	 * @return The number of events held, where stores merging events count every event merged
+	 */
+	int size();
+
+	/**
+	 * Visit every event held, oldest to newest.
+	 * @param consumer Receives each event
+	 */
+	void forEach(Consumer<PointEvent> consumer);
+
+	/**
+	 * Discard every event, relinquishing any resources held. The store mustn't be used thereafter.
+	 */
+	void release();
+}
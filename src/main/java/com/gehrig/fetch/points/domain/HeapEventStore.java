@@ -0,0 +1,305 @@
+package com.gehrig.fetch.points.domain;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Events held on the heap as mutable LedgerEntry's within a PointIndex.
+ *
+ * The index handles insertions in O(log(n)) and iterates in order in O(n), as a TreeSet would, though it
+ * also knows the cumulative points of its events. Deductions therefore find the prefix of events they
+ * consume in O(log(n)) and drop it whole, rather than removing events one at a time, whereas the final,
+ * partially deducted event is simply updated in place. Entries have primitive fields, rather than being
+ * PointEvent's, thus deductions allocate little beyond their result.
+ *
+ * A secondary per-payer index mirrors the chronological index so that payer scoped deductions
+ * (negative additions) only consider that payer's events, rather than skipping every other payer's events.
+ * Large deductions from every event cut each payers index at the first event remaining, which also sums
+ * the points deducted from each payer without visiting their events, see deductByPayer.
+ *
+ * When compacting, an event added directly after an event of the same payer (i.e. no other payer's event
+ * sits between them) is merged into that entry as a LedgerRun, rather than indexed as an entry of its own.
+ * Users receiving many events from a single payer thus hold a fraction of the entries, each of which costs
+ * an object and a node per index, whereas a merged event merely costs 32 bytes of its run's array. Runs
+ * retain every event, and are split should another payer's event later land amidst them, thus deductions
+ * report exactly the same events whether compacting or not.
+ */
+final class HeapEventStore implements EventStore {
+
+	private final PointIndex pointEvents = new PointIndex();
+	private final IntMap<PointIndex> payerEvents = new IntMap<>();
+	// Whether adjacent events of a single payer are merged into runs
+	private final boolean compact;
+
+	HeapEventStore() {
+		this(false);
+	}
+
+	HeapEventStore(final boolean compact) {
+		this.compact = compact;
+	}
+
+	@Override
+	public void add(final PointEvent pointEvent) {
+		final LedgerEntry entry = new LedgerEntry(pointEvent);
+		if (!this.compact || !this.merge(entry, pointEvent)) {
+			this.index(entry);
+		}
+	}
+
+	private void index(final LedgerEntry entry) {
+		this.pointEvents.add(entry);
+		PointIndex events = this.payerEvents.get(entry.payer);
+		if (events == null) {
+			events = new PointIndex();
+			this.payerEvents.put(entry.payer, events);
+		}
+		events.add(entry);
+	}
+
+	/**
+	 * Merge an event into the entry chronologically preceding it, should that entry be of the same payer.
+	 * Should the event land amidst another payer's run, the run is first split about the event.
+	 * @param entry An entry of the event, not yet indexed
+	 * @param pointEvent The event
+	 * @return Whether the event was merged, otherwise its entry is yet to be indexed
+	 */
+	private boolean merge(final LedgerEntry entry, final PointEvent pointEvent) {
+		LedgerEntry previous = this.pointEvents.lastBefore(entry);
+		if (previous != null && previous.payer != entry.payer && previous.run != null && previous.run.endsAfter(pointEvent)) {
+			this.split(previous, previous.run.positionAfter(pointEvent));
+			previous = this.pointEvents.lastBefore(entry);
+		}
+		if (previous == null || previous.payer != entry.payer) {
+			return false;
+		}
+
+		// The event may land amidst the run, which then orders it among its events
+		if (previous.run == null) {
+			previous.run = new LedgerRun(previous);
+		}
+		previous.run.add(pointEvent);
+		previous.points += entry.points;
+		this.pointEvents.added(previous, entry.points, 1);
+		this.payerEvents.get(previous.payer).added(previous, entry.points, 1);
+		return true;
+	}
+
+	/**
+	 * Split a run in two, the events from the given position onwards becoming an entry of their own.
+	 * @param entry An entry of a run
+	 * @param position The position of the first event split off, from 0 (in which case the entire run is re-keyed
+	 *                 by its oldest remaining event) through the runs size
+	 */
+	private void split(final LedgerEntry entry, final int position) {
+		final long points = entry.run.pointsFrom(position);
+		final LedgerRun upper;
+		if (position == 0) {
+			// The run's oldest events were consumed, thus its own time data no longer reflects those remaining
+			this.pointEvents.remove(entry);
+			this.unindex(entry);
+			upper = entry.run;
+		} else {
+			upper = entry.run.splitAt(position);
+			entry.points -= points;
+			this.pointEvents.deducted(entry, points, upper.size());
+			this.payerEvents.get(entry.payer).deducted(entry, points, upper.size());
+		}
+
+		final LedgerEntry split = new LedgerEntry(entry.payer, points, upper.timeOf(0));
+		split.run = upper.size() == 1 ? null : upper;
+		this.index(split);
+	}
+
+	@Override
+	public void deduct(@Nullable final String payer, final long points, final List<PointEvent> removed) {
+		if (payer == null) {
+			this.deductAll(points, removed, null);
+		} else {
+			this.deductPayer(PayerDictionary.find(payer), points, removed, null);
+		}
+	}
+
+	@Override
+	public void deductByPayer(@Nullable final String payer, final long points, final PayerDeductions deducted) {
+		if (payer == null) {
+			this.deductAll(points, null, deducted);
+		} else {
+			this.deductPayer(PayerDictionary.find(payer), points, null, deducted);
+		}
+	}
+
+	/**
+	 * Deduct points from the oldest of every event, reporting them per event and/or per payer.
+	 * @param points A positive points value to deduct
+	 * @param removed A potentially Null list, receiving each event deducted from
+	 * @param deducted A potentially Null summary, receiving the points deducted from each payer
+	 */
+	private void deductAll(final long points, @Nullable final List<PointEvent> removed, @Nullable final PayerDeductions deducted) {
+		// Every event the points cover is consumed in full, whereas any remainder is deducted from the next
+		final PointIndex covered = this.pointEvents.removeCovered(points);
+		final long remaining = points - covered.points();
+		final LedgerEntry cut = remaining > 0 ? this.pointEvents.first() : null;
+
+		if (removed != null) {
+			covered.forEach(entry -> report(entry, removed));
+		}
+
+		if (covered.size() <= this.payerEvents.size()) {
+			// Few events were consumed, thus each is unindexed from its payer in turn
+			covered.forEach(entry -> {
+				this.unindex(entry);
+				if (deducted != null) {
+					deducted.add(entry.payer, entry.points);
+				}
+			});
+		} else {
+			this.removePayerPrefixes(this.pointEvents.first(), deducted);
+		}
+
+		if (cut != null) {
+			if (deducted != null) {
+				deducted.add(cut.payer, remaining);
+			}
+			this.deductInPlace(cut, remaining, this.payerEvents.get(cut.payer), removed);
+		}
+	}
+
+	/**
+	 * Deduct points from the oldest events of a single payer, reporting them per event and/or in total.
+	 * The payers consumed events are found within its index, though each is removed from the chronological index in turn.
+	 * @param payer A payer id
+	 * @param points A positive points value to deduct
+	 * @param removed A potentially Null list, receiving each event deducted from
+	 * @param deducted A potentially Null summary, receiving the points deducted from the payer
+	 */
+	private void deductPayer(final int payer, final long points, @Nullable final List<PointEvent> removed, @Nullable final PayerDeductions deducted) {
+		final PointIndex payerIndex = this.payerEvents.get(payer);
+		if (payerIndex == null) {
+			return;
+		}
+
+		final PointIndex covered = payerIndex.removeCovered(points);
+		covered.forEach(entry -> {
+			this.pointEvents.remove(entry);
+			if (removed != null) {
+				report(entry, removed);
+			}
+		});
+
+		final long remaining = points - covered.points();
+		final LedgerEntry cut = payerIndex.first();
+		if (remaining > 0 && cut != null) {
+			this.deductInPlace(cut, remaining, payerIndex, removed);
+		}
+
+		if (deducted != null) {
+			deducted.add(payer, covered.points() + (cut == null ? 0L : remaining));
+		}
+
+		// The payers index may have been emptied, it's pruned rather than kept around
+		if (payerIndex.isEmpty()) {
+			this.payerEvents.remove(payer);
+		}
+	}
+
+	/**
+	 * Partially deduct an event (or the oldest events of a run) in place, its position is unaffected as its time data is unchanged.
+	 * @param entry The entry, whose points exceed those deducted
+	 * @param points The points deducted from the entry
+	 * @param payerIndex The index of the entries payer
+	 * @param removed A potentially Null list, receiving the event deducted from
+	 */
+	private void deductInPlace(final LedgerEntry entry, final long points, final PointIndex payerIndex, @Nullable final List<PointEvent> removed) {
+		final int events = entry.events();
+		if (entry.run != null) {
+			entry.run.deduct(points, removed);
+		} else if (removed != null) {
+			removed.add(entry.withPoints(-points));
+		}
+		entry.points -= points;
+		// A run's oldest events may have been consumed in full
+		this.pointEvents.deducted(entry, points, events - entry.events());
+		payerIndex.deducted(entry, points, events - entry.events());
+	}
+
+	/**
+	 * Remove every payers events ordered before the first event remaining, i.e. those just consumed from the
+	 * chronological index. Costs O(payers * log(n)) no matter how many events were consumed.
+	 * @param first The first event remaining, or Null should none remain
+	 * @param deducted A potentially Null summary, receiving the points removed from each payer
+	 */
+	private void removePayerPrefixes(@Nullable final LedgerEntry first, @Nullable final PayerDeductions deducted) {
+		final List<PointIndex> prefixes = new ArrayList<>();
+		final List<LedgerEntry> emptied = new ArrayList<>();
+		this.payerEvents.forEachValue(events -> {
+			final PointIndex prefix = events.removeBefore(first);
+			if (!prefix.isEmpty()) {
+				prefixes.add(prefix);
+			}
+			if (events.isEmpty()) {
+				emptied.add(prefix.first());
+			}
+		});
+		for (final LedgerEntry entry : emptied) {
+			this.payerEvents.remove(entry.payer);
+		}
+
+		if (deducted != null) {
+			// Payers are summarized in the order they were first deducted from, i.e. by their oldest event consumed
+			prefixes.sort(Comparator.comparing(PointIndex::first, LedgerEntry.ORDERING));
+			for (final PointIndex prefix : prefixes) {
+				deducted.add(prefix.first().payer, prefix.points());
+			}
+		}
+	}
+
+	// Report every event of an entry consumed in full, with its points negated
+	private static void report(final LedgerEntry entry, final List<PointEvent> removed) {
+		if (entry.run == null) {
+			removed.add(entry.withPoints(-entry.points));
+		} else {
+			entry.run.forEach(true, removed::add);
+		}
+	}
+
+	// Remove an entry, already removed from the chronological index, from its payers index
+	private void unindex(final LedgerEntry entry) {
+		final PointIndex events = this.payerEvents.get(entry.payer);
+		events.remove(entry);
+		if (events.isEmpty()) {
+			this.payerEvents.remove(entry.payer);
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.pointEvents.events();
+	}
+
+	// The number of entries indexed, where each run counts once
+	int entries() {
+		return this.pointEvents.size();
+	}
+
+	@Override
+	public void forEach(final Consumer<PointEvent> consumer) {
+		this.pointEvents.forEach(entry -> {
+			if (entry.run == null) {
+				consumer.accept(entry.view());
+			} else {
+				entry.run.forEach(false, consumer);
+			}
+		});
+	}
+
+	@Override
+	public void release() {
+		this.pointEvents.clear();
+		this.payerEvents.clear();
+	}
+}
@@ -0,0 +1,15 @@
+package com.gehrig.fetch.points.domain;
+
+import lombok.Value;
+
+/**
+ * A client supplied key identifying a single write, so that retries of the write are recognized rather than reapplied.
+ */
+@Value
+public class IdempotencyKey {
+
+	String key;
+
+	// When the write was first requested, in epoch millis, from which its key expires
+	long at;
+}
@@ -0,0 +1,49 @@
+package com.gehrig.fetch.points.domain;
+
+import java.time.Duration;
+
+/**
+ * Bounds on the writes each User remembers under idempotency keys, see IdempotentWrites.
+ *
+ * Writes are bounded in number and by age, and a deduction reporting every event it removed is bounded in the
+ * events it retains as deducted: beyond that, it retains runs of events deducting the same points from the
+ * same payer once each, sans time data, such that its retries still report every event deducted from.
+ */
+public final class IdempotencyLimits {
+
+	public static final int DEFAULT_MAX_KEYS = 64;
+	public static final Duration DEFAULT_EXPIRY = Duration.ofHours(24);
+	public static final int DEFAULT_MAX_RETAINED_EVENTS = 1000;
+
+	/**
+	 * The default limits, for UserPoints which aren't given any.
+	 */
+	public static final IdempotencyLimits DEFAULT = new IdempotencyLimits(DEFAULT_MAX_KEYS, DEFAULT_EXPIRY, DEFAULT_MAX_RETAINED_EVENTS);
+
+	private final int maxKeys;
+	private final long expiryMillis;
+	private final int maxRetainedEvents;
+
+	/**
+	 * @param maxKeys The number of keys remembered per User, 0 remembering none
+	 * @param expiry How long a key is remembered after its write was first requested
+	 * @param maxRetainedEvents The events a deduction may retain as deducted, beyond which it retains runs of events
+	 */
+	public IdempotencyLimits(final int maxKeys, final Duration expiry, final int maxRetainedEvents) {
+		this.maxKeys = Math.max(0, maxKeys);
+		this.expiryMillis = expiry.toMillis();
+		this.maxRetainedEvents = Math.max(0, maxRetainedEvents);
+	}
+
+	public int getMaxKeys() {
+		return this.maxKeys;
+	}
+
+	public long getExpiryMillis() {
+		return this.expiryMillis;
+	}
+
+	public int getMaxRetainedEvents() {
+		return this.maxRetainedEvents;
+	}
+}
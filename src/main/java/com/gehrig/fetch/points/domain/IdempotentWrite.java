@@ -0,0 +1,125 @@
+package com.gehrig.fetch.points.domain;
+
+import com.gehrig.fetch.points.exception.IdempotencyKeyReusedException;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A write made under an IdempotencyKey, along with its original result, see IdempotentWrites.
+ */
+@Value
+public class IdempotentWrite {
+
+	public enum Kind {
+		// Points added to a User, i.e. UserPoints.addPoints
+		ADD,
+		// Points deducted from a User, reporting every event deducted from, i.e. UserPoints.deletePoints
+		DEDUCT,
+		// Points deducted from a User, reporting the points deducted from each payer, i.e. UserPoints.deletePointsByPayer
+		DEDUCT_BY_PAYER,
+	}
+
+	IdempotencyKey key;
+
+	Kind kind;
+
+	// The payer added to, populated solely for ADD writes
+	@Nullable
+	String payer;
+
+	long points;
+
+	// Events deducted from (DEDUCT), or points deducted from each payer sans time data (DEDUCT_BY_PAYER), otherwise empty
+	List<PointEvent> retained;
+
+	// Absent unless a DEDUCT deducted from more events than are retained (see IdempotencyLimits), in which case the
+	// i'th retained event, sans time data, stands for this many consecutive events deducted from alike
+	@Nullable
+	int[] repeats;
+
+	public IdempotentWrite(final IdempotencyKey key, final Kind kind, @Nullable final String payer, final long points, final List<PointEvent> retained) {
+		this(key, kind, payer, points, retained, null);
+	}
+
+	public IdempotentWrite(final IdempotencyKey key, final Kind kind, @Nullable final String payer, final long points, final List<PointEvent> retained,
+		@Nullable final int[] repeats) {
+		this.key = key;
+		this.kind = kind;
+		this.payer = payer;
+		this.points = points;
+		this.retained = retained;
+		this.repeats = repeats;
+	}
+
+	/**
+	 * A DEDUCT write, retaining every event deducted from unless there are more than maxRetainedEvents, whereupon
+	 * consecutive events deducting the same points from the same payer are retained once, as are their repeats.
+	 * Either way the write reports exactly the payers and points originally deducted, merely sans time data.
+	 * @param removed Each event deducted from, oldest to newest
+	 */
+	static IdempotentWrite deduction(final IdempotencyKey key, final long points, final List<PointEvent> removed, final int maxRetainedEvents) {
+		if (removed.size() <= maxRetainedEvents) {
+			return new IdempotentWrite(key, Kind.DEDUCT, null, points, Collections.unmodifiableList(removed));
+		}
+
+		final List<PointEvent> runs = new ArrayList<>();
+		int[] repeats = new int[16];
+		for (final PointEvent event : removed) {
+			final int last = runs.size() - 1;
+			if (last >= 0 && runs.get(last).getPoints() == event.getPoints() && runs.get(last).getPayer().equals(event.getPayer())) {
+				repeats[last]++;
+				continue;
+			}
+			if (runs.size() == repeats.length) {
+				repeats = Arrays.copyOf(repeats, repeats.length * 2);
+			}
+			runs.add(new PointEvent(event.getPayer(), event.getPoints(), 0L, 0, 0L));
+			repeats[runs.size() - 1] = 1;
+		}
+		return new IdempotentWrite(key, Kind.DEDUCT, null, points, List.copyOf(runs), Arrays.copyOf(repeats, runs.size()));
+	}
+
+	/**
+	 * @return Every event deducted from (DEDUCT), or the points deducted from each payer (DEDUCT_BY_PAYER), otherwise empty
+	 */
+	public List<PointEvent> getRemoved() {
+		if (this.repeats == null) {
+			return this.retained;
+		}
+
+		final List<PointEvent> removed = new ArrayList<>();
+		for (int i = 0; i < this.repeats.length; i++) {
+			for (int j = 0; j < this.repeats[i]; j++) {
+				removed.add(this.retained.get(i));
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * @return The points deducted from each payer, in the order payers were first deducted from
+	 */
+	public PayerDeductions getDeducted() {
+		final PayerDeductions deducted = new PayerDeductions();
+		for (final PointEvent event : this.retained) {
+			deducted.add(PayerDictionary.id(event.getPayer()), -event.getPoints());
+		}
+		return deducted;
+	}
+
+	/**
+	 * Ensure a retry is of this write, rather than another write reusing its key.
+	 * @throws IdempotencyKeyReusedException If the retry differs from this write
+	 */
+	void vet(final Kind kind, @Nullable final String payer, final long points) {
+		if (this.kind != kind || !Objects.equals(this.payer, payer) || this.points != points) {
+			throw new IdempotencyKeyReusedException("Idempotency-Key %s was already used for a different write".formatted(this.key.getKey()));
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.gehrig.fetch.points.domain;
+
+import org.springframework.lang.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The writes recently made to a single User under idempotency keys, along with their original results.
+ *
+ * Writes are remembered while holding the Users lock, in the order they're made, whereas they're recalled
+ * without synchronization, thus a retry of a write already made is answered in O(1) without waiting on writers.
+ * Every User is bounded both in keys and by age, see IdempotencyLimits, beyond which the oldest writes are
+ * forgotten (a retry of a forgotten write is applied afresh).
+ */
+public final class IdempotentWrites {
+
+	private final IdempotencyLimits limits;
+	private final Map<String, IdempotentWrite> writes = new ConcurrentHashMap<>();
+	// Oldest to newest, solely touched while holding the Users lock
+	private final ArrayDeque<IdempotentWrite> order = new ArrayDeque<>();
+
+	IdempotentWrites(final IdempotencyLimits limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * @param key An idempotency key
+	 * @param now The current time, in epoch millis
+	 * @return The write made under the key, or Null should it be unknown or expired
+	 */
+	@Nullable
+	IdempotentWrite get(final String key, final long now) {
+		final IdempotentWrite write = this.writes.get(key);
+		return write == null || this.isExpired(write, now) ? null : write;
+	}
+
+	/**
+	 * Remember a write, forgetting the oldest writes beyond the limits. The caller must hold the Users lock.
+	 * @param write A write whose key isn't already remembered
+	 * @param now The current time, in epoch millis
+	 */
+	void put(final IdempotentWrite write, final long now) {
+		this.order.addLast(write);
+		this.writes.put(write.getKey().getKey(), write);
+
+		final int keys = this.limits.getMaxKeys();
+		while (!this.order.isEmpty() && (this.order.size() > keys || this.isExpired(this.order.peekFirst(), now))) {
+			final IdempotentWrite oldest = this.order.pollFirst();
+			this.writes.remove(oldest.getKey().getKey(), oldest);
+		}
+	}
+
+	/**
+	 * @param now The current time, in epoch millis
+	 * @return Every write remembered and unexpired, oldest to newest. The caller must hold the Users lock.
+	 */
+	List<IdempotentWrite> list(final long now) {
+		final List<IdempotentWrite> writes = new ArrayList<>(this.order.size());
+		for (final IdempotentWrite write : this.order) {
+			if (!this.isExpired(write, now)) {
+				writes.add(write);
+			}
+		}
+		return writes;
+	}
+
+	private boolean isExpired(final IdempotentWrite write, final long now) {
+		return now - write.getKey().getAt() >= this.limits.getExpiryMillis();
+	}
+}
@@ -0,0 +1,138 @@
+package com.gehrig.fetch.points.domain;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A map of non-negative int keys (e.g. payer ids) to values, via open addressing with linear probing.
+ *
+ * Keys and values are held in a pair of arrays, thus neither keys are boxed nor entries allocated.
+ * Removal shifts subsequent entries of the probe sequence back, rather than leaving tombstones.
+ * Like the collections of UserPoints, maps aren't thread-safe.
+ *
+ * @param <V> The value type
+ */
+public final class IntMap<V> {
+
+	private static final int EMPTY = -1;
+	private static final int MIN_CAPACITY = 8;
+
+	private int[] keys;
+	private V[] values;
+	private int shift;
+	private int size;
+
+	public IntMap() {
+		this.allocate(MIN_CAPACITY);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void allocate(final int capacity) {
+		this.keys = new int[capacity];
+		Arrays.fill(this.keys, EMPTY);
+		this.values = (V[]) new Object[capacity];
+		this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(capacity);
+		this.size = 0;
+	}
+
+	// Fibonacci hashing, i.e. the high bits of the product, spreads even sequential keys
+	private int slot(final int key) {
+		return (key * 0x9E3779B9) >>> this.shift;
+	}
+
+	public V get(final int key) {
+		if (key < 0) {
+			return null;
+		}
+		for (int i = this.slot(key); ; i = (i + 1) & (this.keys.length - 1)) {
+			if (this.keys[i] == key) {
+				return this.values[i];
+			}
+			if (this.keys[i] == EMPTY) {
+				return null;
+			}
+		}
+	}
+
+	public void put(final int key, final V value) {
+		if (key < 0) {
+			throw new IllegalArgumentException("Keys must be non-negative");
+		}
+
+		int i = this.slot(key);
+		while (this.keys[i] != EMPTY && this.keys[i] != key) {
+			i = (i + 1) & (this.keys.length - 1);
+		}
+		if (this.keys[i] == EMPTY) {
+			this.keys[i] = key;
+			// Kept at most half full, thus probe sequences stay short
+			if (++this.size * 2 > this.keys.length) {
+				this.values[i] = value;
+				this.grow();
+				return;
+			}
+		}
+		this.values[i] = value;
+	}
+
+	public V remove(final int key) {
+		if (key < 0) {
+			return null;
+		}
+		final int mask = this.keys.length - 1;
+		int i = this.slot(key);
+		while (this.keys[i] != key) {
+			if (this.keys[i] == EMPTY) {
+				return null;
+			}
+			i = (i + 1) & mask;
+		}
+
+		final V removed = this.values[i];
+		this.size--;
+		// Shift back any subsequent entry whose ideal slot doesn't lie between the hole and itself
+		int hole = i;
+		for (int j = (hole + 1) & mask; this.keys[j] != EMPTY; j = (j + 1) & mask) {
+			final int ideal = this.slot(this.keys[j]);
+			if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+				this.keys[hole] = this.keys[j];
+				this.values[hole] = this.values[j];
+				hole = j;
+			}
+		}
+		this.keys[hole] = EMPTY;
+		this.values[hole] = null;
+		return removed;
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	public void forEachValue(final Consumer<V> consumer) {
+		for (int i = 0; i < this.keys.length; i++) {
+			if (this.keys[i] != EMPTY) {
+				consumer.accept(this.values[i]);
+			}
+		}
+	}
+
+	public void clear() {
+		this.allocate(MIN_CAPACITY);
+	}
+
+	private void grow() {
+		final int[] oldKeys = this.keys;
+		final V[] oldValues = this.values;
+		this.allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				this.put(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.gehrig.fetch.points.domain;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Audit lines for the writes made to UserPoints, logged as key=value pairs to their own logger.
+ *
+ * Accepted writes are the overwhelming majority of log lines under load, so only a sampled fraction
+ * of them is logged, as given by the sample rate. Rejected writes are always logged. Arguments are neither
+ * boxed nor formatted unless a line is actually logged, thus unsampled writes cost a random draw.
+ */
+public final class LedgerAudit {
+
+	public static final String LOGGER_NAME = "com.gehrig.fetch.points.audit";
+	public static final double DEFAULT_SAMPLE_RATE = 0.01d;
+
+	/**
+	 * An audit at the default sample rate, for UserPoints which aren't given one.
+	 */
+	public static final LedgerAudit DEFAULT = new LedgerAudit(DEFAULT_SAMPLE_RATE);
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(LOGGER_NAME);
+
+	private final double sampleRate;
+
+	/**
+	 * @param sampleRate The fraction of accepted writes logged, from 0 (none) through 1 (all)
+	 */
+	public LedgerAudit(final double sampleRate) {
+		this.sampleRate = Math.max(0d, Math.min(1d, sampleRate));
+	}
+
+	public double getSampleRate() {
+		return this.sampleRate;
+	}
+
+	private boolean isSampled() {
+		return this.sampleRate >= 1d || (this.sampleRate > 0d && ThreadLocalRandom.current().nextDouble() < this.sampleRate);
+	}
+
+	void added(final String user, final PointEvent pointEvent) {
+		if (LOGGER.isInfoEnabled() && this.isSampled()) {
+			LOGGER.info(
+				"event=add user={} payer={} points={} epoch={} nano={} sequence={}",
+				user, pointEvent.getPayer(), pointEvent.getPoints(), pointEvent.getEpoch(), pointEvent.getNano(), pointEvent.getSequence()
+			);
+		}
+	}
+
+	void deducted(final String user, final String payer, final long points, final int events) {
+		if (LOGGER.isInfoEnabled() && this.isSampled()) {
+			LOGGER.info("event=deduct user={} payer={} points={} events={}", user, payer, points, events);
+		}
+	}
+
+	void rejected(final String user, final String payer, final long points, final long balance) {
+		if (LOGGER.isWarnEnabled()) {
+			LOGGER.warn("event=reject user={} payer={} points={} balance={}", user, payer, points, balance);
+		}
+	}
+}
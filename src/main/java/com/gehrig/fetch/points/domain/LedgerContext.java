@@ -0,0 +1,41 @@
+package com.gehrig.fetch.points.domain;
+
+import lombok.Value;
+import lombok.With;
+
+/**
+ * The collaborators of a UserPoints, typically shared by every User of a ledger.
+ *
+ * Each collaborator defaults to the in-memory only behavior, see DEFAULT, and is replaced via its with method,
+ * e.g. LedgerContext.DEFAULT.withJournal(log).withStorage(storage).
+ */
+@Value
+@With
+public class LedgerContext {
+
+	/**
+	 * Neither journaling, recording, nor sampling writes, with events held on the heap.
+	 */
+	public static final LedgerContext DEFAULT = new LedgerContext(
+		LedgerJournal.NONE,
+		LedgerMetrics.NONE,
+		LedgerStorage.HEAP,
+		LedgerAudit.DEFAULT,
+		IdempotencyLimits.DEFAULT
+	);
+
+	// Receives every vetted write, e.g. to make it durable
+	LedgerJournal journal;
+
+	// Records every operation
+	LedgerMetrics metrics;
+
+	// Opens the EventStore holding a Users events
+	LedgerStorage storage;
+
+	// Samples writes for audit logging
+	LedgerAudit audit;
+
+	// Bounds the writes remembered under idempotency keys
+	IdempotencyLimits idempotencyLimits;
+}
@@ -0,0 +1,80 @@
+package com.gehrig.fetch.points.domain;
+
+import java.util.Comparator;
+
+/**
+ * A User's mutable, internal counterpart to PointEvent.
+ *
+ * Deductions only ever decrease the points of an entry, never its time data, thus an
+ * entry is updated in place without being reordered within the collections tracking it.
+ * Entries are only ever touched while holding their User's lock. Payers are held
+ * by id, see PayerDictionary, and only resolved to names when viewed.
+ *
+ * An entry may stand for a run of its payers events, see LedgerRun, in which case its points
+ * are those of the entire run and its time data that of the run's oldest event when merged.
+ */
+final class LedgerEntry {
+
+	static final Comparator<LedgerEntry> ORDERING = (l, r) ->
+		PointEvent.compareTime(l.epoch, l.nano, l.sequence, r.epoch, r.nano, r.sequence);
+
+	final int payer;
+	final long epoch;
+	final int nano;
+	final long sequence;
+	long points;
+
+	// The events merged into this entry, or Null for an entry of a single event
+	LedgerRun run;
+
+	// The most recent immutable view of this entry, reused while points are unchanged
+	private PointEvent view;
+
+	LedgerEntry(final PointEvent pointEvent) {
+		this(PayerDictionary.id(pointEvent.getPayer()), pointEvent.getPoints(), pointEvent);
+	}
+
+	/**
+	 * @param payer The payer id of this entry
+	 * @param points The points of this entry
+	 * @param time An event whose time data this entry assumes
+	 */
+	LedgerEntry(final int payer, final long points, final PointEvent time) {
+		this.payer = payer;
+		this.points = points;
+		this.epoch = time.getEpoch();
+		this.nano = time.getNano();
+		this.sequence = time.getSequence();
+	}
+
+	/**
+	 * @return The number of events this entry stands for, i.e. those of its run (if any) or else 1
+	 */
+	int events() {
+		return this.run == null ? 1 : this.run.size();
+	}
+
+	/**
+	 * @return Whether this entry is chronologically before the given event
+	 */
+	boolean isBefore(final PointEvent pointEvent) {
+		return PointEvent.compareTime(this.epoch, this.nano, this.sequence, pointEvent.getEpoch(), pointEvent.getNano(), pointEvent.getSequence()) < 0;
+	}
+
+	/**
+	 * @return An immutable PointEvent of this entry, only allocated if points have changed since last viewed
+	 */
+	PointEvent view() {
+		if (this.view == null || this.view.getPoints() != this.points) {
+			this.view = this.withPoints(this.points);
+		}
+		return this.view;
+	}
+
+	/**
+	 * @return A PointEvent with this entries payer and time data, but the given points
+	 */
+	PointEvent withPoints(final long points) {
+		return new PointEvent(PayerDictionary.name(this.payer), points, this.epoch, this.nano, this.sequence);
+	}
+}
@@ -0,0 +1,85 @@
+package com.gehrig.fetch.points.domain;
+
+/**
+ * A record keeper of the writes accepted by UserPoints.
+ *
+ * Journals are invoked while the Users lock is held, once a write has been vetted
+ * but before it's applied. Consequently, the writes of any one User are journaled
+ * in exactly the order they're applied, and a write whose journaling fails is never applied.
+ */
+public interface LedgerJournal {
+
+	/**
+	 * A journal which records nothing, i.e. the in-memory only behavior.
+	 */
+	LedgerJournal NONE = new LedgerJournal() {
+		@Override
+		public long added(final String user, final PointEvent pointEvent) {
+			return 0L;
+		}
+
+		@Override
+		public long deducted(final String user, final long points) {
+			return 0L;
+		}
+	};
+
+	/**
+	 * Record points added to a User, positive or negative.
+	 * @param user The User name
+	 * @param pointEvent The accepted event
+	 * @return A sequence number identifying the record
+	 */
+	long added(String user, PointEvent pointEvent);
+
+	/**
+	 * Record points deducted from a User, oldest to newest.
+	 * @param user The User name
+	 * @param points The accepted (positive) deduction
+	 * @return A sequence number identifying the record
+	 */
+	long deducted(String user, long points);
+
+	/**
+	 * Record points added to a User under an idempotency key, as per added.
+	 * Journals which recover Users ought to record the key, so that retries remain recognized once recovered.
+	 * @param user The User name
+	 * @param pointEvent The accepted event
+	 * @param key The key of the write
+	 * @return A sequence number identifying the record
+	 */
+	default long added(final String user, final PointEvent pointEvent, final IdempotencyKey key) {
+		return this.added(user, pointEvent);
+	}
+
+	/**
+	 * Record points deducted from a User under an idempotency key, as per deducted.
+	 * @param user The User name
+	 * @param points The accepted (positive) deduction
+	 * @param byPayer Whether the points deducted from each payer were reported, rather than every event deducted from
+	 * @param key The key of the write
+	 * @return A sequence number identifying the record
+	 */
+	default long deducted(final String user, final long points, final boolean byPayer, final IdempotencyKey key) {
+		return this.deducted(user, points);
+	}
+
+	/**
+	 * Record a User adopted in full from elsewhere, e.g. handed off by another node of a cluster.
+	 * Journals which recover Users ought to record the state, as it's otherwise never journaled.
+	 * @param state The adopted Users state
+	 * @return A sequence number identifying the record
+	 */
+	default long adopted(final LedgerState state) {
+		return 0L;
+	}
+
+	/**
+	 * Record a User handed off in full to elsewhere, after which this journal no longer holds the User.
+	 * @param user The User name
+	 * @return A sequence number identifying the record
+	 */
+	default long handedOff(final String user) {
+		return 0L;
+	}
+}
@@ -0,0 +1,57 @@
+package com.gehrig.fetch.points.domain;
+
+/**
+ * A recorder of UserPoints operations, e.g. their latency and how much of a ledger they touch.
+ *
+ * Recorders are invoked on every operation, so they must be cheap and must never block.
+ * Durations of writes are measured with System.nanoTime, and are recorded once the Users lock is released.
+ */
+public interface LedgerMetrics {
+
+	/**
+	 * Metrics which record nothing, i.e. the uninstrumented behavior.
+	 */
+	LedgerMetrics NONE = new LedgerMetrics() {
+		@Override
+		public void locked(final long waitNanos) {
+		}
+
+		@Override
+		public void added(final long nanos, final int outstanding) {
+		}
+
+		@Override
+		public void deducted(final long nanos, final int scanned, final int outstanding) {
+		}
+
+		@Override
+		public void read() {
+		}
+	};
+
+	/**
+	 * Record the time a writer spent waiting to acquire a Users lock.
+	 * @param waitNanos The duration between requesting and acquiring the lock
+	 */
+	void locked(long waitNanos);
+
+	/**
+	 * Record points added to a User, whether a single event or a batch.
+	 * @param nanos The duration of the addition, including any wait for the lock
+	 * @param outstanding The number of events outstanding for the User afterwards
+	 */
+	void added(long nanos, int outstanding);
+
+	/**
+	 * Record points deducted from a User.
+	 * @param nanos The duration of the deduction, including any wait for the lock
+	 * @param scanned The number of events the deduction visited, i.e. zeroed or partially deducted
+	 * @param outstanding The number of events outstanding for the User afterwards
+	 */
+	void deducted(long nanos, int scanned, int outstanding);
+
+	/**
+	 * Record a read of a Users balance. Reads are merely counted, as timing one would cost more than the read itself.
+	 */
+	void read();
+}
@@ -0,0 +1,192 @@
+package com.gehrig.fetch.points.domain;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Chronologically adjacent events of a single payer, merged into one LedgerEntry, see HeapEventStore.
+ *
+ * Unlike PointEvent.merge, each event's time data and points are retained, packed into a single array,
+ * thus deductions report exactly the events they would have had the events never been merged, and a run
+ * is split apart should another payer's event later land amidst it. Events are consumed from the head
+ * (oldest), whose points alone may be partially deducted. Runs are only ever touched while holding their
+ * User's lock.
+ */
+final class LedgerRun {
+
+	// Per event: epoch, nano, sequence, points
+	private static final int FIELDS = 4;
+	private static final int EPOCH = 0;
+	private static final int NANO = 1;
+	private static final int SEQUENCE = 2;
+	private static final int POINTS = 3;
+
+	private final int payer;
+	private long[] events;
+	// The oldest event not yet consumed, and one past the newest event, by event rather than array index
+	private int head;
+	private int tail;
+
+	/**
+	 * @param entry An entry, not yet a run, whose time data and current points become the first event of this run
+	 */
+	LedgerRun(final LedgerEntry entry) {
+		this.payer = entry.payer;
+		this.events = new long[FIELDS * 4];
+		this.set(0, entry.epoch, entry.nano, entry.sequence, entry.points);
+		this.tail = 1;
+	}
+
+	private LedgerRun(final int payer, final long[] events, final int tail) {
+		this.payer = payer;
+		this.events = events;
+		this.tail = tail;
+	}
+
+	/**
+	 * @return The number of events remaining
+	 */
+	int size() {
+		return this.tail - this.head;
+	}
+
+	/**
+	 * @return Whether the newest event of this run is chronologically after the given event
+	 */
+	boolean endsAfter(final PointEvent pointEvent) {
+		return this.compareTo(this.tail - 1, pointEvent) > 0;
+	}
+
+	/**
+	 * @return The position of the oldest remaining event chronologically after the given event, the size if none are
+	 */
+	int positionAfter(final PointEvent pointEvent) {
+		int low = this.head;
+		int high = this.tail;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (this.compareTo(middle, pointEvent) > 0) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low - this.head;
+	}
+
+	/**
+	 * @param position A position from 0 (the oldest remaining event) through the size
+	 * @return The sum of the points of the events from the given position onwards
+	 */
+	long pointsFrom(final int position) {
+		long points = 0L;
+		for (int i = this.head + position; i < this.tail; i++) {
+			points += this.events[i * FIELDS + POINTS];
+		}
+		return points;
+	}
+
+	/**
+	 * @param position A position from 0 (the oldest remaining event) through the size
+	 * @return An event bearing the time data of the event at the given position, though no points, for keying a LedgerEntry
+	 */
+	PointEvent timeOf(final int position) {
+		final int i = (this.head + position) * FIELDS;
+		return new PointEvent(PayerDictionary.name(this.payer), 0L, this.events[i + EPOCH], (int) this.events[i + NANO], this.events[i + SEQUENCE]);
+	}
+
+	/**
+	 * Insert an event of this runs payer, chronologically.
+	 * @param pointEvent An event whose points are positive
+	 */
+	void add(final PointEvent pointEvent) {
+		final int position = this.positionAfter(pointEvent);
+		this.ensureCapacity();
+		final int i = this.head + position;
+		System.arraycopy(this.events, i * FIELDS, this.events, (i + 1) * FIELDS, (this.tail - i) * FIELDS);
+		this.set(i, pointEvent.getEpoch(), pointEvent.getNano(), pointEvent.getSequence(), pointEvent.getPoints());
+		this.tail++;
+	}
+
+	/**
+	 * Detach every event from the given position onwards.
+	 * @param position A position from 1 through the size
+	 * @return A run of the detached events, which this run no longer holds
+	 */
+	LedgerRun splitAt(final int position) {
+		final int i = this.head + position;
+		final LedgerRun upper = new LedgerRun(this.payer, Arrays.copyOfRange(this.events, i * FIELDS, this.tail * FIELDS), this.tail - i);
+		this.tail = i;
+		return upper;
+	}
+
+	/**
+	 * Deduct points from the oldest events, consuming events in full until the final event, which may be partially deducted.
+	 * @param points A positive points value, which mustn't exceed the points remaining
+	 * @param removed A potentially Null list, receiving each event deducted from, with its points negated to the amount deducted
+	 */
+	void deduct(final long points, @Nullable final List<PointEvent> removed) {
+		long remaining = points;
+		while (remaining > 0) {
+			final long held = this.events[this.head * FIELDS + POINTS];
+			final long deducted = Math.min(held, remaining);
+			if (removed != null) {
+				removed.add(this.view(this.head, -deducted));
+			}
+			if (deducted == held) {
+				this.head++;
+			} else {
+				this.events[this.head * FIELDS + POINTS] = held - deducted;
+			}
+			remaining -= deducted;
+		}
+	}
+
+	/**
+	 * Visit every remaining event, oldest to newest.
+	 * @param negate Whether events are visited with their points negated, i.e. as consumed in full
+	 * @param consumer Receives each event
+	 */
+	void forEach(final boolean negate, final Consumer<PointEvent> consumer) {
+		for (int i = this.head; i < this.tail; i++) {
+			final long points = this.events[i * FIELDS + POINTS];
+			consumer.accept(this.view(i, negate ? -points : points));
+		}
+	}
+
+	private PointEvent view(final int i, final long points) {
+		final int offset = i * FIELDS;
+		return new PointEvent(PayerDictionary.name(this.payer), points, this.events[offset + EPOCH], (int) this.events[offset + NANO], this.events[offset + SEQUENCE]);
+	}
+
+	private int compareTo(final int i, final PointEvent pointEvent) {
+		final int offset = i * FIELDS;
+		return PointEvent.compareTime(this.events[offset + EPOCH], (int) this.events[offset + NANO], this.events[offset + SEQUENCE],
+			pointEvent.getEpoch(), pointEvent.getNano(), pointEvent.getSequence());
+	}
+
+	private void set(final int i, final long epoch, final int nano, final long sequence, final long points) {
+		final int offset = i * FIELDS;
+		this.events[offset + EPOCH] = epoch;
+		this.events[offset + NANO] = nano;
+		this.events[offset + SEQUENCE] = sequence;
+		this.events[offset + POINTS] = points;
+	}
+
+	// Make room for one more event, reclaiming the space of consumed events before growing
+	private void ensureCapacity() {
+		if (this.tail * FIELDS < this.events.length) {
+			return;
+		}
+		if (this.head > 0) {
+			System.arraycopy(this.events, this.head * FIELDS, this.events, 0, this.size() * FIELDS);
+			this.tail -= this.head;
+			this.head = 0;
+		} else {
+			this.events = Arrays.copyOf(this.events, this.events.length * 2);
+		}
+	}
+}
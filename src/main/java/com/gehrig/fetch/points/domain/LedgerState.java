@@ -0,0 +1,30 @@
+package com.gehrig.fetch.points.domain;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * A point-in-time copy of everything a User book-keeps, used to persist and restore UserPoints.
+ */
+@Value
+public class LedgerState {
+
+	String user;
+
+	// Sequence number of the latest journaled write reflected by this state, see LedgerJournal
+	long journalSequence;
+
+	long version;
+
+	long total;
+
+	// Payer totals, ordered as by UserPoints.getPoints (including their minimized time data)
+	List<PointEvent> payerTotals;
+
+	// Outstanding point events, oldest to newest
+	List<PointEvent> pointEvents;
+
+	// Unexpired writes made under idempotency keys, oldest to newest
+	List<IdempotentWrite> idempotentWrites;
+}
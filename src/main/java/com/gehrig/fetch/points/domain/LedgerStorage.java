@@ -0,0 +1,22 @@
+package com.gehrig.fetch.points.domain;
+
+/**
+ * A storage engine, which opens the EventStore of each UserPoints.
+ */
+public interface LedgerStorage {
+
+	/**
+	 * Events held as objects on the heap, i.e. the in-memory only behavior.
+	 */
+	LedgerStorage HEAP = HeapEventStore::new;
+
+	/**
+	 * Events held as objects on the heap, merging chronologically adjacent events of the same payer, see HeapEventStore.
+	 */
+	LedgerStorage COMPACTED_HEAP = () -> new HeapEventStore(true);
+
+	/**
+	 * @return An empty EventStore, for a single User
+	 */
+	EventStore open();
+}
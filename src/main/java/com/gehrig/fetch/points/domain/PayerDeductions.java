@@ -0,0 +1,88 @@
+package com.gehrig.fetch.points.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * The points a single deduction took from each payer, in the order payers were first deducted from.
+ *
+ * One slot is held per payer rather than per event, thus a deduction consuming thousands
+ * of a payers events costs no more than one consuming a single event.
+ */
+public final class PayerDeductions {
+
+	// Points deducted by payer id, each held by a single element array so that it's summed in place
+	private final IntMap<long[]> deducted = new IntMap<>();
+	private int[] payers = new int[4];
+	private int size;
+	private long total;
+
+	/**
+	 * Sum points deducted from a payer, appending the payer should it not yet have been deducted from.
+	 * @param payer A payer id, see PayerDictionary
+	 * @param points The positive points deducted
+	 */
+	public void add(final int payer, final long points) {
+		long[] deducted = this.deducted.get(payer);
+		if (deducted == null) {
+			if (this.size == this.payers.length) {
+				this.payers = Arrays.copyOf(this.payers, this.size * 2);
+			}
+			this.payers[this.size++] = payer;
+			deducted = new long[1];
+			this.deducted.put(payer, deducted);
+		}
+		deducted[0] += points;
+		this.total += points;
+	}
+
+	/**
+	 * @return The number of payers deducted from
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	// The id of the i'th payer deducted from
+	int getPayer(final int i) {
+		return this.payers[i];
+	}
+
+	// The points deducted from the i'th payer deducted from
+	long getPoints(final int i) {
+		return this.deducted.get(this.payers[i])[0];
+	}
+
+	/**
+	 * @return The points deducted across every payer
+	 */
+	public long getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * Visit every payer deducted from, in the order they were first deducted from.
+	 * @param consumer Receives each payer name along with the (positive) points deducted from it
+	 */
+	public void forEach(final ObjLongConsumer<String> consumer) {
+		for (int i = 0; i < this.size; i++) {
+			consumer.accept(PayerDictionary.name(this.payers[i]), this.getPoints(i));
+		}
+	}
+
+	// Every payer deducted from as an event sans time data, whose points are negated, see IdempotentWrite
+	List<PointEvent> toEvents() {
+		final List<PointEvent> events = new ArrayList<>(this.size);
+		this.forEach((payer, points) -> events.add(new PointEvent(payer, -points, 0L, 0, 0L)));
+		return events;
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("PayerDeductions{");
+		this.forEach((payer, points) -> builder.append(builder.length() > 16 ? ", " : "").append(payer).append('=').append(points));
+		return builder.append('}').toString();
+	}
+}
@@ -0,0 +1,90 @@
+package com.gehrig.fetch.points.domain;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A per-node dictionary of every payer name, each assigned a compact int id in order of arrival.
+ *
+ * Payers are few (hundreds) whereas events are many (millions), so payer names are interned once an
+ * addition of theirs is accepted: every event of a payer shares a single String, rather than each holding
+ * its own copy straight from Jackson. Anything short of an accepted addition merely finds a payer, so
+ * rejected requests can't grow the dictionary. Within a User, payers are keyed and compared by id, and their names are
+ * only looked up again (an array read) when events are handed back out, e.g. to be rendered.
+ *
+ * Ids are never persisted, as they differ between nodes and restarts, thus the persistence layer
+ * continues to record names. Names are never evicted, i.e. every payer ever seen is retained.
+ */
+public final class PayerDictionary {
+
+	/**
+	 * The id of a payer that's never been seen.
+	 */
+	public static final int UNKNOWN = -1;
+
+	private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+	// Replaced, rather than mutated, as it grows, and only ever read at ids published via IDS
+	private static volatile String[] names = new String[256];
+	private static int size;
+
+	private PayerDictionary() {
+	}
+
+	/**
+	 * @param payer A payer name
+	 * @return The id of the payer, assigning it one should it be new
+	 */
+	public static int id(final String payer) {
+		final Integer id = IDS.get(payer);
+		return id == null ? register(payer) : id;
+	}
+
+	/**
+	 * @param payer A payer name
+	 * @return The id of the payer, or UNKNOWN should it be new (in which case it's not assigned one)
+	 */
+	public static int find(final String payer) {
+		final Integer id = IDS.get(payer);
+		return id == null ? UNKNOWN : id;
+	}
+
+	/**
+	 * @param id A payer id
+	 * @return The payer name, i.e. the canonical String shared by every event of that payer
+	 */
+	public static String name(final int id) {
+		return names[id];
+	}
+
+	/**
+	 * @param payer A payer name
+	 * @return The canonical String equal to the payer name
+	 */
+	public static String intern(final String payer) {
+		return name(id(payer));
+	}
+
+	/**
+	 * @return The number of payers ever seen
+	 */
+	public static synchronized int size() {
+		return size;
+	}
+
+	private static synchronized int register(final String payer) {
+		final Integer existing = IDS.get(payer);
+		if (existing != null) {
+			return existing;
+		}
+
+		if (size == names.length) {
+			names = Arrays.copyOf(names, size * 2);
+		}
+		final int id = size++;
+		names[id] = payer;
+		// Publishes the name alongside the id
+		IDS.put(payer, id);
+		return id;
+	}
+}
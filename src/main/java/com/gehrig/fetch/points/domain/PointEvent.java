@@ -4,47 +4,46 @@ import com.gehrig.fetch.points.dto.RequestPointAddition;
 import lombok.Value;
 
 import javax.validation.constraints.NotBlank;
-import javax.validation.constraints.NotNull;
 import java.time.Instant;
 import java.time.ZonedDateTime;
-import java.util.*;
+import java.util.Comparator;
 
+/**
+ * An immutable payment event, i.e. what's handed to and returned from a User.
+ *
+ * Fields are primitive so that events are compact and compared without unboxing.
+ * Within a User events are tracked as mutable LedgerEntry's instead, see UserPoints.
+ */
 @Value
 public class PointEvent {
 
-	public static final Comparator<PointEvent> ORDERING =
-		Comparator.comparing(PointEvent::getEpoch)
-			.thenComparing(PointEvent::getNano)
-			.thenComparing(PointEvent::getUuid);
+	public static final Comparator<PointEvent> ORDERING = (l, r) ->
+		compareTime(l.epoch, l.nano, l.sequence, r.epoch, r.nano, r.sequence);
 
 	@NotBlank(message = "payer must not be null or blank")
 	String payer;
 
 	// Heck, why not support ~2^63 points!
-	@NotNull(message = "points must not be null")
-	Long points;
+	long points;
 
 	/**
-	 * epoch, nano, and uuid are used to maintain payer order chronologically
+	 * epoch, nano, and sequence are used to maintain payer order chronologically
 	 * - first by time in epoch millis
 	 * - second by time in nanos
-	 * - third by UUID natural ordering if in the slim chance two payers have the same epoch + nano values
+	 * - third by order of arrival if two payers have the same epoch + nano values, see PointEventSequence
 	 */
-	@NotNull
-	Long epoch;
+	long epoch;
 
-	@NotNull
-	Integer nano;
+	int nano;
 
-	@NotNull
-	UUID uuid;
+	long sequence;
 
-	public PointEvent(final String payer, final Long points, final Long epoch, final Integer nano, UUID uuid) {
+	public PointEvent(final String payer, final long points, final long epoch, final int nano, final long sequence) {
 		this.payer = payer;
 		this.points = points;
 		this.epoch = epoch;
 		this.nano = nano;
-		this.uuid = uuid;
+		this.sequence = sequence;
 	}
 
 	public static PointEvent fromRequest(final RequestPointAddition requestPointAddition) {
@@ -55,7 +54,7 @@ public class PointEvent {
 			requestPointAddition.getPoints(),
 			now.toEpochMilli(),
 			now.getNano(),
-			UUID.randomUUID()
+			PointEventSequence.next()
 		);
 	}
 
@@ -65,7 +64,17 @@ public class PointEvent {
 			points,
 			pointEvent.getEpoch(),
 			pointEvent.getNano(),
-			pointEvent.getUuid()
+			pointEvent.getSequence()
+		);
+	}
+
+	public static PointEvent withPayer(final PointEvent pointEvent, final String payer) {
+		return new PointEvent(
+			payer,
+			pointEvent.getPoints(),
+			pointEvent.getEpoch(),
+			pointEvent.getNano(),
+			pointEvent.getSequence()
 		);
 	}
 
@@ -73,13 +82,26 @@ public class PointEvent {
 		if (!l.getPayer().equals(r.getPayer())) {
 			throw new IllegalArgumentException();
 		}
-		final PointEvent min = Collections.min(Arrays.asList(l, r), PointEvent.ORDERING);
+		final PointEvent min = ORDERING.compare(l, r) <= 0 ? l : r;
 		return new PointEvent(
 			min.getPayer(),
 			l.getPoints() + r.getPoints(),
 			min.getEpoch(),
 			min.getNano(),
-			min.getUuid()
+			min.getSequence()
 		);
 	}
+
+	/**
+	 * Chronologically compare the time data of two events, see ORDERING.
+	 */
+	public static int compareTime(final long lEpoch, final int lNano, final long lSequence, final long rEpoch, final int rNano, final long rSequence) {
+		if (lEpoch != rEpoch) {
+			return Long.compare(lEpoch, rEpoch);
+		}
+		if (lNano != rNano) {
+			return Integer.compare(lNano, rNano);
+		}
+		return Long.compare(lSequence, rSequence);
+	}
 }
@@ -0,0 +1,38 @@
+package com.gehrig.fetch.points.domain;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A monotonic, per-node source of the sequence numbers which break ties between
+ * PointEvent's sharing the same epoch + nano values.
+ *
+ * Sequences are seeded from the wall clock (epoch millis shifted left 20 bits), thus
+ * they continue to increase across restarts even absent persistence, so long as fewer
+ * than ~1M events per millisecond are sustained. Recovered events additionally advance
+ * the sequence past themselves, see advancePast, guarding against clock regressions.
+ */
+public final class PointEventSequence {
+
+	private static final int COUNTER_BITS = 20;
+	private static final AtomicLong LAST = new AtomicLong(System.currentTimeMillis() << COUNTER_BITS);
+
+	private PointEventSequence() {
+	}
+
+	/**
+	 * @return A sequence number greater than any previously issued or recovered
+	 */
+	public static long next() {
+		return LAST.incrementAndGet();
+	}
+
+	/**
+	 * Ensure subsequently issued sequence numbers exceed that of a recovered event.
+	 * @param sequence The sequence number of a recovered PointEvent
+	 */
+	public static void advancePast(final long sequence) {
+		if (LAST.get() < sequence) {
+			LAST.accumulateAndGet(sequence, Math::max);
+		}
+	}
+}
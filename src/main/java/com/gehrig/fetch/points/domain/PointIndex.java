@@ -0,0 +1,324 @@
+package com.gehrig.fetch.points.domain;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * LedgerEntry's ordered chronologically, where every subtree knows its count, events, and cumulative points.
+ *
+ * A treap, i.e. a binary search tree kept balanced by random priorities, thus insertions and removals
+ * are O(log(n)) expected, as within a TreeSet. As every subtree knows its points, the prefix of entries
+ * covered by a deduction is found by descending a single path and split off whole, in O(log(n)) no matter
+ * how many entries it holds. Likewise for the points held before any given entry.
+ *
+ * Entries are shared between indexes (e.g. chronological and per-payer), thus an index never changes the
+ * points of an entry itself; whoever deducts from an entry in place tells each index holding it, see deducted.
+ * An entry standing for a LedgerRun counts each of the run's events, so that events are counted without visiting runs.
+ */
+final class PointIndex {
+
+	private static final class Node {
+		final LedgerEntry entry;
+		final int priority;
+		Node left;
+		Node right;
+		int count;
+		int events;
+		long points;
+
+		Node(final LedgerEntry entry) {
+			this.entry = entry;
+			this.priority = ThreadLocalRandom.current().nextInt();
+			this.count = 1;
+			this.events = entry.events();
+			this.points = entry.points;
+		}
+	}
+
+	private Node root;
+
+	// The two halves of the most recent split, carried out of the recursion without allocating
+	private Node lower;
+	private Node upper;
+
+	PointIndex() {
+	}
+
+	private PointIndex(final Node root) {
+		this.root = root;
+	}
+
+	private static int count(final Node node) {
+		return node == null ? 0 : node.count;
+	}
+
+	private static int events(final Node node) {
+		return node == null ? 0 : node.events;
+	}
+
+	private static long points(final Node node) {
+		return node == null ? 0L : node.points;
+	}
+
+	private static void update(final Node node) {
+		node.count = 1 + count(node.left) + count(node.right);
+		node.events = node.entry.events() + events(node.left) + events(node.right);
+		node.points = node.entry.points + points(node.left) + points(node.right);
+	}
+
+	/**
+	 * @return The number of entries held
+	 */
+	int size() {
+		return count(this.root);
+	}
+
+	/**
+	 * @return The number of events held, counting every event of a run
+	 */
+	int events() {
+		return events(this.root);
+	}
+
+	/**
+	 * @return The sum of every entries points
+	 */
+	long points() {
+		return points(this.root);
+	}
+
+	boolean isEmpty() {
+		return this.root == null;
+	}
+
+	/**
+	 * @return The oldest entry, or Null if empty
+	 */
+	LedgerEntry first() {
+		Node node = this.root;
+		if (node == null) {
+			return null;
+		}
+		while (node.left != null) {
+			node = node.left;
+		}
+		return node.entry;
+	}
+
+	/**
+	 * @param entry An entry not already held, whose points are positive
+	 */
+	void add(final LedgerEntry entry) {
+		this.splitBefore(this.root, entry);
+		this.root = merge(merge(this.lower, new Node(entry)), this.upper);
+		this.lower = null;
+		this.upper = null;
+	}
+
+	/**
+	 * @param entry An entry held by this index
+	 */
+	void remove(final LedgerEntry entry) {
+		this.root = remove(this.root, entry);
+	}
+
+	private static Node remove(final Node node, final LedgerEntry entry) {
+		final int comparison = LedgerEntry.ORDERING.compare(entry, node.entry);
+		if (comparison == 0) {
+			return merge(node.left, node.right);
+		}
+		if (comparison < 0) {
+			node.left = remove(node.left, entry);
+		} else {
+			node.right = remove(node.right, entry);
+		}
+		update(node);
+		return node;
+	}
+
+	/**
+	 * Account for points deducted in place from an entry held, keeping the points and events of its subtrees in step.
+	 * @param entry An entry held by this index, whose points (and run) have already been decreased
+	 * @param points The points deducted from the entry
+	 * @param events The events of the entry's run consumed or split off in full
+	 */
+	void deducted(final LedgerEntry entry, final long points, final int events) {
+		Node node = this.root;
+		while (node != null) {
+			node.points -= points;
+			node.events -= events;
+			final int comparison = LedgerEntry.ORDERING.compare(entry, node.entry);
+			if (comparison == 0) {
+				return;
+			}
+			node = comparison < 0 ? node.left : node.right;
+		}
+	}
+
+	/**
+	 * Account for points added in place to an entry held, see deducted.
+	 * @param entry An entry held by this index, whose points (and run) have already been increased
+	 * @param points The points added to the entry
+	 * @param events The events merged into the entry's run
+	 */
+	void added(final LedgerEntry entry, final long points, final int events) {
+		this.deducted(entry, -points, -events);
+	}
+
+	/**
+	 * @param entry An entry, whether held or not
+	 * @return The newest entry ordered before the given entry, or Null if none are
+	 */
+	LedgerEntry lastBefore(final LedgerEntry entry) {
+		LedgerEntry last = null;
+		Node node = this.root;
+		while (node != null) {
+			if (LedgerEntry.ORDERING.compare(node.entry, entry) < 0) {
+				last = node.entry;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return last;
+	}
+
+	/**
+	 * @param entry An entry, whether held or not
+	 * @return The sum of the points of entries ordered before the given entry
+	 */
+	long pointsBefore(final LedgerEntry entry) {
+		long points = 0L;
+		Node node = this.root;
+		while (node != null) {
+			if (LedgerEntry.ORDERING.compare(node.entry, entry) < 0) {
+				points += points(node.left) + node.entry.points;
+				node = node.right;
+			} else {
+				node = node.left;
+			}
+		}
+		return points;
+	}
+
+	/**
+	 * Detach the longest prefix of entries whose points sum to no more than the given points,
+	 * i.e. the entries a deduction of those points consumes in full.
+	 * @param points A non-negative points value
+	 * @return The detached prefix, which this index no longer holds
+	 */
+	PointIndex removeCovered(final long points) {
+		this.splitCovered(this.root, points);
+		return this.detachLower();
+	}
+
+	/**
+	 * Detach every entry ordered before the given entry.
+	 * @param entry An entry, whether held or not, or Null to detach every entry
+	 * @return The detached prefix, which this index no longer holds
+	 */
+	PointIndex removeBefore(final LedgerEntry entry) {
+		if (entry == null) {
+			final PointIndex prefix = new PointIndex(this.root);
+			this.root = null;
+			return prefix;
+		}
+		this.splitBefore(this.root, entry);
+		return this.detachLower();
+	}
+
+	/**
+	 * Visit every entry held, oldest to newest.
+	 * @param consumer Receives each entry
+	 */
+	void forEach(final Consumer<LedgerEntry> consumer) {
+		final Deque<Node> path = new ArrayDeque<>();
+		Node node = this.root;
+		while (node != null || !path.isEmpty()) {
+			while (node != null) {
+				path.push(node);
+				node = node.left;
+			}
+			node = path.pop();
+			consumer.accept(node.entry);
+			node = node.right;
+		}
+	}
+
+	// Keep the upper half of the most recent split, returning the lower half as an index of its own
+	private PointIndex detachLower() {
+		final PointIndex prefix = new PointIndex(this.lower);
+		this.root = this.upper;
+		this.lower = null;
+		this.upper = null;
+		return prefix;
+	}
+
+	void clear() {
+		this.root = null;
+	}
+
+	// Split into the entries consumed by the given points (lower) and those remaining (upper)
+	private void splitCovered(final Node node, final long points) {
+		if (node == null) {
+			this.lower = null;
+			this.upper = null;
+			return;
+		}
+
+		final long covered = points(node.left) + node.entry.points;
+		if (covered <= points) {
+			this.splitCovered(node.right, points - covered);
+			node.right = this.lower;
+			update(node);
+			this.lower = node;
+		} else {
+			this.splitCovered(node.left, points);
+			node.left = this.upper;
+			update(node);
+			this.upper = node;
+		}
+	}
+
+	// Split into the entries before the given entry (lower) and the remainder (upper)
+	private void splitBefore(final Node node, final LedgerEntry entry) {
+		if (node == null) {
+			this.lower = null;
+			this.upper = null;
+			return;
+		}
+
+		if (LedgerEntry.ORDERING.compare(node.entry, entry) < 0) {
+			this.splitBefore(node.right, entry);
+			node.right = this.lower;
+			update(node);
+			this.lower = node;
+		} else {
+			this.splitBefore(node.left, entry);
+			node.left = this.upper;
+			update(node);
+			this.upper = node;
+		}
+	}
+
+	// Join two treaps, every entry of lower being ordered before those of upper
+	private static Node merge(final Node lower, final Node upper) {
+		if (lower == null) {
+			return upper;
+		}
+		if (upper == null) {
+			return lower;
+		}
+
+		if (lower.priority > upper.priority) {
+			lower.right = merge(lower.right, upper);
+			update(lower);
+			return lower;
+		}
+		upper.left = merge(lower, upper.left);
+		update(upper);
+		return upper;
+	}
+}
@@ -1,14 +1,13 @@
 package com.gehrig.fetch.points.domain;
 
+import com.gehrig.fetch.points.exception.IdempotencyKeyReusedException;
 import com.gehrig.fetch.points.exception.InvalidDeductionException;
+import com.gehrig.fetch.points.exception.RetiredUserException;
 import lombok.Getter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.lang.Nullable;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class is the core to the domain logic of this Web Application.
@@ -18,11 +17,8 @@ import java.util.stream.Collectors;
  * payment events and segregated totals for several reasons:
  *
  * 	1.	The ordered collection of payment events both inserts and iterates across
- * 			payments events in a performant manner.
- * 			Specifically, the TreeSet handles insertions in O(log(n)) which seems
- * 			reasonable considering we get an in-order iteration of O(n).
- * 			Consequently, points deductions are satisfactorily timely given an O(n)
- * 			iteration and O(log(n)) reinsertion of modified events.
+ * 			payments events in a performant manner. It's held by an EventStore (see
+ * 			LedgerStorage), whose deductions only visit the events they consume.
  *
  * 	2.	Segregated User and payers totals provide a couple benefits that
  * 			justified the added book-keeping complexity. Negative balance heuristics
@@ -31,28 +27,52 @@ import java.util.stream.Collectors;
  * 		 	totals from the pointEvents data structure greatly reduces algorithmic
  * 		 	complexity and readability.
  *
- * Finally, notice the coordinated synchronization between the add and delete
- * methods. Due to the problems complexity, and difficulty consolidating totals
- * with payment events into a data structure with concurrency guarantees we've
- * synchronized point addition and deletion. This should protect us from the
- * threaded runtime of the webserver in the event of high request throughput.
+ * 	3.	Balance reads vastly outnumber writes, so each write ends by publishing
+ * 			an immutable BalanceSnapshot through a single volatile write. Readers see
+ * 			either all or none of a write and never synchronize, sort, nor allocate.
+ *
+ * Finally, notice the coordinated locking between the add and delete methods.
+ * Due to the problems complexity, and difficulty consolidating totals with
+ * payment events into a data structure with concurrency guarantees, point
+ * addition and deletion are serialized by a ReentrantLock (rather than a monitor,
+ * so that a waiting virtual thread unmounts instead of pinning its carrier).
+ * Vetted writes are also handed to a LedgerJournal, LedgerMetrics and LedgerAudit.
  *
  */
 public class UserPoints {
 
-	private static final Logger LOGGER = LoggerFactory.getLogger(UserPoints.class);
 	private static final String INVALID_PAYER_POINTS = "Failed to add [%s, %d] to user `%s`, negative payer balance(s) are prohibited";
 	private static final String INVALID_USER_POINTS = "Failed to deduct %d points from user `%s`, negative user balance(s) are prohibited";
 
 	@Getter
 	private final String user;
-	private final Object lock = new Object();
-	private final Set<PointEvent> pointEvents = new TreeSet<>(PointEvent.ORDERING);
-	private final Map<String, PointEvent> payerTotals = new HashMap<>();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final LedgerJournal journal;
+	private final LedgerMetrics metrics;
+	private final LedgerAudit audit;
+	private final IdempotencyLimits idempotencyLimits;
+	private final EventStore pointEvents;
+	private final IntMap<LedgerEntry> payerTotals = new IntMap<>();
+	private final List<LedgerEntry> payerBalances = new ArrayList<>();
+	private volatile BalanceSnapshot snapshot = BalanceSnapshot.EMPTY;
 	private long userTotal;
+	private long journalSequence;
+	private boolean retired;
+	private boolean released;
+	// Writes made under idempotency keys, allocated upon a Users first such write
+	private volatile IdempotentWrites idempotentWrites;
 
 	public UserPoints(final String user) {
+		this(user, LedgerContext.DEFAULT);
+	}
+
+	public UserPoints(final String user, final LedgerContext context) {
 		this.user = user;
+		this.journal = context.getJournal();
+		this.metrics = context.getMetrics();
+		this.audit = context.getAudit();
+		this.idempotencyLimits = context.getIdempotencyLimits();
+		this.pointEvents = context.getStorage().open();
 		this.userTotal = 0L;
 	}
 
@@ -62,70 +82,84 @@ public class UserPoints {
 
 	/**
 	 * Deduct points, either from a payers balance or else the entire Users balance from oldest to newest points.
+	 * The caller must hold the lock, and is responsible for publishing the result.
 	 * @param payer An potentially Null payer name, used to solely deduct points from an payer
 	 * @param points An points value for which to deduct from a payer or else this User
-	 * @return An ordered list of removed points from oldest to newest
+	 * @param removed A potentially Null list, receiving an ordered list of removed points from oldest to newest.
+	 *                When Null, only the points deducted from each payer are summed, which may spare visiting events.
+	 * @param deducted Receives the points deducted from each payer, in the order payers were first deducted from
+	 * @return The number of events visited, i.e. zeroed or partially deducted (or merely zeroed, when summing)
 	 */
-	private List<PointEvent> deletePoints(@Nullable final String payer, final Long points) {
-		PointEvent updated = null;
-		List<PointEvent> removed = new ArrayList<>(); // profiling may help determine better starting size
-		Iterator<PointEvent> iter = this.pointEvents.iterator();
-
+	private int deletePoints(@Nullable final String payer, final long points, @Nullable final List<PointEvent> removed, final PayerDeductions deducted) {
 		// The algorithm anticipates positive points for deduction
 		// Thus, if they're negative invert for correct behavior (addPoints likely submits negative points)
-		long pointsToDeduct = points > 0 ? points : -points;
-
-		while (iter.hasNext() && pointsToDeduct > 0) {
-			final PointEvent event = iter.next();
-			final long payerDeduction;
-
-			if (payer != null && !event.getPayer().equals(payer)) {
-				// if payer name is specified, impertinent payers aren't considered
-				continue;
-			} else if (event.getPoints() - pointsToDeduct <= 0) {
-				// This PointEvent is 0'd: remove it, update point deduction balances, add to removed
-				iter.remove();
-
-				/*
-					We've zeroed this event
-					Thus:
-				   - adjust payer balance by full event points
-				   - Add removed item with full event points
-				*/
-				payerDeduction = event.getPoints();
-				removed.add(PointEvent.withPoints(event, -event.getPoints()));
-
-				pointsToDeduct -= event.getPoints();
-			} else {
-				// event must be updated: remove it and compute replacement (loop is effectively finished)
-				iter.remove();
-
-				/*
-					We've partially deducted points from this event, this only happens when event.points > pointsToDeduct
-				  Thus:
-				   - adjust payer balance by pointsToDeduct
-				   - Add removed item with points deducted from this event
-				   - Populated updated event with remaining points
-				*/
-				payerDeduction = pointsToDeduct;
-				removed.add(PointEvent.withPoints(event, -pointsToDeduct));
-				updated = PointEvent.withPoints(event, event.getPoints() - pointsToDeduct);
-
-				// This case is terminal, consequently zero pointsToDeduct
-				pointsToDeduct -= pointsToDeduct;
+		final long deduction = points > 0 ? points : -points;
+		final int held = this.pointEvents.size();
+		if (removed == null) {
+			this.pointEvents.deductByPayer(payer, deduction, deducted);
+		} else {
+			this.pointEvents.deduct(payer, deduction, removed);
+			for (final PointEvent event : removed) {
+				deducted.add(PayerDictionary.find(event.getPayer()), -event.getPoints());
 			}
+		}
 
-			// update payer total, we're relatively certain unboxing v is null safe
-			this.payerTotals.compute(event.getPayer(), (k, v) -> PointEvent.withPoints(v, v.getPoints() - payerDeduction));
+		// update payer totals in place, every payer deducted from is certain to have a total
+		for (int i = 0; i < deducted.size(); i++) {
+			this.payerTotals.get(deducted.getPayer(i)).points -= deducted.getPoints(i);
 		}
 
-		this.userTotal -= points;
-		// if iteration ended evenly and no PointEvents required modification then updated is null
-		if (updated != null) {
-			pointEvents.add(updated);
+		final int visited = removed == null ? held - this.pointEvents.size() : removed.size();
+		this.userTotal -= deduction;
+		this.audit.deducted(this.user, payer, deduction, visited);
+		return visited;
+	}
+
+	/**
+	 * Add points to a payers total, keeping the ordered payer balances in step.
+	 *
+	 * Payer totals retain the earliest time data of their payer (see PointEvent.merge),
+	 * so a total only changes position when an earlier event is added for its payer.
+	 *
+	 * @param pointEvent An event whose points are added to its payers total
+	 */
+	private void addPayerTotal(final PointEvent pointEvent) {
+		final int payer = PayerDictionary.id(pointEvent.getPayer());
+		final LedgerEntry previous = this.payerTotals.get(payer);
+
+		if (previous != null && previous.isBefore(pointEvent)) {
+			previous.points += pointEvent.getPoints();
+			return;
 		}
-		LOGGER.info("Deducted {} points from {}", points, this.user);
-		return removed;
+
+		final long points = previous == null ? pointEvent.getPoints() : previous.points + pointEvent.getPoints();
+		final LedgerEntry payerTotal = new LedgerEntry(payer, points, pointEvent);
+		if (previous != null) {
+			this.payerBalances.remove(Collections.binarySearch(this.payerBalances, previous, LedgerEntry.ORDERING));
+		}
+		this.putPayerTotal(payerTotal);
+	}
+
+	private void putPayerTotal(final LedgerEntry payerTotal) {
+		this.payerTotals.put(payerTotal.payer, payerTotal);
+		final int insertion = Collections.binarySearch(this.payerBalances, payerTotal, LedgerEntry.ORDERING);
+		this.payerBalances.add(-insertion - 1, payerTotal);
+	}
+
+	/**
+	 * Publish the next version of this Users balance, an immutable copy of its totals, for readers.
+	 * Only writers holding the lock may publish, thus versions are assigned without contention.
+	 *
+	 * Payer totals whose points are unchanged since the previous version reuse their PointEvent,
+	 * thus only payers touched by a write allocate.
+	 */
+	private void publish() {
+		final PointEvent[] balances = new PointEvent[this.payerBalances.size()];
+		for (int i = 0; i < balances.length; i++) {
+			balances[i] = this.payerBalances.get(i).view();
+		}
+		// The array is never touched again, thus it's wrapped rather than copied
+		this.snapshot = new BalanceSnapshot(this.snapshot.getVersion() + 1, this.userTotal, Collections.unmodifiableList(Arrays.asList(balances)));
 	}
 
 	/*
@@ -137,82 +171,410 @@ public class UserPoints {
 	 * @param pointEvent An event comprised of the payer, points, and date of payment.
 	 */
 	public void addPoints(final PointEvent pointEvent) {
-		synchronized (lock) {
+		this.addPoints(pointEvent, null);
+	}
+
+	/**
+	 * Add points to this Users balance under an idempotency key, unless a write was already made under the key.
+	 * @param pointEvent An event comprised of the payer, points, and date of payment.
+	 * @param key A potentially Null key, identifying the write
+	 * @return The write made under the key (either now or originally), or Null absent a key
+	 * @throws IdempotencyKeyReusedException If the key was already used for a different write
+	 */
+	public IdempotentWrite addPoints(final PointEvent pointEvent, @Nullable final IdempotencyKey key) {
+		final long start = System.nanoTime();
+		final long acquired;
+		final int outstanding;
+		IdempotentWrite write = null;
+
+		this.lock.lock();
+		try {
+			acquired = System.nanoTime();
+			this.ensureActive();
+			// A retry may have waited on the lock while its original write was made
+			if (key != null) {
+				write = this.recall(key.getKey(), IdempotentWrite.Kind.ADD, pointEvent.getPayer(), pointEvent.getPoints());
+				if (write != null) {
+					return write;
+				}
+			}
+
+			if (this.add(pointEvent, key)) {
+				this.publish();
+			}
+			if (key != null) {
+				write = new IdempotentWrite(key, IdempotentWrite.Kind.ADD, pointEvent.getPayer(), pointEvent.getPoints(), List.of());
+				this.remember(write);
+			}
+			outstanding = this.pointEvents.size();
+		} finally {
+			this.lock.unlock();
+		}
 
-			final String payer = pointEvent.getPayer();
-			final Long points = pointEvent.getPoints();
+		this.metrics.locked(acquired - start);
+		this.metrics.added(System.nanoTime() - start, outstanding);
+		return write;
+	}
 
-			// This is an odd edge-case, but we're going to assume additions of 0 points can be thrown away
-			if (points == 0) return;
+	/**
+	 * Add a batch of points to this Users balance, under a single acquisition of the lock.
+	 *
+	 * Events are applied in order, each exactly as though via addPoints, but a rejected
+	 * event doesn't prevent subsequent events from being applied. Readers observe the
+	 * entire batch at once, i.e. it's published as a single version.
+	 *
+	 * @param pointEvents Events comprised of the payer, points, and date of payment
+	 * @return The details of each rejected event, or null for accepted events, positionally matching pointEvents
+	 */
+	public List<String> addPoints(final List<PointEvent> pointEvents) {
+		final List<String> rejections = new ArrayList<>(pointEvents.size());
+		final long start = System.nanoTime();
+		final long acquired;
+		final int outstanding;
 
-			// If points are positive, we can safely update totals + events and be done
-			if (points > 0) {
-				this.userTotal += points;
-				this.payerTotals.compute(payer, (k, v) -> (v == null) ? pointEvent : PointEvent.merge(v, pointEvent));
-				this.pointEvents.add(pointEvent);
-				LOGGER.info("Added {} to {}", pointEvent, this.user);
-				return;
+		this.lock.lock();
+		try {
+			acquired = System.nanoTime();
+			this.ensureActive();
+			boolean modified = false;
+			for (final PointEvent pointEvent : pointEvents) {
+				try {
+					modified |= this.add(pointEvent, null);
+					rejections.add(null);
+				} catch (InvalidDeductionException e) {
+					rejections.add(e.getMessage());
+				}
 			}
 
-			final Long payerTotal = payerTotals.getOrDefault(payer, PointEvent.withPoints(pointEvent, 0)).getPoints();
-			// Vet points against user and payer totals, neither user nor payer may have negative values
-			if (this.userTotal + points < 0 || payerTotal + points < 0) {
-				final String details = INVALID_PAYER_POINTS.formatted(payer, pointEvent.getPoints(), this.user);
-				LOGGER.error(details);
-				throw new InvalidDeductionException(details);
+			if (modified) {
+				this.publish();
 			}
+			outstanding = this.pointEvents.size();
+		} finally {
+			this.lock.unlock();
+		}
 
-			this.deletePoints(payer, points);
+		this.metrics.locked(acquired - start);
+		this.metrics.added(System.nanoTime() - start, outstanding);
+		return rejections;
+	}
 
-			LOGGER.info("Deducted {} from {}", pointEvent, this.user);
+	// The caller must hold the lock
+	private void ensureActive() {
+		if (this.retired) {
+			throw new RetiredUserException(this.user);
 		}
 	}
 
+	/**
+	 * Add points to this Users balance, the caller must hold the lock and publish the result.
+	 * @param pointEvent An event comprised of the payer, points, and date of payment.
+	 * @param key A potentially Null key, under which the write is journaled
+	 * @return Whether this Users balance was modified
+	 */
+	private boolean add(final PointEvent pointEvent, @Nullable final IdempotencyKey key) {
+		final String payer = pointEvent.getPayer();
+		final long points = pointEvent.getPoints();
+
+		// This is an odd edge-case, but we're going to assume additions of 0 points can be thrown away
+		if (points == 0) return false;
+
+		// If points are positive, we can safely update totals + events and be done
+		if (points > 0) {
+			// Payers are only registered once accepted, thus rejected requests never grow the PayerDictionary
+			final String canonical = PayerDictionary.intern(payer);
+			final PointEvent accepted = canonical == payer ? pointEvent : PointEvent.withPayer(pointEvent, canonical);
+			this.journalSequence = key == null ? this.journal.added(this.user, accepted) : this.journal.added(this.user, accepted, key);
+			this.userTotal += points;
+			this.addPayerTotal(accepted);
+			this.pointEvents.add(accepted);
+			this.audit.added(this.user, accepted);
+			return true;
+		}
+
+		final LedgerEntry payerEntry = this.payerTotals.get(PayerDictionary.find(payer));
+		final long payerTotal = payerEntry == null ? 0L : payerEntry.points;
+		// Vet points against user and payer totals, neither user nor payer may have negative values
+		if (this.userTotal + points < 0 || payerTotal + points < 0) {
+			this.audit.rejected(this.user, payer, points, payerTotal + points < 0 ? payerTotal : this.userTotal);
+			throw new InvalidDeductionException(INVALID_PAYER_POINTS.formatted(payer, points, this.user));
+		}
+
+		this.journalSequence = key == null ? this.journal.added(this.user, pointEvent) : this.journal.added(this.user, pointEvent, key);
+		this.deletePoints(payer, points, null, new PayerDeductions());
+		return true;
+	}
+
 	/**
 	 * Deduct points from this Users balance from oldest to newest points.
 	 * @param points An points value for which to deduct from this Users balance
 	 * @return An ordered list of removed points from oldest to newest
 	 */
-	public List<PointEvent> deletePoints(final Long points) {
-		synchronized (lock) {
+	public List<PointEvent> deletePoints(final long points) {
+		final List<PointEvent> removed = new ArrayList<>(); // profiling may help determine better starting size
+		this.spendPoints(points, removed, new PayerDeductions(), null);
+		return removed;
+	}
+
+	/**
+	 * As for deletePoints, though under an idempotency key, unless a write was already made under the key.
+	 * @param points An points value for which to deduct from this Users balance
+	 * @param key The key identifying the write
+	 * @return The write made under the key (either now or originally), whose result is the ordered list of removed points
+	 * @throws IdempotencyKeyReusedException If the key was already used for a different write
+	 */
+	public IdempotentWrite deletePoints(final long points, final IdempotencyKey key) {
+		return this.spendPoints(points, new ArrayList<>(), new PayerDeductions(), key);
+	}
+
+	/**
+	 * Deduct points from this Users balance from oldest to newest points, as per deletePoints, though solely
+	 * summing the points deducted from each payer. Deducted events are neither reported nor necessarily visited,
+	 * thus large deductions cost O(payers) rather than O(events).
+	 * @param points An points value for which to deduct from this Users balance
+	 * @return The points deducted from each payer, in the order payers were first deducted from
+	 */
+	public PayerDeductions deletePointsByPayer(final long points) {
+		final PayerDeductions deducted = new PayerDeductions();
+		this.spendPoints(points, null, deducted, null);
+		return deducted;
+	}
+
+	/**
+	 * As for deletePointsByPayer, though under an idempotency key, unless a write was already made under the key.
+	 * @param points An points value for which to deduct from this Users balance
+	 * @param key The key identifying the write
+	 * @return The write made under the key (either now or originally), whose result is the points deducted from each payer
+	 * @throws IdempotencyKeyReusedException If the key was already used for a different write
+	 */
+	public IdempotentWrite deletePointsByPayer(final long points, final IdempotencyKey key) {
+		return this.spendPoints(points, null, new PayerDeductions(), key);
+	}
+
+	/**
+	 * Vet, journal, and deduct points from this Users balance, see deletePoints(payer, points, removed, deducted).
+	 * @return The write made under the key (either now or originally), or Null absent a key
+	 */
+	private IdempotentWrite spendPoints(final long points, @Nullable final List<PointEvent> removed, final PayerDeductions deducted, @Nullable final IdempotencyKey key) {
+		final IdempotentWrite.Kind kind = removed == null ? IdempotentWrite.Kind.DEDUCT_BY_PAYER : IdempotentWrite.Kind.DEDUCT;
+		final long start = System.nanoTime();
+		final long acquired;
+		final int outstanding;
+		final int visited;
+		IdempotentWrite write = null;
+
+		this.lock.lock();
+		try {
+			acquired = System.nanoTime();
+			this.ensureActive();
+			// A retry may have waited on the lock while its original write was made
+			if (key != null) {
+				write = this.recall(key.getKey(), kind, null, points);
+				if (write != null) {
+					return write;
+				}
+			}
+
 			// Vet points against user total, user may not have negative total
 			if (this.userTotal - points < 0) {
-				final String details = INVALID_USER_POINTS.formatted(points, this.user);
-				LOGGER.error(details);
-				throw new InvalidDeductionException(details);
+				this.audit.rejected(this.user, null, points, this.userTotal);
+				throw new InvalidDeductionException(INVALID_USER_POINTS.formatted(points, this.user));
 			}
 
-			return this.deletePoints(null, points);
+			this.journalSequence = key == null
+				? this.journal.deducted(this.user, points)
+				: this.journal.deducted(this.user, points, removed == null, key);
+			visited = this.deletePoints(null, points, removed, deducted);
+			this.publish();
+			if (key != null) {
+				write = removed == null
+					? new IdempotentWrite(key, kind, null, points, deducted.toEvents())
+					: IdempotentWrite.deduction(key, points, removed, this.idempotencyLimits.getMaxRetainedEvents());
+				this.remember(write);
+			}
+			outstanding = this.pointEvents.size();
+		} finally {
+			this.lock.unlock();
 		}
+
+		this.metrics.locked(acquired - start);
+		this.metrics.deducted(System.nanoTime() - start, visited, outstanding);
+		return write;
 	}
 
 	/**
-	 * Compute and return an ordered list of payer totals.
+	 * Recall a write previously made under an idempotency key, without synchronization.
+	 * @param key The idempotency key
+	 * @param kind The kind of write being retried
+	 * @param payer The payer of the write being retried, solely for additions
+	 * @param points The points of the write being retried
+	 * @return The original write, whose result is to be reported once more, or Null should the key be unknown or expired
+	 * @throws IdempotencyKeyReusedException If the key was already used for a different write
+	 */
+	@Nullable
+	public IdempotentWrite recall(final String key, final IdempotentWrite.Kind kind, @Nullable final String payer, final long points) {
+		final IdempotentWrites writes = this.idempotentWrites;
+		final IdempotentWrite write = writes == null ? null : writes.get(key, System.currentTimeMillis());
+		if (write != null) {
+			write.vet(kind, payer, points);
+		}
+		return write;
+	}
+
+	// The caller must hold the lock
+	private void remember(final IdempotentWrite write) {
+		if (this.idempotentWrites == null) {
+			this.idempotentWrites = new IdempotentWrites(this.idempotencyLimits);
+		}
+		this.idempotentWrites.put(write, System.currentTimeMillis());
+	}
+
+	/**
+	 * Retrieve an ordered list of payer totals.
 	 *
-	 * Specifically, we leverage the PointEvent.merge method to conveniently
-	 * sum payer events while minimizing the payer time data, thus allowing a
-	 * reasonably quick sort before result are returned.
+	 * Totals are maintained by addPoints and deletePoints as they're modified,
+	 * leveraging the PointEvent.merge method to minimize payer time data. Thus,
+	 * the ordered list is merely handed out, and it may be read without synchronization.
 	 *
-	 * @return An ordered list of PointEvent's whose points comprise payer totals.
+	 * @return An immutable ordered list of PointEvent's whose points comprise payer totals.
 	 */
 	public List<PointEvent> getPoints() {
-		final List<PointEvent> payerTotals = new ArrayList<>(this.payerTotals.values().stream()
-			/*
-				Reduce pointsEvents s.t. result is map of (payer name) -> PointsEvent
-				 i.e.
-					 {
-						 DANNON -> PointsEvent(DANNON, 1000, ...),
-						 UNILEVER -> PointsEvent(UNILEVER, 0, ...),
-						 MILLER -> PointsEvent(MILLER, 5300, ...),
-					 }
-
-				Note: ordering below relies on PointEvent.merge minimizing time data
-			*/
-			.collect(Collectors.toMap(PointEvent::getPayer, Function.identity(), PointEvent::merge))
-			.values()
+		this.metrics.read();
+		return this.snapshot.getBalances();
+	}
+
+	/**
+	 * Retrieve the latest consistent view of this Users balance without synchronization.
+	 * @return The most recently published snapshot, whose total and payer totals always agree.
+	 */
+	public BalanceSnapshot getSnapshot() {
+		return this.snapshot;
+	}
+
+	/**
+	 * Retrieve the sequence number of the latest write journaled by this User.
+	 * @return A LedgerJournal sequence number, or 0 if nothing has been journaled
+	 */
+	public long getJournalSequence() {
+		this.lock.lock();
+		try {
+			return this.journalSequence;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/*
+		Persistence
+	*/
+
+	/**
+	 * Copy this Users state. Writers are blocked solely for the duration of the copy.
+	 * @return A LedgerState reflecting every write journaled through its journalSequence
+	 * @throws RetiredUserException If the User has been released
+	 */
+	public LedgerState capture() {
+		this.lock.lock();
+		try {
+			return this.state();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Copy this Users state and retire it. Reads continue to see its final balance, whereas writes
+	 * are refused with a RetiredUserException, i.e. they're to be retried against a User restored
+	 * from the returned state. A User whose state couldn't be stored elsewhere may be reinstated.
+	 * @return A LedgerState reflecting every write this User will ever apply
+	 */
+	public LedgerState retire() {
+		this.lock.lock();
+		try {
+			this.retired = true;
+			return this.state();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Resume accepting writes, undoing retire.
+	 */
+	public void reinstate() {
+		this.lock.lock();
+		try {
+			this.retired = false;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Relinquish this Users EventStore, once retired and its state stored elsewhere.
+	 * Reads continue to see its final balance, whereas it can no longer be captured.
+	 */
+	public void release() {
+		this.lock.lock();
+		try {
+			if (!this.released) {
+				this.retired = true;
+				this.released = true;
+				this.pointEvents.release();
+			}
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	// The caller must hold the lock
+	private LedgerState state() {
+		if (this.released) {
+			throw new RetiredUserException(this.user);
+		}
+
+		final List<PointEvent> events = new ArrayList<>(this.pointEvents.size());
+		this.pointEvents.forEach(events::add);
+		return new LedgerState(
+			this.user,
+			this.journalSequence,
+			this.snapshot.getVersion(),
+			this.userTotal,
+			this.snapshot.getBalances(),
+			events,
+			this.idempotentWrites == null ? List.of() : this.idempotentWrites.list(System.currentTimeMillis())
 		);
+	}
+
+	/**
+	 * Rebuild a User from previously captured state, advancing the PointEventSequence past its events.
+	 * @param state State previously captured via capture
+	 * @param context The collaborators of the rebuilt User, e.g. the journal subsequent writes are handed to
+	 * @return A User equivalent to the one captured
+	 */
+	public static UserPoints restore(final LedgerState state, final LedgerContext context) {
+		final UserPoints userPoints = new UserPoints(state.getUser(), context);
+
+		userPoints.lock.lock();
+		try {
+			userPoints.userTotal = state.getTotal();
+			userPoints.journalSequence = state.getJournalSequence();
+			for (final PointEvent payerTotal : state.getPayerTotals()) {
+				PointEventSequence.advancePast(payerTotal.getSequence());
+				userPoints.putPayerTotal(new LedgerEntry(payerTotal));
+			}
+			for (final PointEvent pointEvent : state.getPointEvents()) {
+				PointEventSequence.advancePast(pointEvent.getSequence());
+				userPoints.pointEvents.add(pointEvent);
+			}
+			for (final IdempotentWrite write : state.getIdempotentWrites()) {
+				userPoints.remember(write);
+			}
+			userPoints.snapshot = new BalanceSnapshot(state.getVersion(), state.getTotal(), List.copyOf(state.getPayerTotals()));
+		} finally {
+			userPoints.lock.unlock();
+		}
 
-		payerTotals.sort(PointEvent.ORDERING);
-		return payerTotals;
+		return userPoints;
 	}
 }
@@ -0,0 +1,24 @@
+package com.gehrig.fetch.points.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import javax.validation.constraints.NotBlank;
+import java.time.ZonedDateTime;
+
+@Data
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@NoArgsConstructor
+public class RequestBatchPointAddition extends RequestPointAddition {
+
+	@NotBlank(message = "user must not be null or blank")
+	String user;
+
+	public RequestBatchPointAddition(final String user, final String payer, final Long points, final ZonedDateTime date) {
+		super(payer, points, date);
+		this.user = user;
+	}
+}
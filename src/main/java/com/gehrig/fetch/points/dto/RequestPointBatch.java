@@ -0,0 +1,20 @@
+package com.gehrig.fetch.points.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestPointBatch {
+
+	// Additions are deliberately validated individually, so one invalid addition doesn't reject the entire batch
+	@NotNull(message = "additions must not be null")
+	@Size(min = 1, max = 10000, message = "additions must contain between {min} and {max} additions")
+	List<RequestBatchPointAddition> additions;
+}
@@ -0,0 +1,21 @@
+package com.gehrig.fetch.points.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ResponseClusterNodes {
+
+	// Base URL of the node responding
+	String self;
+
+	// Base URL of every node of the cluster, ordered
+	List<String> nodes;
+
+	// Users handed off to other nodes by a rebalance (or release), 0 if merely retrieved
+	int handedOff;
+
+	// Whether the node may still hold Users it no longer owns, i.e. its latest rebalance is underway or failed
+	boolean rebalancing;
+}
@@ -0,0 +1,27 @@
+package com.gehrig.fetch.points.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ResponsePointBatch {
+
+	int accepted;
+
+	int rejected;
+
+	// One result per addition, in the order they were requested
+	List<Result> results;
+
+	@Value
+	public static class Result {
+
+		int index;
+
+		boolean accepted;
+
+		// Reasons the addition was rejected, empty if accepted
+		List<String> errors;
+	}
+}
@@ -0,0 +1,16 @@
+package com.gehrig.fetch.points.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ResponsePointImport {
+
+	long accepted;
+
+	long rejected;
+
+	// Details of rejected additions by line, only the first several are reported
+	List<String> errors;
+}
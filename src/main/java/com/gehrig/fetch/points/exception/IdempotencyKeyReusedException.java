@@ -0,0 +1,23 @@
+package com.gehrig.fetch.points.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.UNPROCESSABLE_ENTITY)
+public class IdempotencyKeyReusedException extends RuntimeException {
+	public IdempotencyKeyReusedException() {
+		super();
+	}
+
+	public IdempotencyKeyReusedException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public IdempotencyKeyReusedException(String message) {
+		super(message);
+	}
+
+	public IdempotencyKeyReusedException(Throwable cause) {
+		super(cause);
+	}
+}
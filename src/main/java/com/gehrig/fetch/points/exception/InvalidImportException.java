@@ -0,0 +1,23 @@
+package com.gehrig.fetch.points.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class InvalidImportException extends RuntimeException {
+	public InvalidImportException() {
+		super();
+	}
+
+	public InvalidImportException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public InvalidImportException(String message) {
+		super(message);
+	}
+
+	public InvalidImportException(Throwable cause) {
+		super(cause);
+	}
+}
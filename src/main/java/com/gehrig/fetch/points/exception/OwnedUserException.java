@@ -0,0 +1,27 @@
+package com.gehrig.fetch.points.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when another node claims a User this node still owns, i.e. this node has yet to be told of the membership
+ * moving the User elsewhere.
+ */
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class OwnedUserException extends RuntimeException {
+	public OwnedUserException() {
+		super();
+	}
+
+	public OwnedUserException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public OwnedUserException(String message) {
+		super(message);
+	}
+
+	public OwnedUserException(Throwable cause) {
+		super(cause);
+	}
+}
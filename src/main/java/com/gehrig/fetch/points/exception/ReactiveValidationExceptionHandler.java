@@ -0,0 +1,56 @@
+package com.gehrig.fetch.points.exception;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebExchange;
+
+import javax.validation.ConstraintViolationException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The WebFlux counterpart of ValidationExceptionHandler, responding to validation errors alike.
+ */
+@RestControllerAdvice
+@Profile("reactive")
+public class ReactiveValidationExceptionHandler {
+
+	// Handle @Validate Errors (Path Variable and Request Parameter validation)
+	@ExceptionHandler(ConstraintViolationException.class)
+	public ResponseEntity<Object> constraintViolationException(ConstraintViolationException ex, ServerWebExchange exchange) {
+		return new ResponseEntity<>(this.body(HttpStatus.BAD_REQUEST, exchange), HttpStatus.BAD_REQUEST);
+	}
+
+	// Handle @Valid Errors
+	@ExceptionHandler(WebExchangeBindException.class)
+	public ResponseEntity<Object> webExchangeBindException(WebExchangeBindException ex, ServerWebExchange exchange) {
+		Map<String, Object> body = this.body(HttpStatus.BAD_REQUEST, exchange);
+
+		// Collect simple error message to List
+		List<String> errors = ex.getBindingResult()
+			.getFieldErrors()
+			.stream()
+			.map(DefaultMessageSourceResolvable::getDefaultMessage)
+			.collect(Collectors.toList());
+
+		body.put("errors", errors);
+		return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+	}
+
+	private Map<String, Object> body(final HttpStatus status, final ServerWebExchange exchange) {
+		Map<String, Object> body = new LinkedHashMap<>();
+		body.put("timestamp", new Date());
+		body.put("status", status.value());
+		body.put("error", status.getReasonPhrase());
+		body.put("path", exchange.getRequest().getPath().value());
+		return body;
+	}
+}
@@ -0,0 +1,12 @@
+package com.gehrig.fetch.points.exception;
+
+/**
+ * Thrown by a User that has been retired, e.g. evicted from memory, in place of applying a write.
+ * The write should be retried against the User as looked up anew. It never escapes the service layer,
+ * and it's raised only when a write races an eviction, thus it's stackless to keep that race cheap.
+ */
+public class RetiredUserException extends RuntimeException {
+	public RetiredUserException(String user) {
+		super("User `" + user + "` has been retired", null, false, false);
+	}
+}
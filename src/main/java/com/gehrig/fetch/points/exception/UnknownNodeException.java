@@ -0,0 +1,26 @@
+package com.gehrig.fetch.points.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a node outside of the cluster (e.g. one never a member) attempts to hand a User to this node.
+ */
+@ResponseStatus(value = HttpStatus.FORBIDDEN)
+public class UnknownNodeException extends RuntimeException {
+	public UnknownNodeException() {
+		super();
+	}
+
+	public UnknownNodeException(String message, Throwable cause) {
+		super(message, cause);
+	}
+
+	public UnknownNodeException(String message) {
+		super(message);
+	}
+
+	public UnknownNodeException(Throwable cause) {
+		super(cause);
+	}
+}
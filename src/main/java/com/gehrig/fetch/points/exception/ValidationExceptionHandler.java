@@ -1,5 +1,6 @@
 package com.gehrig.fetch.points.exception;
 
+import org.springframework.context.annotation.Profile;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -23,6 +24,7 @@ import java.util.stream.Collectors;
 
 
 @RestControllerAdvice
+@Profile("!reactive")
 public class ValidationExceptionHandler extends ResponseEntityExceptionHandler {
 
 	// Handle @Validate Errors (Path Variable and Request Parameter validation)
@@ -0,0 +1,87 @@
+package com.gehrig.fetch.points.metrics;
+
+import com.gehrig.fetch.points.domain.LedgerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LedgerMetrics recorded as Micrometer timers, distribution summaries, and a counter.
+ *
+ * Meters are registered once and shared by every User, rather than tagged per User, so their number is
+ * independent of the number of Users. Recording amounts to a handful of atomic updates on lock-free counters,
+ * a histogram bucket among them, which is small beside the cost of the request an operation is part of.
+ * Lock waits are nearly always zero absent contention, thus only their count, total, and max are kept. Reads are
+ * a single volatile read, thus they're merely counted.
+ */
+public class MicrometerLedgerMetrics implements LedgerMetrics {
+
+	private final Timer lockWait;
+	private final Timer additions;
+	private final Timer deductions;
+	private final Counter reads;
+	private final DistributionSummary scanned;
+	private final DistributionSummary outstanding;
+
+	public MicrometerLedgerMetrics(final MeterRegistry registry) {
+		this.lockWait = Timer.builder("points.ledger.lock.wait")
+			.description("Time writers spend waiting to acquire a users lock")
+			.register(registry);
+		this.additions = timer("points.ledger.add", "Latency of point additions, including batches", Duration.ofNanos(100), registry);
+		this.deductions = timer("points.ledger.deduct", "Latency of point deductions", Duration.ofNanos(100), registry);
+		this.reads = Counter.builder("points.ledger.read")
+			.description("Balance reads")
+			.register(registry);
+
+		this.scanned = DistributionSummary.builder("points.ledger.deduct.scanned")
+			.description("Events visited per deduction")
+			.baseUnit("events")
+			.publishPercentileHistogram()
+			.minimumExpectedValue(1d)
+			.maximumExpectedValue(1_000_000d)
+			.register(registry);
+		this.outstanding = DistributionSummary.builder("points.ledger.user.events")
+			.description("Events outstanding for a user once a write completes")
+			.baseUnit("events")
+			.publishPercentileHistogram()
+			.minimumExpectedValue(1d)
+			.maximumExpectedValue(10_000_000d)
+			.register(registry);
+	}
+
+	private static Timer timer(final String name, final String description, final Duration minimum, final MeterRegistry registry) {
+		return Timer.builder(name)
+			.description(description)
+			.publishPercentileHistogram()
+			.minimumExpectedValue(minimum)
+			.maximumExpectedValue(Duration.ofSeconds(10))
+			.register(registry);
+	}
+
+	@Override
+	public void locked(final long waitNanos) {
+		this.lockWait.record(waitNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void added(final long nanos, final int outstanding) {
+		this.additions.record(nanos, TimeUnit.NANOSECONDS);
+		this.outstanding.record(outstanding);
+	}
+
+	@Override
+	public void deducted(final long nanos, final int scanned, final int outstanding) {
+		this.deductions.record(nanos, TimeUnit.NANOSECONDS);
+		this.scanned.record(scanned);
+		this.outstanding.record(outstanding);
+	}
+
+	@Override
+	public void read() {
+		this.reads.increment();
+	}
+}
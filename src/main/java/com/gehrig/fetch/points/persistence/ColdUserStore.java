@@ -0,0 +1,218 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.LedgerState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Users evicted from memory, each kept in its own file until it's loaded back on demand.
+ *
+ * The store is merely an overflow of memory rather than a source of truth, thus files are neither
+ * fsync'd nor kept across restarts (the store's files are deleted when it's opened). Durability
+ * remains the responsibility of the write-ahead log and snapshots, which is why snapshots include
+ * every User held here.
+ *
+ * Files are spread across 256 subdirectories by the hash of their Users name, and are named by the
+ * hex encoding of that name (or its SHA-256 digest, should it be long). A file is written to a temporary
+ * file and then renamed, so a User's file is always complete. Loading a User back doesn't remove its file,
+ * which merely goes stale until the User is evicted again and the file replaced.
+ *
+ * The names of Users written are also held in memory, so that reads of Users never written (i.e. the
+ * first write of every new User) are answered without touching the disk.
+ */
+public class ColdUserStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ColdUserStore.class);
+	private static final String USER_SUFFIX = ".user";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final int MAX_HEX_NAME_BYTES = 100;
+	private static final String DIGEST_PREFIX = "h";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Path directory;
+	private final Set<String> users = ConcurrentHashMap.newKeySet();
+
+	public ColdUserStore(final Path directory) throws IOException {
+		this.directory = directory;
+		this.clear();
+	}
+
+	/**
+	 * Write a User, replacing any previous file of theirs.
+	 * @param state The Users state, e.g. as retired from memory
+	 * @throws IOException If the User couldn't be written
+	 */
+	public void write(final LedgerState state) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(LedgerStateCodec.encode(state));
+
+		final Path target = this.path(state.getUser());
+		final Path temporary = target.resolveSibling(target.getFileName() + TEMPORARY_SUFFIX);
+		Files.createDirectories(target.getParent());
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+
+		Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		this.users.add(state.getUser());
+	}
+
+	/**
+	 * Read a User, if they've ever been written.
+	 * @param user The User name
+	 * @return The Users state as last written, or null if the User has never been written
+	 * @throws IOException If the Users file couldn't be read
+	 */
+	@Nullable
+	public LedgerState read(final String user) throws IOException {
+		if (!this.users.contains(user)) {
+			return null;
+		}
+
+		final Path path = this.path(user);
+		final byte[] bytes;
+		try {
+			bytes = Files.readAllBytes(path);
+		} catch (NoSuchFileException e) {
+			return null;
+		}
+
+		final LedgerState state = LedgerStateCodec.decode(bytes);
+		// Long names are digested, so confirm the file actually belongs to this User
+		return state.getUser().equals(user) ? state : null;
+	}
+
+	/**
+	 * Lazily read every User written, one at a time.
+	 * @return An iterator of each Users state as last written, which throws UncheckedIOException should a file fail to be read
+	 * @throws IOException If the store couldn't be listed
+	 */
+	public Iterator<LedgerState> states() throws IOException {
+		final List<Path> paths = this.paths();
+		final Iterator<Path> iterator = paths.iterator();
+
+		return new Iterator<>() {
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public LedgerState next() {
+				if (!iterator.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				try {
+					return LedgerStateCodec.decode(Files.readAllBytes(iterator.next()));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * @return The number of Users written, including those since loaded back into memory
+	 */
+	public long size() {
+		return this.users.size();
+	}
+
+	/**
+	 * Delete every User written, i.e. the User and temporary files within each partition, and the partitions once empty.
+	 * Anything else within the directory is left untouched.
+	 * @throws IOException If the store couldn't be emptied
+	 */
+	public void clear() throws IOException {
+		int stale = 0;
+		for (final Path partition : this.partitions()) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(partition, "*{" + USER_SUFFIX + "," + TEMPORARY_SUFFIX + "}")) {
+				for (final Path file : files) {
+					Files.deleteIfExists(file);
+					stale++;
+				}
+			}
+			try {
+				Files.deleteIfExists(partition);
+			} catch (DirectoryNotEmptyException e) {
+				LOGGER.warn("Retaining partition {}, which holds files other than users", partition);
+			}
+		}
+		if (stale > 0) {
+			LOGGER.info("Cleared {} stale users from {}", stale, this.directory);
+		}
+		this.users.clear();
+	}
+
+	/*
+		Files
+	*/
+
+	private List<Path> paths() throws IOException {
+		final List<Path> paths = new ArrayList<>();
+		for (final Path partition : this.partitions()) {
+			try (DirectoryStream<Path> files = Files.newDirectoryStream(partition, "*" + USER_SUFFIX)) {
+				files.forEach(paths::add);
+			}
+		}
+		return paths;
+	}
+
+	// The partition subdirectories, i.e. those named by two hex characters
+	private List<Path> partitions() throws IOException {
+		if (!Files.exists(this.directory)) {
+			return List.of();
+		}
+
+		final List<Path> partitions = new ArrayList<>();
+		try (DirectoryStream<Path> entries = Files.newDirectoryStream(this.directory, "[0-9a-f][0-9a-f]")) {
+			for (final Path entry : entries) {
+				if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+					partitions.add(entry);
+				}
+			}
+		}
+		return partitions;
+	}
+
+	private Path path(final String user) {
+		final byte[] name = PointEventCodec.bytes(user);
+		final String partition = String.valueOf(HEX[(user.hashCode() >>> 4) & 0xF]) + HEX[user.hashCode() & 0xF];
+		// Digests are prefixed by a non-hex character, thus they can't collide with a short name
+		final String file = name.length <= MAX_HEX_NAME_BYTES ? hex(name) : DIGEST_PREFIX + hex(digest(name));
+		return this.directory.resolve(partition).resolve(file + USER_SUFFIX);
+	}
+
+	private static String hex(final byte[] bytes) {
+		final char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >>> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	private static byte[] digest(final byte[] bytes) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(bytes);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.LedgerState;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The binary encoding of an entire User, as written to the cold store and the write-ahead log,
+ * and as handed between the nodes of a cluster.
+ */
+public final class LedgerStateCodec {
+
+	private LedgerStateCodec() {
+	}
+
+	/**
+	 * @param state A Users state
+	 * @return The state encoded, which decode reverses
+	 */
+	public static byte[] encode(final LedgerState state) {
+		final byte[] encodedUser = PointEventCodec.bytes(state.getUser());
+		final List<byte[]> encodedPayers = state.getPayerTotals().stream()
+			.map(payerTotal -> PointEventCodec.bytes(payerTotal.getPayer()))
+			.collect(Collectors.toList());
+
+		final ByteBuffer buffer = ByteBuffer.allocate(PointEventCodec.sizeOf(state, encodedUser, encodedPayers));
+		PointEventCodec.putLedgerState(buffer, state, encodedUser, encodedPayers);
+		return buffer.array();
+	}
+
+	/**
+	 * @param buffer A buffer positioned at an encoded state, which is advanced past it
+	 * @return The state decoded
+	 */
+	public static LedgerState decode(final ByteBuffer buffer) {
+		return PointEventCodec.getLedgerState(buffer);
+	}
+
+	/**
+	 * @see LedgerStateCodec#decode(ByteBuffer)
+	 */
+	public static LedgerState decode(final byte[] bytes) {
+		return decode(ByteBuffer.wrap(bytes));
+	}
+}
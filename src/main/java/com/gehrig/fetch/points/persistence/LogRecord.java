@@ -0,0 +1,53 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.IdempotencyKey;
+import com.gehrig.fetch.points.domain.LedgerState;
+import com.gehrig.fetch.points.domain.PointEvent;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+/**
+ * A write accepted by a User (or a User moved between nodes), as recorded by the PointEventLog.
+ */
+@Value
+public class LogRecord {
+
+	public enum Type {
+		// Points added to a User, i.e. UserPoints.addPoints
+		ADD,
+		// Points deducted from a User oldest to newest, i.e. UserPoints.deletePoints
+		DEDUCT,
+		// As for ADD, though under an idempotency key
+		KEYED_ADD,
+		// As for DEDUCT, though under an idempotency key
+		KEYED_DEDUCT,
+		// As for DEDUCT, though under an idempotency key and reporting the points deducted by payer, i.e. UserPoints.deletePointsByPayer
+		KEYED_DEDUCT_BY_PAYER,
+		// A User adopted in full from another node, replacing any User held by that name, see UserPointsService.adopt
+		ADOPT,
+		// A User handed off in full to another node, and no longer held, see UserPointsService.handOff
+		HAND_OFF,
+	}
+
+	Type type;
+
+	// Log sequence number, strictly increasing across the whole log
+	long lsn;
+
+	String user;
+
+	// Populated solely for ADD records (keyed or not)
+	@Nullable
+	PointEvent pointEvent;
+
+	// Populated solely for DEDUCT records (keyed or not)
+	long points;
+
+	// Populated solely for KEYED records
+	@Nullable
+	IdempotencyKey idempotencyKey;
+
+	// Populated solely for ADOPT records
+	@Nullable
+	LedgerState state;
+}
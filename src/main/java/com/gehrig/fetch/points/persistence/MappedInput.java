@@ -0,0 +1,96 @@
+package com.gehrig.fetch.points.persistence;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Sequential, checksummed reads of a file written by MappedOutput, through a sliding memory-mapped window.
+ */
+final class MappedInput implements Closeable {
+
+	private final FileChannel channel;
+	private final int windowBytes;
+	private final long contentBytes;
+	private final CRC32 crc = new CRC32();
+	private MappedByteBuffer window;
+	private long windowStart;
+
+	MappedInput(final Path path, final int windowBytes) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.windowBytes = windowBytes;
+		this.contentBytes = this.channel.size() - Integer.BYTES;
+		if (this.contentBytes < 0) {
+			throw new EOFException("File " + path + " is too short to be checksummed");
+		}
+	}
+
+	private void ensure(final int bytes) throws IOException {
+		if (this.window != null && this.window.remaining() >= bytes) {
+			return;
+		}
+
+		if (this.window != null) {
+			this.crc.update(this.window.flip());
+			this.windowStart += this.window.limit();
+		}
+		if (this.windowStart + bytes > this.contentBytes) {
+			throw new EOFException("Unexpected end of file at offset " + this.windowStart);
+		}
+		final long length = Math.min(Math.max(this.windowBytes, bytes), this.contentBytes - this.windowStart);
+		this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart, length);
+	}
+
+	byte getByte() throws IOException {
+		this.ensure(Byte.BYTES);
+		return this.window.get();
+	}
+
+	int getInt() throws IOException {
+		this.ensure(Integer.BYTES);
+		return this.window.getInt();
+	}
+
+	long getLong() throws IOException {
+		this.ensure(Long.BYTES);
+		return this.window.getLong();
+	}
+
+	String getString() throws IOException {
+		final int length = this.getInt();
+		this.ensure(length);
+		final byte[] bytes = new byte[length];
+		this.window.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Verify everything read thus far matches the files checksum, which must follow immediately.
+	 * @throws IOException If content remains unread or the checksum doesn't match
+	 */
+	void verify() throws IOException {
+		final long read = this.window == null ? 0L : this.windowStart + this.window.position();
+		if (read != this.contentBytes) {
+			throw new IOException("Expected " + this.contentBytes + " bytes of content but read " + read);
+		}
+		if (this.window != null) {
+			this.crc.update(this.window.flip());
+		}
+
+		final MappedByteBuffer checksum = this.channel.map(FileChannel.MapMode.READ_ONLY, this.contentBytes, Integer.BYTES);
+		if (checksum.getInt() != (int) this.crc.getValue()) {
+			throw new IOException("Checksum mismatch");
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+}
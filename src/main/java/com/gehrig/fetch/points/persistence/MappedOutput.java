@@ -0,0 +1,81 @@
+package com.gehrig.fetch.points.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Sequential, checksummed writes to a file through a sliding memory-mapped window.
+ *
+ * The window is remapped whenever the next value wouldn't fit, thus files may grow
+ * well beyond the 2GB limit of a single mapping while values never straddle windows.
+ */
+final class MappedOutput implements Closeable {
+
+	private final FileChannel channel;
+	private final int windowBytes;
+	private final CRC32 crc = new CRC32();
+	private MappedByteBuffer window;
+	private long windowStart;
+
+	MappedOutput(final Path path, final int windowBytes) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.windowBytes = windowBytes;
+	}
+
+	private void ensure(final int bytes) throws IOException {
+		if (this.window != null && this.window.remaining() >= bytes) {
+			return;
+		}
+
+		if (this.window != null) {
+			this.crc.update(this.window.flip());
+			this.window.force();
+			this.windowStart += this.window.limit();
+		}
+		this.window = this.channel.map(FileChannel.MapMode.READ_WRITE, this.windowStart, Math.max(this.windowBytes, bytes));
+	}
+
+	void putByte(final byte b) throws IOException {
+		this.ensure(Byte.BYTES);
+		this.window.put(b);
+	}
+
+	void putInt(final int i) throws IOException {
+		this.ensure(Integer.BYTES);
+		this.window.putInt(i);
+	}
+
+	void putLong(final long l) throws IOException {
+		this.ensure(Long.BYTES);
+		this.window.putLong(l);
+	}
+
+	void putString(final byte[] encodedString) throws IOException {
+		this.ensure(PointEventCodec.sizeOf(encodedString));
+		PointEventCodec.putString(this.window, encodedString);
+	}
+
+	/**
+	 * Append the checksum of everything written thus far, then trim the file to size and force it to disk.
+	 */
+	void finish() throws IOException {
+		this.ensure(Integer.BYTES);
+		final int checksumPosition = this.window.position();
+		this.crc.update(this.window.duplicate().flip());
+		this.window.putInt((int) this.crc.getValue());
+		this.window.force();
+
+		this.channel.truncate(this.windowStart + checksumPosition + Integer.BYTES);
+		this.channel.force(true);
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.channel.close();
+	}
+}
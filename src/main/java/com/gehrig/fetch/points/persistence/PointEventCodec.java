@@ -0,0 +1,213 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.IdempotencyKey;
+import com.gehrig.fetch.points.domain.IdempotentWrite;
+import com.gehrig.fetch.points.domain.LedgerState;
+import com.gehrig.fetch.points.domain.PayerDictionary;
+import com.gehrig.fetch.points.domain.PointEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of the ledgers data types, shared by the persistence formats.
+ *
+ * Strings are encoded as an int byte length followed by their UTF-8 bytes.
+ */
+final class PointEventCodec {
+
+	// An events points, epoch, nano, and sequence
+	private static final int EVENT_FIELDS_BYTES = Long.BYTES * 3 + Integer.BYTES;
+
+	private PointEventCodec() {
+	}
+
+	static byte[] bytes(final String s) {
+		return s.getBytes(StandardCharsets.UTF_8);
+	}
+
+	static int sizeOf(final byte[] encodedString) {
+		return Integer.BYTES + encodedString.length;
+	}
+
+	static void putString(final ByteBuffer buffer, final byte[] encodedString) {
+		buffer.putInt(encodedString.length);
+		buffer.put(encodedString);
+	}
+
+	static String getString(final ByteBuffer buffer) {
+		final byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Size of a PointEvent, sans its payer, whose encoding is supplied separately.
+	 * @param encodedPayer The payers encoded name
+	 * @return Total encoded size in bytes
+	 */
+	static int sizeOf(final PointEvent pointEvent, final byte[] encodedPayer) {
+		return sizeOf(encodedPayer) + Long.BYTES * 2 + Integer.BYTES + Long.BYTES;
+	}
+
+	static void putPointEvent(final ByteBuffer buffer, final PointEvent pointEvent, final byte[] encodedPayer) {
+		putString(buffer, encodedPayer);
+		buffer.putLong(pointEvent.getPoints());
+		buffer.putLong(pointEvent.getEpoch());
+		buffer.putInt(pointEvent.getNano());
+		buffer.putLong(pointEvent.getSequence());
+	}
+
+	static PointEvent getPointEvent(final ByteBuffer buffer) {
+		return new PointEvent(
+			PayerDictionary.intern(getString(buffer)),
+			buffer.getLong(),
+			buffer.getLong(),
+			buffer.getInt(),
+			buffer.getLong()
+		);
+	}
+
+	/**
+	 * Size of a LedgerState, encoded as by SnapshotStore, i.e. events reference their payer by index.
+	 * @param encodedUser The Users encoded name
+	 * @param encodedPayers The encoded name of each payer total, positionally matching the states payer totals
+	 * @return Total encoded size in bytes
+	 */
+	static int sizeOf(final LedgerState state, final byte[] encodedUser, final List<byte[]> encodedPayers) {
+		int size = sizeOf(encodedUser) + Long.BYTES * 3 + Integer.BYTES * 2;
+		for (final byte[] encodedPayer : encodedPayers) {
+			size += sizeOf(encodedPayer) + EVENT_FIELDS_BYTES;
+		}
+		size += state.getPointEvents().size() * (Integer.BYTES + EVENT_FIELDS_BYTES);
+
+		size += Integer.BYTES;
+		for (final IdempotentWrite write : state.getIdempotentWrites()) {
+			size += sizeOf(write);
+		}
+		return size;
+	}
+
+	static void putLedgerState(final ByteBuffer buffer, final LedgerState state, final byte[] encodedUser, final List<byte[]> encodedPayers) {
+		putString(buffer, encodedUser);
+		buffer.putLong(state.getJournalSequence());
+		buffer.putLong(state.getVersion());
+		buffer.putLong(state.getTotal());
+
+		final Map<String, Integer> payerIndexes = new HashMap<>();
+		buffer.putInt(state.getPayerTotals().size());
+		for (int i = 0; i < encodedPayers.size(); i++) {
+			final PointEvent payerTotal = state.getPayerTotals().get(i);
+			payerIndexes.put(payerTotal.getPayer(), i);
+			putString(buffer, encodedPayers.get(i));
+			putEventFields(buffer, payerTotal);
+		}
+
+		buffer.putInt(state.getPointEvents().size());
+		for (final PointEvent pointEvent : state.getPointEvents()) {
+			buffer.putInt(payerIndexes.get(pointEvent.getPayer()));
+			putEventFields(buffer, pointEvent);
+		}
+
+		buffer.putInt(state.getIdempotentWrites().size());
+		for (final IdempotentWrite write : state.getIdempotentWrites()) {
+			putIdempotentWrite(buffer, write);
+		}
+	}
+
+	static LedgerState getLedgerState(final ByteBuffer buffer) {
+		final String user = getString(buffer);
+		final long journalSequence = buffer.getLong();
+		final long version = buffer.getLong();
+		final long total = buffer.getLong();
+
+		final int payers = buffer.getInt();
+		final List<PointEvent> payerTotals = new ArrayList<>(payers);
+		for (int i = 0; i < payers; i++) {
+			payerTotals.add(getEventFields(buffer, PayerDictionary.intern(getString(buffer))));
+		}
+
+		final int events = buffer.getInt();
+		final List<PointEvent> pointEvents = new ArrayList<>(events);
+		for (int i = 0; i < events; i++) {
+			// Reuse the payer totals name, thus every event of a payer shares one String
+			pointEvents.add(getEventFields(buffer, payerTotals.get(buffer.getInt()).getPayer()));
+		}
+
+		final int writes = buffer.getInt();
+		final List<IdempotentWrite> idempotentWrites = new ArrayList<>(writes);
+		for (int i = 0; i < writes; i++) {
+			idempotentWrites.add(getIdempotentWrite(buffer));
+		}
+
+		return new LedgerState(user, journalSequence, version, total, payerTotals, pointEvents, idempotentWrites);
+	}
+
+	/**
+	 * Size of an IdempotentWrite, encoded as its key, when first requested, kind, payer (empty absent a payer),
+	 * points, its retained result, and finally the repeats of each event retained (none unless compacted).
+	 * Writes are few per User, thus names are simply repeated.
+	 */
+	static int sizeOf(final IdempotentWrite write) {
+		int size = sizeOf(bytes(write.getKey().getKey())) + Long.BYTES + Byte.BYTES
+			+ sizeOf(bytes(write.getPayer() == null ? "" : write.getPayer())) + Long.BYTES + Integer.BYTES + Integer.BYTES;
+		for (final PointEvent event : write.getRetained()) {
+			size += sizeOf(bytes(event.getPayer())) + EVENT_FIELDS_BYTES;
+		}
+		return size + (write.getRepeats() == null ? 0 : write.getRepeats().length * Integer.BYTES);
+	}
+
+	static void putIdempotentWrite(final ByteBuffer buffer, final IdempotentWrite write) {
+		putString(buffer, bytes(write.getKey().getKey()));
+		buffer.putLong(write.getKey().getAt());
+		buffer.put((byte) write.getKind().ordinal());
+		putString(buffer, bytes(write.getPayer() == null ? "" : write.getPayer()));
+		buffer.putLong(write.getPoints());
+		buffer.putInt(write.getRetained().size());
+		for (final PointEvent event : write.getRetained()) {
+			putString(buffer, bytes(event.getPayer()));
+			putEventFields(buffer, event);
+		}
+		final int[] repeats = write.getRepeats();
+		buffer.putInt(repeats == null ? 0 : repeats.length);
+		if (repeats != null) {
+			for (final int repeat : repeats) {
+				buffer.putInt(repeat);
+			}
+		}
+	}
+
+	static IdempotentWrite getIdempotentWrite(final ByteBuffer buffer) {
+		final IdempotencyKey key = new IdempotencyKey(getString(buffer), buffer.getLong());
+		final IdempotentWrite.Kind kind = IdempotentWrite.Kind.values()[buffer.get()];
+		final String payer = getString(buffer);
+		final long points = buffer.getLong();
+
+		final int events = buffer.getInt();
+		final List<PointEvent> retained = new ArrayList<>(events);
+		for (int i = 0; i < events; i++) {
+			retained.add(getEventFields(buffer, PayerDictionary.intern(getString(buffer))));
+		}
+		final int[] repeats = buffer.getInt() == 0 ? null : new int[events];
+		for (int i = 0; repeats != null && i < events; i++) {
+			repeats[i] = buffer.getInt();
+		}
+
+		return new IdempotentWrite(key, kind, payer.isEmpty() ? null : PayerDictionary.intern(payer), points, retained, repeats);
+	}
+
+	private static void putEventFields(final ByteBuffer buffer, final PointEvent pointEvent) {
+		buffer.putLong(pointEvent.getPoints());
+		buffer.putLong(pointEvent.getEpoch());
+		buffer.putInt(pointEvent.getNano());
+		buffer.putLong(pointEvent.getSequence());
+	}
+
+	private static PointEvent getEventFields(final ByteBuffer buffer, final String payer) {
+		return new PointEvent(payer, buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getLong());
+	}
+}
@@ -0,0 +1,657 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.IdempotencyKey;
+import com.gehrig.fetch.points.domain.LedgerJournal;
+import com.gehrig.fetch.points.domain.LedgerState;
+import com.gehrig.fetch.points.domain.PointEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only, segmented, write-ahead log of the writes accepted by UserPoints.
+ *
+ * Writers append records to an in-memory batch while holding their Users lock, which
+ * is cheap. A single flusher thread then writes, and optionally fsync's, whole batches
+ * to the current segment file, i.e. group commit. While one batch is being fsync'd the
+ * next accumulates, so the cost of an fsync is amortized across every write in a batch.
+ *
+ * Writers wait for their records to become durable via sync, outside of any Users lock,
+ * so acknowledgement of a write is delayed by the flusher but other writes are not. Writers
+ * which mustn't block (e.g. event loops) are instead notified via the future of whenSynced.
+ *
+ * Records are framed as [int length][int crc32][payload]. Torn writes at the tail of the
+ * final segment are detected by their framing and truncated during recovery.
+ *
+ * Each segment begins with a header of [int magic][int format version], which versions the
+ * encoding of every record within it. Segments of an unrecognized format are rejected.
+ */
+public class PointEventLog implements LedgerJournal, Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PointEventLog.class);
+	private static final String SEGMENT_SUFFIX = ".wal";
+	private static final int MAGIC = 0x5057414C; // "PWAL"
+	private static final int FORMAT_VERSION = 1;
+	private static final int SEGMENT_HEADER_BYTES = Integer.BYTES * 2;
+	private static final int FRAME_HEADER_BYTES = Integer.BYTES * 2;
+	private static final int RECORD_HEADER_BYTES = Long.BYTES + Byte.BYTES;
+	private static final int INITIAL_BATCH_BYTES = 64 * 1024;
+
+	private final Path directory;
+	private final long segmentBytes;
+	private final boolean fsync;
+	private final long maxBatchDelayNanos;
+
+	// Guards the batch being appended to, and everything describing it
+	private final ReentrantLock appendLock = new ReentrantLock();
+	private final Condition appended = this.appendLock.newCondition();
+	private final CRC32 crc = new CRC32();
+	private ByteBuffer batch = ByteBuffer.allocate(INITIAL_BATCH_BYTES);
+	private long batchFirstLsn;
+	private volatile long appendedLsn;
+
+	// Guards durability notifications to writers waiting in sync, or on the futures of whenSynced
+	private final ReentrantLock durableLock = new ReentrantLock();
+	private final Condition durable = this.durableLock.newCondition();
+	private final PriorityQueue<PendingSync> pendingSyncs = new PriorityQueue<>();
+	private volatile long durableLsn;
+	private volatile IOException failure;
+
+	// Owned by the flusher thread once recovery has completed
+	private ByteBuffer flushing = ByteBuffer.allocate(INITIAL_BATCH_BYTES);
+	private FileChannel segment;
+	private long segmentSize;
+
+	private volatile boolean recovering;
+	private long recoveringLsn;
+	private volatile boolean closed;
+	private Thread flusher;
+
+	public PointEventLog(final Path directory, final long segmentBytes, final boolean fsync, final Duration maxBatchDelay)
+		throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.segmentBytes = segmentBytes;
+		this.fsync = fsync;
+		this.maxBatchDelayNanos = maxBatchDelay.toNanos();
+	}
+
+	/*
+		Recovery
+	*/
+
+	/**
+	 * Replay every record in the log, oldest to newest, then open the log for appending.
+	 * @param handler A consumer that re-applies each record
+	 * @throws IOException If the log can't be read, or a segment other than the last is corrupt
+	 */
+	public void recover(final Consumer<LogRecord> handler) throws IOException {
+		this.recover(0L, handler);
+	}
+
+	/**
+	 * Replay every record after the given lsn, oldest to newest, then open the log for appending.
+	 *
+	 * Records re-applied by the handler are already durable, so any journaling the handler
+	 * triggers (i.e. by re-applying records to UserPoints) is ignored rather than appended.
+	 *
+	 * @param fromLsn The lsn through which records are already reflected, e.g. by a snapshot
+	 * @param handler A consumer that re-applies each record
+	 * @throws IOException If the log can't be read, or a segment other than the last is corrupt
+	 */
+	public void recover(final long fromLsn, final Consumer<LogRecord> handler) throws IOException {
+		if (this.flusher != null) {
+			throw new IllegalStateException("The log has already been recovered");
+		}
+
+		final List<Path> segments = this.segments();
+		long records = 0L;
+
+		this.appendedLsn = fromLsn;
+		this.recovering = true;
+		try {
+			for (int i = 0; i < segments.size(); i++) {
+				// Segments whose successor begins at or before fromLsn + 1 hold nothing to replay
+				if (i + 1 < segments.size() && firstLsn(segments.get(i + 1)) <= fromLsn + 1) {
+					continue;
+				}
+				records += this.replaySegment(segments.get(i), i == segments.size() - 1, fromLsn, handler);
+			}
+		} finally {
+			this.recovering = false;
+		}
+
+		this.durableLsn = this.appendedLsn;
+		final Path last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+		if (last != null && Files.size(last) >= SEGMENT_HEADER_BYTES) {
+			this.segment = FileChannel.open(last, StandardOpenOption.WRITE);
+			this.segmentSize = this.segment.size();
+			this.segment.position(this.segmentSize);
+		} else {
+			// A segment torn mid header holds no records, and would otherwise share its name with the segment begun in its place
+			if (last != null) {
+				Files.delete(last);
+			}
+			this.openSegment(this.appendedLsn + 1);
+		}
+
+		LOGGER.info("Recovered {} records from {} log segment(s) in {}", records, segments.size(), this.directory);
+		this.flusher = new Thread(this::flushLoop, "point-event-log-flusher");
+		this.flusher.setDaemon(true);
+		this.flusher.start();
+	}
+
+	private long replaySegment(final Path path, final boolean last, final long fromLsn, final Consumer<LogRecord> handler)
+		throws IOException {
+		long records = 0L;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			final CRC32 checksum = new CRC32();
+			if (buffer.remaining() < SEGMENT_HEADER_BYTES) {
+				if (!last) {
+					throw new IOException("Truncated header of log segment " + path);
+				}
+				return records;
+			}
+			readHeader(buffer, path);
+
+			while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+				final int start = buffer.position();
+				final int length = buffer.getInt();
+				final int crc = buffer.getInt();
+				if (length < RECORD_HEADER_BYTES || length > buffer.remaining()) {
+					buffer.position(start);
+					break;
+				}
+
+				final ByteBuffer payload = buffer.slice().limit(length);
+				checksum.reset();
+				checksum.update(payload.duplicate());
+				if ((int) checksum.getValue() != crc) {
+					buffer.position(start);
+					break;
+				}
+
+				final LogRecord record = decode(payload);
+				buffer.position(start + FRAME_HEADER_BYTES + length);
+				if (record.getLsn() <= fromLsn) {
+					continue;
+				}
+
+				this.recoveringLsn = record.getLsn();
+				this.appendedLsn = record.getLsn();
+				handler.accept(record);
+				records++;
+			}
+
+			if (buffer.hasRemaining()) {
+				if (!last) {
+					throw new IOException("Corrupt record in log segment " + path + " at offset " + buffer.position());
+				}
+				LOGGER.warn("Truncating {} bytes of torn writes from log segment {}", buffer.remaining(), path);
+				channel.truncate(buffer.position());
+				channel.force(true);
+			}
+		}
+
+		return records;
+	}
+
+	// Read a segments header, leaving the buffer positioned at its first record
+	private static void readHeader(final ByteBuffer buffer, final Path path) throws IOException {
+		final int magic = buffer.getInt();
+		final int format = buffer.getInt();
+		if (magic != MAGIC || format != FORMAT_VERSION) {
+			throw new IOException("Unrecognized format " + format + " of log segment " + path);
+		}
+	}
+
+	/**
+	 * Delete log segments holding solely records prior to the given lsn, e.g. once they're reflected by a snapshot.
+	 * The segment currently being appended to is never deleted.
+	 * @param lsn The oldest lsn that must be retained
+	 * @throws IOException If segments can't be listed or deleted
+	 */
+	public void truncateBefore(final long lsn) throws IOException {
+		final List<Path> segments = this.segments();
+		for (int i = 0; i + 1 < segments.size() && firstLsn(segments.get(i + 1)) <= lsn; i++) {
+			Files.delete(segments.get(i));
+			LOGGER.debug("Deleted log segment {}", segments.get(i));
+		}
+	}
+
+	private static long firstLsn(final Path segment) {
+		final String name = segment.getFileName().toString();
+		return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> paths = Files.list(this.directory)) {
+			return paths
+				.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+				.sorted()
+				.collect(Collectors.toList());
+		}
+	}
+
+	/*
+		Appending
+	*/
+
+	@Override
+	public long added(final String user, final PointEvent pointEvent) {
+		return this.appendAdded(LogRecord.Type.ADD, user, pointEvent, null);
+	}
+
+	@Override
+	public long added(final String user, final PointEvent pointEvent, final IdempotencyKey key) {
+		return this.appendAdded(LogRecord.Type.KEYED_ADD, user, pointEvent, key);
+	}
+
+	@Override
+	public long deducted(final String user, final long points) {
+		return this.appendDeducted(LogRecord.Type.DEDUCT, user, points, null);
+	}
+
+	@Override
+	public long deducted(final String user, final long points, final boolean byPayer, final IdempotencyKey key) {
+		return this.appendDeducted(byPayer ? LogRecord.Type.KEYED_DEDUCT_BY_PAYER : LogRecord.Type.KEYED_DEDUCT, user, points, key);
+	}
+
+	private long appendAdded(final LogRecord.Type type, final String user, final PointEvent pointEvent, @Nullable final IdempotencyKey key) {
+		if (this.recovering) {
+			return this.recoveringLsn;
+		}
+
+		final byte[] encodedUser = PointEventCodec.bytes(user);
+		final byte[] encodedKey = key == null ? null : PointEventCodec.bytes(key.getKey());
+		final byte[] encodedPayer = PointEventCodec.bytes(pointEvent.getPayer());
+		final int length = RECORD_HEADER_BYTES + PointEventCodec.sizeOf(encodedUser) + sizeOfKey(encodedKey)
+			+ PointEventCodec.sizeOf(pointEvent, encodedPayer);
+
+		this.appendLock.lock();
+		try {
+			final long lsn = this.beginRecord(type, length);
+			PointEventCodec.putString(this.batch, encodedUser);
+			this.putKey(key, encodedKey);
+			PointEventCodec.putPointEvent(this.batch, pointEvent, encodedPayer);
+			this.endRecord(length);
+			return lsn;
+		} finally {
+			this.appendLock.unlock();
+		}
+	}
+
+	private long appendDeducted(final LogRecord.Type type, final String user, final long points, @Nullable final IdempotencyKey key) {
+		if (this.recovering) {
+			return this.recoveringLsn;
+		}
+
+		final byte[] encodedUser = PointEventCodec.bytes(user);
+		final byte[] encodedKey = key == null ? null : PointEventCodec.bytes(key.getKey());
+		final int length = RECORD_HEADER_BYTES + PointEventCodec.sizeOf(encodedUser) + sizeOfKey(encodedKey) + Long.BYTES;
+
+		this.appendLock.lock();
+		try {
+			final long lsn = this.beginRecord(type, length);
+			PointEventCodec.putString(this.batch, encodedUser);
+			this.putKey(key, encodedKey);
+			this.batch.putLong(points);
+			this.endRecord(length);
+			return lsn;
+		} finally {
+			this.appendLock.unlock();
+		}
+	}
+
+	@Override
+	public long adopted(final LedgerState state) {
+		return this.appendUser(LogRecord.Type.ADOPT, state.getUser(), LedgerStateCodec.encode(state));
+	}
+
+	@Override
+	public long handedOff(final String user) {
+		return this.appendUser(LogRecord.Type.HAND_OFF, user, null);
+	}
+
+	// Users moved between nodes are encoded as their name followed by their entire state if adopted
+	private long appendUser(final LogRecord.Type type, final String user, @Nullable final byte[] encodedState) {
+		if (this.recovering) {
+			return this.recoveringLsn;
+		}
+
+		final byte[] encodedUser = PointEventCodec.bytes(user);
+		final int length = RECORD_HEADER_BYTES + PointEventCodec.sizeOf(encodedUser) + (encodedState == null ? 0 : encodedState.length);
+
+		this.appendLock.lock();
+		try {
+			final long lsn = this.beginRecord(type, length);
+			PointEventCodec.putString(this.batch, encodedUser);
+			if (encodedState != null) {
+				this.batch.put(encodedState);
+			}
+			this.endRecord(length);
+			return lsn;
+		} finally {
+			this.appendLock.unlock();
+		}
+	}
+
+	// Keys are encoded as their name followed by when they were first requested, unkeyed records omit them entirely
+	private static int sizeOfKey(@Nullable final byte[] encodedKey) {
+		return encodedKey == null ? 0 : PointEventCodec.sizeOf(encodedKey) + Long.BYTES;
+	}
+
+	// The caller must hold the appendLock
+	private void putKey(@Nullable final IdempotencyKey key, @Nullable final byte[] encodedKey) {
+		if (key != null) {
+			PointEventCodec.putString(this.batch, encodedKey);
+			this.batch.putLong(key.getAt());
+		}
+	}
+
+	// Reserve space for a record and write its frame + record headers, the caller must hold the appendLock
+	private long beginRecord(final LogRecord.Type type, final int length) {
+		if (this.closed || this.flusher == null) {
+			throw new IllegalStateException("The log is not open for appending");
+		}
+		if (this.failure != null) {
+			throw new UncheckedIOException("The log failed to write previous records", this.failure);
+		}
+
+		final int required = FRAME_HEADER_BYTES + length;
+		if (this.batch.remaining() < required) {
+			final ByteBuffer grown = ByteBuffer.allocate(Math.max(this.batch.capacity() * 2, this.batch.position() + required));
+			this.batch.flip();
+			this.batch = grown.put(this.batch);
+		}
+
+		final long lsn = this.appendedLsn + 1;
+		this.batch.position(this.batch.position() + FRAME_HEADER_BYTES);
+		this.batch.putLong(lsn);
+		this.batch.put((byte) type.ordinal());
+
+		if (this.batchFirstLsn == 0L) {
+			this.batchFirstLsn = lsn;
+		}
+		this.appendedLsn = lsn;
+		return lsn;
+	}
+
+	// Checksum the record and complete its frame, the caller must hold the appendLock
+	private void endRecord(final int length) {
+		final int payloadStart = this.batch.position() - length;
+		this.crc.reset();
+		this.crc.update(this.batch.array(), this.batch.arrayOffset() + payloadStart, length);
+		this.batch.putInt(payloadStart - FRAME_HEADER_BYTES, length);
+		this.batch.putInt(payloadStart - Integer.BYTES, (int) this.crc.getValue());
+		this.appended.signal();
+	}
+
+	/**
+	 * Wait until every record appended prior to this call is durable.
+	 * @throws UncheckedIOException If the log failed to write those records
+	 */
+	public void sync() {
+		final long target = this.appendedLsn;
+		if (this.durableLsn >= target) {
+			return;
+		}
+
+		this.durableLock.lock();
+		try {
+			while (this.durableLsn < target) {
+				if (this.failure != null) {
+					throw new UncheckedIOException("The log failed to write records", this.failure);
+				}
+				this.durable.await();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while awaiting durable log records", e);
+		} finally {
+			this.durableLock.unlock();
+		}
+	}
+
+	/**
+	 * Be notified once every record appended prior to this call is durable, without waiting.
+	 *
+	 * The returned future is completed by the flusher thread, thus dependents mustn't block it.
+	 *
+	 * @return A future completed once those records are durable, or completed exceptionally (with
+	 * an UncheckedIOException) if the log failed to write them
+	 */
+	public CompletableFuture<Void> whenSynced() {
+		final long target = this.appendedLsn;
+		if (this.durableLsn >= target) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		this.durableLock.lock();
+		try {
+			if (this.failure != null) {
+				return CompletableFuture.failedFuture(new UncheckedIOException("The log failed to write records", this.failure));
+			}
+			if (this.durableLsn >= target) {
+				return CompletableFuture.completedFuture(null);
+			}
+			final PendingSync pending = new PendingSync(target);
+			this.pendingSyncs.add(pending);
+			return pending.future;
+		} finally {
+			this.durableLock.unlock();
+		}
+	}
+
+	public long getAppendedLsn() {
+		return this.appendedLsn;
+	}
+
+	public long getDurableLsn() {
+		return this.durableLsn;
+	}
+
+	/*
+		Flushing
+	*/
+
+	private void flushLoop() {
+		while (true) {
+			final long firstLsn;
+			final long lastLsn;
+
+			this.appendLock.lock();
+			try {
+				while (this.batch.position() == 0 && !this.closed) {
+					this.appended.awaitUninterruptibly();
+				}
+				if (this.batch.position() == 0) {
+					return;
+				}
+
+				// Optionally linger, allowing more writes to share this batches fsync
+				long delay = this.maxBatchDelayNanos;
+				while (delay > 0 && !this.closed) {
+					delay = this.appended.awaitNanos(delay);
+				}
+
+				final ByteBuffer full = this.batch;
+				this.batch = this.flushing;
+				this.flushing = full;
+				firstLsn = this.batchFirstLsn;
+				lastLsn = this.appendedLsn;
+				this.batchFirstLsn = 0L;
+			} catch (InterruptedException e) {
+				// The flusher is never interrupted intentionally, carry on flushing
+				continue;
+			} finally {
+				this.appendLock.unlock();
+			}
+
+			try {
+				this.flushing.flip();
+				this.write(this.flushing, firstLsn);
+				this.flushing.clear();
+			} catch (IOException e) {
+				LOGGER.error("Failed to write log records {} through {}", firstLsn, lastLsn, e);
+				this.failure = e;
+				this.signalDurable(this.durableLsn);
+				return;
+			}
+
+			this.signalDurable(lastLsn);
+		}
+	}
+
+	private void write(final ByteBuffer records, final long firstLsn) throws IOException {
+		if (this.segmentSize > SEGMENT_HEADER_BYTES && this.segmentSize + records.remaining() > this.segmentBytes) {
+			this.segment.close();
+			this.openSegment(firstLsn);
+		}
+
+		while (records.hasRemaining()) {
+			this.segmentSize += this.segment.write(records);
+		}
+		if (this.fsync) {
+			this.segment.force(false);
+		}
+	}
+
+	private void openSegment(final long firstLsn) throws IOException {
+		final Path path = this.directory.resolve(String.format("%020d%s", firstLsn, SEGMENT_SUFFIX));
+		this.segment = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		final ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+		this.segmentSize = 0L;
+		while (header.hasRemaining()) {
+			this.segmentSize += this.segment.write(header);
+		}
+
+		// Persist the new directory entry, otherwise the segment itself may be lost on crash
+		if (this.fsync) {
+			try (FileChannel dir = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+				dir.force(true);
+			} catch (IOException e) {
+				LOGGER.debug("Unable to fsync log directory {}", this.directory, e);
+			}
+		}
+	}
+
+	private void signalDurable(final long lsn) {
+		final List<PendingSync> synced = new ArrayList<>();
+		this.durableLock.lock();
+		try {
+			this.durableLsn = lsn;
+			this.durable.signalAll();
+			while (!this.pendingSyncs.isEmpty() && (this.failure != null || this.pendingSyncs.peek().target <= lsn)) {
+				synced.add(this.pendingSyncs.poll());
+			}
+		} finally {
+			this.durableLock.unlock();
+		}
+
+		// Futures are completed outside the lock, as their dependents run on completion
+		for (final PendingSync pending : synced) {
+			if (this.failure == null) {
+				pending.future.complete(null);
+			} else {
+				pending.future.completeExceptionally(new UncheckedIOException("The log failed to write records", this.failure));
+			}
+		}
+	}
+
+	/**
+	 * A future awaiting every record through its target lsn becoming durable.
+	 */
+	private static final class PendingSync implements Comparable<PendingSync> {
+		private final long target;
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		private PendingSync(final long target) {
+			this.target = target;
+		}
+
+		@Override
+		public int compareTo(final PendingSync other) {
+			return Long.compare(this.target, other.target);
+		}
+	}
+
+	/**
+	 * Flush any outstanding records, then close the log.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.appendLock.lock();
+		try {
+			this.closed = true;
+			this.appended.signal();
+		} finally {
+			this.appendLock.unlock();
+		}
+
+		if (this.flusher != null) {
+			try {
+				this.flusher.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (this.segment != null) {
+			this.segment.close();
+		}
+	}
+
+	/*
+		Decoding
+	*/
+
+	private static LogRecord decode(final ByteBuffer payload) {
+		final long lsn = payload.getLong();
+		final LogRecord.Type type = LogRecord.Type.values()[payload.get()];
+		final String user = PointEventCodec.getString(payload);
+
+		switch (type) {
+			case ADD:
+				return new LogRecord(type, lsn, user, PointEventCodec.getPointEvent(payload), 0L, null, null);
+			case DEDUCT:
+				return new LogRecord(type, lsn, user, null, payload.getLong(), null, null);
+			case KEYED_ADD: {
+				final IdempotencyKey key = new IdempotencyKey(PointEventCodec.getString(payload), payload.getLong());
+				return new LogRecord(type, lsn, user, PointEventCodec.getPointEvent(payload), 0L, key, null);
+			}
+			case KEYED_DEDUCT:
+			case KEYED_DEDUCT_BY_PAYER: {
+				final IdempotencyKey key = new IdempotencyKey(PointEventCodec.getString(payload), payload.getLong());
+				return new LogRecord(type, lsn, user, null, payload.getLong(), key, null);
+			}
+			case ADOPT:
+				return new LogRecord(type, lsn, user, null, 0L, null, LedgerStateCodec.decode(payload));
+			case HAND_OFF:
+				return new LogRecord(type, lsn, user, null, 0L, null, null);
+			default:
+				throw new IllegalArgumentException("Unknown log record type " + type);
+		}
+	}
+}
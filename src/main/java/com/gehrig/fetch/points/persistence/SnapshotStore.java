@@ -0,0 +1,273 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.IdempotencyKey;
+import com.gehrig.fetch.points.domain.IdempotentWrite;
+import com.gehrig.fetch.points.domain.LedgerState;
+import com.gehrig.fetch.points.domain.PayerDictionary;
+import com.gehrig.fetch.points.domain.PointEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Point-in-time snapshots of every User, which bound the portion of the write-ahead log replayed on startup.
+ *
+ * Snapshots are named by the log sequence number through which every record is reflected,
+ * and are written to a temporary file via memory-mapped I/O before being atomically renamed.
+ * Consequently, a snapshot file is either complete or absent.
+ *
+ * Each User is encoded as its name, journal sequence, version, total, its payer totals, its
+ * outstanding events, and finally its writes made under idempotency keys. Events reference their
+ * payer by index into the Users payer totals rather than repeating the payers name, thus each
+ * event costs a fixed 28 bytes.
+ */
+public class SnapshotStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotStore.class);
+	private static final int MAGIC = 0x504E5453; // "PNTS"
+	private static final int FORMAT_VERSION = 1;
+	private static final String SNAPSHOT_SUFFIX = ".snap";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final byte USER_MARKER = 1;
+	private static final byte END_MARKER = 0;
+
+	private final Path directory;
+	private final int windowBytes;
+	private final int retained;
+
+	public SnapshotStore(final Path directory, final int windowBytes, final int retained) throws IOException {
+		this.directory = Files.createDirectories(directory);
+		this.windowBytes = windowBytes;
+		this.retained = Math.max(1, retained);
+	}
+
+	/**
+	 * Write and publish a snapshot, then prune snapshots beyond those retained.
+	 *
+	 * @param lsn Log sequence number through which every record is reflected by the supplied states
+	 * @param states Users to be snapshot, ideally captured lazily so that only one is copied at a time
+	 * @param beforePublish Invoked once every User is written, but before the snapshot is published
+	 * @return The number of Users written, or -1 if a snapshot of the given lsn already exists
+	 * @throws IOException If the snapshot couldn't be written
+	 */
+	public long write(final long lsn, final Iterator<LedgerState> states, final Runnable beforePublish) throws IOException {
+		final Path target = this.path(lsn);
+		if (Files.exists(target)) {
+			return -1L;
+		}
+
+		final Path temporary = this.directory.resolve(target.getFileName() + TEMPORARY_SUFFIX);
+		Files.deleteIfExists(temporary);
+
+		long users = 0L;
+		try (MappedOutput output = new MappedOutput(temporary, this.windowBytes)) {
+			output.putInt(MAGIC);
+			output.putInt(FORMAT_VERSION);
+			output.putLong(lsn);
+
+			while (states.hasNext()) {
+				output.putByte(USER_MARKER);
+				writeUser(output, states.next());
+				users++;
+			}
+
+			output.putByte(END_MARKER);
+			output.finish();
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temporary);
+			throw e;
+		}
+
+		beforePublish.run();
+		Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+		this.syncDirectory();
+		this.prune();
+		return users;
+	}
+
+	/**
+	 * Read the most recent snapshot, if any.
+	 * @param handler A consumer of each Users state
+	 * @return The log sequence number through which the snapshot reflects every record, or 0 absent a snapshot
+	 * @throws IOException If the most recent snapshot can't be read or is corrupt
+	 */
+	public long load(final Consumer<LedgerState> handler) throws IOException {
+		final List<Path> snapshots = this.snapshots();
+		if (snapshots.isEmpty()) {
+			return 0L;
+		}
+
+		final Path latest = snapshots.get(snapshots.size() - 1);
+		try (MappedInput input = new MappedInput(latest, this.windowBytes)) {
+			final int magic = input.getInt();
+			final int format = input.getInt();
+			if (magic != MAGIC || format != FORMAT_VERSION) {
+				throw new IOException("Unrecognized snapshot format");
+			}
+
+			final long lsn = input.getLong();
+			long users = 0L;
+			while (input.getByte() == USER_MARKER) {
+				handler.accept(readUser(input));
+				users++;
+			}
+
+			input.verify();
+			LOGGER.info("Loaded {} users from snapshot {}", users, latest);
+			return lsn;
+		} catch (IOException e) {
+			throw new IOException("Failed to load snapshot " + latest, e);
+		}
+	}
+
+	/*
+		Encoding
+	*/
+
+	private static void writeUser(final MappedOutput output, final LedgerState state) throws IOException {
+		output.putString(PointEventCodec.bytes(state.getUser()));
+		output.putLong(state.getJournalSequence());
+		output.putLong(state.getVersion());
+		output.putLong(state.getTotal());
+
+		final Map<String, Integer> payerIndexes = new HashMap<>();
+		output.putInt(state.getPayerTotals().size());
+		for (final PointEvent payerTotal : state.getPayerTotals()) {
+			payerIndexes.put(payerTotal.getPayer(), payerIndexes.size());
+			output.putString(PointEventCodec.bytes(payerTotal.getPayer()));
+			writeEventFields(output, payerTotal);
+		}
+
+		output.putInt(state.getPointEvents().size());
+		for (final PointEvent pointEvent : state.getPointEvents()) {
+			output.putInt(payerIndexes.get(pointEvent.getPayer()));
+			writeEventFields(output, pointEvent);
+		}
+
+		output.putInt(state.getIdempotentWrites().size());
+		for (final IdempotentWrite write : state.getIdempotentWrites()) {
+			writeIdempotentWrite(output, write);
+		}
+	}
+
+	// Encoded alike PointEventCodec.putIdempotentWrite
+	private static void writeIdempotentWrite(final MappedOutput output, final IdempotentWrite write) throws IOException {
+		output.putString(PointEventCodec.bytes(write.getKey().getKey()));
+		output.putLong(write.getKey().getAt());
+		output.putByte((byte) write.getKind().ordinal());
+		output.putString(PointEventCodec.bytes(write.getPayer() == null ? "" : write.getPayer()));
+		output.putLong(write.getPoints());
+		output.putInt(write.getRetained().size());
+		for (final PointEvent event : write.getRetained()) {
+			output.putString(PointEventCodec.bytes(event.getPayer()));
+			writeEventFields(output, event);
+		}
+		final int[] repeats = write.getRepeats();
+		output.putInt(repeats == null ? 0 : repeats.length);
+		if (repeats != null) {
+			for (final int repeat : repeats) {
+				output.putInt(repeat);
+			}
+		}
+	}
+
+	private static void writeEventFields(final MappedOutput output, final PointEvent pointEvent) throws IOException {
+		output.putLong(pointEvent.getPoints());
+		output.putLong(pointEvent.getEpoch());
+		output.putInt(pointEvent.getNano());
+		output.putLong(pointEvent.getSequence());
+	}
+
+	private static LedgerState readUser(final MappedInput input) throws IOException {
+		final String user = input.getString();
+		final long journalSequence = input.getLong();
+		final long version = input.getLong();
+		final long total = input.getLong();
+
+		final int payers = input.getInt();
+		final List<PointEvent> payerTotals = new ArrayList<>(payers);
+		for (int i = 0; i < payers; i++) {
+			payerTotals.add(readEventFields(input, PayerDictionary.intern(input.getString())));
+		}
+
+		final int events = input.getInt();
+		final List<PointEvent> pointEvents = new ArrayList<>(events);
+		for (int i = 0; i < events; i++) {
+			// Reuse the payer totals name, thus every event of a payer shares one String
+			pointEvents.add(readEventFields(input, payerTotals.get(input.getInt()).getPayer()));
+		}
+
+		final int writes = input.getInt();
+		final List<IdempotentWrite> idempotentWrites = new ArrayList<>(writes);
+		for (int i = 0; i < writes; i++) {
+			idempotentWrites.add(readIdempotentWrite(input));
+		}
+
+		return new LedgerState(user, journalSequence, version, total, payerTotals, pointEvents, idempotentWrites);
+	}
+
+	private static IdempotentWrite readIdempotentWrite(final MappedInput input) throws IOException {
+		final IdempotencyKey key = new IdempotencyKey(input.getString(), input.getLong());
+		final IdempotentWrite.Kind kind = IdempotentWrite.Kind.values()[input.getByte()];
+		final String payer = input.getString();
+		final long points = input.getLong();
+
+		final int events = input.getInt();
+		final List<PointEvent> retained = new ArrayList<>(events);
+		for (int i = 0; i < events; i++) {
+			retained.add(readEventFields(input, PayerDictionary.intern(input.getString())));
+		}
+		final int[] repeats = input.getInt() == 0 ? null : new int[events];
+		for (int i = 0; repeats != null && i < events; i++) {
+			repeats[i] = input.getInt();
+		}
+
+		return new IdempotentWrite(key, kind, payer.isEmpty() ? null : PayerDictionary.intern(payer), points, retained, repeats);
+	}
+
+	private static PointEvent readEventFields(final MappedInput input, final String payer) throws IOException {
+		return new PointEvent(payer, input.getLong(), input.getLong(), input.getInt(), input.getLong());
+	}
+
+	/*
+		Files
+	*/
+
+	private Path path(final long lsn) {
+		return this.directory.resolve(String.format("%020d%s", lsn, SNAPSHOT_SUFFIX));
+	}
+
+	private List<Path> snapshots() throws IOException {
+		try (Stream<Path> paths = Files.list(this.directory)) {
+			return paths
+				.filter(p -> p.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+				.sorted()
+				.collect(Collectors.toList());
+		}
+	}
+
+	private void prune() throws IOException {
+		final List<Path> snapshots = this.snapshots();
+		for (int i = 0; i < snapshots.size() - this.retained; i++) {
+			Files.deleteIfExists(snapshots.get(i));
+		}
+	}
+
+	private void syncDirectory() {
+		try (FileChannel dir = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+			dir.force(true);
+		} catch (IOException e) {
+			LOGGER.debug("Unable to fsync snapshot directory {}", this.directory, e);
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.gehrig.fetch.points.service;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * The outcome of a bulk import, see UserPointsImporter.
+ */
+@Value
+public class ImportSummary {
+
+	long accepted;
+
+	long rejected;
+
+	// Details of rejected additions by line, at most ImportProperties.maxReportedErrors of them
+	List<String> errors;
+}
@@ -0,0 +1,111 @@
+package com.gehrig.fetch.points.service;
+
+import com.gehrig.fetch.points.domain.PayerDeductions;
+import com.gehrig.fetch.points.domain.PointEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Mono/Flux counterparts of the UserPointsService, which never block the (event loop) thread subscribing.
+ *
+ * When sharded, writes are merely queued to their Users shard and complete once durable, thus no thread
+ * ever waits on them. Their responses are then published on the parallel Scheduler, so that mapping and
+ * serializing them never holds up a shard's writer thread. Otherwise a write waits on its Users lock and then on the write-ahead log, so it's
+ * made on a thread of the bounded elastic Scheduler instead. Reads never lock, and so are made on the
+ * subscribing thread, unless Users may have been evicted (as loading a User back reads from disk).
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserPointsService {
+
+	private final UserPointsService userPointsService;
+	private final Scheduler blocking;
+	private final Scheduler responses;
+
+	@Autowired
+	public ReactiveUserPointsService(final UserPointsService userPointsService) {
+		this(userPointsService, Schedulers.boundedElastic(), Schedulers.parallel());
+	}
+
+	public ReactiveUserPointsService(final UserPointsService userPointsService, final Scheduler blocking, final Scheduler responses) {
+		this.userPointsService = userPointsService;
+		this.blocking = blocking;
+		this.responses = responses;
+	}
+
+	public Mono<Void> addPoints(final String name, final PointEvent points) {
+		return this.addPoints(name, points, null);
+	}
+
+	/**
+	 * @see UserPointsService#addPoints(String, PointEvent, String)
+	 */
+	public Mono<Void> addPoints(final String name, final PointEvent points, @Nullable final String idempotencyKey) {
+		if (this.userPointsService.isSharded()) {
+			return this.fromShard(() -> this.userPointsService.addPointsAsync(name, points, idempotencyKey));
+		}
+		return Mono.<Void>fromRunnable(() -> this.userPointsService.addPoints(name, points, idempotencyKey))
+			.subscribeOn(this.blocking);
+	}
+
+	/**
+	 * @see UserPointsService#addPoints(List, List)
+	 */
+	public Mono<List<String>> addPoints(final List<String> names, final List<PointEvent> pointEvents) {
+		if (this.userPointsService.isSharded()) {
+			return this.fromShard(() -> this.userPointsService.addPointsAsync(names, pointEvents));
+		}
+		return Mono.fromCallable(() -> this.userPointsService.addPoints(names, pointEvents))
+			.subscribeOn(this.blocking);
+	}
+
+	public Flux<PointEvent> deletePoints(final String name, final Long points) {
+		return this.deletePoints(name, points, null);
+	}
+
+	/**
+	 * @see UserPointsService#deletePoints(String, Long, String)
+	 */
+	public Flux<PointEvent> deletePoints(final String name, final Long points, @Nullable final String idempotencyKey) {
+		final Mono<List<PointEvent>> removed = this.userPointsService.isSharded()
+			? this.fromShard(() -> this.userPointsService.deletePointsAsync(name, points, idempotencyKey))
+			: Mono.fromCallable(() -> this.userPointsService.deletePoints(name, points, idempotencyKey)).subscribeOn(this.blocking);
+		return removed.flatMapIterable(events -> events);
+	}
+
+	public Mono<PayerDeductions> deletePointsByPayer(final String name, final Long points) {
+		return this.deletePointsByPayer(name, points, null);
+	}
+
+	/**
+	 * @see UserPointsService#deletePointsByPayer(String, Long, String)
+	 */
+	public Mono<PayerDeductions> deletePointsByPayer(final String name, final Long points, @Nullable final String idempotencyKey) {
+		if (this.userPointsService.isSharded()) {
+			return this.fromShard(() -> this.userPointsService.deletePointsByPayerAsync(name, points, idempotencyKey));
+		}
+		return Mono.fromCallable(() -> this.userPointsService.deletePointsByPayer(name, points, idempotencyKey))
+			.subscribeOn(this.blocking);
+	}
+
+	public Flux<PointEvent> getPoints(final String name) {
+		final Mono<List<PointEvent>> balances = Mono.fromCallable(() -> this.userPointsService.getPoints(name));
+		return (this.userPointsService.isBounded() ? balances.subscribeOn(this.blocking) : balances)
+			.flatMapIterable(events -> events);
+	}
+
+	// Shard writers complete their futures, thus signals are moved off of them before anything downstream runs
+	private <T> Mono<T> fromShard(final Supplier<CompletableFuture<T>> write) {
+		return Mono.fromFuture(write).publishOn(this.responses);
+	}
+}
@@ -0,0 +1,342 @@
+package com.gehrig.fetch.points.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.gehrig.fetch.points.cluster.ClusterNode;
+import com.gehrig.fetch.points.configuration.ImportProperties;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.dto.RequestBatchPointAddition;
+import com.gehrig.fetch.points.exception.InvalidImportException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Streams newline-delimited JSON additions (see RequestBatchPointAddition) into Users, e.g. historical backfills.
+ *
+ * A single thread parses additions with Jackson's streaming parser, holding only one at a time,
+ * and routes them by User to a fixed set of workers. Each User is owned by exactly one worker,
+ * thus a Users additions are applied in the order they appear, while distinct Users are built in
+ * parallel without ever contending for a lock. Workers are handed additions in chunks, each applied
+ * on the application's task executor once the workers previous chunk has been, and only a bounded
+ * number of chunks are queued per worker, so parsing is throttled to the pace additions are applied.
+ * Workers hold no thread while they've nothing to apply, thus an executor of fewer threads than
+ * workers merely bounds the parallelism of an import.
+ * Everything but parsing and routing (e.g. validation) is left to the workers, as the single
+ * parsing thread bounds the throughput of an import.
+ *
+ * Additions which can't be mapped (e.g. unparsable dates) or are invalid are rejected individually.
+ * Malformed JSON, however, can't be resynchronized and aborts the remainder of the import.
+ */
+@Service
+public class UserPointsImporter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(UserPointsImporter.class);
+	private static final int QUEUED_CHUNKS = 4;
+
+	private final UserPointsService userPointsService;
+	private final ObjectReader reader;
+	private final Validator validator;
+	private final ImportProperties properties;
+	@Nullable
+	private final ClusterNode clusterNode;
+	private final Executor executor;
+
+	public UserPointsImporter(
+		final UserPointsService userPointsService,
+		final ObjectMapper objectMapper,
+		final Validator validator,
+		final ImportProperties properties
+	) {
+		// Absent an executor, additions are applied by the parsing thread
+		this(userPointsService, objectMapper, validator, properties, Optional.empty(), Runnable::run);
+	}
+
+	@Autowired
+	public UserPointsImporter(
+		final UserPointsService userPointsService,
+		final ObjectMapper objectMapper,
+		final Validator validator,
+		final ImportProperties properties,
+		final Optional<ClusterNode> clusterNode,
+		@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) final Executor executor
+	) {
+		this.userPointsService = userPointsService;
+		this.reader = objectMapper.readerFor(RequestBatchPointAddition.class);
+		this.validator = validator;
+		this.properties = properties;
+		this.clusterNode = clusterNode.orElse(null);
+		this.executor = executor;
+	}
+
+	/**
+	 * Import every addition of a newline-delimited JSON stream.
+	 * @param ndjson A stream of JSON objects, each of the form RequestBatchPointAddition
+	 * @return A summary of accepted and rejected additions
+	 * @throws IOException If the stream can't be read
+	 * @throws InvalidImportException If the stream isn't valid JSON, additions preceding the malformed JSON remain imported
+	 */
+	public ImportSummary importPoints(final InputStream ndjson) throws IOException {
+		final long start = System.nanoTime();
+		final Progress progress = new Progress(this.properties.getMaxReportedErrors());
+		final int chunkSize = Math.max(1, this.properties.getChunkSize());
+		final Worker[] workers = new Worker[this.properties.getWorkers() > 0
+			? this.properties.getWorkers()
+			: Runtime.getRuntime().availableProcessors()];
+		final Chunk[] chunks = new Chunk[workers.length];
+
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = new Worker(progress);
+		}
+
+		try (MappingIterator<RequestBatchPointAddition> additions = this.reader.readValues(ndjson)) {
+			while (true) {
+				final RequestBatchPointAddition addition;
+				final int line;
+				try {
+					if (!additions.hasNextValue()) {
+						break;
+					}
+					addition = additions.nextValue();
+					line = additions.getCurrentLocation().getLineNr();
+				} catch (JsonMappingException e) {
+					// The iterator skips the remainder of an unmappable addition, thus parsing may continue
+					progress.reject(e.getLocation() == null ? -1 : e.getLocation().getLineNr(), e.getOriginalMessage());
+					continue;
+				} catch (JsonProcessingException e) {
+					throw new InvalidImportException("Malformed JSON, import aborted: " + e.getOriginalMessage(), e);
+				}
+
+				// Each User is consistently routed to the same worker, invalid additions are rejected by any worker
+				final int worker = addition == null || addition.getUser() == null
+					? 0
+					: Math.floorMod(addition.getUser().hashCode(), workers.length);
+				if (chunks[worker] == null) {
+					chunks[worker] = new Chunk(chunkSize);
+				}
+				chunks[worker].add(line, addition);
+				if (chunks[worker].size() == chunkSize) {
+					workers[worker].put(chunks[worker]);
+					chunks[worker] = null;
+				}
+			}
+		} finally {
+			// Even if aborted, every addition preceding the abort is applied
+			for (int i = 0; i < workers.length; i++) {
+				workers[i].finish(chunks[i]);
+			}
+		}
+
+		for (final Worker worker : workers) {
+			if (worker.failure != null) {
+				throw new IllegalStateException("Import failed, some additions may not have been applied", worker.failure);
+			}
+		}
+
+		final ImportSummary summary = progress.summarize();
+		LOGGER.info(
+			"Imported {} additions ({} rejected) in {}ms",
+			summary.getAccepted(), summary.getRejected(), (System.nanoTime() - start) / 1_000_000
+		);
+		return summary;
+	}
+
+	private String validate(final RequestBatchPointAddition addition) {
+		if (addition == null) {
+			return "addition must not be null";
+		}
+
+		final var violations = this.validator.validate(addition);
+		if (violations.isEmpty()) {
+			// Clustered, imports aren't forwarded, thus each node is to be sent the additions of its own Users
+			return this.clusterNode == null || this.clusterNode.isLocal(addition.getUser())
+				? null
+				: "user is owned by node " + this.clusterNode.ownerOf(addition.getUser());
+		}
+		return violations.stream()
+			.map(ConstraintViolation::getMessage)
+			.sorted()
+			.collect(Collectors.joining(", "));
+	}
+
+	/*
+		Workers
+	*/
+
+	/**
+	 * Additions destined for a single worker, alongside the line each was read from.
+	 */
+	private static final class Chunk {
+		private final int[] lines;
+		private final List<RequestBatchPointAddition> additions;
+
+		private Chunk(final int capacity) {
+			this.lines = new int[capacity];
+			this.additions = new ArrayList<>(capacity);
+		}
+
+		private void add(final int line, final RequestBatchPointAddition addition) {
+			this.lines[this.additions.size()] = line;
+			this.additions.add(addition);
+		}
+
+		private int size() {
+			return this.additions.size();
+		}
+	}
+
+	private final class Worker {
+		private final Semaphore queued = new Semaphore(QUEUED_CHUNKS);
+		private final Progress progress;
+		// Completes once every chunk handed to the worker has been applied, solely touched by the parsing thread
+		private CompletableFuture<Void> applied = CompletableFuture.completedFuture(null);
+		private volatile RuntimeException failure;
+
+		private Worker(final Progress progress) {
+			this.progress = progress;
+		}
+
+		private void apply(final Chunk chunk) {
+			// Following a failure chunks are merely drained, so the parser is never left blocked
+			if (this.failure != null) {
+				return;
+			}
+
+			try {
+				final int[] lines = new int[chunk.size()];
+				final List<String> names = new ArrayList<>(chunk.size());
+				final List<PointEvent> pointEvents = new ArrayList<>(chunk.size());
+
+				for (int i = 0; i < chunk.size(); i++) {
+					final RequestBatchPointAddition addition = chunk.additions.get(i);
+					final String error = validate(addition);
+					if (error == null) {
+						lines[names.size()] = chunk.lines[i];
+						names.add(addition.getUser());
+						pointEvents.add(PointEvent.fromRequest(addition));
+					} else {
+						this.progress.reject(chunk.lines[i], error);
+					}
+				}
+
+				final List<String> rejections = userPointsService.addPoints(names, pointEvents);
+				for (int i = 0; i < rejections.size(); i++) {
+					if (rejections.get(i) == null) {
+						this.progress.accepted.incrementAndGet();
+					} else {
+						this.progress.reject(lines[i], rejections.get(i));
+					}
+				}
+			} catch (RuntimeException e) {
+				LOGGER.error("Failed to import additions", e);
+				this.failure = e;
+			}
+		}
+
+		private void put(final Chunk chunk) {
+			if (this.failure != null) {
+				throw new IllegalStateException("Import aborted, a worker failed", this.failure);
+			}
+			try {
+				this.queued.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while importing", e);
+			}
+			this.enqueue(chunk);
+		}
+
+		// Apply the chunk once every previously handed chunk has been, even should the executor reject it
+		private void enqueue(final Chunk chunk) {
+			this.applied = this.applied
+				.thenRunAsync(() -> this.apply(chunk), executor)
+				.whenComplete((ignored, e) -> {
+					if (e != null && this.failure == null) {
+						this.failure = new IllegalStateException("Failed to apply additions", e);
+					}
+					this.queued.release();
+				});
+		}
+
+		// Hand over any remaining chunk, then await every queued chunk being applied
+		private void finish(@Nullable final Chunk remaining) {
+			if (remaining != null) {
+				this.queued.acquireUninterruptibly();
+				this.enqueue(remaining);
+			}
+			try {
+				this.applied.join();
+			} catch (CompletionException e) {
+				// Recorded as the workers failure
+			}
+		}
+	}
+
+	/**
+	 * Counts of accepted and rejected additions, shared by the parser and every worker.
+	 */
+	private static final class Progress {
+		private final AtomicLong accepted = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+		private final Queue<Rejection> rejections = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger reported = new AtomicInteger();
+		private final int maxReportedErrors;
+
+		private Progress(final int maxReportedErrors) {
+			this.maxReportedErrors = maxReportedErrors;
+		}
+
+		private void reject(final int line, final String error) {
+			this.rejected.incrementAndGet();
+			if (this.reported.getAndIncrement() < this.maxReportedErrors) {
+				this.rejections.add(new Rejection(line, error));
+			}
+		}
+
+		private ImportSummary summarize() {
+			return new ImportSummary(
+				this.accepted.get(),
+				this.rejected.get(),
+				this.rejections.stream()
+					.sorted(Comparator.comparingInt(r -> r.line))
+					.map(r -> "line %d: %s".formatted(r.line, r.error))
+					.collect(Collectors.toList())
+			);
+		}
+	}
+
+	private static final class Rejection {
+		private final int line;
+		private final String error;
+
+		private Rejection(final int line, final String error) {
+			this.line = line;
+			this.error = error;
+		}
+	}
+}
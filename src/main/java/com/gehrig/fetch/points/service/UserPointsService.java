@@ -1,35 +1,762 @@
 package com.gehrig.fetch.points.service;
 
+import com.gehrig.fetch.points.configuration.CacheProperties;
+import com.gehrig.fetch.points.domain.IdempotencyKey;
+import com.gehrig.fetch.points.domain.IdempotentWrite;
+import com.gehrig.fetch.points.domain.IdempotencyLimits;
+import com.gehrig.fetch.points.domain.LedgerAudit;
+import com.gehrig.fetch.points.domain.LedgerContext;
+import com.gehrig.fetch.points.domain.LedgerJournal;
+import com.gehrig.fetch.points.domain.LedgerMetrics;
+import com.gehrig.fetch.points.domain.LedgerState;
+import com.gehrig.fetch.points.domain.LedgerStorage;
+import com.gehrig.fetch.points.domain.PayerDeductions;
 import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
 import com.gehrig.fetch.points.domain.UserPoints;
+import com.gehrig.fetch.points.exception.RetiredUserException;
+import com.gehrig.fetch.points.persistence.ColdUserStore;
+import com.gehrig.fetch.points.persistence.LogRecord;
+import com.gehrig.fetch.points.persistence.PointEventLog;
+import com.gehrig.fetch.points.persistence.SnapshotStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CacheWriter;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 public class UserPointsService {
 
-	private static final Map<String, UserPoints> USER_POINTS = new ConcurrentHashMap<>();
+	private static final Logger LOGGER = LoggerFactory.getLogger(UserPointsService.class);
 
-	private UserPoints getOrCreateUser(final String name) {
-		return USER_POINTS.computeIfAbsent(name, k -> new UserPoints(name));
+	@Nullable
+	private final PointEventLog pointEventLog;
+	@Nullable
+	private final SnapshotStore snapshotStore;
+	@Nullable
+	private final ColdUserStore coldUserStore;
+	private final LedgerContext context;
+	@Nullable
+	private final UserShards shards;
+	private final Cache<String, UserPoints> users;
+	// Users being retired, i.e. evicted or handed off, completed once they're no longer held (or have been reinstated)
+	private final Map<String, CompletableFuture<Void>> retiring = new ConcurrentHashMap<>();
+
+	public UserPointsService() {
+		this(
+			Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+			Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty()
+		);
+	}
+
+	@Autowired
+	public UserPointsService(
+		final Optional<PointEventLog> pointEventLog,
+		final Optional<SnapshotStore> snapshotStore,
+		final Optional<LedgerMetrics> metrics,
+		final Optional<LedgerAudit> audit,
+		final Optional<IdempotencyLimits> idempotencyLimits,
+		final Optional<ColdUserStore> coldUserStore,
+		final Optional<CacheProperties> cacheProperties,
+		final Optional<LedgerStorage> storage,
+		final Optional<UserShards> shards
+	) {
+		this.pointEventLog = pointEventLog.orElse(null);
+		this.snapshotStore = snapshotStore.orElse(null);
+		this.coldUserStore = coldUserStore.orElse(null);
+		this.context = new LedgerContext(
+			pointEventLog.isPresent() ? this.pointEventLog : LedgerJournal.NONE,
+			metrics.orElse(LedgerMetrics.NONE),
+			storage.orElse(LedgerStorage.HEAP),
+			audit.orElse(LedgerAudit.DEFAULT),
+			idempotencyLimits.orElse(IdempotencyLimits.DEFAULT)
+		);
+		this.shards = shards.orElse(null);
+		this.users = this.coldUserStore == null
+			? Caffeine.newBuilder().build()
+			: Caffeine.newBuilder()
+				.maximumSize(cacheProperties.orElseGet(CacheProperties::new).getMaxUsers())
+				// Evictions are written by the thread whose write caused them, rather than a shared pool
+				.executor(Runnable::run)
+				.writer(new ColdUserWriter(this.coldUserStore, this.retiring))
+				.build();
+	}
+
+	/*
+		Persistence
+	*/
+
+	/**
+	 * Rebuild every User from the latest snapshot and the write-ahead log, if persistence is enabled.
+	 * @throws IOException If either the snapshot or log can't be recovered
+	 */
+	@PostConstruct
+	public void recover() throws IOException {
+		if (this.pointEventLog == null) {
+			return;
+		}
+
+		final long snapshotLsn = this.snapshotStore == null
+			? 0L
+			: this.snapshotStore.load(this::restore);
+		this.pointEventLog.recover(snapshotLsn, this::replay);
+	}
+
+	// Snapshots may hold a User twice (once while in memory, and again once evicted), the latest of which wins
+	private void restore(final LedgerState state) {
+		final UserPoints existing = this.users.get(state.getUser(), this::loadUser);
+		if (existing == null || existing.getJournalSequence() < state.getJournalSequence()) {
+			this.users.put(state.getUser(), UserPoints.restore(state, this.context));
+			if (existing != null) {
+				existing.release();
+			}
+		}
+	}
+
+	private void replay(final LogRecord record) {
+		if (record.getType() == LogRecord.Type.ADOPT || record.getType() == LogRecord.Type.HAND_OFF) {
+			this.replayMove(record);
+			return;
+		}
+
+		this.write(record.getUser(), userPoints -> {
+			// Users snapshot after this record was journaled already reflect it
+			if (userPoints.getJournalSequence() >= record.getLsn()) {
+				return null;
+			}
+
+			switch (record.getType()) {
+				case ADD:
+					PointEventSequence.advancePast(record.getPointEvent().getSequence());
+					userPoints.addPoints(record.getPointEvent());
+					break;
+				case DEDUCT:
+					userPoints.deletePoints(record.getPoints());
+					break;
+				case KEYED_ADD:
+					PointEventSequence.advancePast(record.getPointEvent().getSequence());
+					userPoints.addPoints(record.getPointEvent(), record.getIdempotencyKey());
+					break;
+				case KEYED_DEDUCT:
+					userPoints.deletePoints(record.getPoints(), record.getIdempotencyKey());
+					break;
+				case KEYED_DEDUCT_BY_PAYER:
+					userPoints.deletePointsByPayer(record.getPoints(), record.getIdempotencyKey());
+					break;
+			}
+			return null;
+		});
+	}
+
+	// Users moved between nodes replace (or remove) whichever User is held by their name, unless it's since been snapshot
+	private void replayMove(final LogRecord record) {
+		this.users.asMap().compute(record.getUser(), (name, existing) -> {
+			if (existing != null && existing.getJournalSequence() >= record.getLsn()) {
+				return existing;
+			}
+			if (existing != null) {
+				existing.release();
+			}
+			return record.getType() == LogRecord.Type.ADOPT
+				? UserPoints.restore(journaledAt(record.getState(), record.getLsn()), this.context)
+				: null;
+		});
+	}
+
+	// The journal sequence of a User adopted from another node is that of its adoption, rather than whatever it was there
+	private static LedgerState journaledAt(final LedgerState state, final long journalSequence) {
+		return new LedgerState(state.getUser(), journalSequence, state.getVersion(), state.getTotal(),
+			state.getPayerTotals(), state.getPointEvents(), state.getIdempotentWrites());
+	}
+
+	/**
+	 * Snapshot every User, then discard the portion of the write-ahead log the snapshot reflects.
+	 *
+	 * Users are captured one at a time, thus writers are only ever blocked while their own User
+	 * is copied. Users in memory are captured first, followed by every User evicted to the cold
+	 * store, so a User evicted midway is never missed (though it may be snapshot twice). The
+	 * snapshot is only published once every record it reflects is durable.
+	 *
+	 * @return The number of Users snapshot, or -1 if nothing has been written since the last snapshot
+	 * @throws IOException If the snapshot couldn't be written
+	 */
+	public long snapshot() throws IOException {
+		if (this.pointEventLog == null || this.snapshotStore == null) {
+			throw new IllegalStateException("Snapshots require persistence to be enabled");
+		}
+
+		// Every record through lsn is certain to be reflected by Users captured hereafter
+		final long lsn = this.pointEventLog.getAppendedLsn();
+		final Iterator<LedgerState> states = this.states();
+		final long users = this.snapshotStore.write(lsn, states, this.pointEventLog::sync);
+
+		if (users >= 0) {
+			this.pointEventLog.truncateBefore(lsn + 1);
+			LOGGER.info("Snapshot {} users through log sequence number {}", users, lsn);
+		}
+		return users;
+	}
+
+	private Iterator<LedgerState> states() {
+		final Iterator<LedgerState> hot = this.users.asMap().values().stream()
+			.map(UserPointsService::capture)
+			.filter(Objects::nonNull)
+			.iterator();
+		if (this.coldUserStore == null) {
+			return hot;
+		}
+
+		// The cold store is only listed once every User in memory has been captured
+		return new Iterator<>() {
+			private Iterator<LedgerState> cold;
+
+			@Override
+			public boolean hasNext() {
+				if (hot.hasNext()) {
+					return true;
+				}
+				if (this.cold == null) {
+					try {
+						this.cold = UserPointsService.this.coldUserStore.states();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+				return this.cold.hasNext();
+			}
+
+			@Override
+			public LedgerState next() {
+				if (!this.hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return hot.hasNext() ? hot.next() : this.cold.next();
+			}
+		};
+	}
+
+	// Users released once evicted are skipped, as they're captured by the cold store instead
+	@Nullable
+	private static LedgerState capture(final UserPoints userPoints) {
+		try {
+			return userPoints.capture();
+		} catch (RetiredUserException e) {
+			return null;
+		}
+	}
+
+	/*
+		Users
+	*/
+
+	/**
+	 * @return The number of Users held in memory, excluding those evicted to the cold store
+	 */
+	public long getUserCount() {
+		return this.users.estimatedSize();
+	}
+
+	/**
+	 * @return The number of Users evicted to the cold store, including those since loaded back into memory
+	 */
+	public long getColdUserCount() {
+		return this.coldUserStore == null ? 0L : this.coldUserStore.size();
+	}
+
+	/**
+	 * @return Whether writes are applied by shards, rather than by the callers thread under the Users lock
+	 */
+	public boolean isSharded() {
+		return this.shards != null;
+	}
+
+	/**
+	 * @return Whether Users may be evicted, in which case reads may block while loading a User back from disk
+	 */
+	public boolean isBounded() {
+		return this.coldUserStore != null;
+	}
+
+	/**
+	 * Hand off Users to elsewhere (e.g. the node of a cluster now owning them), after which they're no longer held.
+	 *
+	 * Each User is retired before being handed to the handler, so writes racing its hand off fail rather than
+	 * being lost. They await the hand off, then are retried against a new, empty User by that name; whoever moves
+	 * Users is expected to sweep again once writes are no longer routed here. Should the handler fail, the User is
+	 * reinstated and the failure rethrown, leaving the User (and those not yet handed off) held here. The handler
+	 * (e.g. an RPC) is called without holding any lock, neither the Users nor any of the map of Users. Users may be
+	 * handed off by several callers at once (e.g. a rebalance sweeping every User while a single User is claimed),
+	 * a User being handed off solely once, whereas every other caller awaits its hand off.
+	 *
+	 * @param moved Whether a User is to be handed off, by name
+	 * @param handler Stores a Users state elsewhere, having returned normally once it has
+	 * @return The number of Users handed off
+	 */
+	public int handOff(final Predicate<String> moved, final Consumer<LedgerState> handler) {
+		if (this.coldUserStore != null) {
+			throw new IllegalStateException("Users can't be handed off while they may be evicted");
+		}
+
+		int handedOff = 0;
+		for (final String name : new ArrayList<>(this.users.asMap().keySet())) {
+			if (moved.test(name) && this.handOffUser(name, handler)) {
+				handedOff++;
+			}
+		}
+
+		this.sync();
+		return handedOff;
+	}
+
+	/**
+	 * As for handOff, though solely of a single User.
+	 * @param name The Users name
+	 * @param handler Stores the Users state elsewhere, having returned normally once it has
+	 * @return Whether the User was handed off, rather than not held (e.g. already handed off)
+	 */
+	public boolean handOff(final String name, final Consumer<LedgerState> handler) {
+		if (this.coldUserStore != null) {
+			throw new IllegalStateException("Users can't be handed off while they may be evicted");
+		}
+
+		final boolean handedOff = this.handOffUser(name, handler);
+		this.sync();
+		return handedOff;
+	}
+
+	// Retire then hand off a User, unless it isn't held, or awaiting its hand off should another caller be handing it off
+	private boolean handOffUser(final String name, final Consumer<LedgerState> handler) {
+		final UserPoints userPoints = this.users.getIfPresent(name);
+		if (userPoints == null) {
+			return false;
+		}
+
+		final CompletableFuture<Void> retired = new CompletableFuture<>();
+		final CompletableFuture<Void> underway = this.retiring.putIfAbsent(name, retired);
+		if (underway != null) {
+			underway.join();
+			return false;
+		}
+		try {
+			// Handed off by another caller, between being found and retired
+			if (this.users.getIfPresent(name) != userPoints) {
+				return false;
+			}
+
+			final LedgerState state = userPoints.retire();
+			try {
+				handler.accept(state);
+			} catch (RuntimeException e) {
+				userPoints.reinstate();
+				throw e;
+			}
+			this.context.getJournal().handedOff(name);
+			this.users.asMap().remove(name, userPoints);
+			userPoints.release();
+			return true;
+		} finally {
+			this.retiring.remove(name, retired);
+			retired.complete(null);
+		}
+	}
+
+	/**
+	 * Adopt a User handed off from elsewhere, see handOff.
+	 *
+	 * Should a User by that name already be held (i.e. created by writes racing its hand off), the adopted
+	 * Users outstanding events are added to it instead, though its idempotency keys aren't carried over.
+	 *
+	 * @param state The adopted Users state
+	 */
+	public void adopt(final LedgerState state) {
+		if (this.coldUserStore != null) {
+			throw new IllegalStateException("Users can't be adopted while they may be evicted");
+		}
+
+		this.users.asMap().compute(state.getUser(), (name, existing) -> {
+			if (existing == null) {
+				final long journalSequence = this.context.getJournal().adopted(state);
+				return UserPoints.restore(journaledAt(state, journalSequence), this.context);
+			}
+			existing.addPoints(state.getPointEvents());
+			return existing;
+		});
+		this.sync();
+	}
+
+	// Loads an evicted User back into memory, or null if the User has never been evicted
+	@Nullable
+	private UserPoints loadUser(final String name) {
+		if (this.coldUserStore == null) {
+			return null;
+		}
+		try {
+			final LedgerState state = this.coldUserStore.read(name);
+			return state == null ? null : UserPoints.restore(state, this.context);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private UserPoints loadOrCreateUser(final String name) {
+		final UserPoints userPoints = this.loadUser(name);
+		return userPoints == null ? new UserPoints(name, this.context) : userPoints;
+	}
+
+	// Writes to a User, retrying against their reloaded copy should the User be evicted beforehand
+	private <T> T write(final String name, final Function<UserPoints, T> operation) {
+		while (true) {
+			try {
+				return operation.apply(this.users.get(name, this::loadOrCreateUser));
+			} catch (RetiredUserException e) {
+				// The User was evicted or handed off between being looked up and locked, which is awaited so
+				// the User is no longer held (i.e. their file is current) once retried
+				final CompletableFuture<Void> retired = this.retiring.get(name);
+				if (retired != null) {
+					retired.join();
+				} else {
+					// Retired, though not yet removed from the cache by their eviction, which is imminent
+					Thread.onSpinWait();
+				}
+			}
+		}
+	}
+
+	// Writes are only acknowledged once they're durable, which happens outside the Users lock
+	private void sync() {
+		if (this.pointEventLog != null) {
+			this.pointEventLog.sync();
+		}
+	}
+
+	// As for sync, though without blocking the caller (e.g. a shard) until the write is durable
+	private <T> CompletableFuture<T> synced(final T result) {
+		return this.pointEventLog == null
+			? CompletableFuture.completedFuture(result)
+			: this.pointEventLog.whenSynced().thenApply(ignored -> result);
+	}
+
+	// Writes to a User on their shard if sharded, otherwise on the callers thread, acknowledging the write once durable
+	private <T> CompletableFuture<T> submit(final String name, final Function<UserPoints, T> operation) {
+		if (this.shards != null) {
+			return this.shards.submit(this.shards.shardOf(name), () -> this.write(name, operation))
+				.thenCompose(this::synced);
+		}
+
+		try {
+			final T result = this.write(name, operation);
+			this.sync();
+			return CompletableFuture.completedFuture(result);
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	// Waits upon a write, rethrowing whatever it failed with as is
+	private static <T> T await(final CompletableFuture<T> write) {
+		try {
+			return write.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	// Answers a retry of a write already made without queuing it behind other writes, or Null if it must be applied
+	@Nullable
+	private <T> CompletableFuture<T> recall(final String name, @Nullable final String key, final IdempotentWrite.Kind kind,
+		@Nullable final String payer, final long points, final Function<IdempotentWrite, T> result) {
+		if (key == null) {
+			return null;
+		}
+
+		final UserPoints userPoints = this.users.getIfPresent(name);
+		try {
+			final IdempotentWrite write = userPoints == null ? null : userPoints.recall(key, kind, payer, points);
+			// The original write may not yet be durable, having been recalled before it was acknowledged
+			return write == null ? null : this.synced(result.apply(write));
+		} catch (RuntimeException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	@Nullable
+	private static IdempotencyKey keyOf(@Nullable final String key) {
+		return key == null ? null : new IdempotencyKey(key, System.currentTimeMillis());
 	}
 
 	public void addPoints(final String name, final PointEvent points) {
-		this.getOrCreateUser(name).addPoints(points);
+		await(this.addPointsAsync(name, points));
+	}
+
+	/**
+	 * @see UserPoints#addPoints(PointEvent, IdempotencyKey)
+	 */
+	public void addPoints(final String name, final PointEvent points, @Nullable final String idempotencyKey) {
+		await(this.addPointsAsync(name, points, idempotencyKey));
+	}
+
+	/**
+	 * As for addPoints, though the caller isn't blocked while the write is queued (if sharded) or made durable.
+	 * @return A future completed once the points are durably added
+	 */
+	public CompletableFuture<Void> addPointsAsync(final String name, final PointEvent points) {
+		return this.addPointsAsync(name, points, null);
+	}
+
+	/**
+	 * As for addPointsAsync, though applied at most once per idempotency key.
+	 * @param idempotencyKey A potentially Null key identifying the write, which retries of the write repeat
+	 * @return A future completed once the points are durably added, or immediately if the key was already used
+	 */
+	public CompletableFuture<Void> addPointsAsync(final String name, final PointEvent points, @Nullable final String idempotencyKey) {
+		final CompletableFuture<Void> recalled = this.recall(name, idempotencyKey, IdempotentWrite.Kind.ADD, points.getPayer(), points.getPoints(), write -> null);
+		if (recalled != null) {
+			return recalled;
+		}
+
+		final IdempotencyKey key = keyOf(idempotencyKey);
+		return this.submit(name, userPoints -> {
+			userPoints.addPoints(points, key);
+			return null;
+		});
+	}
+
+	/**
+	 * Add a batch of points across many Users, each Users additions applied under a single acquisition of its lock.
+	 * @param names The User name of each addition
+	 * @param pointEvents The events to add, positionally matching names
+	 * @return The details of each rejected addition, or null for accepted additions, positionally matching pointEvents
+	 */
+	public List<String> addPoints(final List<String> names, final List<PointEvent> pointEvents) {
+		return await(this.addPointsAsync(names, pointEvents));
+	}
+
+	/**
+	 * As for addPoints, though the caller isn't blocked while the batch is queued (if sharded) or made durable.
+	 *
+	 * If sharded, additions are split by shard, each shard applying its Users additions in a single task.
+	 *
+	 * @return A future of the details of each rejected addition, completed once every accepted addition is durable
+	 */
+	public CompletableFuture<List<String>> addPointsAsync(final List<String> names, final List<PointEvent> pointEvents) {
+		// Group additions by User, retaining their positions so that results can be reassembled in order
+		final Map<String, List<Integer>> positionsByUser = new LinkedHashMap<>();
+		for (int i = 0; i < names.size(); i++) {
+			positionsByUser.computeIfAbsent(names.get(i), k -> new ArrayList<>()).add(i);
+		}
+
+		final String[] rejections = new String[pointEvents.size()];
+		if (this.shards == null) {
+			try {
+				positionsByUser.forEach((name, positions) -> this.addGroup(name, positions, pointEvents, rejections));
+				// A single sync acknowledges the entire batch
+				this.sync();
+				return CompletableFuture.completedFuture(Arrays.asList(rejections));
+			} catch (RuntimeException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+
+		final List<List<String>> namesByShard = new ArrayList<>(this.shards.size());
+		for (int i = 0; i < this.shards.size(); i++) {
+			namesByShard.add(new ArrayList<>());
+		}
+		positionsByUser.keySet().forEach(name -> namesByShard.get(this.shards.shardOf(name)).add(name));
+
+		// Each shard fills in the rejections of its own Users, which are published by the completion of its task
+		final List<CompletableFuture<Void>> tasks = new ArrayList<>(this.shards.size());
+		for (int shard = 0; shard < namesByShard.size(); shard++) {
+			final List<String> shardNames = namesByShard.get(shard);
+			if (!shardNames.isEmpty()) {
+				tasks.add(this.shards.submit(shard, () -> {
+					shardNames.forEach(name -> this.addGroup(name, positionsByUser.get(name), pointEvents, rejections));
+					return null;
+				}));
+			}
+		}
+
+		// A single sync acknowledges the entire batch, once every shard has appended its records
+		return CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new))
+			.thenCompose(ignored -> this.synced(Arrays.asList(rejections)));
+	}
+
+	private void addGroup(final String name, final List<Integer> positions, final List<PointEvent> pointEvents, final String[] rejections) {
+		final List<PointEvent> group = new ArrayList<>(positions.size());
+		for (final int position : positions) {
+			group.add(pointEvents.get(position));
+		}
+
+		List<String> groupRejections;
+		try {
+			groupRejections = this.write(name, userPoints -> userPoints.addPoints(group));
+		} catch (RuntimeException e) {
+			// Other Users groups may already be applied, thus only this Users additions are rejected rather than the batch
+			LOGGER.error("Failed to add a batch of points to user {}", name, e);
+			groupRejections = Collections.nCopies(positions.size(), "Failed to add points to user " + name + ": " + e.getMessage());
+		}
+		for (int i = 0; i < positions.size(); i++) {
+			rejections[positions.get(i)] = groupRejections.get(i);
+		}
 	}
 
 	public List<PointEvent> deletePoints(final String name, final Long points) {
-		return this.getOrCreateUser(name).deletePoints(points);
+		return await(this.deletePointsAsync(name, points));
+	}
+
+	/**
+	 * As for deletePoints, though the caller isn't blocked while the deduction is queued (if sharded) or made durable.
+	 * @return A future of the events deducted, completed once the deduction is durable
+	 */
+	public CompletableFuture<List<PointEvent>> deletePointsAsync(final String name, final Long points) {
+		return this.submit(name, userPoints -> userPoints.deletePoints(points));
+	}
+
+	/**
+	 * @see UserPoints#deletePoints(long, IdempotencyKey)
+	 */
+	public List<PointEvent> deletePoints(final String name, final Long points, @Nullable final String idempotencyKey) {
+		return await(this.deletePointsAsync(name, points, idempotencyKey));
+	}
+
+	/**
+	 * As for deletePointsAsync, though applied at most once per idempotency key.
+	 * @param idempotencyKey A potentially Null key identifying the write, which retries of the write repeat
+	 * @return A future of the events deducted, which are those originally deducted if the key was already used
+	 */
+	public CompletableFuture<List<PointEvent>> deletePointsAsync(final String name, final Long points, @Nullable final String idempotencyKey) {
+		if (idempotencyKey == null) {
+			return this.deletePointsAsync(name, points);
+		}
+
+		final CompletableFuture<List<PointEvent>> recalled = this.recall(name, idempotencyKey, IdempotentWrite.Kind.DEDUCT, null, points, IdempotentWrite::getRemoved);
+		if (recalled != null) {
+			return recalled;
+		}
+
+		final IdempotencyKey key = keyOf(idempotencyKey);
+		return this.submit(name, userPoints -> userPoints.deletePoints(points, key).getRemoved());
+	}
+
+	/**
+	 * @see UserPoints#deletePointsByPayer(long)
+	 */
+	public PayerDeductions deletePointsByPayer(final String name, final Long points) {
+		return await(this.deletePointsByPayerAsync(name, points));
+	}
+
+	/**
+	 * As for deletePointsByPayer, though the caller isn't blocked while the deduction is queued (if sharded) or made durable.
+	 * @return A future of the points deducted from each payer, completed once the deduction is durable
+	 */
+	public CompletableFuture<PayerDeductions> deletePointsByPayerAsync(final String name, final Long points) {
+		return this.submit(name, userPoints -> userPoints.deletePointsByPayer(points));
+	}
+
+	/**
+	 * @see UserPoints#deletePointsByPayer(long, IdempotencyKey)
+	 */
+	public PayerDeductions deletePointsByPayer(final String name, final Long points, @Nullable final String idempotencyKey) {
+		return await(this.deletePointsByPayerAsync(name, points, idempotencyKey));
+	}
+
+	/**
+	 * As for deletePointsByPayerAsync, though applied at most once per idempotency key.
+	 * @param idempotencyKey A potentially Null key identifying the write, which retries of the write repeat
+	 * @return A future of the points deducted from each payer, which are those originally deducted if the key was already used
+	 */
+	public CompletableFuture<PayerDeductions> deletePointsByPayerAsync(final String name, final Long points, @Nullable final String idempotencyKey) {
+		if (idempotencyKey == null) {
+			return this.deletePointsByPayerAsync(name, points);
+		}
+
+		final CompletableFuture<PayerDeductions> recalled = this.recall(name, idempotencyKey, IdempotentWrite.Kind.DEDUCT_BY_PAYER, null, points, IdempotentWrite::getDeducted);
+		if (recalled != null) {
+			return recalled;
+		}
+
+		final IdempotencyKey key = keyOf(idempotencyKey);
+		return this.submit(name, userPoints -> userPoints.deletePointsByPayer(points, key).getDeducted());
 	}
 
 	public List<PointEvent> getPoints(final String name) {
-		return this.getOrCreateUser(name).getPoints();
+		// Reads never create a User, thus unknown Users don't occupy memory
+		final UserPoints userPoints = this.users.get(name, this::loadUser);
+		return userPoints == null ? List.of() : userPoints.getPoints();
 	}
 
-	private void resetUsers(){
-		USER_POINTS.clear();
+	/**
+	 * Writes Users to the cold store as they're evicted, atomically with their eviction.
+	 *
+	 * A User is retired before it's written, so writes racing its eviction fail rather than being lost,
+	 * and await the eviction before being retried against the User once loaded back from its file. Should the write fail, the User
+	 * is reinstated and the eviction abandoned, leaving the User in memory. Otherwise, the User is
+	 * released, relinquishing the storage of its events.
+	 */
+	private static class ColdUserWriter implements CacheWriter<String, UserPoints> {
+
+		private final ColdUserStore coldUserStore;
+		private final Map<String, CompletableFuture<Void>> retiring;
+
+		ColdUserWriter(final ColdUserStore coldUserStore, final Map<String, CompletableFuture<Void>> retiring) {
+			this.coldUserStore = coldUserStore;
+			this.retiring = retiring;
+		}
+
+		@Override
+		public void write(final String name, final UserPoints userPoints) {
+			// Users are only ever written to the cold store when evicted
+		}
+
+		@Override
+		public void delete(final String name, @Nullable final UserPoints userPoints, final RemovalCause cause) {
+			if (userPoints == null || !cause.wasEvicted()) {
+				return;
+			}
+
+			final CompletableFuture<Void> retired = new CompletableFuture<>();
+			this.retiring.put(name, retired);
+			try {
+				final LedgerState state = userPoints.retire();
+				try {
+					this.coldUserStore.write(state);
+				} catch (IOException e) {
+					userPoints.reinstate();
+					LOGGER.error("Failed to evict user {}, retaining them in memory", name, e);
+					throw new UncheckedIOException(e);
+				}
+				userPoints.release();
+			} finally {
+				this.retiring.remove(name, retired);
+				retired.complete(null);
+			}
+		}
 	}
 }
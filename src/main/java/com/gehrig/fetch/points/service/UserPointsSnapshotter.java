@@ -0,0 +1,59 @@
+package com.gehrig.fetch.points.service;
+
+import com.gehrig.fetch.points.configuration.PersistenceProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically snapshots every User in the background, plus once more on shutdown for a speedy restart.
+ */
+@Component
+@ConditionalOnProperty(prefix = "points.persistence", name = "enabled", havingValue = "true")
+public class UserPointsSnapshotter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(UserPointsSnapshotter.class);
+
+	private final UserPointsService userPointsService;
+	private final long intervalMillis;
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		final Thread thread = new Thread(r, "user-points-snapshotter");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	@Autowired
+	public UserPointsSnapshotter(final UserPointsService userPointsService, final PersistenceProperties properties) {
+		this.userPointsService = userPointsService;
+		this.intervalMillis = properties.getSnapshotInterval().toMillis();
+	}
+
+	@PostConstruct
+	public void start() {
+		this.executor.scheduleWithFixedDelay(this::snapshot, this.intervalMillis, this.intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		this.executor.shutdown();
+		this.executor.awaitTermination(1, TimeUnit.MINUTES);
+		this.snapshot();
+	}
+
+	private void snapshot() {
+		try {
+			this.userPointsService.snapshot();
+		} catch (Exception e) {
+			// The log still holds every write, so a failed snapshot merely prolongs the next recovery
+			LOGGER.error("Failed to snapshot users", e);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package com.gehrig.fetch.points.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of single-threaded event loops, each owning the Users whose names hash to it.
+ *
+ * Every write to a User is queued to its owning shard, so a User is only ever written by one
+ * thread and its writes are applied in the order they're queued. Writers therefore never wait
+ * on one another for a User (a hot User merely lengthens its own shards queue), and shards
+ * scale with cores rather than contending for the same Users. Queues are unbounded, thus a
+ * shard which falls behind delays its Users writes rather than rejecting them.
+ */
+public class UserShards implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(UserShards.class);
+	private static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+
+	private final ExecutorService[] shards;
+
+	/**
+	 * @param shards The number of shards, 0 for one per available processor
+	 */
+	public UserShards(final int shards) {
+		this.shards = new ExecutorService[shards > 0 ? shards : Runtime.getRuntime().availableProcessors()];
+		for (int i = 0; i < this.shards.length; i++) {
+			final String name = "points-shard-" + i;
+			this.shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+				final Thread thread = new Thread(runnable, name);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * @param user The User name
+	 * @return The index of the shard owning the User
+	 */
+	public int shardOf(final String user) {
+		return Math.floorMod(user.hashCode(), this.shards.length);
+	}
+
+	public int size() {
+		return this.shards.length;
+	}
+
+	/**
+	 * Queue an operation to a shard.
+	 * @param shard The index of the shard, e.g. as owning the Users the operation writes to
+	 * @param operation The operation, run on the shards thread
+	 * @return A future of the operations result, or completed exceptionally (with a CompletionException) should it throw
+	 */
+	public <T> CompletableFuture<T> submit(final int shard, final Supplier<T> operation) {
+		return CompletableFuture.supplyAsync(operation, this.shards[shard]);
+	}
+
+	/**
+	 * Stop accepting operations, then await those already queued.
+	 */
+	@Override
+	public void close() {
+		for (final ExecutorService shard : this.shards) {
+			shard.shutdown();
+		}
+		try {
+			for (final ExecutorService shard : this.shards) {
+				if (!shard.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+					LOGGER.warn("Timed out awaiting queued writes, abandoning them");
+					shard.shutdownNow();
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
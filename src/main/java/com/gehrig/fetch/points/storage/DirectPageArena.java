@@ -0,0 +1,29 @@
+package com.gehrig.fetch.points.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Pages within direct ByteBuffers, i.e. native memory outside of the heap.
+ *
+ * Neither the garbage collector nor heap limits are aware of the records held here, thus even
+ * millions of events per User neither lengthen GC pauses nor count towards -Xmx. Native memory
+ * is instead bounded by -XX:MaxDirectMemorySize (which defaults to the maximum heap size). Segments
+ * are retained for reuse once their pages are freed, and released once the arena is unreachable.
+ */
+public class DirectPageArena extends PageArena {
+
+	public DirectPageArena(final long segmentBytes) {
+		super(segmentBytes);
+	}
+
+	@Override
+	protected ByteBuffer newSegment(final int index, final int bytes) {
+		return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+	}
+
+	@Override
+	public void close() {
+		// Direct buffers are freed by the garbage collector once unreachable
+	}
+}
@@ -0,0 +1,54 @@
+package com.gehrig.fetch.points.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Pages within memory-mapped files, one file per segment.
+ *
+ * The operating system pages segments in and out of memory as they're touched, thus the arena
+ * may grow far beyond both the heap and physical memory, limited instead by disk. Files are
+ * merely an extension of memory rather than a source of truth: they're never fsync'd, and
+ * they're deleted when the arena is both opened and closed.
+ */
+public class MappedPageArena extends PageArena {
+
+	private static final String SEGMENT_SUFFIX = ".pages";
+
+	private final Path directory;
+
+	public MappedPageArena(final Path directory, final long segmentBytes) throws IOException {
+		super(segmentBytes);
+		this.directory = directory;
+		Files.createDirectories(directory);
+		this.deleteSegments();
+	}
+
+	@Override
+	protected ByteBuffer newSegment(final int index, final int bytes) throws IOException {
+		final Path path = this.directory.resolve(String.format("%08d%s", index, SEGMENT_SUFFIX));
+		// The mapping outlives the channel, and files are sparse until their pages are touched
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes).order(ByteOrder.nativeOrder());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.deleteSegments();
+	}
+
+	private void deleteSegments() throws IOException {
+		try (DirectoryStream<Path> segments = Files.newDirectoryStream(this.directory, "*" + SEGMENT_SUFFIX)) {
+			for (final Path segment : segments) {
+				Files.deleteIfExists(segment);
+			}
+		}
+	}
+}
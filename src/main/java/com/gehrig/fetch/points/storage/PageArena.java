@@ -0,0 +1,210 @@
+package com.gehrig.fetch.points.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed size pages carved out of large segments of memory, and addressed by an int block number.
+ *
+ * Besides whole pages, blocks of a power of two bytes down to MIN_BLOCK_BYTES are allocated, so that
+ * small owners needn't each occupy a page. A block's number counts MIN_BLOCK_BYTES units from the start
+ * of the arena, thus pages and blocks are addressed alike. A page is carved into blocks of a single size
+ * once none of that size are free, and thereafter solely serves blocks of that size.
+ *
+ * Segments are only ever added, and freed blocks are chained through their first int for reuse (a list
+ * per size), thus the arena costs a handful of heap objects regardless of the number of blocks. Allocation is
+ * guarded by a lock (rather than a monitor, as adding a segment may block on I/O, which would pin a
+ * virtual thread), whereas a page is read and written by its owner alone via absolute accessors,
+ * which never touch the position of the segment shared with other owners.
+ */
+public abstract class PageArena implements Closeable {
+
+	public static final int PAGE_BYTES = 4096;
+	public static final int MIN_BLOCK_BYTES = 128;
+
+	private static final int NO_BLOCK = -1;
+	private static final long MAX_SEGMENT_BYTES = 1L << 30;
+	private static final int UNIT_SHIFT = Integer.numberOfTrailingZeros(MIN_BLOCK_BYTES);
+	private static final int UNITS_PER_PAGE = PAGE_BYTES / MIN_BLOCK_BYTES;
+	private static final int PAGE_CLASS = Integer.numberOfTrailingZeros(UNITS_PER_PAGE);
+
+	private final int segmentBytes;
+	private final int unitShift;
+	private final int unitMask;
+	// Replaced, rather than mutated, as segments are added
+	private volatile ByteBuffer[] segments = new ByteBuffer[0];
+	private int pagesAllocated;
+	private long usedBytes;
+	// The first free block of each size, indexed by the log2 of its size in units
+	private final int[] freeBlocks = new int[PAGE_CLASS + 1];
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * @param segmentBytes The size of each segment, rounded down to a power of two number of pages
+	 */
+	protected PageArena(final long segmentBytes) {
+		final int pages = Integer.highestOneBit((int) Math.max(1L, Math.min(segmentBytes, MAX_SEGMENT_BYTES) / PAGE_BYTES));
+		this.segmentBytes = pages * PAGE_BYTES;
+		this.unitShift = Integer.numberOfTrailingZeros(pages * UNITS_PER_PAGE);
+		this.unitMask = pages * UNITS_PER_PAGE - 1;
+		Arrays.fill(this.freeBlocks, NO_BLOCK);
+	}
+
+	/**
+	 * @param index The number of segments preceding this one
+	 * @param bytes The size of the segment
+	 * @return A new, zeroed, segment of memory
+	 * @throws IOException If the segment couldn't be created
+	 */
+	protected abstract ByteBuffer newSegment(int index, int bytes) throws IOException;
+
+	/**
+	 * @return The number of a page, whose content is undefined, which is owned by the caller until freed
+	 */
+	public int allocate() {
+		return this.allocate(PAGE_BYTES);
+	}
+
+	/**
+	 * @param bytes The size of the block, a power of two from MIN_BLOCK_BYTES through PAGE_BYTES
+	 * @return The number of a block, whose content is undefined, which is owned by the caller until freed
+	 */
+	public int allocate(final int bytes) {
+		final int sizeClass = sizeClass(bytes);
+		this.lock.lock();
+		try {
+			int block = this.pop(sizeClass);
+			if (block == NO_BLOCK) {
+				block = this.pop(PAGE_CLASS);
+				if (block == NO_BLOCK) {
+					block = this.newPage();
+				}
+				// Carve the page into blocks, the first of which is allocated and the remainder freed
+				final int units = 1 << sizeClass;
+				for (int carved = UNITS_PER_PAGE - units; carved > 0; carved -= units) {
+					this.push(sizeClass, block + carved);
+				}
+			}
+			this.usedBytes += bytes;
+			return block;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @param page A page previously allocated, which mustn't be touched thereafter
+	 */
+	public void free(final int page) {
+		this.free(page, PAGE_BYTES);
+	}
+
+	/**
+	 * @param block A block previously allocated, which mustn't be touched thereafter
+	 * @param bytes The size the block was allocated with
+	 */
+	public void free(final int block, final int bytes) {
+		final int sizeClass = sizeClass(bytes);
+		this.lock.lock();
+		try {
+			this.push(sizeClass, block);
+			this.usedBytes -= bytes;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The number of bytes of the blocks currently allocated
+	 */
+	public long getUsedBytes() {
+		this.lock.lock();
+		try {
+			return this.usedBytes;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @return The number of bytes of every segment, whether or not its pages are allocated
+	 */
+	public long getReservedBytes() {
+		return (long) this.segments.length * this.segmentBytes;
+	}
+
+	private int newPage() {
+		if (this.pagesAllocated == Integer.MAX_VALUE / UNITS_PER_PAGE) {
+			throw new IllegalStateException("Page arena exhausted");
+		}
+		final int page = this.pagesAllocated * UNITS_PER_PAGE;
+		if ((page >>> this.unitShift) == this.segments.length) {
+			this.addSegment();
+		}
+		this.pagesAllocated++;
+		return page;
+	}
+
+	private int pop(final int sizeClass) {
+		final int block = this.freeBlocks[sizeClass];
+		if (block != NO_BLOCK) {
+			this.freeBlocks[sizeClass] = this.getInt(block, 0);
+		}
+		return block;
+	}
+
+	private void push(final int sizeClass, final int block) {
+		this.putInt(block, 0, this.freeBlocks[sizeClass]);
+		this.freeBlocks[sizeClass] = block;
+	}
+
+	private static int sizeClass(final int bytes) {
+		if (bytes < MIN_BLOCK_BYTES || bytes > PAGE_BYTES || Integer.bitCount(bytes) != 1) {
+			throw new IllegalArgumentException("Unsupported block size " + bytes);
+		}
+		return Integer.numberOfTrailingZeros(bytes) - UNIT_SHIFT;
+	}
+
+	private void addSegment() {
+		final ByteBuffer[] current = this.segments;
+		try {
+			final ByteBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+			grown[current.length] = this.newSegment(current.length, this.segmentBytes);
+			this.segments = grown;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/*
+		Block Accessors
+	*/
+
+	private ByteBuffer segment(final int block) {
+		return this.segments[block >>> this.unitShift];
+	}
+
+	private int position(final int block, final int offset) {
+		return ((block & this.unitMask) << UNIT_SHIFT) + offset;
+	}
+
+	public int getInt(final int block, final int offset) {
+		return this.segment(block).getInt(this.position(block, offset));
+	}
+
+	public void putInt(final int block, final int offset, final int value) {
+		this.segment(block).putInt(this.position(block, offset), value);
+	}
+
+	public long getLong(final int block, final int offset) {
+		return this.segment(block).getLong(this.position(block, offset));
+	}
+
+	public void putLong(final int block, final int offset, final long value) {
+		this.segment(block).putLong(this.position(block, offset), value);
+	}
+}
@@ -0,0 +1,488 @@
+package com.gehrig.fetch.points.storage;
+
+import com.gehrig.fetch.points.domain.EventStore;
+import com.gehrig.fetch.points.domain.IntMap;
+import com.gehrig.fetch.points.domain.PayerDeductions;
+import com.gehrig.fetch.points.domain.PayerDictionary;
+import com.gehrig.fetch.points.domain.PointEvent;
+import org.springframework.lang.Nullable;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+/**
+ * A Users events held as fixed-width records within the blocks of a PageArena, rather than as heap objects.
+ *
+ * Events are partitioned by payer into runs, each a list of blocks whose records are ordered by
+ * (epoch, nano, sequence), much like the leaves of a B+tree whose inner nodes are merely the run's
+ * small array of page numbers. A record carries no payer, as it's implied by its run (keyed by payer id,
+ * see PayerDictionary). Thus:
+ *
+ * 	1.	Insertions binary search the run's pages, then the page itself, and shift the records after
+ * 			it along by one. Events are typically newer than every other, which is checked up front.
+ * 			A full page is split in two.
+ *
+ * 	2.	A run begins as a single small block, rather than a page, which is moved into a block twice
+ * 			its size whenever it fills, until it becomes a page. Thus a payer with a handful of events
+ * 			costs a small block rather than a page. Likewise, a run deducted down to a single sparsely
+ * 			filled block is moved into a smaller one.
+ *
+ * 	3.	Deductions only ever consume the oldest events, i.e. the heads of runs. Payer scoped
+ * 			deductions consume the head of a single run, whereas deductions from every event consume
+ * 			whichever run's head is oldest, found via a set of runs ordered by their head.
+ * 			A page's head is advanced rather than its records shifted, and emptied pages are freed.
+ * 			Deductions summed by payer take each run's points as a whole, creating no events.
+ *
+ * Heap use is a few objects per payer plus an int per page, rather than several objects per event.
+ */
+final class PagedEventStore implements EventStore {
+
+	// Block layout: int start, int count, then records
+	private static final int START = 0;
+	private static final int COUNT = 4;
+	private static final int HEADER_BYTES = 8;
+
+	// Record layout: long epoch, long sequence, long points, int nano
+	private static final int EPOCH = 0;
+	private static final int SEQUENCE = 8;
+	private static final int POINTS = 16;
+	private static final int NANO = 24;
+	private static final int RECORD_BYTES = 28;
+
+	static final int RECORDS_PER_PAGE = capacity(PageArena.PAGE_BYTES);
+
+	private static final Comparator<Run> HEAD_ORDERING = (l, r) -> {
+		final int time = PointEvent.compareTime(l.headEpoch, l.headNano, l.headSequence, r.headEpoch, r.headNano, r.headSequence);
+		return time != 0 ? time : Integer.compare(l.payer, r.payer);
+	};
+
+	private final PageArena arena;
+	private final IntMap<Run> runs = new IntMap<>();
+	private final TreeSet<Run> heads = new TreeSet<>(HEAD_ORDERING);
+	private int size;
+
+	PagedEventStore(final PageArena arena) {
+		this.arena = arena;
+	}
+
+	/*
+		Insertion
+	*/
+
+	@Override
+	public void add(final PointEvent pointEvent) {
+		final int payer = PayerDictionary.id(pointEvent.getPayer());
+		Run run = this.runs.get(payer);
+		if (run == null) {
+			run = new Run(payer);
+			this.runs.put(payer, run);
+		}
+		final boolean newHead = run.events == 0 || PointEvent.compareTime(
+			pointEvent.getEpoch(), pointEvent.getNano(), pointEvent.getSequence(), run.headEpoch, run.headNano, run.headSequence
+		) < 0;
+
+		if (newHead && run.events > 0) {
+			this.heads.remove(run);
+		}
+		this.insert(run, pointEvent);
+		run.events++;
+		this.size++;
+		if (newHead) {
+			run.headEpoch = pointEvent.getEpoch();
+			run.headNano = pointEvent.getNano();
+			run.headSequence = pointEvent.getSequence();
+			this.heads.add(run);
+		}
+	}
+
+	private void insert(final Run run, final PointEvent pointEvent) {
+		if (run.pageCount == 0) {
+			run.blockBytes = PageArena.MIN_BLOCK_BYTES;
+			run.insertPage(0, this.allocate(run.blockBytes));
+		}
+
+		// Events are typically the newest, i.e. belong to the last page, otherwise the page is searched for
+		int index = run.pageCount - 1;
+		if (this.compare(run.pages[index], this.start(run.pages[index]), pointEvent) > 0) {
+			index = this.findPage(run, pointEvent);
+		}
+
+		if (this.count(run.pages[index]) == capacity(run.blockBytes)) {
+			if (run.blockBytes < PageArena.PAGE_BYTES) {
+				this.resize(run, run.blockBytes * 2);
+			} else {
+				this.split(run, index);
+				final int upper = run.pages[index + 1];
+				if (this.compare(upper, this.start(upper), pointEvent) < 0) {
+					index++;
+				}
+			}
+		}
+
+		final int page = run.pages[index];
+		int start = this.start(page);
+		final int count = this.count(page);
+		if (start + count == capacity(run.blockBytes)) {
+			// The page is only full at its tail, so its records are moved back to its beginning
+			for (int i = 0; i < count; i++) {
+				this.copy(page, start + i, page, i);
+			}
+			start = 0;
+			this.arena.putInt(page, START, start);
+		}
+
+		final int slot = this.findSlot(page, start, count, pointEvent);
+		for (int i = start + count; i > slot; i--) {
+			this.copy(page, i - 1, page, i);
+		}
+		this.put(page, slot, pointEvent);
+		this.arena.putInt(page, COUNT, count + 1);
+	}
+
+	// The last page whose first record precedes the event, or else the first page
+	private int findPage(final Run run, final PointEvent pointEvent) {
+		int low = 0;
+		int high = run.pageCount - 1;
+		while (low < high) {
+			final int middle = (low + high + 1) >>> 1;
+			final int page = run.pages[middle];
+			if (this.compare(page, this.start(page), pointEvent) < 0) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	// The first slot whose record follows the event
+	private int findSlot(final int page, final int start, final int count, final PointEvent pointEvent) {
+		int low = start;
+		int high = start + count;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (this.compare(page, middle, pointEvent) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// Moves the upper half of a full page into a new page, which directly follows it
+	private void split(final Run run, final int index) {
+		final int page = run.pages[index];
+		final int start = this.start(page);
+		final int lower = RECORDS_PER_PAGE / 2;
+		final int upper = RECORDS_PER_PAGE - lower;
+
+		final int next = this.allocate(PageArena.PAGE_BYTES);
+		for (int i = 0; i < upper; i++) {
+			this.copy(page, start + lower + i, next, i);
+		}
+		this.arena.putInt(next, COUNT, upper);
+		this.arena.putInt(page, COUNT, lower);
+		run.insertPage(index + 1, next);
+	}
+
+	// Moves the records of a run's sole block into a new block of the given size
+	private void resize(final Run run, final int bytes) {
+		final int block = run.pages[0];
+		final int start = this.start(block);
+		final int count = this.count(block);
+
+		final int resized = this.allocate(bytes);
+		for (int i = 0; i < count; i++) {
+			this.copy(block, start + i, resized, i);
+		}
+		this.arena.putInt(resized, COUNT, count);
+		this.arena.free(block, run.blockBytes);
+		run.pages[0] = resized;
+		run.blockBytes = bytes;
+	}
+
+	/*
+		Deduction
+	*/
+
+	@Override
+	public void deduct(@Nullable final String payer, final long points, final List<PointEvent> removed) {
+		this.deduct(payer, points, removed, null);
+	}
+
+	@Override
+	public void deductByPayer(@Nullable final String payer, final long points, final PayerDeductions deducted) {
+		this.deduct(payer, points, null, deducted);
+	}
+
+	/**
+	 * Deduct points from the heads of runs, reporting them per event and/or per payer.
+	 * A run holds a single payer's events, thus the points taken from it are summed without creating any event.
+	 * @param removed A potentially Null list, receiving each event deducted from
+	 * @param deducted A potentially Null summary, receiving the points deducted from each payer
+	 */
+	private void deduct(@Nullable final String payer, final long points, @Nullable final List<PointEvent> removed,
+		@Nullable final PayerDeductions deducted) {
+		long pointsToDeduct = points;
+
+		if (payer != null) {
+			final Run run = this.runs.get(PayerDictionary.find(payer));
+			if (run == null) {
+				return;
+			}
+			this.heads.remove(run);
+			while (pointsToDeduct > 0 && run.events > 0) {
+				pointsToDeduct = this.deductHead(run, pointsToDeduct, removed);
+			}
+			this.reattach(run);
+			if (deducted != null && pointsToDeduct < points) {
+				deducted.add(run.payer, points - pointsToDeduct);
+			}
+			return;
+		}
+
+		while (pointsToDeduct > 0 && !this.heads.isEmpty()) {
+			final Run run = this.heads.pollFirst();
+			final long remaining = this.deductHead(run, pointsToDeduct, removed);
+			this.reattach(run);
+			if (deducted != null) {
+				deducted.add(run.payer, pointsToDeduct - remaining);
+			}
+			pointsToDeduct = remaining;
+		}
+	}
+
+	/**
+	 * Deduct points from the oldest event of a run, which has been detached from heads.
+	 * @return The points which remain to be deducted
+	 */
+	private long deductHead(final Run run, final long points, @Nullable final List<PointEvent> removed) {
+		final int page = run.pages[0];
+		final int start = this.start(page);
+		final long eventPoints = this.arena.getLong(page, offset(start) + POINTS);
+
+		if (eventPoints - points <= 0) {
+			// This event is 0'd: report its full points as removed, then advance past it
+			if (removed != null) {
+				removed.add(this.get(run.payer, page, start, -eventPoints));
+			}
+			final int count = this.count(page) - 1;
+			if (count == 0) {
+				run.removeFirstPage();
+				this.arena.free(page, run.blockBytes);
+			} else {
+				this.arena.putInt(page, START, start + 1);
+				this.arena.putInt(page, COUNT, count);
+			}
+			run.events--;
+			this.size--;
+			return points - eventPoints;
+		}
+
+		// This event is partially deducted in place, which is terminal
+		if (removed != null) {
+			removed.add(this.get(run.payer, page, start, -points));
+		}
+		this.arena.putLong(page, offset(start) + POINTS, eventPoints - points);
+		return 0L;
+	}
+
+	// Returns a detached run to heads as of its current head, or discards the run should it be empty
+	private void reattach(final Run run) {
+		if (run.events == 0) {
+			this.runs.remove(run.payer);
+			return;
+		}
+
+		// A sole block about a quarter full (or less) moves into the smallest block it fills at most half of
+		if (run.pageCount == 1 && run.blockBytes > PageArena.MIN_BLOCK_BYTES) {
+			int bytes = run.blockBytes;
+			while (bytes > PageArena.MIN_BLOCK_BYTES && capacity(bytes / 2) >= run.events * 2) {
+				bytes /= 2;
+			}
+			if (bytes < run.blockBytes) {
+				this.resize(run, bytes);
+			}
+		}
+
+		final int page = run.pages[0];
+		final int offset = offset(this.start(page));
+		run.headEpoch = this.arena.getLong(page, offset + EPOCH);
+		run.headNano = this.arena.getInt(page, offset + NANO);
+		run.headSequence = this.arena.getLong(page, offset + SEQUENCE);
+		this.heads.add(run);
+	}
+
+	/*
+		Iteration
+	*/
+
+	@Override
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public void forEach(final Consumer<PointEvent> consumer) {
+		// Every run is already ordered, thus they're merged via a cursor per run
+		final PriorityQueue<Cursor> cursors = new PriorityQueue<>(Math.max(1, this.runs.size()), (l, r) -> {
+			final int time = PointEvent.compareTime(l.event.getEpoch(), l.event.getNano(), l.event.getSequence(), r.event.getEpoch(), r.event.getNano(), r.event.getSequence());
+			return time != 0 ? time : Integer.compare(l.run.payer, r.run.payer);
+		});
+		this.runs.forEachValue(run -> {
+			final Cursor cursor = new Cursor(run);
+			if (this.advance(cursor)) {
+				cursors.add(cursor);
+			}
+		});
+
+		while (!cursors.isEmpty()) {
+			final Cursor cursor = cursors.poll();
+			consumer.accept(cursor.event);
+			if (this.advance(cursor)) {
+				cursors.add(cursor);
+			}
+		}
+	}
+
+	private boolean advance(final Cursor cursor) {
+		final Run run = cursor.run;
+		while (cursor.index < run.pageCount) {
+			final int page = run.pages[cursor.index];
+			if (cursor.slot < this.count(page)) {
+				cursor.event = this.get(run.payer, page, this.start(page) + cursor.slot, this.arena.getLong(page, offset(this.start(page) + cursor.slot) + POINTS));
+				cursor.slot++;
+				return true;
+			}
+			cursor.index++;
+			cursor.slot = 0;
+		}
+		return false;
+	}
+
+	@Override
+	public void release() {
+		this.runs.forEachValue(run -> {
+			for (int i = 0; i < run.pageCount; i++) {
+				this.arena.free(run.pages[i], run.blockBytes);
+			}
+		});
+		this.runs.clear();
+		this.heads.clear();
+		this.size = 0;
+	}
+
+	/*
+		Records
+	*/
+
+	private int allocate(final int bytes) {
+		final int block = this.arena.allocate(bytes);
+		this.arena.putInt(block, START, 0);
+		this.arena.putInt(block, COUNT, 0);
+		return block;
+	}
+
+	// The number of records a block of the given size holds
+	private static int capacity(final int bytes) {
+		return (bytes - HEADER_BYTES) / RECORD_BYTES;
+	}
+
+	private int start(final int page) {
+		return this.arena.getInt(page, START);
+	}
+
+	private int count(final int page) {
+		return this.arena.getInt(page, COUNT);
+	}
+
+	private static int offset(final int slot) {
+		return HEADER_BYTES + slot * RECORD_BYTES;
+	}
+
+	private int compare(final int page, final int slot, final PointEvent pointEvent) {
+		final int offset = offset(slot);
+		return PointEvent.compareTime(
+			this.arena.getLong(page, offset + EPOCH), this.arena.getInt(page, offset + NANO), this.arena.getLong(page, offset + SEQUENCE),
+			pointEvent.getEpoch(), pointEvent.getNano(), pointEvent.getSequence()
+		);
+	}
+
+	private PointEvent get(final int payer, final int page, final int slot, final long points) {
+		final int offset = offset(slot);
+		return new PointEvent(
+			PayerDictionary.name(payer),
+			points,
+			this.arena.getLong(page, offset + EPOCH),
+			this.arena.getInt(page, offset + NANO),
+			this.arena.getLong(page, offset + SEQUENCE)
+		);
+	}
+
+	private void put(final int page, final int slot, final PointEvent pointEvent) {
+		final int offset = offset(slot);
+		this.arena.putLong(page, offset + EPOCH, pointEvent.getEpoch());
+		this.arena.putLong(page, offset + SEQUENCE, pointEvent.getSequence());
+		this.arena.putLong(page, offset + POINTS, pointEvent.getPoints());
+		this.arena.putInt(page, offset + NANO, pointEvent.getNano());
+	}
+
+	private void copy(final int fromPage, final int fromSlot, final int toPage, final int toSlot) {
+		final int from = offset(fromSlot);
+		final int to = offset(toSlot);
+		this.arena.putLong(toPage, to + EPOCH, this.arena.getLong(fromPage, from + EPOCH));
+		this.arena.putLong(toPage, to + SEQUENCE, this.arena.getLong(fromPage, from + SEQUENCE));
+		this.arena.putLong(toPage, to + POINTS, this.arena.getLong(fromPage, from + POINTS));
+		this.arena.putInt(toPage, to + NANO, this.arena.getInt(fromPage, from + NANO));
+	}
+
+	/**
+	 * The blocks of a single payer's events, alongside a copy of its oldest event's time data (keying heads).
+	 * A run holds either a sole block of any size, or else pages.
+	 */
+	private static final class Run {
+
+		final int payer;
+		int[] pages = new int[1];
+		int pageCount;
+		int blockBytes;
+		int events;
+		long headEpoch;
+		int headNano;
+		long headSequence;
+
+		Run(final int payer) {
+			this.payer = payer;
+		}
+
+		void insertPage(final int index, final int page) {
+			if (this.pageCount == this.pages.length) {
+				this.pages = Arrays.copyOf(this.pages, this.pages.length * 2);
+			}
+			System.arraycopy(this.pages, index, this.pages, index + 1, this.pageCount - index);
+			this.pages[index] = page;
+			this.pageCount++;
+		}
+
+		void removeFirstPage() {
+			System.arraycopy(this.pages, 1, this.pages, 0, --this.pageCount);
+		}
+	}
+
+	private static final class Cursor {
+
+		final Run run;
+		int index;
+		int slot;
+		PointEvent event;
+
+		Cursor(final Run run) {
+			this.run = run;
+		}
+	}
+}
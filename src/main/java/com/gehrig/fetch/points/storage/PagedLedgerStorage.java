@@ -0,0 +1,33 @@
+package com.gehrig.fetch.points.storage;
+
+import com.gehrig.fetch.points.domain.EventStore;
+import com.gehrig.fetch.points.domain.LedgerStorage;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Every Users events held as fixed-width records within the pages of a single, shared, PageArena.
+ */
+public class PagedLedgerStorage implements LedgerStorage, Closeable {
+
+	private final PageArena arena;
+
+	public PagedLedgerStorage(final PageArena arena) {
+		this.arena = arena;
+	}
+
+	@Override
+	public EventStore open() {
+		return new PagedEventStore(this.arena);
+	}
+
+	public PageArena getArena() {
+		return this.arena;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.arena.close();
+	}
+}
@@ -0,0 +1,102 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.dto.RequestBatchPointAddition;
+import com.gehrig.fetch.points.dto.ResponsePointBatch;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The additions of a batch, vetted individually, so that only valid additions are handed to the service.
+ * Shared by the Spring MVC and WebFlux controllers.
+ */
+class BatchAdditions {
+
+	private final List<RequestBatchPointAddition> additions;
+	private final List<List<String>> errors;
+	private final List<Integer> validIndexes;
+	private final List<String> names;
+	private final List<PointEvent> pointEvents;
+	private final List<RequestBatchPointAddition> validAdditions;
+
+	BatchAdditions(final List<RequestBatchPointAddition> additions, final Validator validator) {
+		this.additions = additions;
+		this.errors = new ArrayList<>(additions.size());
+		this.validIndexes = new ArrayList<>(additions.size());
+		this.names = new ArrayList<>(additions.size());
+		this.pointEvents = new ArrayList<>(additions.size());
+		this.validAdditions = new ArrayList<>(additions.size());
+
+		for (int i = 0; i < additions.size(); i++) {
+			final RequestBatchPointAddition addition = additions.get(i);
+			final List<String> additionErrors = validate(addition, validator);
+			this.errors.add(additionErrors);
+
+			if (additionErrors.isEmpty()) {
+				this.validIndexes.add(i);
+				this.names.add(addition.getUser());
+				this.pointEvents.add(PointEvent.fromRequest(addition));
+				this.validAdditions.add(addition);
+			}
+		}
+	}
+
+	/**
+	 * @return The User name of each valid addition
+	 */
+	List<String> getNames() {
+		return this.names;
+	}
+
+	/**
+	 * @return The event of each valid addition, positionally matching getNames
+	 */
+	List<PointEvent> getPointEvents() {
+		return this.pointEvents;
+	}
+
+	/**
+	 * @return Each valid addition as requested, positionally matching getNames
+	 */
+	List<RequestBatchPointAddition> getValidAdditions() {
+		return this.validAdditions;
+	}
+
+	/**
+	 * @param rejections The services rejection of each valid addition, or null for accepted additions
+	 * @return The result of every addition, whether invalid, rejected, or accepted
+	 */
+	ResponsePointBatch respond(final List<String> rejections) {
+		for (int i = 0; i < rejections.size(); i++) {
+			if (rejections.get(i) != null) {
+				this.errors.set(this.validIndexes.get(i), List.of(rejections.get(i)));
+			}
+		}
+
+		final List<ResponsePointBatch.Result> results = new ArrayList<>(this.additions.size());
+		int accepted = 0;
+		for (int i = 0; i < this.additions.size(); i++) {
+			final boolean isAccepted = this.errors.get(i).isEmpty();
+			accepted += isAccepted ? 1 : 0;
+			results.add(new ResponsePointBatch.Result(i, isAccepted, this.errors.get(i)));
+		}
+		return new ResponsePointBatch(accepted, this.additions.size() - accepted, results);
+	}
+
+	private static List<String> validate(final RequestBatchPointAddition addition, final Validator validator) {
+		if (addition == null) {
+			return List.of("addition must not be null");
+		}
+
+		final Set<ConstraintViolation<RequestBatchPointAddition>> violations = validator.validate(addition);
+		return violations.stream()
+			.map(ConstraintViolation::getMessage)
+			.sorted()
+			.collect(Collectors.toList());
+	}
+}
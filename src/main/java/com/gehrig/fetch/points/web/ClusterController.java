@@ -0,0 +1,87 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.cluster.ClusterClient;
+import com.gehrig.fetch.points.cluster.ClusterNode;
+import com.gehrig.fetch.points.dto.ResponseClusterNodes;
+import com.gehrig.fetch.points.persistence.LedgerStateCodec;
+import io.swagger.annotations.*;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+
+@Api("Endpoints internal to a cluster of nodes: membership, and Users moving between nodes. Requests must bear the cluster's secret")
+@RestController
+@Profile("!reactive")
+@ConditionalOnProperty(prefix = "points.cluster", name = "enabled", havingValue = "true")
+@RequestMapping("/internal/cluster/")
+@Validated
+public class ClusterController {
+
+	private final ClusterNode clusterNode;
+
+	public ClusterController(ClusterNode clusterNode) {
+		this.clusterNode = clusterNode;
+	}
+
+	@GetMapping(path = "/nodes", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation("Retrieves the nodes of the cluster, as known by this node")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "Nodes retrieved successfully"),
+		@ApiResponse(code = 403, message = "The request didn't bear the cluster's secret"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
+	})
+	public ResponseClusterNodes getNodes() {
+		return new ResponseClusterNodes(this.clusterNode.getSelf(), this.clusterNode.getNodes(), 0, this.clusterNode.isRebalancing());
+	}
+
+	@PutMapping(path = "/nodes", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation("Replaces the nodes of the cluster, handing off Users this node no longer owns to their new owner")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "Nodes replaced and Users handed off successfully"),
+		@ApiResponse(code = 400, message = "Body validation failed, e.g. no nodes"),
+		@ApiResponse(code = 403, message = "The request didn't bear the cluster's secret"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred, e.g. a new owner was unreachable, retrying is safe"),
+	})
+	public ResponseClusterNodes putNodes(
+		@ApiParam("The base URL of every node, excluding this node should it be leaving") @RequestBody @NotEmpty List<@NotBlank String> nodes
+	) {
+		final int handedOff = this.clusterNode.rebalance(nodes);
+		return new ResponseClusterNodes(this.clusterNode.getSelf(), this.clusterNode.getNodes(), handedOff, this.clusterNode.isRebalancing());
+	}
+
+	@PostMapping(path = "/users/{name}/release", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation("Hands off a User this node no longer owns to its owner at once, rather than whenever this node's rebalance reaches it")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "User handed off successfully, or wasn't held by this node"),
+		@ApiResponse(code = 403, message = "The request didn't bear the cluster's secret"),
+		@ApiResponse(code = 409, message = "This node still owns the User, having yet to be told of the latest membership"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred, e.g. the owner was unreachable, retrying is safe"),
+	})
+	public ResponseClusterNodes releaseUser(
+		@ApiParam("The User name") @PathVariable("name") @NotBlank String name
+	) {
+		final int handedOff = this.clusterNode.release(name) ? 1 : 0;
+		return new ResponseClusterNodes(this.clusterNode.getSelf(), this.clusterNode.getNodes(), handedOff, this.clusterNode.isRebalancing());
+	}
+
+	@PostMapping(path = "/users", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+	@ApiOperation("Adopts a User handed off by another node, encoded as by the write-ahead log")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "User adopted successfully"),
+		@ApiResponse(code = 403, message = "The request didn't bear the cluster's secret, or its node isn't a member of the cluster"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
+	})
+	public void postUser(
+		@ApiParam("The base URL of the node handing off the User") @RequestHeader(ClusterClient.NODE_HEADER) @NotBlank String node,
+		@RequestBody byte[] user
+	) {
+		this.clusterNode.adopt(node, LedgerStateCodec.decode(user));
+	}
+}
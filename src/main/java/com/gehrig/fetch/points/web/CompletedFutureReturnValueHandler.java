@@ -0,0 +1,62 @@
+package com.gehrig.fetch.points.web;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Writes the result of an already completed CompletableFuture straight away, rather than via an async dispatch.
+ *
+ * Writes return futures so that request threads aren't held while a write is queued to its shard or made durable,
+ * however unless sharded (see UserPointsService.isSharded) a write has already completed by the time it returns.
+ * Spring MVC would nevertheless start async processing and dispatch the request a second time merely to write its
+ * result. Futures still outstanding are handed to the delegate, i.e. whichever of Spring's handlers would otherwise
+ * have handled them (the handler of reactive types, as Reactor is present, else the handler of deferred results).
+ */
+public class CompletedFutureReturnValueHandler implements HandlerMethodReturnValueHandler {
+
+	private final HandlerMethodReturnValueHandler outstanding;
+	private final HandlerMethodReturnValueHandler body;
+
+	/**
+	 * @param outstanding The handler of futures still outstanding, i.e. the handlers this handler precedes
+	 * @param body The handler of response bodies, which completed futures' results are written by
+	 */
+	public CompletedFutureReturnValueHandler(final HandlerMethodReturnValueHandler outstanding, final HandlerMethodReturnValueHandler body) {
+		this.outstanding = outstanding;
+		this.body = body;
+	}
+
+	@Override
+	public boolean supportsReturnType(final MethodParameter returnType) {
+		return CompletableFuture.class.isAssignableFrom(returnType.getParameterType());
+	}
+
+	@Override
+	public void handleReturnValue(@Nullable final Object returnValue, final MethodParameter returnType, final ModelAndViewContainer mavContainer,
+		final NativeWebRequest webRequest) throws Exception {
+		if (!(returnValue instanceof CompletableFuture) || !((CompletableFuture<?>) returnValue).isDone()) {
+			this.outstanding.handleReturnValue(returnValue, returnType, mavContainer, webRequest);
+			return;
+		}
+
+		final Object result;
+		try {
+			result = ((CompletableFuture<?>) returnValue).join();
+		} catch (CompletionException e) {
+			// Rethrown as is, thus resolved exactly as had the handler thrown it
+			throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+		}
+
+		if (result == null) {
+			mavContainer.setRequestHandled(true);
+			return;
+		}
+		this.body.handleReturnValue(result, returnType.nested(), mavContainer, webRequest);
+	}
+}
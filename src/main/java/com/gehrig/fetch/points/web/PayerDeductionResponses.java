@@ -0,0 +1,27 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.domain.PayerDeductions;
+import com.gehrig.fetch.points.dto.ResponsePoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The response to an aggregated deduction, one ResponsePoint per payer deducted from (rather than per event).
+ * Shared by the Spring MVC and WebFlux controllers.
+ */
+final class PayerDeductionResponses {
+
+	private PayerDeductionResponses() {
+	}
+
+	/**
+	 * @param deducted The points deducted from each payer
+	 * @return A ResponsePoint per payer with its negated points, in the order payers were first deducted from
+	 */
+	static List<ResponsePoint> of(final PayerDeductions deducted) {
+		final List<ResponsePoint> responses = new ArrayList<>(deducted.size());
+		deducted.forEach((payer, points) -> responses.add(new ResponsePoint(payer, -points)));
+		return responses;
+	}
+}
@@ -0,0 +1,115 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.dto.RequestPointAddition;
+import com.gehrig.fetch.points.dto.RequestPointBatch;
+import com.gehrig.fetch.points.dto.RequestPointDeduction;
+import com.gehrig.fetch.points.dto.ResponsePoint;
+import com.gehrig.fetch.points.dto.ResponsePointBatch;
+import com.gehrig.fetch.points.service.ReactiveUserPointsService;
+import io.swagger.annotations.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import javax.validation.Validator;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+
+/**
+ * The WebFlux counterpart of UserPointsController, served on Netty by the reactive profile.
+ *
+ * Bulk imports aren't mirrored, as the importer parses a blocking InputStream on threads of its own.
+ */
+@Api("Endpoints that operate against the User resource: adding, deducting, or retrieving points for Users")
+@RestController
+@Profile("reactive")
+@RequestMapping("/user/")
+@Validated
+public class ReactiveUserPointsController {
+
+	private final ReactiveUserPointsService userPointsService;
+	private final Validator validator;
+
+	@Autowired
+	public ReactiveUserPointsController(ReactiveUserPointsService userPointsService, Validator validator) {
+		this.userPointsService = userPointsService;
+		this.validator = validator;
+	}
+
+	@PostMapping(path = "/{name}/points", consumes = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation("Adds points (by payer) to a User, points may be negative")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "Points were successfully added"),
+		@ApiResponse(code = 400, message = "Either Path/Body validation failed, or points exceeded User-Payer balance"),
+		@ApiResponse(code = 422, message = "The Idempotency-Key was already used for a different write"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
+	})
+	public Mono<Void> postPoints(
+		@ApiParam("The User name") @PathVariable("name") @NotBlank String name,
+		@ApiParam("Identifies the write, such that retries of the write are applied at most once") @RequestHeader(name = "Idempotency-Key", required = false) @Size(min = 1, max = 255) String idempotencyKey,
+		@Valid @RequestBody RequestPointAddition requestPointAddition
+	) {
+		return this.userPointsService.addPoints(name, PointEvent.fromRequest(requestPointAddition), idempotencyKey);
+	}
+
+	@PostMapping(path = "/points/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation("Adds points (by payer) to many Users at once, each addition is accepted or rejected individually")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "Additions were processed, see each additions result"),
+		@ApiResponse(code = 400, message = "Body validation failed, e.g. too many additions"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
+	})
+	public Mono<ResponsePointBatch> postPointsBatch(
+		@Valid @RequestBody RequestPointBatch requestPointBatch
+	) {
+		// Vet each addition individually, only valid additions are handed to the service
+		final BatchAdditions additions = new BatchAdditions(requestPointBatch.getAdditions(), this.validator);
+		return this.userPointsService.addPoints(additions.getNames(), additions.getPointEvents())
+			.map(additions::respond);
+	}
+
+	@GetMapping(path = "/{name}/points", produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation("Retrieves a Users point totals aggregated by payer")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "User point totals retrieved successfully"),
+		@ApiResponse(code = 400, message = "User name was malformed"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
+	})
+	public Flux<ResponsePoint> getPoints(
+		@ApiParam("The User name") @PathVariable("name") @NotBlank String name
+	) {
+		// Convert PointsEvents to PointsResponse removing cruft. Namely, epoch and sequence
+		return this.userPointsService.getPoints(name)
+			.map(pe -> new ResponsePoint(pe.getPayer(), pe.getPoints()));
+	}
+
+	@DeleteMapping(path = "/{name}/points", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation("Deducts points from a User, points are removed from oldest to newest")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "Points deducted from User successfully"),
+		@ApiResponse(code = 400, message = "Either Path/Body validation failed, or points exceeded Users total balance"),
+		@ApiResponse(code = 422, message = "The Idempotency-Key was already used for a different write"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
+	})
+	public Flux<ResponsePoint> deletePoints(
+		@ApiParam("The User name") @PathVariable("name") @NotBlank String name,
+		@ApiParam("Respond with the points deducted from each payer, rather than from each event") @RequestParam(name = "aggregate", defaultValue = "false") boolean aggregate,
+		@ApiParam("Identifies the write, such that retries of the write are applied at most once") @RequestHeader(name = "Idempotency-Key", required = false) @Size(min = 1, max = 255) String idempotencyKey,
+		@Valid @RequestBody RequestPointDeduction points
+	) {
+		if (aggregate) {
+			return this.userPointsService.deletePointsByPayer(name, points.getPoints(), idempotencyKey)
+				.flatMapIterable(PayerDeductionResponses::of);
+		}
+
+		// Convert PointsEvents to PointsResponse removing cruft. Namely, epoch and sequence
+		return this.userPointsService.deletePoints(name, points.getPoints(), idempotencyKey)
+			.map(pe -> new ResponsePoint(pe.getPayer(), pe.getPoints()));
+	}
+}
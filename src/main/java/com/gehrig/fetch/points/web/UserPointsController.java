@@ -1,33 +1,71 @@
 package com.gehrig.fetch.points.web;
 
+import com.gehrig.fetch.points.cluster.ClusterClient;
+import com.gehrig.fetch.points.cluster.ClusterNode;
 import com.gehrig.fetch.points.domain.PointEvent;
 import com.gehrig.fetch.points.dto.RequestPointAddition;
+import com.gehrig.fetch.points.dto.RequestPointBatch;
 import com.gehrig.fetch.points.dto.RequestPointDeduction;
 import com.gehrig.fetch.points.dto.ResponsePoint;
+import com.gehrig.fetch.points.dto.ResponsePointBatch;
+import com.gehrig.fetch.points.dto.ResponsePointImport;
+import com.gehrig.fetch.points.service.ImportSummary;
+import com.gehrig.fetch.points.service.UserPointsImporter;
 import com.gehrig.fetch.points.service.UserPointsService;
 import io.swagger.annotations.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import springfox.documentation.annotations.ApiIgnore;
 
 import javax.validation.Valid;
+import javax.validation.Validator;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 
 @Api("Endpoints that operate against the User resource: adding, deducting, or retrieving points for Users")
 @RestController
+@Profile("!reactive")
 @RequestMapping("/user/")
 @Validated
 public class UserPointsController {
 
+	public static final String NDJSON_VALUE = "application/x-ndjson";
+
 	private final UserPointsService userPointsService;
+	private final UserPointsImporter userPointsImporter;
+	private final Validator validator;
+	@Nullable
+	private final ClusterNode clusterNode;
+	private final Executor responseExecutor;
+
+	public UserPointsController(UserPointsService userPointService, UserPointsImporter userPointsImporter, Validator validator) {
+		// Absent an executor, responses are mapped by whichever thread completes the write
+		this(userPointService, userPointsImporter, validator, Optional.empty(), Runnable::run);
+	}
 
 	@Autowired
-	public UserPointsController(UserPointsService userPointService) {
+	public UserPointsController(UserPointsService userPointService, UserPointsImporter userPointsImporter, Validator validator,
+		Optional<ClusterNode> clusterNode, @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor responseExecutor) {
 		this.userPointsService = userPointService;
+		this.userPointsImporter = userPointsImporter;
+		this.validator = validator;
+		this.clusterNode = clusterNode.orElse(null);
+		this.responseExecutor = responseExecutor;
 	}
 
 	@PostMapping(path = "/{name}/points", consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -35,13 +73,51 @@ public class UserPointsController {
 	@ApiResponses(value = {
 		@ApiResponse(code = 200, message = "Points were successfully added"),
 		@ApiResponse(code = 400, message = "Either Path/Body validation failed, or points exceeded User-Payer balance"),
+		@ApiResponse(code = 422, message = "The Idempotency-Key was already used for a different write"),
 		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
 	})
-	public void postPoints(
+	public CompletableFuture<Void> postPoints(
 		@ApiParam("The User name") @PathVariable("name") @NotBlank String name,
+		@ApiParam("Identifies the write, such that retries of the write are applied at most once") @RequestHeader(name = "Idempotency-Key", required = false) @Size(min = 1, max = 255) String idempotencyKey,
 		@Valid @RequestBody RequestPointAddition requestPointAddition
 	) {
-		this.userPointsService.addPoints(name, PointEvent.fromRequest(requestPointAddition));
+		// Writes are awaited asynchronously, freeing the request thread while they're queued or made durable
+		return this.userPointsService.addPointsAsync(name, PointEvent.fromRequest(requestPointAddition), idempotencyKey);
+	}
+
+	@PostMapping(path = "/points/batch", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation("Adds points (by payer) to many Users at once, each addition is accepted or rejected individually")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "Additions were processed, see each additions result"),
+		@ApiResponse(code = 400, message = "Body validation failed, e.g. too many additions"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
+	})
+	public CompletableFuture<ResponsePointBatch> postPointsBatch(
+		@ApiIgnore @RequestHeader(name = ClusterClient.FORWARDED_HEADER, defaultValue = "false") boolean forwarded,
+		@Valid @RequestBody RequestPointBatch requestPointBatch
+	) {
+		// Vet each addition individually, only valid additions are handed to the service
+		final BatchAdditions additions = new BatchAdditions(requestPointBatch.getAdditions(), this.validator);
+		if (this.clusterNode != null) {
+			// Clustered, each addition is applied by the node owning its User
+			return this.respond(
+				this.clusterNode.addPointsAsync(additions.getNames(), additions.getPointEvents(), additions.getValidAdditions(), forwarded),
+				additions::respond
+			);
+		}
+		return this.respond(this.userPointsService.addPointsAsync(additions.getNames(), additions.getPointEvents()), additions::respond);
+	}
+
+	@PostMapping(path = "/points/import", consumes = NDJSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+	@ApiOperation("Streams newline-delimited JSON additions (as for batches) into Users, e.g. historical backfills")
+	@ApiResponses(value = {
+		@ApiResponse(code = 200, message = "Additions were imported, see the summary for rejected additions"),
+		@ApiResponse(code = 400, message = "Body was malformed JSON, additions preceding the malformed JSON were imported"),
+		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
+	})
+	public ResponsePointImport postPointsImport(final InputStream ndjson) throws IOException {
+		final ImportSummary summary = this.userPointsImporter.importPoints(ndjson);
+		return new ResponsePointImport(summary.getAccepted(), summary.getRejected(), summary.getErrors());
 	}
 
 	@GetMapping(path = "/{name}/points", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -54,7 +130,7 @@ public class UserPointsController {
 	public List<ResponsePoint> getPoints(
 		@ApiParam("The User name") @PathVariable("name") @NotBlank String name
 	) {
-		// Convert PointsEvents to PointsResponse removing cruft. Namely, epoch and uuid
+		// Convert PointsEvents to PointsResponse removing cruft. Namely, epoch and sequence
 		return this.userPointsService.getPoints(name)
 			.stream()
 			.map(pe -> new ResponsePoint(pe.getPayer(), pe.getPoints()))
@@ -66,16 +142,31 @@ public class UserPointsController {
 	@ApiResponses(value = {
 		@ApiResponse(code = 200, message = "Points deducted from User successfully"),
 		@ApiResponse(code = 400, message = "Either Path/Body validation failed, or points exceeded Users total balance"),
+		@ApiResponse(code = 422, message = "The Idempotency-Key was already used for a different write"),
 		@ApiResponse(code = 500, message = "Unexpected errors have occurred"),
 	})
-	public List<ResponsePoint> deletePoints(
+	public CompletableFuture<List<ResponsePoint>> deletePoints(
 		@ApiParam("The User name") @PathVariable("name") @NotBlank String name,
+		@ApiParam("Respond with the points deducted from each payer, rather than from each event") @RequestParam(name = "aggregate", defaultValue = "false") boolean aggregate,
+		@ApiParam("Identifies the write, such that retries of the write are applied at most once") @RequestHeader(name = "Idempotency-Key", required = false) @Size(min = 1, max = 255) String idempotencyKey,
 		@Valid @RequestBody RequestPointDeduction points
 	) {
-		// Convert PointsEvents to PointsResponse removing cruft. Namely, epoch and uuid
-		return this.userPointsService.deletePoints(name, points.getPoints())
-			.stream()
-			.map(pe -> new ResponsePoint(pe.getPayer(), pe.getPoints()))
-			.collect(Collectors.toList());
+		if (aggregate) {
+			return this.respond(this.userPointsService.deletePointsByPayerAsync(name, points.getPoints(), idempotencyKey), PayerDeductionResponses::of);
+		}
+
+		// Convert PointsEvents to PointsResponse removing cruft. Namely, epoch and sequence
+		return this.respond(
+			this.userPointsService.deletePointsAsync(name, points.getPoints(), idempotencyKey),
+			removed -> removed.stream()
+				.map(pe -> new ResponsePoint(pe.getPayer(), pe.getPoints()))
+				.collect(Collectors.toList())
+		);
+	}
+
+	// Writes outstanding (i.e. if sharded or clustered) complete on a shard, flusher, or client thread, which mustn't
+	// be held up mapping responses, whereas writes already completed are mapped on the request thread
+	private <T, R> CompletableFuture<R> respond(final CompletableFuture<T> write, final Function<T, R> response) {
+		return write.isDone() ? write.thenApply(response) : write.thenApplyAsync(response, this.responseExecutor);
 	}
 }
@@ -0,0 +1,192 @@
+package com.gehrig.fetch.points.cluster;
+
+import com.gehrig.fetch.points.PointsApplication;
+import com.gehrig.fetch.points.domain.UserPoints;
+import com.gehrig.fetch.points.persistence.LedgerStateCodec;
+import com.gehrig.fetch.points.service.UserPointsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Several nodes, each a complete application on its own port, partitioning Users between them.
+ */
+public class ClusterFeatureTests {
+
+	private static final int USERS = 40;
+	private static final String SECRET = "cluster-secret";
+
+	private final HttpClient httpClient = HttpClient.newHttpClient();
+	private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+	@AfterEach
+	public void stopNodes() {
+		this.nodes.forEach(ConfigurableApplicationContext::close);
+	}
+
+	@Test
+	public void Cluster_Should_ServeEveryUserFromAnyNode_When_NodesJoin() throws Exception {
+		final List<String> urls = freeUrls(3);
+		this.start(urls.get(0), urls.subList(0, 2));
+		this.start(urls.get(1), urls.subList(0, 2));
+
+		// Every User is written via a node which may not own it, half individually and half as a single batch
+		for (int i = 0; i < USERS / 2; i++) {
+			assertThat(this.send(urls.get(i % 2), "POST", "/user/user-" + i + "/points", "{\"payer\": \"A\", \"points\": " + (i + 1) + "}").statusCode())
+				.isEqualTo(200);
+		}
+		final String additions = IntStream.range(USERS / 2, USERS)
+			.mapToObj(i -> "{\"user\": \"user-" + i + "\", \"payer\": \"A\", \"points\": " + (i + 1) + "}")
+			.collect(Collectors.joining(","));
+		assertThat(this.send(urls.get(0), "POST", "/user/points/batch", "{\"additions\": [" + additions + "]}").body())
+			.contains("\"accepted\":" + USERS / 2);
+
+		// Each User is held solely by its owner
+		assertThat(this.userCounts()).allSatisfy(users -> assertThat(users).isPositive());
+		assertThat(this.userCounts().stream().mapToLong(Long::longValue).sum()).isEqualTo(USERS);
+		this.assertEveryUserServed(urls.subList(0, 2));
+
+		// A third node joins, being told of the new membership before the existing nodes hand Users off to it
+		this.start(urls.get(2), urls);
+		for (final String url : urls) {
+			assertThat(this.send(url, "PUT", "/internal/cluster/nodes", "[\"" + String.join("\", \"", urls) + "\"]", SECRET).statusCode()).isEqualTo(200);
+		}
+
+		assertThat(this.userCounts().get(2)).isPositive();
+		assertThat(this.userCounts().stream().mapToLong(Long::longValue).sum()).isEqualTo(USERS);
+		this.assertEveryUserServed(urls);
+
+		// Spending via any node deducts from the owners User
+		assertThat(this.send(urls.get(2), "DELETE", "/user/user-7/points", "{\"points\": 5}").body()).isEqualTo("[{\"payer\":\"A\",\"points\":-5}]");
+		assertThat(this.send(urls.get(0), "GET", "/user/user-7/points", null).body()).isEqualTo("[{\"payer\":\"A\",\"points\":3}]");
+	}
+
+	@Test
+	public void Cluster_Should_ServeMovedUsersSolelyOnceHandedOff_When_NodeJoins() throws Exception {
+		final List<String> urls = freeUrls(3);
+		this.start(urls.get(0), urls.subList(0, 2));
+		this.start(urls.get(1), urls.subList(0, 2));
+		for (int i = 0; i < USERS; i++) {
+			assertThat(this.send(urls.get(i % 2), "POST", "/user/user-" + i + "/points", "{\"payer\": \"A\", \"points\": " + (i + 1) + "}").statusCode())
+				.isEqualTo(200);
+		}
+
+		// The joining node is told first, thus its Users are still owned by nodes yet to be told
+		this.start(urls.get(2), urls);
+		final String nodes = "[\"" + String.join("\", \"", urls) + "\"]";
+		assertThat(this.send(urls.get(2), "PUT", "/internal/cluster/nodes", nodes, SECRET).statusCode()).isEqualTo(200);
+		final ClusterNode joined = this.nodes.get(2).getBean(ClusterNode.class);
+		final int user = IntStream.range(0, USERS).filter(i -> joined.isLocal("user-" + i)).findFirst().orElseThrow();
+
+		// Rather than answering as though the User had no points, the joining node asks for a retry
+		final HttpResponse<String> unmoved = this.send(urls.get(2), "GET", "/user/user-" + user + "/points", null);
+		assertThat(unmoved.statusCode()).isEqualTo(503);
+		assertThat(unmoved.headers().firstValue("Retry-After")).hasValue("1");
+		assertThat(this.send(urls.get(2), "DELETE", "/user/user-" + user + "/points", "{\"points\": 1}").statusCode()).isEqualTo(503);
+
+		for (final String url : urls.subList(0, 2)) {
+			assertThat(this.send(url, "PUT", "/internal/cluster/nodes", nodes, SECRET).statusCode()).isEqualTo(200);
+		}
+		assertThat(this.send(urls.get(2), "DELETE", "/user/user-" + user + "/points", "{\"points\": 1}").body())
+			.isEqualTo("[{\"payer\":\"A\",\"points\":-1}]");
+		assertThat(this.send(urls.get(0), "GET", "/user/user-" + user + "/points", null).body())
+			.isEqualTo("[{\"payer\":\"A\",\"points\":" + user + "}]");
+	}
+
+	@Test
+	public void Cluster_Should_TrustSolelyNodes_When_RequestsBearClusterHeaders() throws Exception {
+		final List<String> urls = freeUrls(2);
+		this.start(urls.get(0), urls);
+		this.start(urls.get(1), urls);
+		final ClusterNode clusterNode = this.nodes.get(0).getBean(ClusterNode.class);
+		final String user = IntStream.range(0, USERS).mapToObj(i -> "user-" + i)
+			.filter(name -> !clusterNode.isLocal(name))
+			.findFirst()
+			.orElseThrow();
+
+		// Internal endpoints are refused without the secret, as is adopting a User from a node outside the cluster
+		assertThat(this.send(urls.get(0), "PUT", "/internal/cluster/nodes", "[\"" + urls.get(0) + "\"]").statusCode()).isEqualTo(403);
+		assertThat(this.send(urls.get(0), "PUT", "/internal/cluster/nodes", "[\"" + urls.get(0) + "\"]", "guess").statusCode()).isEqualTo(403);
+		assertThat(this.httpClient.send(HttpRequest.newBuilder(URI.create(urls.get(0) + "/internal/cluster/users"))
+			.header("Content-Type", "application/octet-stream")
+			.header(ClusterClient.SECRET_HEADER, SECRET)
+			.header(ClusterClient.NODE_HEADER, "http://10.0.0.1:8080")
+			.POST(HttpRequest.BodyPublishers.ofByteArray(LedgerStateCodec.encode(new UserPoints("intruder").capture())))
+			.build(), HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(403);
+		assertThat(clusterNode.getNodes()).hasSize(2);
+		assertThat(this.nodes.get(0).getBean(UserPointsService.class).getUserCount()).isZero();
+
+		// A client claiming its request was forwarded is forwarded nonetheless, rather than refused with 421
+		assertThat(this.httpClient.send(HttpRequest.newBuilder(URI.create(urls.get(0) + "/user/" + user + "/points"))
+			.header("Content-Type", "application/json")
+			.header(ClusterClient.FORWARDED_HEADER, "true")
+			.POST(HttpRequest.BodyPublishers.ofString("{\"payer\": \"A\", \"points\": 10}"))
+			.build(), HttpResponse.BodyHandlers.discarding()).statusCode()).isEqualTo(200);
+		assertThat(this.send(urls.get(1), "GET", "/user/" + user + "/points", null).body()).isEqualTo("[{\"payer\":\"A\",\"points\":10}]");
+	}
+
+	private void assertEveryUserServed(final List<String> urls) throws Exception {
+		for (int i = 0; i < USERS; i++) {
+			for (final String url : urls) {
+				assertThat(this.send(url, "GET", "/user/user-" + i + "/points", null).body()).isEqualTo("[{\"payer\":\"A\",\"points\":" + (i + 1) + "}]");
+			}
+		}
+	}
+
+	private List<Long> userCounts() {
+		return this.nodes.stream()
+			.map(node -> node.getBean(UserPointsService.class).getUserCount())
+			.collect(Collectors.toList());
+	}
+
+	private void start(final String self, final List<String> nodes) {
+		this.nodes.add(new SpringApplicationBuilder(PointsApplication.class).run(
+			"--server.port=" + URI.create(self).getPort(),
+			"--points.cluster.enabled=true",
+			"--points.cluster.self=" + self,
+			"--points.cluster.nodes=" + String.join(",", nodes),
+			"--points.cluster.secret=" + SECRET
+		));
+	}
+
+	private HttpResponse<String> send(final String url, final String method, final String target, final String json) throws Exception {
+		return this.send(url, method, target, json, null);
+	}
+
+	private HttpResponse<String> send(final String url, final String method, final String target, final String json, final String secret) throws Exception {
+		final HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + target));
+		if (secret != null) {
+			request.header(ClusterClient.SECRET_HEADER, secret);
+		}
+		if (json == null) {
+			request.method(method, HttpRequest.BodyPublishers.noBody());
+		} else {
+			request.header("Content-Type", "application/json").method(method, HttpRequest.BodyPublishers.ofString(json));
+		}
+		return this.httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static List<String> freeUrls(final int count) throws IOException {
+		final List<String> urls = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			try (ServerSocket socket = new ServerSocket(0)) {
+				urls.add("http://127.0.0.1:" + socket.getLocalPort());
+			}
+		}
+		return urls;
+	}
+}
@@ -0,0 +1,142 @@
+package com.gehrig.fetch.points.cluster;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import com.gehrig.fetch.points.dto.RequestBatchPointAddition;
+import com.gehrig.fetch.points.service.UserPointsService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClusterNodeTests {
+
+	private static final String SELF = "http://127.0.0.1:1";
+
+	private HttpServer peer;
+	private String peerUrl;
+
+	@BeforeEach
+	public void startPeer() throws IOException {
+		this.peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		this.peer.start();
+		this.peerUrl = "http://127.0.0.1:" + this.peer.getAddress().getPort();
+	}
+
+	@AfterEach
+	public void stopPeer() {
+		this.peer.stop(0);
+	}
+
+	@Test
+	public void Should_RejectAdditionsAsUnreachable_When_OwnerAnswersTooFewResults() {
+		// The peer answers a single result, whatever the number of additions
+		this.respond("/user/points/batch", 200, "{\"accepted\":1,\"rejected\":0,\"results\":[{\"accepted\":true,\"errors\":[]}]}");
+		final var clusterNode = this.clusterNode(this.peerUrl);
+		final List<String> names = List.of("user-1", "user-2", "user-3", "user-4", "user-5", "user-6", "user-7", "user-8");
+		final List<String> remote = names.stream().filter(name -> !clusterNode.isLocal(name)).collect(Collectors.toList());
+		assertThat(remote).hasSizeGreaterThan(1);
+
+		final List<String> rejections = clusterNode.addPointsAsync(
+			remote,
+			remote.stream().map(name -> new PointEvent("A", 10L, 0L, 0, PointEventSequence.next())).collect(Collectors.toList()),
+			remote.stream().map(name -> new RequestBatchPointAddition(name, "A", 10L, null)).collect(Collectors.toList()),
+			false
+		).join();
+
+		assertThat(rejections).hasSize(remote.size()).allSatisfy(rejection -> assertThat(rejection).contains("is unreachable"));
+	}
+
+	@Test
+	public void Should_ClaimUsersFromFormerOwner_Until_FormerOwnerRebalanced() {
+		final var clusterNode = this.joinedFrom(this.peerUrl);
+		final String user = this.claimedUser(clusterNode);
+
+		// Whilst the former owner is rebalancing each User is claimed from it, though no longer once it has finished
+		final String rebalancing = "{\"self\":\"" + this.peerUrl + "\",\"nodes\":[],\"handedOff\":0,\"rebalancing\":%s}";
+		final AtomicInteger released = this.respond("/internal/cluster/users/", 200, rebalancing.formatted(true));
+		assertThat(clusterNode.claim(user)).isTrue();
+		assertThat(clusterNode.claim(user)).isTrue();
+		assertThat(released).hasValue(2);
+
+		this.peer.removeContext("/internal/cluster/users/");
+		final AtomicInteger rebalanced = this.respond("/internal/cluster/users/", 200, rebalancing.formatted(false));
+		assertThat(clusterNode.claim(user)).isTrue();
+		assertThat(clusterNode.claim(user)).isTrue();
+		assertThat(rebalanced).hasValue(1);
+	}
+
+	@Test
+	public void Should_RefuseUser_When_FormerOwnerStillOwnsIt() {
+		final var clusterNode = this.joinedFrom(this.peerUrl);
+		final AtomicInteger released = this.respond("/internal/cluster/users/", 409, "{}");
+
+		// The former owner, yet to be told of the membership, may still be writing the User
+		assertThat(clusterNode.claim(this.claimedUser(clusterNode))).isFalse();
+		assertThat(released).hasValue(1);
+	}
+
+	@Test
+	public void Should_ServeUser_When_FormerOwnerLeftAndUnreachable() {
+		// A node is only stopped once it has left the cluster, having handed off every User
+		final String departed = "http://127.0.0.1:" + this.peer.getAddress().getPort();
+		this.peer.stop(0);
+		final var clusterNode = this.clusterNode(departed);
+		clusterNode.rebalance(List.of(SELF));
+
+		assertThat(clusterNode.claim(this.claimedUser(clusterNode, new HashRing(List.of(SELF, departed), 16), departed))).isTrue();
+	}
+
+	// A node which joins the cluster, formerly comprised solely of the given node
+	private ClusterNode joinedFrom(final String former) {
+		final var clusterNode = this.clusterNode(former);
+		clusterNode.rebalance(List.of(former));
+		clusterNode.rebalance(List.of(SELF, former));
+		return clusterNode;
+	}
+
+	private ClusterNode clusterNode(final String other) {
+		return new ClusterNode(SELF, List.of(other), 16, new UserPointsService(),
+			new ClusterClient(new ObjectMapper(), Duration.ofSeconds(5), SELF, "secret"));
+	}
+
+	private String claimedUser(final ClusterNode clusterNode) {
+		return this.claimedUser(clusterNode, new HashRing(List.of(this.peerUrl), 16), this.peerUrl);
+	}
+
+	// A User now owned by the node, formerly owned by the given node of the former ring
+	private String claimedUser(final ClusterNode clusterNode, final HashRing formerRing, final String former) {
+		return IntStream.range(0, 100).mapToObj(i -> "user-" + i)
+			.filter(user -> clusterNode.isLocal(user) && formerRing.ownerOf(user).equals(former))
+			.findFirst()
+			.orElseThrow();
+	}
+
+	// Answers every request under the path alike, counting them
+	private AtomicInteger respond(final String path, final int status, final String json) {
+		final AtomicInteger requests = new AtomicInteger();
+		this.peer.createContext(path, exchange -> {
+			requests.incrementAndGet();
+			final byte[] body = json.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, body.length);
+			try (OutputStream output = exchange.getResponseBody()) {
+				output.write(body);
+			}
+		});
+		return requests;
+	}
+}
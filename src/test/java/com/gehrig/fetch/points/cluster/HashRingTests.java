@@ -0,0 +1,60 @@
+package com.gehrig.fetch.points.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HashRingTests {
+
+	private static final int USERS = 100_000;
+
+	@Test
+	public void Should_SpreadUsersEvenly_When_ManyVirtualNodes() {
+		final var ring = new HashRing(List.of("a", "b", "c", "d"), 128);
+		final Map<String, Integer> owned = new HashMap<>();
+		for (int i = 0; i < USERS; i++) {
+			owned.merge(ring.ownerOf("user-" + i), 1, Integer::sum);
+		}
+
+		assertThat(owned).containsOnlyKeys("a", "b", "c", "d");
+		assertThat(owned.values()).allSatisfy(users -> assertThat(users).isBetween(USERS / 4 * 8 / 10, USERS / 4 * 12 / 10));
+	}
+
+	@Test
+	public void Should_MoveOnlyJoiningNodesShare_When_NodeJoins() {
+		final var before = new HashRing(List.of("a", "b", "c"), 128);
+		final var after = new HashRing(List.of("d", "c", "b", "a"), 128);
+
+		int moved = 0;
+		for (int i = 0; i < USERS; i++) {
+			final String user = "user-" + i;
+			if (!before.ownerOf(user).equals(after.ownerOf(user))) {
+				// Users solely ever move to the joining node
+				assertThat(after.ownerOf(user)).isEqualTo("d");
+				moved++;
+			}
+		}
+		assertThat(moved).isBetween(USERS / 4 * 8 / 10, USERS / 4 * 12 / 10);
+	}
+
+	@Test
+	public void Should_BuildSameRing_When_NodesReorderedOrDuplicated() {
+		final var ring = new HashRing(List.of("a", "b", "c"), 16);
+		final var reordered = new HashRing(List.of("c", "a", "b", "a"), 16);
+
+		assertThat(reordered.getNodes()).containsExactly("a", "b", "c");
+		for (int i = 0; i < 1_000; i++) {
+			assertThat(reordered.ownerOf("user-" + i)).isEqualTo(ring.ownerOf("user-" + i));
+		}
+	}
+
+	@Test
+	public void Should_Throw_When_NoNodes() {
+		assertThatThrownBy(() -> new HashRing(List.of(), 128)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,115 @@
+package com.gehrig.fetch.points.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.time.DateTimeException;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ZonedDateTimeParserTests {
+
+	/*
+		Test the single-pass parser agrees with the DateTimeFormatters it short-circuits
+	*/
+
+	@ParameterizedTest
+	@MethodSource("provideRecognizedDates")
+	public void Should_MatchFormatters_When_Recognized(final String date) {
+		final ZonedDateTime parsed = parse(date);
+		assertNotNull(parsed);
+		assertEquals(ZonedDateTimeDeserializer.parseWithFormatters(date), parsed);
+	}
+
+	@ParameterizedTest
+	@MethodSource("provideUnrecognizedDates")
+	public void Should_DeferToFormatters_When_Unrecognized(final String date) {
+		assertNull(parse(date));
+	}
+
+	@Test
+	public void Should_OnlyParseValidDates_When_Mutated() {
+		final Random random = new Random(42);
+		final String alphabet = "0123456789-:.T+Z/aU";
+		final String[] seeds = {"2020-02-29T23:59:59.999Z", "2021-12-31T00:00:00+18:00", "2021-06-15T12:30:45.000UTC", "2021-06-15"};
+
+		for (int i = 0; i < 100_000; i++) {
+			final char[] date = seeds[i % seeds.length].toCharArray();
+			date[random.nextInt(date.length)] = alphabet.charAt(random.nextInt(alphabet.length()));
+
+			final ZonedDateTime parsed = ZonedDateTimeParser.parse(date, 0, date.length);
+			if (parsed != null) {
+				assertEquals(ZonedDateTimeDeserializer.parseWithFormatters(new String(date)), parsed, new String(date));
+			}
+		}
+	}
+
+	@Test
+	public void Should_Throw_When_NeitherParses() {
+		final String date = "2021-02-30";
+		assertNull(parse(date));
+		assertThrows(DateTimeException.class, () -> ZonedDateTimeDeserializer.parseWithFormatters(date));
+	}
+
+	private static ZonedDateTime parse(final String date) {
+		// Parse from within a larger buffer, as Jackson would supply
+		final char[] buffer = ("{\"date\":\"" + date + "\"}").toCharArray();
+		return ZonedDateTimeParser.parse(buffer, 9, date.length());
+	}
+
+	private static Stream<Arguments> provideRecognizedDates() {
+		return Stream.of(
+			// yyyy-MM-dd'T'HH:mm:ss.SSSz
+			Arguments.of("2021-01-01T08:00:00.000Z"),
+			Arguments.of("2021-01-01T08:00:00.000UTC"),
+			Arguments.of("2021-01-01T08:00:00.000GMT"),
+			Arguments.of("2021-01-01T08:00:00.000PST"),
+			Arguments.of("2021-03-14T02:30:00.000America/Chicago"),
+			Arguments.of("2021-11-07T01:30:00.000America/Chicago"),
+			Arguments.of("2021-01-01T08:00:00.000+01:00"),
+			// ISO_ZONED_DATE_TIME
+			Arguments.of("2021-01-01T08:00Z"),
+			Arguments.of("2021-01-01T08:00:00Z"),
+			Arguments.of("2021-01-01T08:00:00.1Z"),
+			Arguments.of("2021-01-01T08:00:00.123456789-05:00"),
+			Arguments.of("2021-01-01T08:00:00-00:00"),
+			Arguments.of("2021-01-01T08:00:00+18:00"),
+			Arguments.of("0000-01-01T00:00:00Z"),
+			// ISO_LOCAL_DATE_TIME
+			Arguments.of("2021-01-01T08:00"),
+			Arguments.of("2021-01-01T08:00:00"),
+			Arguments.of("2021-01-01T23:59:59.5"),
+			// ISO_LOCAL_DATE
+			Arguments.of("2020-02-29"),
+			Arguments.of("2021-12-31")
+		);
+	}
+
+	private static Stream<Arguments> provideUnrecognizedDates() {
+		return Stream.of(
+			// Valid, but left to the formatters
+			Arguments.of("2021-01-01t08:00:00Z"),
+			Arguments.of("2021-01-01T08:00:00+01"),
+			Arguments.of("2021-01-01T08:00:00+01:00[Europe/Paris]"),
+			Arguments.of("2021-01-01T08:00:00.000z"),
+			// Invalid
+			Arguments.of(""),
+			Arguments.of("2021"),
+			Arguments.of("+2021-01-01"),
+			Arguments.of("2021-02-29"),
+			Arguments.of("2021-13-01"),
+			Arguments.of("2021-01-01T24:00:00"),
+			Arguments.of("2021-01-01T08:00:60Z"),
+			Arguments.of("2021-01-01T08:00:00."),
+			Arguments.of("2021-01-01T08:00:00.1234567890Z"),
+			Arguments.of("2021-01-01T08:00:00+18:01"),
+			Arguments.of("2021-01-01T08:00:00.00UTC"),
+			Arguments.of("2021-01-01T08:00:00.000Nowhere")
+		);
+	}
+}
@@ -0,0 +1,151 @@
+package com.gehrig.fetch.points.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HeapEventStoreTests {
+
+	@Test
+	public void Should_DeductAsSequentialWalk_When_EventsOutOfOrder() {
+		this.assertDeductsAsSequentialWalk(new HeapEventStore(), 20);
+	}
+
+	@Test
+	public void Should_DeductAsSequentialWalk_When_EventsCompacted() {
+		// Few payers, thus runs are both merged and then split apart by other payers events landing amidst them
+		this.assertDeductsAsSequentialWalk(new HeapEventStore(true), 3);
+	}
+
+	@Test
+	public void Should_SplitRun_When_OtherPayerEventLandsAmidst() {
+		final var store = new HeapEventStore(true);
+		for (int i = 0; i < 10; i++) {
+			store.add(new PointEvent("A", 10L, i * 10L, 0, PointEventSequence.next()));
+		}
+		assertEquals(1, store.entries());
+		assertEquals(10, store.size());
+
+		// Consume the oldest events of the run, then land amidst those consumed and those remaining
+		final List<PointEvent> removed = new ArrayList<>();
+		store.deduct(null, 35L, removed);
+		assertEquals(List.of(10L, 10L, 10L, 5L), removed.stream().map(event -> -event.getPoints()).collect(Collectors.toList()));
+		store.add(new PointEvent("B", 1L, 25L, 0, PointEventSequence.next()));
+		store.add(new PointEvent("B", 1L, 65L, 0, PointEventSequence.next()));
+		// B, the run re-keyed by its oldest remaining event, B, then the run split off after the latter B
+		assertEquals(4, store.entries());
+		assertEquals(9, store.size());
+
+		removed.clear();
+		store.deduct(null, 40L, removed);
+		assertEquals(List.of("B", "A", "A", "A", "A", "B", "A"), removed.stream().map(PointEvent::getPayer).collect(Collectors.toList()));
+		assertEquals(List.of(1L, 5L, 10L, 10L, 10L, 1L, 3L), removed.stream().map(event -> -event.getPoints()).collect(Collectors.toList()));
+	}
+
+	private void assertDeductsAsSequentialWalk(final HeapEventStore store, final int payers) {
+		final boolean compacted = payers < 20;
+		final List<PointEvent> expected = new ArrayList<>();
+		final var random = new Random(21);
+
+		// Both small and large deductions, thus both unindexing per event and cutting every payers index are exercised
+		for (int i = 0; i < 20_000; i++) {
+			final int operation = random.nextInt(10);
+			final long held = expected.stream().mapToLong(PointEvent::getPoints).sum();
+			if (operation < 7 || held == 0L) {
+				final var event = new PointEvent("P" + random.nextInt(payers), 1L + random.nextInt(10), random.nextInt(100_000), 0, PointEventSequence.next());
+				store.add(event);
+				expected.add(event);
+				expected.sort(PointEvent.ORDERING);
+			} else {
+				final String payer = operation == 7 ? expected.get(random.nextInt(expected.size())).getPayer() : null;
+				final long payerHeld = expected.stream().filter(event -> payer == null || payer.equals(event.getPayer())).mapToLong(PointEvent::getPoints).sum();
+				final long points = 1L + (random.nextBoolean() ? random.nextInt(20) : (long) random.nextInt((int) payerHeld));
+				final List<PointEvent> walked = walk(expected, payer, Math.min(points, payerHeld));
+
+				if (random.nextBoolean()) {
+					final List<PointEvent> removed = new ArrayList<>();
+					store.deduct(payer, Math.min(points, payerHeld), removed);
+					assertEquals(walked, removed);
+				} else {
+					final var deducted = new PayerDeductions();
+					store.deductByPayer(payer, Math.min(points, payerHeld), deducted);
+					assertEquals(summarize(walked), toMap(deducted));
+					assertEquals(Math.min(points, payerHeld), deducted.getTotal());
+				}
+			}
+
+			// Compacted stores hold fewer entries than events, though count every event held
+			assertEquals(expected.size(), store.size());
+			if (compacted) {
+				assertTrue(store.entries() <= expected.size());
+			} else {
+				assertEquals(expected.size(), store.entries());
+			}
+		}
+
+		final List<PointEvent> held = new ArrayList<>();
+		store.forEach(held::add);
+		assertEquals(expected, held);
+	}
+
+	@Test
+	public void Should_SummarizeInFirstTouchedOrder_When_ManyEventsConsumed() {
+		final var store = new HeapEventStore();
+		for (int i = 0; i < 1_000; i++) {
+			store.add(new PointEvent(i < 10 ? "LATE" : (i % 2 == 0 ? "EVEN" : "ODD"), 2L, i < 10 ? 1_000 + i : i, 0, PointEventSequence.next()));
+		}
+
+		final var deducted = new PayerDeductions();
+		store.deductByPayer(null, 1_995L, deducted);
+
+		// LATE is only partially deducted from, having been touched last
+		assertEquals(Map.of("EVEN", 990L, "ODD", 990L, "LATE", 15L), toMap(deducted));
+		assertEquals(List.of("EVEN", "ODD", "LATE"), new ArrayList<>(toMap(deducted).keySet()));
+		assertEquals(3, store.size());
+
+		final List<PointEvent> held = new ArrayList<>();
+		store.forEach(held::add);
+		assertEquals(1L, held.get(0).getPoints());
+	}
+
+	// The reference deduction, walking events one at a time from the oldest
+	private static List<PointEvent> walk(final List<PointEvent> events, final String payer, final long points) {
+		final List<PointEvent> removed = new ArrayList<>();
+		long remaining = points;
+		for (int i = 0; i < events.size() && remaining > 0; i++) {
+			final PointEvent event = events.get(i);
+			if (payer != null && !payer.equals(event.getPayer())) {
+				continue;
+			}
+			final long deducted = Math.min(event.getPoints(), remaining);
+			removed.add(new PointEvent(event.getPayer(), -deducted, event.getEpoch(), event.getNano(), event.getSequence()));
+			if (deducted == event.getPoints()) {
+				events.remove(i--);
+			} else {
+				events.set(i, new PointEvent(event.getPayer(), event.getPoints() - deducted, event.getEpoch(), event.getNano(), event.getSequence()));
+			}
+			remaining -= deducted;
+		}
+		return removed;
+	}
+
+	private static Map<String, Long> summarize(final List<PointEvent> removed) {
+		final Map<String, Long> summary = new LinkedHashMap<>();
+		removed.forEach(event -> summary.merge(event.getPayer(), -event.getPoints(), Long::sum));
+		return summary;
+	}
+
+	private static Map<String, Long> toMap(final PayerDeductions deducted) {
+		final Map<String, Long> summary = new LinkedHashMap<>();
+		deducted.forEach(summary::put);
+		return summary;
+	}
+}
@@ -0,0 +1,40 @@
+package com.gehrig.fetch.points.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class IntMapTests {
+
+	@Test
+	public void Should_BehaveAsHashMap_When_Modified() {
+		final var random = new Random(7);
+		final IntMap<Integer> intMap = new IntMap<>();
+		final Map<Integer, Integer> hashMap = new HashMap<>();
+
+		for (int i = 0; i < 100_000; i++) {
+			final int key = random.nextInt(300);
+			if (random.nextInt(3) == 0) {
+				assertEquals(hashMap.remove(key), intMap.remove(key));
+			} else {
+				hashMap.put(key, i);
+				intMap.put(key, i);
+			}
+			assertEquals(hashMap.size(), intMap.size());
+		}
+
+		for (int key = -1; key < 300; key++) {
+			assertEquals(hashMap.get(key), intMap.get(key));
+		}
+		final Map<Integer, Integer> values = new HashMap<>();
+		intMap.forEachValue(value -> values.merge(value, 1, Integer::sum));
+		assertThat(values.keySet()).containsExactlyInAnyOrderElementsOf(hashMap.values());
+		assertNull(intMap.remove(PayerDictionary.UNKNOWN));
+	}
+}
@@ -0,0 +1,64 @@
+package com.gehrig.fetch.points.domain;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.gehrig.fetch.points.exception.InvalidDeductionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LedgerAuditTests {
+
+	private final Logger logger = (Logger) LoggerFactory.getLogger(LedgerAudit.LOGGER_NAME);
+	private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+	@BeforeEach
+	void setUp() {
+		this.appender.start();
+		this.logger.addAppender(this.appender);
+		// Pinned, as a previously closed application context may have reconfigured logging
+		this.logger.setLevel(Level.INFO);
+	}
+
+	@AfterEach
+	void tearDown() {
+		this.logger.detachAppender(this.appender);
+		this.logger.setLevel(null);
+	}
+
+	@Test
+	public void Should_AuditKeyValues_When_Sampled() {
+		final UserPoints userPoints = audited(1d);
+		userPoints.addPoints(new PointEvent("DANNON", 300L, 1L, 2, 3L));
+		userPoints.deletePoints(100L);
+
+		assertThat(this.appender.list.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList()))
+			.containsExactly(
+				"event=add user=bob payer=DANNON points=300 epoch=1 nano=2 sequence=3",
+				"event=deduct user=bob payer=null points=100 events=1"
+			);
+	}
+
+	@Test
+	public void Should_OnlyAuditRejections_When_Unsampled() {
+		final UserPoints userPoints = audited(0d);
+		userPoints.addPoints(new PointEvent("DANNON", 300L, 1L, 2, 3L));
+		userPoints.deletePoints(100L);
+		assertThrows(InvalidDeductionException.class, () -> userPoints.deletePoints(500L));
+
+		assertThat(this.appender.list.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList()))
+			.containsExactly("event=reject user=bob payer=null points=500 balance=200");
+	}
+
+	private static UserPoints audited(final double sampleRate) {
+		return new UserPoints("bob", LedgerContext.DEFAULT.withAudit(new LedgerAudit(sampleRate)));
+	}
+}
@@ -0,0 +1,41 @@
+package com.gehrig.fetch.points.domain;
+
+import com.gehrig.fetch.points.dto.RequestPointAddition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PayerDictionaryTests {
+
+	@Test
+	public void Should_ShareOneName_When_PayerIngestedRepeatedly() {
+		final var userPoints = new UserPoints("bob");
+		userPoints.addPoints(PointEvent.fromRequest(new RequestPointAddition(new String("DICTIONARY-DANNON"), 100L, null)));
+		userPoints.addPoints(PointEvent.fromRequest(new RequestPointAddition(new String("DICTIONARY-DANNON"), 200L, null)));
+
+		final var events = userPoints.capture().getPointEvents();
+		final var first = events.get(0);
+		assertSame(first.getPayer(), events.get(1).getPayer());
+		assertEquals(PayerDictionary.id("DICTIONARY-DANNON"), PayerDictionary.find(new String("DICTIONARY-DANNON")));
+		assertSame(first.getPayer(), PayerDictionary.name(PayerDictionary.find("DICTIONARY-DANNON")));
+	}
+
+	@Test
+	public void Should_NotAssignId_When_PayerMerelyFound() {
+		final int size = PayerDictionary.size();
+		assertEquals(PayerDictionary.UNKNOWN, PayerDictionary.find("DICTIONARY-NEVER-ADDED"));
+		assertEquals(size, PayerDictionary.size());
+
+		// Nor do requests, until accepted
+		PointEvent.fromRequest(new RequestPointAddition("DICTIONARY-NEVER-ADDED", 100L, null));
+		assertEquals(PayerDictionary.UNKNOWN, PayerDictionary.find("DICTIONARY-NEVER-ADDED"));
+
+		// Nor do rejected deductions of an unknown payer
+		final var userPoints = new UserPoints("bob");
+		userPoints.addPoints(List.of(new PointEvent("DICTIONARY-NEVER-ADDED", -100L, 0L, 0, PointEventSequence.next())));
+		assertEquals(PayerDictionary.UNKNOWN, PayerDictionary.find("DICTIONARY-NEVER-ADDED"));
+	}
+}
@@ -14,7 +14,6 @@ import javax.validation.ValidatorFactory;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Set;
-import java.util.UUID;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,10 +24,10 @@ public class PointEventTests {
 	private static final Long VALID_POINTS = 5L;
 	private static final Long VALID_EPOCH = 123L;
 	private static final Integer VALID_NANO = 321;
-	private static final UUID VALID_UUID = UUID.randomUUID();
+	private static final Long VALID_SEQUENCE = 42L;
 	private static final ZonedDateTime VALID_DATE = ZonedDateTime.now();
 
-	private static final PointEvent VALID = new PointEvent(VALID_PAYER, VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_UUID);
+	private static final PointEvent VALID = new PointEvent(VALID_PAYER, VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE);
 
 	/*
 		Test Validation annotations behave expectedly
@@ -59,16 +58,8 @@ public class PointEventTests {
 	private static Stream<Arguments> provideInvalidPointEvents() {
 		return Stream.of(
 			// payer: @NotNull, @NotBlank
-			Arguments.of(new PointEvent(null, VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_UUID)),
-			Arguments.of(new PointEvent("  \t", VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_UUID)),
-			// points: @NotNull
-			Arguments.of(new PointEvent(VALID_PAYER, null, VALID_EPOCH, VALID_NANO, VALID_UUID)),
-			// epoch: @NotNull
-			Arguments.of(new PointEvent(VALID_PAYER, VALID_POINTS, null, VALID_NANO, VALID_UUID)),
-			// nano: @NotNull
-			Arguments.of(new PointEvent(VALID_PAYER, VALID_POINTS, VALID_EPOCH, null, VALID_UUID)),
-			// uuid: @NotNull
-			Arguments.of(new PointEvent(VALID_PAYER, VALID_POINTS, VALID_EPOCH, VALID_NANO, null))
+			Arguments.of(new PointEvent(null, VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE)),
+			Arguments.of(new PointEvent("  \t", VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE))
 		);
 	}
 
@@ -97,6 +88,31 @@ public class PointEventTests {
 		assertEquals(nano, p.getNano());
 	}
 
+	@Test
+	public void Should_OrderByArrival_When_fromRequestDatesEqual() {
+		final RequestPointAddition r = new RequestPointAddition(VALID_PAYER, VALID_POINTS, VALID_DATE);
+
+		final PointEvent first = PointEvent.fromRequest(r);
+		final PointEvent second = PointEvent.fromRequest(r);
+		assertTrue(PointEvent.ORDERING.compare(first, second) < 0);
+	}
+
+	/*
+		Test PointEventSequence behaves expectedly
+	*/
+
+	@Test
+	public void Should_IssueGreaterSequences_When_AdvancedPastRecoveredSequence() {
+		final long recovered = PointEventSequence.next() + 1_000_000L;
+		PointEventSequence.advancePast(recovered);
+		assertTrue(PointEventSequence.next() > recovered);
+
+		// Advancing past an earlier sequence never rewinds
+		final long latest = PointEventSequence.next();
+		PointEventSequence.advancePast(VALID_SEQUENCE);
+		assertTrue(PointEventSequence.next() > latest);
+	}
+
 	/*
 		Test PointEvent.withPoints behaves expectedly
 	*/
@@ -111,7 +127,7 @@ public class PointEventTests {
 		assertEquals(VALID.getPayer(), p.getPayer());
 		assertEquals(VALID.getEpoch(), p.getEpoch());
 		assertEquals(VALID.getNano(), p.getNano());
-		assertEquals(VALID.getUuid(), p.getUuid());
+		assertEquals(VALID.getSequence(), p.getSequence());
 
 		// Ensure points differ from original
 		assertNotEquals(newPoints, VALID.getPoints());
@@ -124,22 +140,22 @@ public class PointEventTests {
 
 	@Test
 	public void Should_ThrowIllegalArgumentException_When_mergePayersNotEqual() {
-		final PointEvent l = new PointEvent("bob", VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_UUID);
-		final PointEvent r = new PointEvent("sam", VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_UUID);
+		final PointEvent l = new PointEvent("bob", VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE);
+		final PointEvent r = new PointEvent("sam", VALID_POINTS, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE);
 
 		assertThrows(IllegalArgumentException.class, () -> PointEvent.merge(l, r));
 	}
 
 	@Test
 	public void Should_SumPoints_When_mergeCalled() {
-		PointEvent l = new PointEvent(VALID_PAYER, 2L, VALID_EPOCH, VALID_NANO, VALID_UUID);
-		PointEvent r = new PointEvent(VALID_PAYER, 3L, VALID_EPOCH, VALID_NANO, VALID_UUID);
+		PointEvent l = new PointEvent(VALID_PAYER, 2L, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE);
+		PointEvent r = new PointEvent(VALID_PAYER, 3L, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE);
 		PointEvent merged = PointEvent.merge(l, r);
 		assertEquals(5L, merged.getPoints());
 
 		// Test negative operand
-		l = new PointEvent(VALID_PAYER, -10L, VALID_EPOCH, VALID_NANO, VALID_UUID);
-		r = new PointEvent(VALID_PAYER, 5L, VALID_EPOCH, VALID_NANO, VALID_UUID);
+		l = new PointEvent(VALID_PAYER, -10L, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE);
+		r = new PointEvent(VALID_PAYER, 5L, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE);
 		merged = PointEvent.merge(l, r);
 		assertEquals(-5L, merged.getPoints());
 	}
@@ -147,23 +163,23 @@ public class PointEventTests {
 
 	@Test
 	public void Should_ConsistentlyMinimizeTimeFields_When_mergeCalled() {
-		final UUID greaterUUID = UUID.randomUUID();
+		final Long greaterSequence = VALID_SEQUENCE + 1;
 
 		// Test l operand
-		PointEvent l = new PointEvent(VALID_PAYER, 2L, VALID_EPOCH, VALID_NANO, VALID_UUID);
-		PointEvent r = new PointEvent(VALID_PAYER, 3L, VALID_EPOCH+1, VALID_NANO+1, greaterUUID);
+		PointEvent l = new PointEvent(VALID_PAYER, 2L, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE);
+		PointEvent r = new PointEvent(VALID_PAYER, 3L, VALID_EPOCH+1, VALID_NANO+1, greaterSequence);
 		PointEvent merged = PointEvent.merge(l, r);
 		assertEquals(VALID_EPOCH, merged.getEpoch());
 		assertEquals(VALID_NANO, merged.getNano());
-		assertEquals(VALID_UUID, merged.getUuid());
+		assertEquals(VALID_SEQUENCE, merged.getSequence());
 
 		// Test r operand
-		l = new PointEvent(VALID_PAYER, 2L, VALID_EPOCH+1, VALID_NANO+1, greaterUUID);
-		r = new PointEvent(VALID_PAYER, 3L, VALID_EPOCH, VALID_NANO, VALID_UUID);
+		l = new PointEvent(VALID_PAYER, 2L, VALID_EPOCH+1, VALID_NANO+1, greaterSequence);
+		r = new PointEvent(VALID_PAYER, 3L, VALID_EPOCH, VALID_NANO, VALID_SEQUENCE);
 		merged = PointEvent.merge(l, r);
 		assertEquals(VALID_EPOCH, merged.getEpoch());
 		assertEquals(VALID_NANO, merged.getNano());
-		assertEquals(VALID_UUID, merged.getUuid());
+		assertEquals(VALID_SEQUENCE, merged.getSequence());
 	}
 
 }
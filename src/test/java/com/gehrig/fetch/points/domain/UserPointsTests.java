@@ -1,13 +1,19 @@
 package com.gehrig.fetch.points.domain;
 
+import com.gehrig.fetch.points.exception.IdempotencyKeyReusedException;
+import com.gehrig.fetch.points.exception.InvalidDeductionException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
-import java.util.UUID;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 public class UserPointsTests {
 
@@ -22,11 +28,11 @@ public class UserPointsTests {
 
 	@Test
 	public void Should_SatisfyProblemExample_WhenCalled() {
-		final var p0 = new PointEvent("DANNON", 300L, 0L, 0, UUID.randomUUID());
-		final var p1 = new PointEvent("UNILEVER", 200L, 1L, 0, UUID.randomUUID());
-		final var p2 = new PointEvent("DANNON", -200L, 2L, 0, UUID.randomUUID());
-		final var p3 = new PointEvent("MILLER COORS", 10_000L, 3L, 0, UUID.randomUUID());
-		final var p4 = new PointEvent("DANNON", 1_000L, 4L, 0, UUID.randomUUID());
+		final var p0 = new PointEvent("DANNON", 300L, 0L, 0, PointEventSequence.next());
+		final var p1 = new PointEvent("UNILEVER", 200L, 1L, 0, PointEventSequence.next());
+		final var p2 = new PointEvent("DANNON", -200L, 2L, 0, PointEventSequence.next());
+		final var p3 = new PointEvent("MILLER COORS", 10_000L, 3L, 0, PointEventSequence.next());
+		final var p4 = new PointEvent("DANNON", 1_000L, 4L, 0, PointEventSequence.next());
 
 		// Add points
 		for (final PointEvent pointEvent : Arrays.asList(p0, p1, p2, p3, p4)) {
@@ -64,4 +70,244 @@ public class UserPointsTests {
 				tuple("MILLER COORS", 5_300L)
 			);
 	}
+
+	@Test
+	public void Should_OnlyDeductPayerEvents_When_NegativePointsAdded() {
+		this.userPoints.addPoints(new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("B", 100L, 1L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("A", 100L, 2L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("B", 100L, 3L, 0, PointEventSequence.next()));
+
+		// Consume the first and part of the second B event, leaving both A events untouched
+		this.userPoints.addPoints(new PointEvent("B", -150L, 4L, 0, PointEventSequence.next()));
+
+		var getResult = this.userPoints.getPoints();
+		assertThat(getResult)
+			.extracting("payer", "points")
+			.containsExactly(
+				tuple("A", 200L),
+				tuple("B", 50L)
+			);
+
+		// Remaining events should be consumed oldest to newest across payers
+		var deleteResult = this.userPoints.deletePoints(250L);
+		assertThat(deleteResult)
+			.extracting("payer", "points")
+			.containsExactly(
+				tuple("A", -100L),
+				tuple("A", -100L),
+				tuple("B", -50L)
+			);
+
+		getResult = this.userPoints.getPoints();
+		assertThat(getResult)
+			.extracting("payer", "points")
+			.containsExactly(
+				tuple("A", 0L),
+				tuple("B", 0L)
+			);
+	}
+
+	@Test
+	public void Should_RejectDeduction_When_NegativeAdditionsExhaustedUserTotal() {
+		this.userPoints.addPoints(new PointEvent("A", 300L, 0L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("A", -200L, 1L, 0, PointEventSequence.next()));
+
+		assertThrows(InvalidDeductionException.class, () -> this.userPoints.deletePoints(101L));
+		assertThat(this.userPoints.deletePoints(100L))
+			.extracting("payer", "points")
+			.containsExactly(tuple("A", -100L));
+	}
+
+	@Test
+	public void Should_ReorderPayerTotals_When_EarlierEventAdded() {
+		this.userPoints.addPoints(new PointEvent("A", 100L, 1L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("B", 100L, 2L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("C", 100L, 3L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("C", 100L, 0L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("B", -50L, 4L, 0, PointEventSequence.next()));
+
+		assertThat(this.userPoints.getPoints())
+			.extracting("payer", "points")
+			.containsExactly(
+				tuple("C", 200L),
+				tuple("A", 100L),
+				tuple("B", 50L)
+			);
+	}
+
+	@Test
+	public void Should_SumDeductionsByPayer_When_PointsDeletedByPayer() {
+		final var byEvent = new UserPoints(USER);
+		for (int i = 0; i < 100; i++) {
+			final var event = new PointEvent(i % 3 == 0 ? "A" : "B", 10L, i, 0, PointEventSequence.next());
+			this.userPoints.addPoints(event);
+			byEvent.addPoints(event);
+		}
+
+		final var deducted = this.userPoints.deletePointsByPayer(555L);
+		byEvent.deletePoints(555L);
+
+		assertThat(deducted.getTotal()).isEqualTo(555L);
+		assertThat(deducted.toString()).isEqualTo("PayerDeductions{A=190, B=365}");
+		assertThat(this.userPoints.getSnapshot().getTotal()).isEqualTo(445L);
+		assertThat(this.userPoints.getPoints()).isEqualTo(byEvent.getPoints());
+		assertThat(this.userPoints.capture()).isEqualTo(byEvent.capture());
+	}
+
+	@Test
+	public void Should_ApplyWriteOnce_When_RetriedUnderIdempotencyKey() {
+		final var key = new IdempotencyKey("key", System.currentTimeMillis());
+		final var event = new PointEvent("A", 100L, 1L, 0, PointEventSequence.next());
+		final var original = this.userPoints.addPoints(event, key);
+		assertThat(this.userPoints.addPoints(event, new IdempotencyKey("key", System.currentTimeMillis()))).isSameAs(original);
+		assertThat(this.userPoints.getSnapshot().getTotal()).isEqualTo(100L);
+
+		final var spent = this.userPoints.deletePoints(40L, new IdempotencyKey("spend", System.currentTimeMillis()));
+		assertThat(this.userPoints.deletePoints(40L, new IdempotencyKey("spend", System.currentTimeMillis())).getRemoved())
+			.isEqualTo(spent.getRemoved())
+			.extracting("payer", "points")
+			.containsExactly(tuple("A", -40L));
+		assertThat(this.userPoints.getSnapshot().getTotal()).isEqualTo(60L);
+
+		// Reusing a key for a different write is rejected, even of the same kind
+		assertThrows(IdempotencyKeyReusedException.class, () -> this.userPoints.deletePoints(41L, new IdempotencyKey("spend", System.currentTimeMillis())));
+		assertThrows(IdempotencyKeyReusedException.class, () -> this.userPoints.deletePointsByPayer(40L, new IdempotencyKey("spend", System.currentTimeMillis())));
+
+		// Keys are captured along with the ledger
+		assertThat(this.userPoints.capture().getIdempotentWrites()).containsExactly(original, spent);
+	}
+
+	@Test
+	public void Should_ReportEveryEvent_When_KeyedDeductionExceedsRetainedEvents() {
+		final var limits = new IdempotencyLimits(IdempotencyLimits.DEFAULT_MAX_KEYS, IdempotencyLimits.DEFAULT_EXPIRY, 2);
+		final var userPoints = new UserPoints(USER, LedgerContext.DEFAULT.withIdempotencyLimits(limits));
+		for (int i = 0; i < 6; i++) {
+			userPoints.addPoints(new PointEvent(i < 4 ? "A" : "B", 10L, i, 0, PointEventSequence.next()));
+		}
+
+		// Within the limit every event deducted from is retained as is
+		final var few = userPoints.deletePoints(15L, new IdempotencyKey("few", System.currentTimeMillis()));
+		assertThat(few.getRepeats()).isNull();
+		assertThat(few.getRemoved())
+			.extracting("payer", "points")
+			.containsExactly(tuple("A", -10L), tuple("A", -5L));
+
+		// Beyond it alike events are retained once, though retries report every event deducted from as originally
+		final var many = userPoints.deletePoints(45L, new IdempotencyKey("many", System.currentTimeMillis()));
+		assertThat(many.getRetained()).hasSize(3);
+		assertThat(many.getRemoved())
+			.extracting("payer", "points")
+			.containsExactly(tuple("A", -5L), tuple("A", -10L), tuple("A", -10L), tuple("B", -10L), tuple("B", -10L));
+		assertThat(userPoints.deletePoints(45L, new IdempotencyKey("many", System.currentTimeMillis())).getRemoved())
+			.extracting("payer", "points")
+			.containsExactly(tuple("A", -5L), tuple("A", -10L), tuple("A", -10L), tuple("B", -10L), tuple("B", -10L));
+		assertThat(userPoints.getSnapshot().getTotal()).isZero();
+	}
+
+	@Test
+	public void Should_PublishImmutableBalances_When_PointsRetrieved() {
+		this.userPoints.addPoints(new PointEvent("A", 100L, 1L, 0, PointEventSequence.next()));
+
+		final var balances = this.userPoints.getPoints();
+		assertThat(this.userPoints.getPoints()).isSameAs(balances);
+		assertThrows(UnsupportedOperationException.class, () -> balances.add(balances.get(0)));
+
+		// Writes publish new balances, leaving previously retrieved balances untouched
+		this.userPoints.deletePoints(40L);
+		assertThat(this.userPoints.getPoints()).isNotSameAs(balances);
+		assertThat(balances).extracting("points").containsExactly(100L);
+		assertThat(this.userPoints.getPoints()).extracting("points").containsExactly(60L);
+	}
+
+	@Test
+	public void Should_ReuseUntouchedPayerBalances_When_Published() {
+		this.userPoints.addPoints(new PointEvent("A", 100L, 1L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("B", 100L, 2L, 0, PointEventSequence.next()));
+		final var balances = this.userPoints.getPoints();
+
+		// Partial deductions update events in place, solely the touched payer's balance is replaced
+		this.userPoints.deletePoints(40L);
+		this.userPoints.deletePoints(40L);
+		assertThat(this.userPoints.getPoints().get(0)).isNotSameAs(balances.get(0));
+		assertThat(this.userPoints.getPoints().get(1)).isSameAs(balances.get(1));
+		assertThat(this.userPoints.getPoints()).extracting("points").containsExactly(20L, 100L);
+
+		this.userPoints.deletePoints(40L);
+		assertThat(this.userPoints.getPoints()).extracting("points").containsExactly(0L, 80L);
+		assertThat(this.userPoints.capture().getPointEvents()).extracting("payer", "points").containsExactly(tuple("B", 80L));
+	}
+
+	@Test
+	public void Should_VersionSnapshots_When_WritesAccepted() {
+		assertThat(this.userPoints.getSnapshot()).isEqualTo(BalanceSnapshot.EMPTY);
+
+		this.userPoints.addPoints(new PointEvent("A", 100L, 1L, 0, PointEventSequence.next()));
+		this.userPoints.addPoints(new PointEvent("A", 0L, 2L, 0, PointEventSequence.next()));
+		assertThrows(InvalidDeductionException.class, () -> this.userPoints.deletePoints(101L));
+		this.userPoints.deletePoints(40L);
+
+		// Neither empty nor rejected writes are published
+		final var snapshot = this.userPoints.getSnapshot();
+		assertThat(snapshot.getVersion()).isEqualTo(2L);
+		assertThat(snapshot.getTotal()).isEqualTo(60L);
+		assertThat(snapshot.getBalances()).extracting("points").containsExactly(60L);
+	}
+
+	@Test
+	public void Should_PublishBatchOnce_When_BatchAdded() {
+		final var rejections = this.userPoints.addPoints(List.of(
+			new PointEvent("A", 100L, 1L, 0, PointEventSequence.next()),
+			new PointEvent("B", -1L, 2L, 0, PointEventSequence.next()),
+			new PointEvent("A", -40L, 3L, 0, PointEventSequence.next()),
+			new PointEvent("B", 10L, 4L, 0, PointEventSequence.next())
+		));
+
+		assertThat(rejections).hasSize(4);
+		assertThat(rejections.get(1)).contains("negative payer balance(s) are prohibited");
+		assertThat(rejections).filteredOn(Objects::isNull).hasSize(3);
+
+		final var snapshot = this.userPoints.getSnapshot();
+		assertThat(snapshot.getVersion()).isEqualTo(1L);
+		assertThat(snapshot.getBalances()).extracting("payer", "points").containsExactly(tuple("A", 60L), tuple("B", 10L));
+
+		// Batches without any effective additions aren't published
+		this.userPoints.addPoints(List.of(new PointEvent("C", -1L, 5L, 0, PointEventSequence.next())));
+		assertThat(this.userPoints.getSnapshot()).isSameAs(snapshot);
+	}
+
+	@Test
+	public void Should_ReadConsistentSnapshots_When_WrittenConcurrently() throws Exception {
+		final int writes = 10_000;
+		final var executor = Executors.newFixedThreadPool(3);
+
+		try {
+			final var writer = executor.submit(() -> {
+				for (int i = 0; i < writes; i++) {
+					this.userPoints.addPoints(new PointEvent("P" + (i % 7), 10L, (long) i, 0, PointEventSequence.next()));
+					this.userPoints.deletePoints(3L);
+				}
+			});
+
+			final Callable<Long> reader = () -> {
+				long version = 0L;
+				while (version < 2L * writes) {
+					final var snapshot = this.userPoints.getSnapshot();
+					final long balance = snapshot.getBalances().stream().mapToLong(PointEvent::getPoints).sum();
+					assertThat(balance).isEqualTo(snapshot.getTotal());
+					assertThat(snapshot.getVersion()).isGreaterThanOrEqualTo(version);
+					version = snapshot.getVersion();
+				}
+				return version;
+			};
+
+			final var readers = executor.invokeAll(Arrays.asList(reader, reader));
+			writer.get();
+			for (final var r : readers) {
+				assertThat(r.get()).isEqualTo(2L * writes);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 }
@@ -0,0 +1,62 @@
+package com.gehrig.fetch.points.metrics;
+
+import com.gehrig.fetch.points.domain.LedgerContext;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import com.gehrig.fetch.points.domain.UserPoints;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MicrometerLedgerMetricsTests {
+
+	private SimpleMeterRegistry registry;
+	private UserPoints userPoints;
+
+	@BeforeEach
+	void setUp() {
+		this.registry = new SimpleMeterRegistry();
+		this.userPoints = new UserPoints("bob", LedgerContext.DEFAULT.withMetrics(new MicrometerLedgerMetrics(this.registry)));
+	}
+
+	@Test
+	public void Should_RecordEveryOperation_When_LedgerUsed() {
+		this.userPoints.addPoints(event("DANNON", 100L, 1L));
+		this.userPoints.addPoints(List.of(event("UNILEVER", 200L, 2L), event("MILLER", 300L, 3L)));
+		this.userPoints.getPoints();
+		this.userPoints.deletePoints(250L);
+
+		assertEquals(2L, this.registry.get("points.ledger.add").timer().count());
+		assertEquals(1L, this.registry.get("points.ledger.deduct").timer().count());
+		assertEquals(1d, this.registry.get("points.ledger.read").counter().count());
+		assertEquals(3L, this.registry.get("points.ledger.lock.wait").timer().count());
+	}
+
+	@Test
+	public void Should_RecordEventsScannedAndOutstanding_When_Deducted() {
+		this.userPoints.addPoints(event("DANNON", 100L, 1L));
+		this.userPoints.addPoints(event("UNILEVER", 200L, 2L));
+		this.userPoints.addPoints(event("MILLER", 300L, 3L));
+
+		// Zeroes DANNON, partially deducts UNILEVER, and never visits MILLER
+		this.userPoints.deletePoints(250L);
+
+		final var scanned = this.registry.get("points.ledger.deduct.scanned").summary();
+		assertEquals(1L, scanned.count());
+		assertEquals(2d, scanned.totalAmount());
+
+		// Outstanding events after each write: 1, 2, 3, then 2
+		final var outstanding = this.registry.get("points.ledger.user.events").summary();
+		assertEquals(4L, outstanding.count());
+		assertEquals(8d, outstanding.totalAmount());
+		assertEquals(3d, outstanding.max());
+	}
+
+	private static PointEvent event(final String payer, final long points, final long epoch) {
+		return new PointEvent(payer, points, epoch, 0, PointEventSequence.next());
+	}
+}
@@ -0,0 +1,101 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.LedgerState;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import com.gehrig.fetch.points.domain.UserPoints;
+import com.gehrig.fetch.points.exception.RetiredUserException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ColdUserStoreTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void Should_ReadUser_When_Written() throws IOException {
+		final var bob = new UserPoints("bob");
+		bob.addPoints(new PointEvent("DANNON", 300L, 0L, 0, PointEventSequence.next()));
+		bob.addPoints(new PointEvent("UNILEVER", 200L, 1L, 0, PointEventSequence.next()));
+		bob.deletePoints(100L);
+
+		final var store = new ColdUserStore(this.directory);
+		final LedgerState state = bob.retire();
+		store.write(state);
+
+		assertThat(store.read("bob")).isEqualTo(state);
+		assertNull(store.read("sam"));
+		assertThat(store.size()).isEqualTo(1L);
+
+		// Retired Users reject writes until reinstated
+		assertThrows(RetiredUserException.class, () -> bob.deletePoints(100L));
+		bob.reinstate();
+		bob.deletePoints(100L);
+	}
+
+	@Test
+	public void Should_ReplaceUser_When_Rewritten() throws IOException {
+		final var bob = new UserPoints("bob");
+		bob.addPoints(new PointEvent("DANNON", 300L, 0L, 0, PointEventSequence.next()));
+
+		final var store = new ColdUserStore(this.directory);
+		store.write(bob.capture());
+		bob.deletePoints(100L);
+		store.write(bob.capture());
+
+		assertThat(store.size()).isEqualTo(1L);
+		assertThat(store.read("bob")).isEqualTo(bob.capture());
+	}
+
+	@Test
+	public void Should_ReadUser_When_NameLong() throws IOException {
+		final var name = "x".repeat(500);
+		final var user = new UserPoints(name);
+		user.addPoints(new PointEvent("DANNON", 300L, 0L, 0, PointEventSequence.next()));
+
+		final var store = new ColdUserStore(this.directory);
+		store.write(user.capture());
+
+		assertThat(store.read(name)).isEqualTo(user.capture());
+		assertNull(store.read("x".repeat(501)));
+	}
+
+	@Test
+	public void Should_ListEveryUser_When_Iterated() throws IOException {
+		final var store = new ColdUserStore(this.directory);
+		for (int i = 0; i < 100; i++) {
+			store.write(new UserPoints("user" + i).capture());
+		}
+
+		final List<String> users = new ArrayList<>();
+		store.states().forEachRemaining(state -> users.add(state.getUser()));
+		assertThat(users).hasSize(100).doesNotHaveDuplicates();
+	}
+
+	@Test
+	public void Should_DiscardUsers_When_Reopened() throws IOException {
+		new ColdUserStore(this.directory).write(new UserPoints("bob").capture());
+		// Files which aren't the stores own, e.g. due to a misconfigured directory
+		Files.writeString(this.directory.resolve("notes.txt"), "keep");
+		Files.createDirectories(this.directory.resolve("data")).resolve("bob.user").toFile().createNewFile();
+
+		final var store = new ColdUserStore(this.directory);
+		assertThat(store.size()).isZero();
+		assertNull(store.read("bob"));
+		try (var files = Files.list(this.directory)) {
+			assertThat(files).extracting(path -> path.getFileName().toString()).containsExactlyInAnyOrder("notes.txt", "data");
+		}
+		assertThat(this.directory.resolve("data").resolve("bob.user")).exists();
+	}
+}
@@ -0,0 +1,221 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.LedgerContext;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import com.gehrig.fetch.points.domain.UserPoints;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PointEventLogTests {
+
+	private static final long SEGMENT_BYTES = 64 * 1024;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void Should_ReplayRecordsInOrder_When_Recovered() throws IOException {
+		final var event = new PointEvent("DANNON", 300L, 1L, 2, PointEventSequence.next());
+
+		try (PointEventLog log = this.open()) {
+			log.recover(r -> {});
+			log.added("bob", event);
+			log.deducted("bob", 100L);
+			log.added("sam", PointEvent.withPoints(event, -1L));
+			log.sync();
+			assertThat(log.getDurableLsn()).isEqualTo(3L);
+		}
+
+		final List<LogRecord> records = this.recover();
+		assertThat(records)
+			.extracting("type", "lsn", "user", "points")
+			.containsExactly(
+				tuple(LogRecord.Type.ADD, 1L, "bob", 0L),
+				tuple(LogRecord.Type.DEDUCT, 2L, "bob", 100L),
+				tuple(LogRecord.Type.ADD, 3L, "sam", 0L)
+			);
+		assertThat(records.get(0).getPointEvent()).isEqualTo(event);
+		assertThat(records.get(2).getPointEvent().getPoints()).isEqualTo(-1L);
+	}
+
+	@Test
+	public void Should_CompleteFutures_When_RecordsDurable() throws IOException {
+		try (PointEventLog log = new PointEventLog(this.directory, SEGMENT_BYTES, true, Duration.ofMillis(50))) {
+			log.recover(r -> {});
+			// Nothing has been appended, thus there's nothing to await
+			assertThat(log.whenSynced()).isDone();
+
+			log.deducted("bob", 1L);
+			final var first = log.whenSynced();
+			log.deducted("bob", 2L);
+			final var second = log.whenSynced();
+
+			second.join();
+			assertThat(first).isDone();
+			assertThat(log.getDurableLsn()).isGreaterThanOrEqualTo(2L);
+		}
+	}
+
+	@Test
+	public void Should_TruncateTornWrites_When_Recovered() throws IOException {
+		try (PointEventLog log = this.open()) {
+			log.recover(r -> {});
+			log.deducted("bob", 1L);
+			log.deducted("bob", 2L);
+			log.sync();
+		}
+
+		// Simulate a crash mid-write by chopping the final record short
+		final Path segment = this.segments().get(0);
+		try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+		}
+
+		try (PointEventLog log = this.open()) {
+			final List<LogRecord> records = new ArrayList<>();
+			log.recover(records::add);
+			assertThat(records).extracting("points").containsExactly(1L);
+
+			// Appending resumes directly after the last intact record
+			log.deducted("bob", 3L);
+			log.sync();
+		}
+
+		assertThat(this.recover()).extracting("lsn", "points").containsExactly(tuple(1L, 1L), tuple(2L, 3L));
+	}
+
+	@Test
+	public void Should_RollSegments_When_SegmentSizeExceeded() throws IOException {
+		try (PointEventLog log = this.open()) {
+			log.recover(r -> {});
+			for (int i = 0; i < 10_000; i++) {
+				log.deducted("bob", i);
+				// Sync periodically, otherwise a single batch could land in a single segment
+				if (i % 100 == 0) {
+					log.sync();
+				}
+			}
+		}
+
+		assertThat(this.segments().size()).isGreaterThan(1);
+		assertThat(this.recover()).extracting("points").containsExactlyElementsOf(
+			Stream.iterate(0L, i -> i + 1).limit(10_000).collect(Collectors.toList())
+		);
+	}
+
+	@Test
+	public void Should_RejectAppends_When_NotRecovered() throws IOException {
+		try (PointEventLog log = this.open()) {
+			assertThrows(IllegalStateException.class, () -> log.deducted("bob", 1L));
+		}
+	}
+
+	@Test
+	public void Should_RebuildUserPoints_When_Replayed() throws IOException {
+		final Map<String, UserPoints> users = new HashMap<>();
+
+		try (PointEventLog log = this.open()) {
+			log.recover(r -> {});
+			final var bob = new UserPoints("bob", LedgerContext.DEFAULT.withJournal(log));
+			bob.addPoints(new PointEvent("DANNON", 300L, 0L, 0, PointEventSequence.next()));
+			bob.addPoints(new PointEvent("UNILEVER", 200L, 1L, 0, PointEventSequence.next()));
+			bob.addPoints(new PointEvent("DANNON", -200L, 2L, 0, PointEventSequence.next()));
+			bob.addPoints(new PointEvent("MILLER COORS", 10_000L, 3L, 0, PointEventSequence.next()));
+			bob.addPoints(new PointEvent("DANNON", 1_000L, 4L, 0, PointEventSequence.next()));
+			bob.deletePoints(5_000L);
+			log.sync();
+			users.put("expected", bob);
+		}
+
+		try (PointEventLog log = this.open()) {
+			log.recover(record -> {
+				final var user = users.computeIfAbsent(record.getUser(), name -> new UserPoints(name, LedgerContext.DEFAULT.withJournal(log)));
+				if (record.getType() == LogRecord.Type.ADD) {
+					user.addPoints(record.getPointEvent());
+				} else {
+					user.deletePoints(record.getPoints());
+				}
+			});
+
+			// Replayed writes aren't appended to the log a second time
+			assertThat(log.getAppendedLsn()).isEqualTo(6L);
+		}
+
+		assertThat(users.get("bob").getSnapshot()).isEqualTo(users.get("expected").getSnapshot());
+		assertThat(users.get("bob").getPoints())
+			.extracting("payer", "points")
+			.containsExactly(
+				tuple("DANNON", 1_000L),
+				tuple("UNILEVER", 0L),
+				tuple("MILLER COORS", 5_300L)
+			);
+	}
+
+	@Test
+	public void Should_BeginSegmentAfresh_When_TornMidHeader() throws IOException {
+		try (PointEventLog log = this.open()) {
+			log.recover(r -> {});
+			log.deducted("bob", 1L);
+			log.sync();
+		}
+		// A crash while beginning the following segment, before its header was entirely written
+		Files.write(this.directory.resolve(String.format("%020d.wal", 2L)), new byte[] {0x50, 0x57});
+
+		try (PointEventLog log = this.open()) {
+			log.recover(r -> {});
+			log.deducted("bob", 2L);
+			log.sync();
+		}
+
+		assertThat(this.segments()).hasSize(2);
+		assertThat(this.recover()).extracting("lsn", "points").containsExactly(tuple(1L, 1L), tuple(2L, 2L));
+	}
+
+	@Test
+	public void Should_Throw_When_SegmentFormatUnrecognized() throws IOException {
+		Files.write(this.directory.resolve(String.format("%020d.wal", 1L)),
+			ByteBuffer.allocate(8).putInt(0x5057414C).putInt(Integer.MAX_VALUE).array());
+
+		try (PointEventLog log = this.open()) {
+			assertThrows(IOException.class, () -> log.recover(r -> {}));
+		}
+	}
+
+	private PointEventLog open() throws IOException {
+		return new PointEventLog(this.directory, SEGMENT_BYTES, true, Duration.ZERO);
+	}
+
+	private List<LogRecord> recover() throws IOException {
+		final List<LogRecord> records = new ArrayList<>();
+		try (PointEventLog log = this.open()) {
+			log.recover(records::add);
+		}
+		return records;
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> paths = Files.list(this.directory)) {
+			return paths.sorted(Comparator.naturalOrder()).collect(Collectors.toList());
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.gehrig.fetch.points.persistence;
+
+import com.gehrig.fetch.points.domain.LedgerContext;
+import com.gehrig.fetch.points.domain.LedgerState;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import com.gehrig.fetch.points.domain.UserPoints;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SnapshotStoreTests {
+
+	// Deliberately tiny, thus every snapshot spans many windows
+	private static final int WINDOW_BYTES = 64;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void Should_RestoreUsers_When_SnapshotLoaded() throws IOException {
+		final var bob = new UserPoints("bob");
+		bob.addPoints(new PointEvent("DANNON", 300L, 0L, 0, PointEventSequence.next()));
+		bob.addPoints(new PointEvent("UNILEVER", 200L, 1L, 0, PointEventSequence.next()));
+		bob.addPoints(new PointEvent("DANNON", -200L, 2L, 0, PointEventSequence.next()));
+		bob.addPoints(new PointEvent("MILLER COORS", 10000L, 3L, 0, PointEventSequence.next()));
+		bob.deletePoints(5000L);
+		final var sam = new UserPoints("sam");
+
+		final var store = new SnapshotStore(this.directory, WINDOW_BYTES, 2);
+		assertThat(store.write(7L, Stream.of(bob, sam).map(UserPoints::capture).iterator(), () -> {})).isEqualTo(2L);
+
+		final List<LedgerState> states = new ArrayList<>();
+		assertThat(store.load(states::add)).isEqualTo(7L);
+		assertThat(states).extracting("user").containsExactly("bob", "sam");
+
+		final var restored = UserPoints.restore(states.get(0), LedgerContext.DEFAULT);
+		assertThat(restored.getSnapshot()).isEqualTo(bob.getSnapshot());
+		assertThat(states.get(0)).isEqualTo(bob.capture());
+
+		// The restored User must continue to book-keep exactly as the original
+		bob.deletePoints(5100L);
+		restored.deletePoints(5100L);
+		assertThat(restored.getPoints())
+			.extracting("payer", "points")
+			.containsExactly(tuple("DANNON", 0L), tuple("UNILEVER", 0L), tuple("MILLER COORS", 200L));
+		assertThat(restored.getSnapshot()).isEqualTo(bob.getSnapshot());
+	}
+
+	@Test
+	public void Should_RetainLatestSnapshots_When_Written() throws IOException {
+		final var store = new SnapshotStore(this.directory, WINDOW_BYTES, 2);
+		for (long lsn = 1L; lsn <= 4L; lsn++) {
+			final var user = new UserPoints("bob");
+			user.addPoints(new PointEvent("DANNON", lsn, lsn, 0, PointEventSequence.next()));
+			store.write(lsn, List.of(user.capture()).iterator(), () -> {});
+		}
+		assertThat(store.write(4L, List.<LedgerState>of().iterator(), () -> {})).isEqualTo(-1L);
+
+		try (Stream<Path> files = Files.list(this.directory)) {
+			assertThat(files.map(p -> p.getFileName().toString()).sorted().collect(Collectors.toList()))
+				.containsExactly("%020d.snap".formatted(3), "%020d.snap".formatted(4));
+		}
+
+		final List<LedgerState> states = new ArrayList<>();
+		assertThat(store.load(states::add)).isEqualTo(4L);
+		assertThat(states.get(0).getTotal()).isEqualTo(4L);
+	}
+
+	@Test
+	public void Should_DiscardSnapshot_When_WriteFails() throws IOException {
+		final var store = new SnapshotStore(this.directory, WINDOW_BYTES, 2);
+		final var states = IntStream.range(0, 10)
+			.mapToObj(i -> {
+				if (i == 5) {
+					throw new IllegalStateException("Capture failed");
+				}
+				return new UserPoints("user" + i).capture();
+			})
+			.iterator();
+
+		assertThrows(IllegalStateException.class, () -> store.write(1L, states, () -> {}));
+		try (Stream<Path> files = Files.list(this.directory)) {
+			assertThat(files).isEmpty();
+		}
+		assertThat(store.load(s -> {})).isZero();
+	}
+
+	@Test
+	public void Should_Throw_When_SnapshotCorrupt() throws IOException {
+		final var user = new UserPoints("bob");
+		user.addPoints(new PointEvent("DANNON", 300L, 0L, 0, PointEventSequence.next()));
+
+		final var store = new SnapshotStore(this.directory, WINDOW_BYTES, 2);
+		store.write(1L, List.of(user.capture()).iterator(), () -> {});
+
+		// Flip a single bit in the middle of the User
+		final Path snapshot = this.directory.resolve("%020d.snap".formatted(1));
+		try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			final var buffer = ByteBuffer.allocate(1);
+			channel.read(buffer, 40);
+			buffer.put(0, (byte) (buffer.get(0) ^ 1));
+			channel.write(buffer.flip(), 40);
+		}
+
+		assertThrows(IOException.class, () -> store.load(s -> {}));
+	}
+}
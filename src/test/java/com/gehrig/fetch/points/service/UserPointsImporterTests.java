@@ -0,0 +1,93 @@
+package com.gehrig.fetch.points.service;
+
+import com.gehrig.fetch.points.configuration.ImportProperties;
+import com.gehrig.fetch.points.configuration.JacksonConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class UserPointsImporterTests {
+
+	private static final int USERS = 50;
+	private static final int ADDITIONS_PER_USER = 40;
+
+	private UserPointsService userPointsService;
+	// Fewer threads than workers, thus workers share the executors threads
+	private final ExecutorService executor = Executors.newFixedThreadPool(2);
+	private UserPointsImporter importer;
+
+	@BeforeEach
+	public void setUp() {
+		this.userPointsService = new UserPointsService();
+
+		// Several workers and tiny chunks, thus each Users additions are spread across many chunks
+		final var properties = new ImportProperties();
+		properties.setWorkers(4);
+		properties.setChunkSize(3);
+		properties.setMaxReportedErrors(5);
+		this.importer = new UserPointsImporter(
+			this.userPointsService,
+			new JacksonConfig().jsonMapper(),
+			Validation.buildDefaultValidatorFactory().getValidator(),
+			properties,
+			Optional.empty(),
+			this.executor
+		);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	public void Should_ApplyEachUsersAdditionsInOrder_When_Imported() throws IOException {
+		// Every User alternately earns 10 points then spends 10 points, which is only valid if applied in order
+		final String ndjson = IntStream.range(0, ADDITIONS_PER_USER)
+			.boxed()
+			.flatMap(i -> IntStream.range(0, USERS).mapToObj(u ->
+				"{\"user\":\"user-%d\",\"payer\":\"P%d\",\"points\":%d}".formatted(u, u % 3, i % 2 == 0 ? 10 : -10)
+			))
+			.collect(Collectors.joining("\n"));
+
+		final ImportSummary summary = this.importer.importPoints(this.stream(ndjson + "\n"));
+
+		assertThat(summary.getAccepted()).isEqualTo(USERS * ADDITIONS_PER_USER);
+		assertThat(summary.getRejected()).isZero();
+		for (int u = 0; u < USERS; u++) {
+			assertThat(this.userPointsService.getPoints("user-" + u))
+				.extracting("payer", "points")
+				.containsExactly(tuple("P" + (u % 3), 0L));
+		}
+	}
+
+	@Test
+	public void Should_ReportLimitedErrors_When_AdditionsRejected() throws IOException {
+		final String ndjson = IntStream.range(0, 20)
+			.mapToObj(i -> "{\"user\":\"bob\",\"payer\":\"A\",\"points\":-1}")
+			.collect(Collectors.joining("\n"));
+
+		final ImportSummary summary = this.importer.importPoints(this.stream(ndjson));
+
+		assertThat(summary.getAccepted()).isZero();
+		assertThat(summary.getRejected()).isEqualTo(20);
+		assertThat(summary.getErrors()).hasSize(5).first().asString().startsWith("line 1: Failed to add [A, -1]");
+	}
+
+	private ByteArrayInputStream stream(final String ndjson) {
+		return new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -1,4 +1,485 @@
 package com.gehrig.fetch.points.service;
 
+import com.gehrig.fetch.points.configuration.CacheProperties;
+import com.gehrig.fetch.points.domain.IdempotencyLimits;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import com.gehrig.fetch.points.exception.IdempotencyKeyReusedException;
+import com.gehrig.fetch.points.exception.InvalidDeductionException;
+import com.gehrig.fetch.points.persistence.ColdUserStore;
+import com.gehrig.fetch.points.persistence.PointEventLog;
+import com.gehrig.fetch.points.persistence.SnapshotStore;
+import com.gehrig.fetch.points.storage.MappedPageArena;
+import com.gehrig.fetch.points.storage.PagedLedgerStorage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
 public class UserPointsServiceTests {
+
+	private static final long MAX_USERS = 4L;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void Should_RecoverUsers_When_Restarted() throws IOException {
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log);
+			service.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()));
+			service.addPoints("bob", new PointEvent("B", 200L, 1L, 0, PointEventSequence.next()));
+			service.addPoints("sam", new PointEvent("A", 300L, 2L, 0, PointEventSequence.next()));
+			service.addPoints("sam", new PointEvent("A", -50L, 3L, 0, PointEventSequence.next()));
+			service.deletePoints("bob", 150L);
+		}
+
+		// Simulate a restart, i.e. a new service holding no User in memory
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log);
+			assertThat(service.getPoints("bob"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 0L), tuple("B", 150L));
+			assertThat(service.getPoints("sam"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 250L));
+		}
+	}
+
+	@Test
+	public void Should_RecoverUsers_When_RestartedFromSnapshotAndLog() throws IOException {
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log);
+			service.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()));
+			service.addPoints("bob", new PointEvent("B", 200L, 1L, 0, PointEventSequence.next()));
+			service.addPoints("sam", new PointEvent("A", 300L, 2L, 0, PointEventSequence.next()));
+			assertThat(service.snapshot()).isEqualTo(2L);
+
+			// Nothing has been written since, thus there's nothing to snapshot
+			assertThat(service.snapshot()).isEqualTo(-1L);
+
+			// The tail of the log, which must be replayed atop the snapshot
+			service.deletePoints("bob", 150L);
+			service.addPoints("sam", new PointEvent("A", -50L, 3L, 0, PointEventSequence.next()));
+			service.addPoints("ann", new PointEvent("C", 25L, 4L, 0, PointEventSequence.next()));
+		}
+
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log);
+			assertThat(service.getPoints("bob"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 0L), tuple("B", 150L));
+			assertThat(service.getPoints("sam"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 250L));
+			assertThat(service.getPoints("ann"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("C", 25L));
+		}
+	}
+
+	@Test
+	public void Should_RecallIdempotentWrites_When_Restarted() throws IOException {
+		final List<PointEvent> removed;
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log);
+			service.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()), "add-a");
+			service.addPoints("bob", new PointEvent("B", 200L, 1L, 0, PointEventSequence.next()), "add-b");
+			removed = service.deletePoints("bob", 150L, "spend");
+			assertThat(service.snapshot()).isEqualTo(1L);
+
+			// Recovered from the log alone, atop the snapshot
+			service.deletePointsByPayer("bob", 20L, "spend-by-payer");
+		}
+
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log);
+
+			// Retries are answered as originally, rather than applied once more
+			service.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()), "add-a");
+			assertThat(service.deletePoints("bob", 150L, "spend")).isEqualTo(removed);
+			assertThat(service.deletePointsByPayer("bob", 20L, "spend-by-payer").toString()).isEqualTo("PayerDeductions{B=20}");
+			assertThat(service.getPoints("bob"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 0L), tuple("B", 130L));
+
+			assertThatThrownBy(() -> service.deletePoints("bob", 20L, "spend-by-payer"))
+				.isInstanceOf(IdempotencyKeyReusedException.class);
+		}
+	}
+
+	@Test
+	public void Should_RecallCompactedDeductions_When_Restarted() throws IOException {
+		final var limits = new IdempotencyLimits(IdempotencyLimits.DEFAULT_MAX_KEYS, IdempotencyLimits.DEFAULT_EXPIRY, 2);
+		final List<PointEvent> snapshotted;
+		final List<PointEvent> logged;
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log, this.directory, limits);
+			for (int i = 0; i < 8; i++) {
+				service.addPoints("bob", new PointEvent(i < 6 ? "A" : "B", 10L, i, 0, PointEventSequence.next()));
+			}
+			snapshotted = service.deletePoints("bob", 45L, "spend");
+			assertThat(service.snapshot()).isEqualTo(1L);
+
+			// Recovered from the log alone, atop the snapshot
+			logged = service.deletePoints("bob", 35L, "spend-more");
+		}
+
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log, this.directory, limits);
+
+			// Deductions retaining runs of events rather than each event still answer retries as originally
+			assertThat(service.deletePoints("bob", 45L, "spend"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", -10L), tuple("A", -10L), tuple("A", -10L), tuple("A", -10L), tuple("A", -5L))
+				.isEqualTo(snapshotted.stream().map(event -> tuple(event.getPayer(), event.getPoints())).collect(Collectors.toList()));
+			assertThat(service.deletePoints("bob", 35L, "spend-more"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", -5L), tuple("A", -10L), tuple("B", -10L), tuple("B", -10L))
+				.isEqualTo(logged.stream().map(event -> tuple(event.getPayer(), event.getPoints())).collect(Collectors.toList()));
+			assertThat(service.getPoints("bob"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 0L), tuple("B", 0L));
+		}
+	}
+
+	@Test
+	public void Should_RecoverMovedUsers_When_Restarted() throws IOException {
+		final Path from = this.directory.resolve("from");
+		final Path to = this.directory.resolve("to");
+		try (PointEventLog fromLog = this.openLog(from); PointEventLog toLog = this.openLog(to)) {
+			final var fromService = this.start(fromLog, from);
+			final var toService = this.start(toLog, to);
+			fromService.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()), "add-a");
+			fromService.addPoints("sam", new PointEvent("A", 300L, 1L, 0, PointEventSequence.next()));
+			fromService.deletePoints("bob", 30L);
+			assertThat(fromService.snapshot()).isEqualTo(2L);
+
+			assertThat(fromService.handOff("bob"::equals, toService::adopt)).isEqualTo(1);
+			assertThat(fromService.getPoints("bob")).isEmpty();
+
+			// Writes journaled by the new owner after adopting the User are replayed atop the adoption
+			toService.addPoints("bob", new PointEvent("B", 50L, 2L, 0, PointEventSequence.next()));
+		}
+
+		try (PointEventLog fromLog = this.openLog(from); PointEventLog toLog = this.openLog(to)) {
+			final var fromService = this.start(fromLog, from);
+			final var toService = this.start(toLog, to);
+
+			// The hand off outlives the snapshot taken before it
+			assertThat(fromService.getPoints("bob")).isEmpty();
+			assertThat(fromService.getPoints("sam"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 300L));
+
+			// Idempotency keys move along with their User
+			toService.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()), "add-a");
+			assertThat(toService.getPoints("bob"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 70L), tuple("B", 50L));
+		}
+	}
+
+	@Test
+	public void Should_RetainUser_When_HandOffFails() {
+		final var service = new UserPointsService();
+		service.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()));
+
+		assertThatThrownBy(() -> service.handOff(name -> true, state -> {
+			throw new IllegalStateException("unreachable");
+		})).isInstanceOf(IllegalStateException.class);
+
+		// The User was reinstated, thus accepts writes once more
+		service.addPoints("bob", new PointEvent("A", 50L, 1L, 0, PointEventSequence.next()));
+		assertThat(service.getPoints("bob"))
+			.extracting("payer", "points")
+			.containsExactly(tuple("A", 150L));
+	}
+
+	@Test
+	public void Should_AwaitHandOff_When_WriteRacesIt() throws Exception {
+		final var service = new UserPointsService();
+		service.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()));
+
+		final var handing = new CountDownLatch(1);
+		final var handed = new CountDownLatch(1);
+		final var handedOff = CompletableFuture.supplyAsync(() -> service.handOff("bob"::equals, state -> {
+			handing.countDown();
+			try {
+				handed.await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}));
+		handing.await();
+
+		// Users aren't locked while one is handed off, whereas writes to the User await its hand off
+		service.addPoints("sam", new PointEvent("A", 10L, 1L, 0, PointEventSequence.next()));
+		final var write = CompletableFuture.runAsync(() -> service.addPoints("bob", new PointEvent("B", 10L, 2L, 0, PointEventSequence.next())));
+		Thread.sleep(100L);
+		assertThat(write).isNotDone();
+
+		handed.countDown();
+		assertThat(handedOff.get()).isEqualTo(1);
+		write.get();
+		assertThat(service.getPoints("bob"))
+			.extracting("payer", "points")
+			.containsExactly(tuple("B", 10L));
+	}
+
+	@Test
+	public void Should_HandOffUserOnce_When_ClaimedWhileSwept() throws Exception {
+		final var service = new UserPointsService();
+		service.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()));
+		service.addPoints("sam", new PointEvent("A", 10L, 1L, 0, PointEventSequence.next()));
+
+		final var handing = new CountDownLatch(1);
+		final var handed = new CountDownLatch(1);
+		final var swept = CompletableFuture.supplyAsync(() -> service.handOff("bob"::equals, state -> {
+			handing.countDown();
+			try {
+				handed.await();
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}));
+		handing.await();
+
+		// A User claimed while being swept awaits the sweeps hand off, rather than being handed off twice
+		final List<String> claimed = new ArrayList<>();
+		final var claim = CompletableFuture.supplyAsync(() -> service.handOff("bob", state -> claimed.add(state.getUser())));
+		Thread.sleep(100L);
+		assertThat(claim).isNotDone();
+
+		handed.countDown();
+		assertThat(swept.get()).isEqualTo(1);
+		assertThat(claim.get()).isFalse();
+		assertThat(claimed).isEmpty();
+
+		// Solely the claimed User is handed off
+		assertThat(service.handOff("sam", state -> claimed.add(state.getUser()))).isTrue();
+		assertThat(claimed).containsExactly("sam");
+		assertThat(service.getUserCount()).isZero();
+	}
+
+	@Test
+	public void Should_MergeUsers_When_AdoptedUserAlreadyHeld() {
+		final var from = new UserPointsService();
+		final var to = new UserPointsService();
+		from.addPoints("bob", new PointEvent("A", 100L, 0L, 0, PointEventSequence.next()));
+		// As though written while racing the hand off
+		to.addPoints("bob", new PointEvent("B", 10L, 1L, 0, PointEventSequence.next()));
+
+		from.handOff("bob"::equals, to::adopt);
+		assertThat(to.deletePoints("bob", 105L))
+			.extracting("payer", "points")
+			.containsExactly(tuple("A", -100L), tuple("B", -5L));
+	}
+
+	@Test
+	public void Should_ReloadUsers_When_Evicted() throws IOException {
+		final var service = this.startBounded(Optional.empty(), Optional.empty());
+		for (int i = 0; i < 20; i++) {
+			service.addPoints("user" + i, new PointEvent("A", 100L + i, i, 0, PointEventSequence.next()));
+		}
+		assertThat(service.getUserCount()).isLessThanOrEqualTo(MAX_USERS);
+		assertThat(service.getColdUserCount()).isGreaterThanOrEqualTo(20L - MAX_USERS);
+
+		// Every User is loaded back as evicted, and continues to book-keep
+		for (int i = 0; i < 20; i++) {
+			service.deletePoints("user" + i, 50L);
+		}
+		for (int i = 0; i < 20; i++) {
+			assertThat(service.getPoints("user" + i))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 50L + i));
+		}
+	}
+
+	@Test
+	public void Should_RejectUsersAdditions_When_BatchGroupFails() throws IOException {
+		final var service = this.startBounded(Optional.empty(), Optional.empty());
+		for (int i = 0; i < 20; i++) {
+			service.addPoints("user" + i, new PointEvent("A", 100L, i, 0, PointEventSequence.next()));
+		}
+
+		// Corrupt every evicted User, thus user0 fails to load
+		try (Stream<Path> files = Files.walk(this.directory.resolve("cold"))) {
+			for (final Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+				Files.write(file, new byte[] {1});
+			}
+		}
+
+		final var rejections = service.addPoints(
+			List.of("user19", "user0", "user19"),
+			List.of(
+				new PointEvent("A", 10L, 20L, 0, PointEventSequence.next()),
+				new PointEvent("A", 10L, 21L, 0, PointEventSequence.next()),
+				new PointEvent("A", 10L, 22L, 0, PointEventSequence.next())
+			)
+		);
+		assertThat(rejections.get(0)).isNull();
+		assertThat(rejections.get(1)).contains("user0");
+		assertThat(rejections.get(2)).isNull();
+		assertThat(service.getPoints("user19"))
+			.extracting("payer", "points")
+			.containsExactly(tuple("A", 120L));
+	}
+
+	@Test
+	public void Should_NotCreateUser_When_UnknownUserRead() throws IOException {
+		final var service = this.startBounded(Optional.empty(), Optional.empty());
+		assertThat(service.getPoints("nobody")).isEmpty();
+		assertThat(service.getUserCount()).isZero();
+	}
+
+	@Test
+	public void Should_SnapshotEvictedUsers_When_Bounded() throws IOException {
+		try (PointEventLog log = this.openLog()) {
+			final var snapshotStore = new SnapshotStore(this.directory.resolve("snapshots"), 4096, 2);
+			final var service = this.startBounded(Optional.of(log), Optional.of(snapshotStore));
+			for (int i = 0; i < 20; i++) {
+				service.addPoints("user" + i, new PointEvent("A", 100L + i, i, 0, PointEventSequence.next()));
+			}
+			service.deletePoints("user0", 50L);
+			assertThat(service.snapshot()).isGreaterThanOrEqualTo(20L);
+		}
+
+		// Recover from the snapshot alone, into memory that's unbounded
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log);
+			assertThat(service.getUserCount()).isEqualTo(20L);
+			assertThat(service.getPoints("user0"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 50L));
+			assertThat(service.getPoints("user19"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 119L));
+		}
+	}
+
+	@Test
+	public void Should_ApplyWritesInOrder_When_Sharded() throws IOException {
+		try (PointEventLog log = this.openLog(); UserShards shards = new UserShards(3)) {
+			final var service = this.startSharded(log, shards);
+
+			// Writes are queued without awaiting one another, yet each Users writes apply in the order queued
+			final List<CompletableFuture<?>> writes = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				writes.add(service.addPointsAsync("user" + (i % 10), new PointEvent("A", 10L, i, 0, PointEventSequence.next())));
+				writes.add(service.deletePointsAsync("user" + (i % 10), 5L));
+			}
+			final CompletableFuture<List<String>> batch = service.addPointsAsync(List.of("user0", "user1", "user0"), List.of(
+				new PointEvent("B", 7L, 100L, 0, PointEventSequence.next()),
+				new PointEvent("B", -7L, 101L, 0, PointEventSequence.next()),
+				new PointEvent("B", 3L, 102L, 0, PointEventSequence.next())
+			));
+			writes.add(batch);
+			CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+
+			assertThat(batch.join()).hasSize(3);
+			assertThat(batch.join().get(0)).isNull();
+			assertThat(batch.join().get(1)).contains("negative payer balance");
+			assertThat(batch.join().get(2)).isNull();
+			assertThat(service.getPoints("user0"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 50L), tuple("B", 10L));
+			assertThat(log.getDurableLsn()).isEqualTo(log.getAppendedLsn());
+
+			// Rejections are rethrown as is, rather than wrapped
+			assertThatThrownBy(() -> service.deletePoints("user1", 1_000L)).isInstanceOf(InvalidDeductionException.class);
+		}
+
+		try (PointEventLog log = this.openLog()) {
+			final var service = this.start(log);
+			assertThat(service.getPoints("user0"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 50L), tuple("B", 10L));
+			assertThat(service.getPoints("user9"))
+				.extracting("payer", "points")
+				.containsExactly(tuple("A", 50L));
+		}
+	}
+
+	private UserPointsService startSharded(final PointEventLog log, final UserShards shards) throws IOException {
+		final var service = new UserPointsService(
+			Optional.of(log),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.of(shards)
+		);
+		service.recover();
+		return service;
+	}
+
+	private UserPointsService startBounded(final Optional<PointEventLog> log, final Optional<SnapshotStore> snapshotStore) throws IOException {
+		final var properties = new CacheProperties();
+		properties.setMaxUsers(MAX_USERS);
+		final var service = new UserPointsService(
+			log,
+			snapshotStore,
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.of(new ColdUserStore(this.directory.resolve("cold"))),
+			Optional.of(properties),
+			// Evicted Users must relinquish their pages, as well as be written out
+			Optional.of(new PagedLedgerStorage(new MappedPageArena(this.directory.resolve("events"), 1024 * 1024))),
+			Optional.empty()
+		);
+		service.recover();
+		return service;
+	}
+
+	private PointEventLog openLog() throws IOException {
+		return this.openLog(this.directory);
+	}
+
+	private PointEventLog openLog(final Path directory) throws IOException {
+		return new PointEventLog(directory.resolve("wal"), 1024 * 1024, true, Duration.ZERO);
+	}
+
+	private UserPointsService start(final PointEventLog log) throws IOException {
+		return this.start(log, this.directory);
+	}
+
+	private UserPointsService start(final PointEventLog log, final Path directory) throws IOException {
+		return this.start(log, directory, IdempotencyLimits.DEFAULT);
+	}
+
+	private UserPointsService start(final PointEventLog log, final Path directory, final IdempotencyLimits idempotencyLimits) throws IOException {
+		final var snapshotStore = new SnapshotStore(directory.resolve("snapshots"), 4096, 2);
+		final var service = new UserPointsService(
+			Optional.of(log),
+			Optional.of(snapshotStore),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.of(idempotencyLimits),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty(),
+			Optional.empty()
+		);
+		service.recover();
+		return service;
+	}
 }
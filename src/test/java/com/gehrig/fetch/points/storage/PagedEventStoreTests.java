@@ -0,0 +1,115 @@
+package com.gehrig.fetch.points.storage;
+
+import com.gehrig.fetch.points.domain.LedgerContext;
+import com.gehrig.fetch.points.domain.PointEvent;
+import com.gehrig.fetch.points.domain.PointEventSequence;
+import com.gehrig.fetch.points.domain.UserPoints;
+import com.gehrig.fetch.points.exception.InvalidDeductionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PagedEventStoreTests {
+
+	@TempDir
+	Path directory;
+
+	private PagedLedgerStorage storage;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		// Deliberately small segments, thus the arena grows many times over
+		this.storage = new PagedLedgerStorage(new MappedPageArena(this.directory, 16 * PageArena.PAGE_BYTES));
+	}
+
+	@AfterEach
+	void tearDown() throws IOException {
+		this.storage.close();
+	}
+
+	@Test
+	public void Should_BookKeepAsHeap_When_EventsOutOfOrder() {
+		final var heap = new UserPoints("bob");
+		final var paged = new UserPoints("bob", LedgerContext.DEFAULT.withStorage(this.storage));
+		final var random = new Random(42);
+
+		// Enough events to split and free many pages, dated both before and after one another
+		for (int i = 0; i < 20_000; i++) {
+			final int operation = random.nextInt(10);
+			if (operation < 6) {
+				final var event = new PointEvent("P" + random.nextInt(5), 1L + random.nextInt(100), random.nextInt(100_000), 0, PointEventSequence.next());
+				heap.addPoints(event);
+				paged.addPoints(event);
+			} else if (operation < 8) {
+				final var event = new PointEvent("P" + random.nextInt(5), -1L - random.nextInt(150), random.nextInt(100_000), 0, PointEventSequence.next());
+				final var expected = heap.addPoints(List.of(event));
+				assertEquals(expected, paged.addPoints(List.of(event)));
+			} else if (operation < 9) {
+				final long points = random.nextInt(300);
+				if (heap.getSnapshot().getTotal() < points) {
+					assertThrows(InvalidDeductionException.class, () -> paged.deletePoints(points));
+				} else {
+					assertEquals(heap.deletePoints(points), paged.deletePoints(points));
+				}
+			} else {
+				final long points = random.nextInt(300);
+				if (heap.getSnapshot().getTotal() >= points) {
+					assertEquals(heap.deletePointsByPayer(points).toString(), paged.deletePointsByPayer(points).toString());
+				}
+			}
+		}
+
+		assertEquals(heap.getPoints(), paged.getPoints());
+		assertEquals(heap.capture(), paged.capture());
+	}
+
+	@Test
+	public void Should_PackSmallRuns_When_UserHasFewEventsPerPayer() {
+		final var paged = new UserPoints("bob", LedgerContext.DEFAULT.withStorage(this.storage));
+		for (int i = 0; i < 12; i++) {
+			paged.addPoints(new PointEvent("P" + (i % 4), 10L, i, 0, PointEventSequence.next()));
+		}
+
+		// Each payer's three events share a small block, rather than each payer occupying a page
+		final long usedBytes = this.storage.getArena().getUsedBytes();
+		assertThat(usedBytes).isEqualTo(4L * PageArena.MIN_BLOCK_BYTES);
+		assertThat(usedBytes / 12).isLessThanOrEqualTo(64L);
+
+		// Runs grow into larger blocks, and shrink back once deducted from
+		for (int i = 0; i < 40; i++) {
+			paged.addPoints(new PointEvent("P0", 10L, 100 + i, 0, PointEventSequence.next()));
+		}
+		assertThat(this.storage.getArena().getUsedBytes()).isEqualTo(3L * PageArena.MIN_BLOCK_BYTES + 2048L);
+		// Leaving P0 alone with 12 events, which fill at most half of a 1 KiB block
+		paged.deletePoints(400L);
+		assertThat(paged.getSnapshot().getTotal()).isEqualTo(120L);
+		assertThat(this.storage.getArena().getUsedBytes()).isEqualTo(1024L);
+	}
+
+	@Test
+	public void Should_FreeEveryPage_When_Released() {
+		final var paged = new UserPoints("bob", LedgerContext.DEFAULT.withStorage(this.storage));
+		for (int i = 0; i < PagedEventStore.RECORDS_PER_PAGE * 10; i++) {
+			paged.addPoints(new PointEvent("P" + (i % 3), 10L, i, 0, PointEventSequence.next()));
+		}
+		assertThat(this.storage.getArena().getUsedBytes()).isGreaterThan(0L);
+
+		// Spending every point frees every page, as does releasing the User
+		paged.deletePoints(paged.getSnapshot().getTotal());
+		assertThat(this.storage.getArena().getUsedBytes()).isZero();
+
+		paged.addPoints(new PointEvent("P0", 10L, 0L, 0, PointEventSequence.next()));
+		paged.release();
+		assertThat(this.storage.getArena().getUsedBytes()).isZero();
+	}
+}
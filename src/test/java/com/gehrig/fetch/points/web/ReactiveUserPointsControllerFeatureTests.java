@@ -0,0 +1,156 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.exception.ReactiveValidationExceptionHandler;
+import com.gehrig.fetch.points.service.ReactiveUserPointsService;
+import com.gehrig.fetch.points.service.UserPointsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.Arrays;
+
+/**
+ * The problem statement, and each route's validation, against the WebFlux endpoints.
+ */
+@ActiveProfiles("reactive")
+// Every test begins without any Users
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ContextConfiguration(classes = {ReactiveUserPointsController.class, ReactiveUserPointsService.class, UserPointsService.class, ReactiveValidationExceptionHandler.class})
+@WebFluxTest
+public class ReactiveUserPointsControllerFeatureTests {
+
+	private static final String USER = "bob";
+	private static final String URI = "/user/" + USER + "/points";
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Test
+	public void Application_Should_SatisfyProblemExample_When_Queried() {
+		final var points = Arrays.asList(
+			this.toJSON("{'payer': 'DANNON', 'points': 300, 'date': '2020-10-31T10:00:00'}"),
+			this.toJSON("{'payer': 'UNILEVER', 'points': 200, 'date': '2020-10-31T11:00:00'}"),
+			this.toJSON("{'payer': 'DANNON', 'points': -200, 'date': '2020-10-31T15:00:00'}"),
+			this.toJSON("{'payer': 'MILLER COORS', 'points': 10000, 'date': '2020-11-01T14:00:00'}"),
+			this.toJSON("{'payer': 'DANNON', 'points': 1000, 'date': '2020-11-02T14:00:00'}")
+		);
+
+		for (final String point : points) {
+			this.post(URI, point).expectStatus().isOk();
+		}
+
+		this.webTestClient.get().uri(URI).exchange()
+			.expectStatus().isOk()
+			.expectBody().json(this.toJSON("""
+				[
+					{'payer':'DANNON','points':1100},
+					{'payer':'UNILEVER','points':200},
+					{'payer':'MILLER COORS','points':10000}
+				]
+			"""));
+
+		this.delete(URI, this.toJSON("{'points': 5000}"))
+			.expectStatus().isOk()
+			.expectBody().json(this.toJSON("""
+				[
+					{'payer':'DANNON','points':-100},
+					{'payer':'UNILEVER','points':-200},
+					{'payer':'MILLER COORS','points':-4700}
+				]
+			"""));
+
+		this.webTestClient.get().uri(URI).exchange()
+			.expectStatus().isOk()
+			.expectBody().json(this.toJSON("""
+				[
+					{'payer':'DANNON','points':1000},
+					{'payer':'UNILEVER','points':0},
+					{'payer':'MILLER COORS','points':5300}
+				]
+			"""));
+	}
+
+	@Test
+	public void Application_Should_ReturnDeductionsByPayer_When_PointsDeletedAggregated() {
+		this.post(URI, this.toJSON("{'payer': 'A', 'points': 100}")).expectStatus().isOk();
+		this.post(URI, this.toJSON("{'payer': 'B', 'points': 200}")).expectStatus().isOk();
+		this.post(URI, this.toJSON("{'payer': 'A', 'points': 300}")).expectStatus().isOk();
+
+		this.delete(URI + "?aggregate=true", this.toJSON("{'points': 500}"))
+			.expectStatus().isOk()
+			.expectBody().json(this.toJSON("""
+				[
+					{'payer':'A','points':-300},
+					{'payer':'B','points':-200}
+				]
+			"""));
+	}
+
+	@Test
+	public void Application_Should_ApplyValidAdditions_When_PointsPostedInBatch() {
+		final var batch = this.toJSON("""
+			{'additions': [
+				{'user': 'bob', 'payer': 'A', 'points': 100},
+				{'user': 'bob', 'payer': 'B', 'points': -1},
+				{'user': '',    'payer': 'A', 'points': 100}
+			]}
+		""");
+
+		this.post("/user/points/batch", batch)
+			.expectStatus().isOk()
+			.expectBody()
+			.jsonPath("$.accepted").isEqualTo(1)
+			.jsonPath("$.rejected").isEqualTo(2)
+			.jsonPath("$.results[0].accepted").isEqualTo(true)
+			.jsonPath("$.results[1].accepted").isEqualTo(false)
+			.jsonPath("$.results[2].errors[0]").isEqualTo("user must not be null or blank");
+	}
+
+	@Test
+	public void Writes_Should_ReturnHTTP400_When_ResultWouldBeNegativeBalance() {
+		this.post(URI, this.toJSON("{'payer': 'A', 'points': -1}")).expectStatus().isBadRequest();
+		this.delete(URI, this.toJSON("{'points': 1}")).expectStatus().isBadRequest();
+	}
+
+	@Test
+	public void AllRoutes_Should_ReturnHTTP400_When_RequestIsInvalid() {
+		final var blankUserURI = "/user/  /points";
+		this.webTestClient.get().uri(blankUserURI).exchange().expectStatus().isBadRequest();
+		this.post(blankUserURI, this.toJSON("{'payer': 'A', 'points': 100}")).expectStatus().isBadRequest();
+		this.delete(blankUserURI, this.toJSON("{'points': 0}")).expectStatus().isBadRequest();
+
+		this.post(URI, this.toJSON("{'payer': '', 'points': 100}"))
+			.expectStatus().isBadRequest()
+			.expectBody().jsonPath("$.errors").isNotEmpty();
+		this.delete(URI, this.toJSON("{'points': -1}")).expectStatus().isBadRequest();
+		this.post("/user/points/batch", this.toJSON("{'additions': []}")).expectStatus().isBadRequest();
+	}
+
+	/*
+		Utility Methods
+	*/
+
+	private WebTestClient.ResponseSpec post(final String uri, final String requestBody) {
+		return this.webTestClient.post().uri(uri)
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(requestBody)
+			.exchange();
+	}
+
+	private WebTestClient.ResponseSpec delete(final String uri, final String requestBody) {
+		return this.webTestClient.method(HttpMethod.DELETE).uri(uri)
+			.contentType(MediaType.APPLICATION_JSON)
+			.bodyValue(requestBody)
+			.exchange();
+	}
+
+	private String toJSON(final String json) {
+		return json.replaceAll("\\s+", "").replaceAll("'", "\"");
+	}
+}
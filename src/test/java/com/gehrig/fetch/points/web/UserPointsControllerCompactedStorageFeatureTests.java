@@ -0,0 +1,13 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.configuration.StorageConfig;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The entire feature suite, against Users whose adjacent events of the same payer are merged by the heap storage engine.
+ */
+@ContextConfiguration(classes = StorageConfig.class)
+@TestPropertySource(properties = "points.storage.compact=true")
+public class UserPointsControllerCompactedStorageFeatureTests extends UserPointsControllerFeatureTests {
+}
@@ -1,15 +1,20 @@
 package com.gehrig.fetch.points.web;
 
+import com.gehrig.fetch.points.configuration.ImportConfig;
+import com.gehrig.fetch.points.configuration.WebMvcConfig;
+import com.gehrig.fetch.points.service.UserPointsImporter;
 import com.gehrig.fetch.points.service.UserPointsService;
-import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
-import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 import org.springframework.test.web.servlet.ResultMatcher;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.web.util.NestedServletException;
@@ -17,13 +22,18 @@ import org.springframework.web.util.NestedServletException;
 import javax.validation.ConstraintViolationException;
 import java.math.BigInteger;
 import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @AutoConfigureMockMvc
-@ContextConfiguration(classes = {UserPointsController.class, UserPointsService.class})
+// Every test begins without any Users
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+@ContextConfiguration(classes = {UserPointsController.class, UserPointsService.class, UserPointsImporter.class, ImportConfig.class, WebMvcConfig.class})
 @WebMvcTest
 public class UserPointsControllerFeatureTests {
 
@@ -36,11 +46,6 @@ public class UserPointsControllerFeatureTests {
 	@Autowired
 	private UserPointsService userPointsService;
 
-	@BeforeEach
-	public void resetUserPointsService() {
-		ReflectionTestUtils.invokeMethod(userPointsService, "resetUsers");
-	}
-
 	/*
 		Base Case Tests
 	*/
@@ -59,6 +64,23 @@ public class UserPointsControllerFeatureTests {
 		this.queryAddPoints(URI, requestBody, status().isOk());
 	}
 
+	@Test
+	public void DeletePoints_Should_RespondSynchronously_Unless_Sharded() throws Exception {
+		this.queryAddPoints(URI, this.toJSON("{'payer': 'A', 'points': 100}"), status().isOk());
+
+		final ResultActions actions = this.mockMvc.perform(
+			MockMvcRequestBuilders.delete(URI)
+				.content(this.toJSON("{'points': 40}"))
+				.contentType(MediaType.APPLICATION_JSON));
+		// Unless sharded, writes have completed by the time they return, thus their response is written straight away.
+		// Sharded writes are only dispatched asynchronously if their writer hasn't yet applied them, which is a race
+		if (!this.userPointsService.isSharded()) {
+			assertThat(actions.andReturn().getRequest().isAsyncStarted()).isFalse();
+		}
+		assertThat(this.dispatch(actions).andExpect(status().isOk()).andReturn().getResponse().getContentAsString())
+			.isEqualTo(this.toJSON("[{'payer': 'A', 'points': -40}]"));
+	}
+
 	/*
 		Feature Test 1 - Problem Statement Example
 	*/
@@ -252,6 +274,67 @@ public class UserPointsControllerFeatureTests {
 		assertThat(responseBody).isEqualTo(expectedBody);
 	}
 
+	@Test
+	public void Application_Should_ReturnDeductionsByPayer_When_PointsDeletedAggregated() throws Exception {
+		final var points = Arrays.asList(
+			this.toJSON("{'payer': 'A', 'points': 111}"),
+			this.toJSON("{'payer': 'B', 'points': 222}"),
+			this.toJSON("{'payer': 'C', 'points': 333}"),
+			this.toJSON("{'payer': 'A', 'points': 1000}"),
+			this.toJSON("{'payer': 'B', 'points': 1000}"),
+			this.toJSON("{'payer': 'C', 'points': 1000}")
+		);
+
+		for (final String point : points) {
+			this.queryAddPoints(URI, point, status().isOk());
+		}
+
+		// One deduction per payer, in the order payers were first deducted from, C being only partially deducted
+		var requestBody = this.toJSON("{'points': 3000}");
+		var responseBody = this.queryDeletePointsResponseBody(URI + "?aggregate=true", requestBody, status().isOk());
+		var expectedBody = this.toJSON("""
+				[
+					{'payer':'A','points':-1111},
+					{'payer':'B','points':-1222},
+					{'payer':'C','points':-667}
+				]
+			""");
+		assertThat(responseBody).isEqualTo(expectedBody);
+
+		responseBody = queryGetPointsResponseBody(URI, status().isOk());
+		expectedBody = this.toJSON("""
+				[
+					{'payer':'A','points':0},
+					{'payer':'B','points':0},
+					{'payer':'C','points':666}
+				]
+			""");
+		assertThat(responseBody).isEqualTo(expectedBody);
+	}
+
+
+	@Test
+	public void Application_Should_ApplyWritesOnce_When_RetriedWithIdempotencyKey() throws Exception {
+		final var point = this.toJSON("{'payer': 'A', 'points': 100, 'date': '2020-01-01T00:00:00.000Z'}");
+		this.queryAddPoints(URI, "add-1", point, status().isOk());
+		this.queryAddPoints(URI, "add-1", point, status().isOk());
+		this.queryAddPoints(URI, this.toJSON("{'payer': 'B', 'points': 50, 'date': '2020-01-02T00:00:00.000Z'}"), status().isOk());
+
+		// A retried deduction responds as originally, even though the events it deducted from have since been consumed
+		final var deduction = this.toJSON("{'points': 120}");
+		final var expectedBody = this.toJSON("[{'payer':'A','points':-100},{'payer':'B','points':-20}]");
+		assertThat(this.queryDeletePointsResponseBody(URI, "delete-1", deduction, status().isOk())).isEqualTo(expectedBody);
+		assertThat(this.queryDeletePointsResponseBody(URI, "delete-1", deduction, status().isOk())).isEqualTo(expectedBody);
+
+		final var responseBody = this.queryGetPointsResponseBody(URI, status().isOk());
+		assertThat(responseBody).isEqualTo(this.toJSON("[{'payer':'A','points':0},{'payer':'B','points':30}]"));
+
+		// Keys may not be reused for a different write
+		this.queryAddPoints(URI, "delete-1", point, status().isUnprocessableEntity());
+		this.queryDeletePointsResponseBody(URI, "delete-1", this.toJSON("{'points': 10}"), status().isUnprocessableEntity());
+		this.queryDeletePointsResponseBody(URI + "?aggregate=true", "delete-1", deduction, status().isUnprocessableEntity());
+	}
+
 
 	/*
 		Feature Test 5 - Ensure order is maintained with out-of-order additions
@@ -313,6 +396,89 @@ public class UserPointsControllerFeatureTests {
 		assertThat(responseBody).isEqualTo(expectedBody);
 	}
 
+	/*
+		Feature Test 6 - Batch additions across Users, accepted or rejected individually
+	*/
+
+	@Test
+	public void Application_Should_ApplyValidAdditions_When_PointsPostedInBatch() throws Exception {
+		final var requestBody = this.toJSON("""
+				{'additions': [
+					{'user': 'bob', 'payer': 'A', 'points': 100, 'date': '2020-01-02T00:00:00Z'},
+					{'user': 'sam', 'payer': 'B', 'points': 50},
+					{'user': 'bob', 'payer': 'A', 'points': -150},
+					{'user': '  ',  'payer': 'A', 'points': 10},
+					null,
+					{'user': 'bob', 'payer': 'C', 'points': 25, 'date': '2020-01-01T00:00:00Z'},
+					{'user': 'bob', 'payer': 'A', 'points': -40}
+				]}
+			""");
+
+		final var responseBody = this.queryAddPointsBatchResponseBody(requestBody, status().isOk());
+		final var expectedBody = this.toJSON("""
+				{'accepted': 4, 'rejected': 3, 'results': [
+					{'index': 0, 'accepted': true,  'errors': []},
+					{'index': 1, 'accepted': true,  'errors': []},
+					{'index': 2, 'accepted': false, 'errors': ['Failed to add [A, -150] to user `bob`, negative payer balance(s) are prohibited']},
+					{'index': 3, 'accepted': false, 'errors': ['user must not be null or blank']},
+					{'index': 4, 'accepted': false, 'errors': ['addition must not be null']},
+					{'index': 5, 'accepted': true,  'errors': []},
+					{'index': 6, 'accepted': true,  'errors': []}
+				]}
+			""");
+		assertThat(this.toJSON(responseBody)).isEqualTo(expectedBody);
+
+		// Additions following a rejected addition are still applied, in order
+		var pointsBody = this.queryGetPointsResponseBody(URI, status().isOk());
+		assertThat(pointsBody).isEqualTo(this.toJSON("[{'payer':'C','points':25},{'payer':'A','points':60}]"));
+		pointsBody = this.queryGetPointsResponseBody("/user/sam/points", status().isOk());
+		assertThat(pointsBody).isEqualTo(this.toJSON("[{'payer':'B','points':50}]"));
+	}
+
+	/*
+		Feature Test 7 - Streaming NDJSON imports, additions rejected individually
+	*/
+
+	@Test
+	public void Application_Should_ImportValidAdditions_When_PointsImported() throws Exception {
+		final var requestBody = String.join("\n",
+			this.toJSON("{'user': 'bob', 'payer': 'A', 'points': 100, 'date': '2020-01-02T00:00:00Z'}"),
+			this.toJSON("{'user': 'sam', 'payer': 'B', 'points': 50}"),
+			this.toJSON("{'user': 'bob', 'payer': 'A', 'points': -150}"),
+			this.toJSON("{'user': 'bob', 'payer': 'A', 'points': 'abc'}"),
+			this.toJSON("{'user': '', 'payer': 'A', 'points': 10}"),
+			this.toJSON("{'user': 'bob', 'payer': 'C', 'points': 25, 'date': '2020-01-01T00:00:00Z'}"),
+			this.toJSON("{'user': 'bob', 'payer': 'A', 'points': -40}")
+		);
+
+		final var responseBody = this.queryImportPointsResponseBody(requestBody, status().isOk());
+		assertThat(this.toJSON(responseBody)).startsWith(this.toJSON("{'accepted': 4, 'rejected': 3, 'errors': ["));
+		assertThat(responseBody)
+			.contains("line 3: Failed to add [A, -150] to user `bob`")
+			.contains("line 4: Cannot deserialize value of type `java.lang.Long`")
+			.contains("line 5: user must not be null or blank");
+
+		var pointsBody = this.queryGetPointsResponseBody(URI, status().isOk());
+		assertThat(pointsBody).isEqualTo(this.toJSON("[{'payer':'C','points':25},{'payer':'A','points':60}]"));
+		pointsBody = this.queryGetPointsResponseBody("/user/sam/points", status().isOk());
+		assertThat(pointsBody).isEqualTo(this.toJSON("[{'payer':'B','points':50}]"));
+	}
+
+	@Test
+	public void PostPointsImport_Should_ReturnHTTP400_When_JSONMalformed() throws Exception {
+		final var requestBody = String.join("\n",
+			this.toJSON("{'user': 'bob', 'payer': 'A', 'points': 100}"),
+			this.toJSON("{'user': 'bob', 'payer': 'A', 'points': 100"),
+			this.toJSON("{'user': 'bob', 'payer': 'A', 'points': 100}")
+		);
+
+		this.queryImportPointsResponseBody(requestBody, status().isBadRequest());
+
+		// Additions preceding the malformed JSON remain imported
+		final var pointsBody = this.queryGetPointsResponseBody(URI, status().isOk());
+		assertThat(pointsBody).isEqualTo(this.toJSON("[{'payer':'A','points':100}]"));
+	}
+
 	/*
 		Sad Path Tests
 	*/
@@ -433,12 +599,31 @@ public class UserPointsControllerFeatureTests {
 		}
 	}
 
+	@Test
+	public void PostPointsBatch_Should_ReturnHTTP400_When_RequestBodyIsInvalid() throws Exception {
+		final var tooManyAdditions = IntStream.range(0, 10_001)
+			.mapToObj(i -> "{'user': 'bob', 'payer': 'A', 'points': 1}")
+			.collect(Collectors.joining(",", "{'additions': [", "]}"));
+
+		var invalidRequestBodies = Arrays.asList(
+			this.toJSON("{}"),
+			this.toJSON("{'additions': null}"),
+			this.toJSON("{'additions': []}"),
+			this.toJSON("{'additions': {'user': 'bob'}}"),
+			this.toJSON(tooManyAdditions)
+		);
+
+		for (final String invalidRequestBody : invalidRequestBodies) {
+			this.queryAddPointsBatchResponseBody(invalidRequestBody, status().isBadRequest());
+		}
+	}
+
 	/*
 		Utility Methods
 	*/
 
 	private String queryGetPointsResponseBody(final String uri, final ResultMatcher status) throws Exception {
-		return mockMvc.perform(MockMvcRequestBuilders.get(uri))
+		return this.perform(MockMvcRequestBuilders.get(uri))
 			.andExpect(status)
 			.andReturn()
 			.getResponse()
@@ -446,8 +631,19 @@ public class UserPointsControllerFeatureTests {
 	}
 
 	private void queryAddPoints(final String uri, final String requestBody, final ResultMatcher status) throws Exception {
-		mockMvc.perform(
+		this.perform(
+			MockMvcRequestBuilders.post(uri)
+				.content(requestBody)
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status)
+			.andReturn()
+			;
+	}
+
+	private void queryAddPoints(final String uri, final String idempotencyKey, final String requestBody, final ResultMatcher status) throws Exception {
+		this.perform(
 			MockMvcRequestBuilders.post(uri)
+				.header("Idempotency-Key", idempotencyKey)
 				.content(requestBody)
 				.contentType(MediaType.APPLICATION_JSON))
 			.andExpect(status)
@@ -455,9 +651,43 @@ public class UserPointsControllerFeatureTests {
 			;
 	}
 
+	private String queryAddPointsBatchResponseBody(final String requestBody, final ResultMatcher status) throws Exception {
+		return this.perform(
+			MockMvcRequestBuilders.post("/user/points/batch")
+				.content(requestBody)
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status)
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+	}
+
+	private String queryImportPointsResponseBody(final String requestBody, final ResultMatcher status) throws Exception {
+		return this.perform(
+			MockMvcRequestBuilders.post("/user/points/import")
+				.content(requestBody)
+				.contentType(UserPointsController.NDJSON_VALUE))
+			.andExpect(status)
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+	}
+
 	private String queryDeletePointsResponseBody(final String uri, final String requestBody, final ResultMatcher status) throws Exception {
-		return mockMvc.perform(
+		return this.perform(
+			MockMvcRequestBuilders.delete(uri)
+				.content(requestBody)
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status)
+			.andReturn()
+			.getResponse()
+			.getContentAsString();
+	}
+
+	private String queryDeletePointsResponseBody(final String uri, final String idempotencyKey, final String requestBody, final ResultMatcher status) throws Exception {
+		return this.perform(
 			MockMvcRequestBuilders.delete(uri)
+				.header("Idempotency-Key", idempotencyKey)
 				.content(requestBody)
 				.contentType(MediaType.APPLICATION_JSON))
 			.andExpect(status)
@@ -466,6 +696,18 @@ public class UserPointsControllerFeatureTests {
 			.getContentAsString();
 	}
 
+	// Writes are handled asynchronously, thus their result must be dispatched before it can be inspected
+	private ResultActions perform(final RequestBuilder request) throws Exception {
+		return this.dispatch(this.mockMvc.perform(request));
+	}
+
+	private ResultActions dispatch(final ResultActions actions) throws Exception {
+		final MvcResult result = actions.andReturn();
+		return result.getRequest().isAsyncStarted()
+			? this.mockMvc.perform(asyncDispatch(result))
+			: actions;
+	}
+
 	private String toJSON(final String json) {
 		return json.replaceAll("\\s+", "").replaceAll("'", "\"");
 	}
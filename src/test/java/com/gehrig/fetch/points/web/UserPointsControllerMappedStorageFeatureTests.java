@@ -0,0 +1,13 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.configuration.StorageConfig;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The entire feature suite, against Users whose events are held by the mapped storage engine.
+ */
+@ContextConfiguration(classes = StorageConfig.class)
+@TestPropertySource(properties = {"points.storage.engine=mapped", "points.storage.directory=target/feature-tests/events"})
+public class UserPointsControllerMappedStorageFeatureTests extends UserPointsControllerFeatureTests {
+}
@@ -0,0 +1,13 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.configuration.StorageConfig;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The entire feature suite, against Users whose events are held by the off-heap storage engine.
+ */
+@ContextConfiguration(classes = StorageConfig.class)
+@TestPropertySource(properties = "points.storage.engine=off-heap")
+public class UserPointsControllerOffHeapStorageFeatureTests extends UserPointsControllerFeatureTests {
+}
@@ -0,0 +1,13 @@
+package com.gehrig.fetch.points.web;
+
+import com.gehrig.fetch.points.configuration.ExecutionConfig;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * The entire feature suite, against Users written by the sharded execution mode.
+ */
+@ContextConfiguration(classes = ExecutionConfig.class)
+@TestPropertySource(properties = {"points.execution.mode=sharded", "points.execution.shards=2"})
+public class UserPointsControllerShardedFeatureTests extends UserPointsControllerFeatureTests {
+}